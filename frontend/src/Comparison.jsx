@@ -3,6 +3,7 @@ import React, { useState, useEffect } from 'react';
 function Comparison() {
     const [prompt, setPrompt] = useState('');
     const [responses, setResponses] = useState({});
+    const [diagnostics, setDiagnostics] = useState({});
     const [isLoading, setIsLoading] = useState(false);
     const [errorMessage, setErrorMessage] = useState('');
     const deployments = ['openAI', 'mistral', 'deepseek'];
@@ -21,6 +22,7 @@ function Comparison() {
 
         setIsLoading(true);
         setResponses({}); // Clear previous responses
+        setDiagnostics({});
         setCurrentDeploymentIndex(0); // Reset the index
     };
 
@@ -49,6 +51,7 @@ function Comparison() {
                         input: prompt,
                         temperature: 0.7,
                         deployment: deployment,
+                        diagnostics: true,
                     }),
                 });
 
@@ -62,6 +65,10 @@ function Comparison() {
                     ...prevResponses,
                     [deployment]: data.response,
                 }));
+                setDiagnostics((prevDiagnostics) => ({
+                    ...prevDiagnostics,
+                    [deployment]: data.diagnostics,
+                }));
                 setCurrentDeploymentIndex((prevIndex) => prevIndex + 1);
             } catch (error) {
                 console.error(`Error comparing ${deployment}:`, error);
@@ -102,6 +109,11 @@ function Comparison() {
                                 <p>No response yet.</p>
                             )}
                         </div>
+                        {diagnostics[deployment] && (
+                            <div className="response-diagnostics">
+                                {formatDiagnostics(diagnostics[deployment])}
+                            </div>
+                        )}
                     </div>
                 ))}
             </div>
@@ -109,4 +121,13 @@ function Comparison() {
     );
 }
 
+function formatDiagnostics(diagnostics) {
+    const call = diagnostics.llmCalls && diagnostics.llmCalls[0];
+    const tokens = call && call.promptTokens != null
+        ? ` · ${call.promptTokens} prompt / ${call.completionTokens} completion tokens`
+        : '';
+    const model = call && call.model ? ` · ${call.model}` : '';
+    return `${Math.round(diagnostics.totalMs)} ms${tokens}${model}`;
+}
+
 export default Comparison;
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.epam.training.gen.ai.configuration;
+
+import com.epam.training.gen.ai.embedding.EmbeddingProvider;
+import com.epam.training.gen.ai.model.EmbeddingModel;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes the model of the configured {@link EmbeddingProvider}, so that the vector stores can size
+ * their indexes and record which model their vectors come from without depending on the provider.
+ */
+@Configuration
+public class EmbeddingConfiguration {
+
+    @Bean
+    public EmbeddingModel embeddingModel(EmbeddingProvider embeddingProvider) {
+        return embeddingProvider.model();
+    }
+}
@@ -2,16 +2,25 @@ package com.epam.training.gen.ai.configuration;
 
 import io.qdrant.client.QdrantClient;
 import io.qdrant.client.QdrantGrpcClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@ConditionalOnProperty(name = "vector-store.type", havingValue = "qdrant", matchIfMissing = true)
 public class QDrantConfiguration {
 
+    @Value("${qdrant.host:localhost}")
+    private String host;
+
+    @Value("${qdrant.grpc-port:6334}")
+    private int grpcPort;
+
     @Bean
     public QdrantClient qdrantClient() {
         return new QdrantClient(QdrantGrpcClient.newBuilder(
-                "localhost", 6334, false)
+                host, grpcPort, false)
                 .build());
     }
 
@@ -0,0 +1,24 @@
+package com.epam.training.gen.ai.configuration;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Span exporters in addition to the OTLP exporter that Spring Boot creates when
+ * {@code management.otlp.tracing.endpoint} is set.
+ */
+@Configuration
+public class TracingConfiguration {
+
+    /**
+     * Writes every finished span to the log, for local debugging without a collector.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tracing.log-spans", havingValue = "true")
+    public SpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
@@ -2,6 +2,7 @@ package com.epam.training.gen.ai.controller;
 
 import com.epam.training.gen.ai.model.ChatRequest;
 import com.epam.training.gen.ai.model.ChatResponse;
+import com.epam.training.gen.ai.model.ResponseDiagnostics;
 import com.epam.training.gen.ai.service.ChatBotService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -41,10 +42,24 @@ public class ChatBotController {
             }
             // Default to "openAI" if deployment is not provided
             String deployment = request.getDeployment() == null ? "openAI" : request.getDeployment();
+            if (request.isDiagnostics()) {
+                return ResponseEntity.ok(chatWithDiagnostics(request, deployment));
+            }
             String response = chatBotService.getChatBotResponse(request.getInput(), request.getTemperature(), deployment);
             return ResponseEntity.ok(new ChatResponse(response, null));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new ChatResponse(null, "An error occurred: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+
+    private ChatResponse chatWithDiagnostics(ChatRequest request, String deployment) {
+        ResponseDiagnostics diagnostics = new ResponseDiagnostics();
+        long start = System.nanoTime();
+        String response = chatBotService.getChatBotResponse(request.getInput(), request.getTemperature(), deployment, diagnostics);
+        diagnostics.setDeployment(deployment);
+        diagnostics.setTotalMs(ResponseDiagnostics.millis(System.nanoTime() - start));
+        ChatResponse chatResponse = new ChatResponse(response, null);
+        chatResponse.setDiagnostics(diagnostics);
+        return chatResponse;
+    }
+}
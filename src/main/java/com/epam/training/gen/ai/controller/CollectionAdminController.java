@@ -0,0 +1,111 @@
+package com.epam.training.gen.ai.controller;
+
+import com.epam.training.gen.ai.model.CollectionSpec;
+import com.epam.training.gen.ai.model.ReindexJob;
+import com.epam.training.gen.ai.service.CollectionLifecycleService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Admin API for the versioned Qdrant collections: create one with new index parameters, reindex
+ * into it in the background and switch the search alias to it.
+ */
+@RestController
+@CrossOrigin(origins = "http://localhost:5173")
+@RequestMapping("/admin/collections")
+@ConditionalOnProperty(name = "vector-store.type", havingValue = "qdrant", matchIfMissing = true)
+@Slf4j
+public class CollectionAdminController {
+
+    private final CollectionLifecycleService lifecycleService;
+
+    @Autowired
+    public CollectionAdminController(CollectionLifecycleService lifecycleService) {
+        this.lifecycleService = lifecycleService;
+    }
+
+    @GetMapping
+    public ResponseEntity<?> status() {
+        try {
+            return ResponseEntity.ok(lifecycleService.status());
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    /**
+     * Creates the next collection version. With {@code reindex} the response is the started
+     * {@link ReindexJob}, otherwise the collection overview.
+     */
+    @PostMapping
+    public ResponseEntity<?> create(@RequestBody CollectionSpec spec) {
+        try {
+            String collection = lifecycleService.create(spec);
+            if (spec.isReindex()) {
+                return ResponseEntity.accepted().body(lifecycleService.reindex(collection, spec.isReembed(), spec.isActivate()));
+            }
+            return ResponseEntity.status(HttpStatus.CREATED).body(lifecycleService.status());
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @PostMapping("/{name}/reindex")
+    public ResponseEntity<?> reindex(@PathVariable String name,
+                                     @RequestParam(defaultValue = "false") boolean reembed,
+                                     @RequestParam(defaultValue = "false") boolean activate) {
+        try {
+            return ResponseEntity.accepted().body(lifecycleService.reindex(name, reembed, activate));
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @PostMapping("/{name}/activate")
+    public ResponseEntity<?> activate(@PathVariable String name,
+                                      @RequestParam(defaultValue = "false") boolean dropLegacy) {
+        try {
+            lifecycleService.activate(name, dropLegacy);
+            return ResponseEntity.ok(lifecycleService.status());
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @DeleteMapping("/{name}")
+    public ResponseEntity<?> delete(@PathVariable String name) {
+        try {
+            lifecycleService.delete(name);
+            return ResponseEntity.ok(lifecycleService.status());
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    @GetMapping("/jobs")
+    public ResponseEntity<?> jobs() {
+        return ResponseEntity.ok(lifecycleService.jobs());
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ReindexJob> job(@PathVariable String id) {
+        return lifecycleService.job(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static ResponseEntity<String> error(Exception e) {
+        if (e instanceof IllegalStateException || e instanceof IllegalArgumentException) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+        if (e instanceof InterruptedException) {
+            Thread.currentThread().interrupt();
+        }
+        log.error("Collection admin request failed: {}", e.getMessage(), e);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred: " + e.getMessage());
+    }
+}
@@ -1,16 +1,23 @@
 package com.epam.training.gen.ai.controller;
 
-import com.azure.ai.openai.models.EmbeddingItem;
+import com.epam.training.gen.ai.model.BatchSearchRequest;
+import com.epam.training.gen.ai.model.BatchSearchResult;
 import com.epam.training.gen.ai.model.EmbeddingRequest;
 import com.epam.training.gen.ai.model.EmbeddingResponse;
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.model.SearchBenchmarkRequest;
+import com.epam.training.gen.ai.model.SearchFilter;
 import com.epam.training.gen.ai.model.SearchResult;
 import com.epam.training.gen.ai.service.EmbeddingService;
+import com.epam.training.gen.ai.service.SearchBenchmarkService;
+import com.epam.training.gen.ai.store.SearchProfiles;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
@@ -20,11 +27,17 @@ import java.util.concurrent.ExecutionException;
 @Slf4j
 public class EmbeddingController {
 
+    static final int MAX_BATCH_QUERIES = 10_000;
+
     private final EmbeddingService embeddingService;
+    private final SearchProfiles searchProfiles;
+    private final SearchBenchmarkService searchBenchmarkService;
 
     @Autowired
-    public EmbeddingController(EmbeddingService embeddingService) {
+    public EmbeddingController(EmbeddingService embeddingService, SearchProfiles searchProfiles, SearchBenchmarkService searchBenchmarkService) {
         this.embeddingService = embeddingService;
+        this.searchProfiles = searchProfiles;
+        this.searchBenchmarkService = searchBenchmarkService;
     }
 
     @PostMapping("/build")
@@ -34,7 +47,7 @@ public class EmbeddingController {
                 return ResponseEntity.badRequest()
                         .body(new EmbeddingResponse(null, "Input text cannot be empty."));
             }
-            List<EmbeddingItem> embedding = embeddingService.buildEmbedding(request.getText());
+            List<EmbeddingVector> embedding = embeddingService.buildEmbedding(request.getText());
             if (embedding.isEmpty()) {
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new EmbeddingResponse(null, "Failed to generate embedding."));
             }
@@ -67,8 +80,11 @@ public class EmbeddingController {
                 return ResponseEntity.badRequest().body("Input text cannot be empty.");
             }
             // Use the new method that retrieves text
-            List<SearchResult> similarTexts = embeddingService.searchSimilarText(request.getText(), request.getLimit());
+            List<SearchResult> similarTexts = embeddingService.searchSimilarText(request.getText(), request.getLimit(),
+                    SearchFilter.all(), false, searchProfiles.resolve(request.getSearchProfile()));
             return ResponseEntity.ok(similarTexts); // Return the list directly
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (ExecutionException | InterruptedException e) {
             log.error("Search failed: {}", e.getMessage(), e);
             Thread.currentThread().interrupt();
@@ -80,6 +96,62 @@ public class EmbeddingController {
         }
     }
 
+    /**
+     * Searches with many query texts at once: the texts are embedded in batched embeddings requests
+     * and the vector store runs the searches in batched requests too.
+     */
+    @PostMapping("/search/batch")
+    public ResponseEntity<?> searchBatch(@RequestBody BatchSearchRequest request) {
+        try {
+            List<String> texts = request.getTexts();
+            if (texts == null || texts.isEmpty() || texts.stream().anyMatch(text -> text == null || text.trim().isEmpty())) {
+                return ResponseEntity.badRequest().body("Input texts cannot be empty.");
+            }
+            if (texts.size() > MAX_BATCH_QUERIES) {
+                return ResponseEntity.badRequest().body("At most " + MAX_BATCH_QUERIES + " texts can be searched at once.");
+            }
+            SearchFilter filter = request.getSourceFilenames() == null || request.getSourceFilenames().isEmpty()
+                    ? SearchFilter.all()
+                    : SearchFilter.forFiles(request.getSourceFilenames());
+            List<List<SearchResult>> results = embeddingService.searchSimilarTexts(texts, request.getLimit(), filter, false,
+                    searchProfiles.resolve(request.getSearchProfile()));
+
+            List<BatchSearchResult> response = new ArrayList<>(texts.size());
+            for (int i = 0; i < texts.size(); i++) {
+                response.add(new BatchSearchResult(texts.get(i), results.get(i)));
+            }
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Batch search failed: {}", e.getMessage(), e);
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred during search: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Batch search failed unexpectedly: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An unexpected error occurred: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sweeps {@code hnsw_ef} over the given queries and reports latency and recall against exact search.
+     */
+    @PostMapping("/search/benchmark")
+    public ResponseEntity<?> benchmarkSearch(@RequestBody SearchBenchmarkRequest request) {
+        try {
+            return ResponseEntity.ok(searchBenchmarkService.run(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ExecutionException | InterruptedException e) {
+            log.error("Search benchmark failed: {}", e.getMessage(), e);
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An error occurred during the benchmark: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Search benchmark failed unexpectedly: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("An unexpected error occurred: " + e.getMessage());
+        }
+    }
+
 
 
 }
@@ -2,6 +2,7 @@ package com.epam.training.gen.ai.controller;
 
 import com.epam.training.gen.ai.model.ChatRequest;
 import com.epam.training.gen.ai.model.ChatResponse;
+import com.epam.training.gen.ai.model.SearchFilter;
 import com.epam.training.gen.ai.service.RagService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -44,23 +46,46 @@ public class RagController {
         }
         String deployment = request.getDeployment() == null ? "openAI" : request.getDeployment();
         Double temperature = request.getTemperature()== null ? defaultTemperature : request.getTemperature();
-        String sourceFilename = request.getSourceFilename();
-        log.info("Received RAG query: '{}', Deployment: {}, Temp: {}, SourceFile: {}",
-                request.getInput(), deployment, temperature, sourceFilename == null ? "N/A" : sourceFilename);
+        SearchFilter filter = searchFilter(request);
+        log.info("Received RAG query: '{}', Deployment: {}, Temp: {}, SourceFiles: {}",
+                request.getInput(), deployment, temperature, filter == null ? "N/A" : filter);
 
         try {
             ChatResponse response = ragService.answerQuestion(
                     request.getInput(),
                     deployment,
                     temperature,
-                    sourceFilename
+                    filter,
+                    request.getSearchProfile(),
+                    request.isDiagnostics()
             );
             return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ChatResponse(null, e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body(new ChatResponse(null, "An unexpected error occurred: " + e.getMessage()));
         }
     }
 
+    /**
+     * Builds the retrieval filter of a request: the named files, all documents, or null for a plain chat.
+     * The page range, if any, applies to the selected files.
+     */
+    static SearchFilter searchFilter(ChatRequest request) {
+        List<String> filenames = new ArrayList<>();
+        if (request.getSourceFilename() != null) {
+            filenames.add(request.getSourceFilename());
+        }
+        if (request.getSourceFilenames() != null) {
+            filenames.addAll(request.getSourceFilenames());
+        }
+        SearchFilter filter = SearchFilter.forFiles(filenames);
+        if (!filter.isAllDocuments() || request.isSearchAllDocuments()) {
+            return filter.withPages(request.getPageFrom(), request.getPageTo());
+        }
+        return null;
+    }
+
     @PostMapping("/upload")
     public ResponseEntity<String> uploadDocument(@RequestParam("file") MultipartFile file) {
         if (file.isEmpty()) {
@@ -0,0 +1,79 @@
+package com.epam.training.gen.ai.embedding;
+
+import com.azure.ai.openai.OpenAIAsyncClient;
+import com.azure.core.http.rest.RequestOptions;
+import com.azure.core.http.rest.Response;
+import com.azure.core.util.BinaryData;
+import com.epam.training.gen.ai.metrics.RagMetrics;
+import com.epam.training.gen.ai.model.EmbeddingModel;
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.util.EmbeddingsJson;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link EmbeddingProvider} calling an Azure OpenAI embeddings deployment.
+ * <p>
+ * Uses the raw embeddings endpoint of the client and parses the base64 response straight into
+ * {@code float[]}, skipping the SDK's boxed {@code List<Float>} representation.
+ */
+@Component
+@ConditionalOnProperty(name = "embedding.provider", havingValue = "azure", matchIfMissing = true)
+@Slf4j
+public class AzureOpenAiEmbeddingProvider implements EmbeddingProvider {
+
+    private final OpenAIAsyncClient openAIAsyncClient;
+    private final String deployment;
+    private final EmbeddingModel model;
+    private final RagMetrics metrics;
+
+    public AzureOpenAiEmbeddingProvider(OpenAIAsyncClient openAIAsyncClient,
+                                        @Value("${embedding.openai.deployment}") String deployment,
+                                        @Value("${embedding.openai.dimension:1536}") int dimension,
+                                        RagMetrics metrics) {
+        this.openAIAsyncClient = openAIAsyncClient;
+        this.metrics = metrics;
+        this.deployment = deployment;
+        this.model = new EmbeddingModel("azure:" + deployment, dimension);
+    }
+
+    @Override
+    public EmbeddingModel model() {
+        return model;
+    }
+
+    @Override
+    public List<EmbeddingVector> embed(List<String> texts) {
+        String textChunk = texts.get(0);
+        String textChunksubstring = textChunk.substring(0, Math.min(textChunk.length(), 50));
+        try {
+            BinaryData request = BinaryData.fromBytes(EmbeddingsJson.writeRequest(texts));
+            Response<BinaryData> response = openAIAsyncClient.getEmbeddingsWithResponse(deployment, request, new RequestOptions()).block();
+
+            if (response == null || response.getValue() == null) {
+                log.warn("No embeddings returned from OpenAI API for text chunk starting with: '{}...'", textChunksubstring);
+                return Collections.emptyList();
+            }
+
+            List<EmbeddingVector> embeddings;
+            try (InputStream body = response.getValue().toStream()) {
+                embeddings = EmbeddingsJson.readResponse(body);
+            }
+            if (embeddings.isEmpty()) {
+                log.warn("No embeddings returned from OpenAI API for text chunk starting with: '{}...'", textChunksubstring);
+            }
+            return embeddings;
+
+        } catch (Exception e) {
+            metrics.recordEmbeddingError(model.getId(), e);
+            log.error("Error while generating embedding for text chunk starting with '{}...': {}", textChunksubstring, e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+}
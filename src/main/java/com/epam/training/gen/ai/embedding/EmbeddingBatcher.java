@@ -0,0 +1,175 @@
+package com.epam.training.gen.ai.embedding;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Groups the texts of concurrent embedding requests into model batches run on a fixed thread pool.
+ * <p>
+ * A dispatcher thread waits for a free worker, then collects queued texts until the batch is full or
+ * the batch wait has passed since the first one. While all workers are busy, texts keep queueing,
+ * so batches grow with the load instead of each request running its own small batch.
+ */
+@Slf4j
+class EmbeddingBatcher implements AutoCloseable {
+
+    private final Function<List<String>, List<float[]>> model;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Semaphore idleWorkers;
+    private final ExecutorService workers;
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    /**
+     * @param model         Embeds one batch of texts, one vector per text in order.
+     * @param maxBatchSize  The maximum number of texts per model call.
+     * @param maxWaitMillis How long to wait for more texts once the first one of a batch arrived.
+     * @param threads       The number of model calls run in parallel.
+     */
+    EmbeddingBatcher(Function<List<String>, List<float[]>> model, int maxBatchSize, long maxWaitMillis, int threads) {
+        this.model = model;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMillis));
+        this.idleWorkers = new Semaphore(threads);
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "embedding-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatch, "embedding-batcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Embeds the texts, possibly in batches together with texts of other callers.
+     *
+     * @return One vector per text, in order.
+     * @throws CompletionException If a model call failed.
+     */
+    List<float[]> embed(List<String> texts) {
+        List<CompletableFuture<float[]>> futures = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            Pending pending = new Pending(text);
+            futures.add(pending.result);
+            queue.add(pending);
+        }
+        if (closed) {
+            // close() may have drained the queue before these texts arrived
+            failQueued();
+        }
+        List<float[]> vectors = new ArrayList<>(texts.size());
+        for (CompletableFuture<float[]> future : futures) {
+            vectors.add(future.join());
+        }
+        return vectors;
+    }
+
+    private void dispatch() {
+        List<Pending> batch = List.of();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                idleWorkers.acquire();
+                batch = new ArrayList<>(maxBatchSize);
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxWaitNanos;
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                while (batch.size() < maxBatchSize) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+                workers.execute(new BatchTask(batch));
+                batch = List.of();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException e) {
+            // closed between collecting the batch and handing it over
+        }
+        fail(batch);
+    }
+
+    private void run(List<Pending> batch) {
+        try {
+            List<String> texts = new ArrayList<>(batch.size());
+            batch.forEach(pending -> texts.add(pending.text));
+            List<float[]> vectors = model.apply(texts);
+            if (vectors.size() != batch.size()) {
+                throw new IllegalStateException("Got " + vectors.size() + " embeddings for " + batch.size() + " texts");
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(vectors.get(i));
+            }
+            log.debug("Embedded a batch of {} texts", batch.size());
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+        } finally {
+            idleWorkers.release();
+        }
+    }
+
+    /**
+     * Stops the batcher. Texts still queued, collected or waiting for a worker fail, so that no
+     * caller of {@link #embed} waits forever; batches already running complete.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.interrupt();
+        for (Runnable dropped : workers.shutdownNow()) {
+            fail(((BatchTask) dropped).batch);
+        }
+        failQueued();
+    }
+
+    private void failQueued() {
+        List<Pending> queued = new ArrayList<>();
+        queue.drainTo(queued);
+        fail(queued);
+    }
+
+    private static void fail(List<Pending> batch) {
+        IllegalStateException error = new IllegalStateException("Embedding batcher is closed");
+        batch.forEach(pending -> pending.result.completeExceptionally(error));
+    }
+
+    private final class BatchTask implements Runnable {
+        private final List<Pending> batch;
+
+        private BatchTask(List<Pending> batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void run() {
+            EmbeddingBatcher.this.run(batch);
+        }
+    }
+
+    private static final class Pending {
+        private final String text;
+        private final CompletableFuture<float[]> result = new CompletableFuture<>();
+
+        private Pending(String text) {
+            this.text = text;
+        }
+    }
+}
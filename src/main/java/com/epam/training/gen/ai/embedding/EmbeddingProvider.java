@@ -0,0 +1,25 @@
+package com.epam.training.gen.ai.embedding;
+
+import com.epam.training.gen.ai.model.EmbeddingModel;
+import com.epam.training.gen.ai.model.EmbeddingVector;
+
+import java.util.List;
+
+/**
+ * Turns texts into embedding vectors. The implementation is selected with {@code embedding.provider}.
+ */
+public interface EmbeddingProvider {
+
+    /**
+     * The model the vectors come from, recorded by the vector stores.
+     */
+    EmbeddingModel model();
+
+    /**
+     * Embeds the texts.
+     *
+     * @param texts The texts to embed.
+     * @return One embedding per text ordered by prompt index, or an empty list if embedding failed.
+     */
+    List<EmbeddingVector> embed(List<String> texts);
+}
@@ -0,0 +1,202 @@
+package com.epam.training.gen.ai.embedding;
+
+import ai.onnxruntime.NodeInfo;
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import ai.onnxruntime.TensorInfo;
+import com.epam.training.gen.ai.model.EmbeddingModel;
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.store.VectorMath;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link EmbeddingProvider} running a sentence-transformer model exported to ONNX on the local CPU,
+ * so neither ingestion nor queries need a network call.
+ * <p>
+ * Texts are tokenized with the model's WordPiece vocabulary, the token embeddings are mean-pooled
+ * over the attention mask and normalised. Texts of concurrent requests are batched together by an
+ * {@link EmbeddingBatcher} with one worker per core; each model call uses a single intra-op thread
+ * so that parallel batches don't compete for cores.
+ * <p>
+ * The model only reads the first {@code embedding.onnx.max-tokens} tokens of a text. Longer texts,
+ * e.g. chunks of the default 5000 characters, are truncated with a warning, so the chunk size
+ * should stay below about four characters per token.
+ */
+@Component
+@ConditionalOnProperty(name = "embedding.provider", havingValue = "onnx")
+@Slf4j
+public class OnnxEmbeddingProvider implements EmbeddingProvider {
+
+    private static final String INPUT_IDS = "input_ids";
+    private static final String ATTENTION_MASK = "attention_mask";
+    private static final String TOKEN_TYPE_IDS = "token_type_ids";
+
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final WordPieceTokenizer tokenizer;
+    private final int maxTokens;
+    private final boolean tokenTypeInput;
+    private final EmbeddingModel model;
+    private final EmbeddingBatcher batcher;
+
+    public OnnxEmbeddingProvider(@Value("${embedding.onnx.model-path}") String modelPath,
+                                 @Value("${embedding.onnx.vocab-path}") String vocabPath,
+                                 @Value("${embedding.onnx.model-name:}") String modelName,
+                                 @Value("${embedding.onnx.lowercase:true}") boolean lowercase,
+                                 @Value("${embedding.onnx.max-tokens:256}") int maxTokens,
+                                 @Value("${embedding.onnx.batch-size:32}") int batchSize,
+                                 @Value("${embedding.onnx.batch-wait-ms:2}") long batchWaitMillis,
+                                 @Value("${embedding.onnx.threads:0}") int threads) throws OrtException, IOException {
+        this.environment = OrtEnvironment.getEnvironment();
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+        options.setIntraOpNumThreads(1);
+        options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+        this.session = environment.createSession(modelPath, options);
+        this.tokenizer = WordPieceTokenizer.load(Path.of(vocabPath), lowercase);
+        this.maxTokens = maxTokens;
+        this.tokenTypeInput = session.getInputNames().contains(TOKEN_TYPE_IDS);
+        this.model = new EmbeddingModel("onnx:" + (StringUtils.hasText(modelName) ? modelName : defaultModelName(modelPath)),
+                outputDimension(session));
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.batcher = new EmbeddingBatcher(this::infer, batchSize, batchWaitMillis, workers);
+        log.info("Loaded ONNX embedding model {} ({} dimensions, {} workers, batches of up to {})",
+                model.getId(), model.getDimension(), workers, batchSize);
+    }
+
+    @Override
+    public EmbeddingModel model() {
+        return model;
+    }
+
+    @Override
+    public List<EmbeddingVector> embed(List<String> texts) {
+        try {
+            List<float[]> vectors = batcher.embed(texts);
+            List<EmbeddingVector> embeddings = new ArrayList<>(vectors.size());
+            for (int i = 0; i < vectors.size(); i++) {
+                embeddings.add(new EmbeddingVector(i, vectors.get(i)));
+            }
+            return embeddings;
+        } catch (RuntimeException e) {
+            log.error("Error while embedding {} texts with {}: {}", texts.size(), model.getId(), e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+
+    private List<float[]> infer(List<String> texts) {
+        long[][] ids = new long[texts.size()][];
+        int length = 0;
+        for (int i = 0; i < texts.size(); i++) {
+            // one token more than the model takes tells whether the text had to be cut
+            ids[i] = tokenizer.encode(texts.get(i), maxTokens + 1);
+            if (ids[i].length > maxTokens) {
+                log.warn("Text of {} characters starting with '{}...' is longer than the {} tokens of {}, only its start is embedded",
+                        texts.get(i).length(), texts.get(i).substring(0, Math.min(texts.get(i).length(), 50)), maxTokens, model.getId());
+                long sep = ids[i][ids[i].length - 1];
+                ids[i] = Arrays.copyOf(ids[i], maxTokens);
+                ids[i][maxTokens - 1] = sep;
+            }
+            length = Math.max(length, ids[i].length);
+        }
+        long[][] inputIds = new long[texts.size()][length];
+        long[][] attentionMask = new long[texts.size()][length];
+        for (int i = 0; i < texts.size(); i++) {
+            System.arraycopy(ids[i], 0, inputIds[i], 0, ids[i].length);
+            for (int token = 0; token < ids[i].length; token++) {
+                attentionMask[i][token] = 1;
+            }
+        }
+
+        try (OnnxTensor idsTensor = OnnxTensor.createTensor(environment, inputIds);
+             OnnxTensor maskTensor = OnnxTensor.createTensor(environment, attentionMask);
+             OnnxTensor typesTensor = tokenTypeInput ? OnnxTensor.createTensor(environment, new long[texts.size()][length]) : null) {
+            Map<String, OnnxTensor> inputs = new HashMap<>();
+            inputs.put(INPUT_IDS, idsTensor);
+            inputs.put(ATTENTION_MASK, maskTensor);
+            if (typesTensor != null) {
+                inputs.put(TOKEN_TYPE_IDS, typesTensor);
+            }
+            try (OrtSession.Result result = session.run(inputs)) {
+                Object output = result.get(0).getValue();
+                List<float[]> vectors = new ArrayList<>(texts.size());
+                for (int i = 0; i < texts.size(); i++) {
+                    float[] vector = output instanceof float[][][] tokens
+                            ? meanPool(tokens[i], attentionMask[i])
+                            : ((float[][]) output)[i];
+                    vectors.add(VectorMath.normalize(vector));
+                }
+                return vectors;
+            }
+        } catch (OrtException e) {
+            throw new IllegalStateException("ONNX inference failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Averages the token embeddings of the non-padding tokens.
+     */
+    static float[] meanPool(float[][] tokens, long[] mask) {
+        float[] pooled = new float[tokens[0].length];
+        int count = 0;
+        for (int token = 0; token < tokens.length; token++) {
+            if (mask[token] == 0) {
+                continue;
+            }
+            for (int d = 0; d < pooled.length; d++) {
+                pooled[d] += tokens[token][d];
+            }
+            count++;
+        }
+        for (int d = 0; d < pooled.length; d++) {
+            pooled[d] /= Math.max(count, 1);
+        }
+        return pooled;
+    }
+
+    /**
+     * Reads the embedding size from the first output, token embeddings or already pooled ones.
+     */
+    private static int outputDimension(OrtSession session) throws OrtException {
+        NodeInfo output = session.getOutputInfo().values().iterator().next();
+        long[] shape = ((TensorInfo) output.getInfo()).getShape();
+        long dimension = shape[shape.length - 1];
+        if (dimension <= 0) {
+            throw new IllegalStateException("Cannot read the embedding size of output " + output.getName());
+        }
+        return (int) dimension;
+    }
+
+    /**
+     * The model directory and file name, e.g. {@code all-MiniLM-L6-v2/model.onnx}, since exported
+     * models are usually all called {@code model.onnx}.
+     */
+    private static String defaultModelName(String modelPath) {
+        Path path = Path.of(modelPath).toAbsolutePath().normalize();
+        Path parent = path.getParent();
+        return parent == null || parent.getFileName() == null
+                ? path.getFileName().toString()
+                : parent.getFileName() + "/" + path.getFileName();
+    }
+
+    @PreDestroy
+    public void close() throws OrtException {
+        batcher.close();
+        session.close();
+    }
+}
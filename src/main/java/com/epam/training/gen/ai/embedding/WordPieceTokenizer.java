@@ -0,0 +1,205 @@
+package com.epam.training.gen.ai.embedding;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BERT WordPiece tokenizer, as used by the sentence-transformer models exported to ONNX.
+ * <p>
+ * Text is cleaned, optionally lowercased with accents stripped, split on whitespace and punctuation,
+ * and every word is split greedily into the longest vocabulary entries, continuation pieces carrying
+ * the {@code ##} prefix. Words that cannot be split become {@code [UNK]}.
+ */
+public class WordPieceTokenizer {
+
+    static final String CLS = "[CLS]";
+    static final String SEP = "[SEP]";
+    static final String UNK = "[UNK]";
+    private static final String CONTINUATION = "##";
+    private static final int MAX_WORD_LENGTH = 100;
+
+    private final Map<String, Integer> vocabulary;
+    private final boolean lowercase;
+    private final int clsId;
+    private final int sepId;
+    private final int unkId;
+
+    /**
+     * @param vocabulary The token of every ID, in ID order.
+     * @param lowercase  Whether the model is uncased.
+     */
+    public WordPieceTokenizer(List<String> vocabulary, boolean lowercase) {
+        this.vocabulary = new HashMap<>(vocabulary.size() * 2);
+        for (int id = 0; id < vocabulary.size(); id++) {
+            this.vocabulary.putIfAbsent(vocabulary.get(id), id);
+        }
+        this.lowercase = lowercase;
+        this.clsId = requireToken(CLS);
+        this.sepId = requireToken(SEP);
+        this.unkId = requireToken(UNK);
+    }
+
+    /**
+     * Reads a {@code vocab.txt} with one token per line.
+     */
+    public static WordPieceTokenizer load(Path vocabFile, boolean lowercase) throws IOException {
+        try (Reader reader = Files.newBufferedReader(vocabFile, StandardCharsets.UTF_8)) {
+            return new WordPieceTokenizer(new BufferedReader(reader).lines().toList(), lowercase);
+        }
+    }
+
+    /**
+     * Encodes a text as model input: {@code [CLS]}, the token IDs and {@code [SEP]}.
+     *
+     * @param text      The text to encode.
+     * @param maxTokens The maximum length including the special tokens; longer texts are truncated.
+     * @return The token IDs.
+     */
+    public long[] encode(String text, int maxTokens) {
+        List<Integer> ids = new ArrayList<>();
+        ids.add(clsId);
+        for (String word : basicTokens(text)) {
+            if (ids.size() >= maxTokens - 1) {
+                break;
+            }
+            wordPieces(word, ids);
+        }
+        int length = Math.min(ids.size(), maxTokens - 1);
+        long[] encoded = new long[length + 1];
+        for (int i = 0; i < length; i++) {
+            encoded[i] = ids.get(i);
+        }
+        encoded[length] = sepId;
+        return encoded;
+    }
+
+    /**
+     * Splits a text into words and punctuation marks.
+     */
+    List<String> basicTokens(String text) {
+        if (lowercase) {
+            text = stripAccents(text.toLowerCase());
+        }
+        List<String> tokens = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (codePoint == 0 || codePoint == 0xFFFD || isControl(codePoint)) {
+                continue;
+            }
+            if (Character.isWhitespace(codePoint) || Character.isSpaceChar(codePoint)) {
+                flush(word, tokens);
+            } else if (isPunctuation(codePoint) || isCjk(codePoint)) {
+                flush(word, tokens);
+                tokens.add(new String(Character.toChars(codePoint)));
+            } else {
+                word.appendCodePoint(codePoint);
+            }
+        }
+        flush(word, tokens);
+        return tokens;
+    }
+
+    private void wordPieces(String word, List<Integer> ids) {
+        if (word.length() > MAX_WORD_LENGTH) {
+            ids.add(unkId);
+            return;
+        }
+        List<Integer> pieces = new ArrayList<>();
+        int start = 0;
+        while (start < word.length()) {
+            Integer piece = null;
+            int end = word.length();
+            while (end > start) {
+                String candidate = start == 0 ? word.substring(start, end) : CONTINUATION + word.substring(start, end);
+                piece = vocabulary.get(candidate);
+                if (piece != null) {
+                    break;
+                }
+                end--;
+            }
+            if (piece == null) {
+                ids.add(unkId);
+                return;
+            }
+            pieces.add(piece);
+            start = end;
+        }
+        ids.addAll(pieces);
+    }
+
+    private int requireToken(String token) {
+        Integer id = vocabulary.get(token);
+        if (id == null) {
+            throw new IllegalArgumentException("Vocabulary has no " + token + " token");
+        }
+        return id;
+    }
+
+    private static void flush(StringBuilder word, List<String> tokens) {
+        if (!word.isEmpty()) {
+            tokens.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static String stripAccents(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder stripped = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                stripped.append(c);
+            }
+        }
+        return stripped.toString();
+    }
+
+    private static boolean isControl(int codePoint) {
+        if (codePoint == '\t' || codePoint == '\n' || codePoint == '\r') {
+            return false;
+        }
+        int type = Character.getType(codePoint);
+        return type == Character.CONTROL || type == Character.FORMAT;
+    }
+
+    /**
+     * BERT treats all non-alphanumeric ASCII characters as punctuation, plus the Unicode punctuation classes.
+     */
+    private static boolean isPunctuation(int codePoint) {
+        if ((codePoint >= 33 && codePoint <= 47) || (codePoint >= 58 && codePoint <= 64)
+                || (codePoint >= 91 && codePoint <= 96) || (codePoint >= 123 && codePoint <= 126)) {
+            return true;
+        }
+        switch (Character.getType(codePoint)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isCjk(int codePoint) {
+        return (codePoint >= 0x4E00 && codePoint <= 0x9FFF) || (codePoint >= 0x3400 && codePoint <= 0x4DBF)
+                || (codePoint >= 0x20000 && codePoint <= 0x2A6DF) || (codePoint >= 0x2A700 && codePoint <= 0x2B81F)
+                || (codePoint >= 0x2B820 && codePoint <= 0x2CEAF) || (codePoint >= 0xF900 && codePoint <= 0xFAFF)
+                || (codePoint >= 0x2F800 && codePoint <= 0x2FA1F);
+    }
+}
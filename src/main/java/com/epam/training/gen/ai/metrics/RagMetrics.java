@@ -0,0 +1,171 @@
+package com.epam.training.gen.ai.metrics;
+
+import com.azure.core.exception.HttpResponseException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Micrometer meters of the ingestion, retrieval and chat paths, exported at
+ * {@code /actuator/prometheus}.
+ * <p>
+ * All timers and distribution summaries publish percentile histograms, so that percentiles can be
+ * aggregated across instances and time windows on the server side instead of being fixed here.
+ * Meters are looked up by name and tags on every call; the registry returns the existing meter.
+ */
+@Component
+public class RagMetrics {
+
+    static final String EXTRACTION = "rag.extraction.duration";
+    static final String EXTRACTION_PER_PAGE = "rag.extraction.page.duration";
+    static final String DOCUMENT_PAGES = "rag.document.pages";
+    static final String DOCUMENT_CHUNKS = "rag.document.chunks";
+    static final String DOCUMENT_CHUNKS_EMBEDDED = "rag.document.chunks.embedded";
+    static final String NEAR_DUPLICATE_SIMILARITY = "rag.document.chunks.near_duplicate.similarity";
+    static final String EMBEDDING = "rag.embedding.duration";
+    static final String EMBEDDING_BATCH_SIZE = "rag.embedding.batch.size";
+    static final String EMBEDDING_ERRORS = "rag.embedding.errors";
+    static final String VECTOR_STORE = "rag.vectorstore.duration";
+    static final String LLM = "rag.llm.duration";
+    static final String LLM_TOKENS = "rag.llm.tokens";
+    static final String LLM_ERRORS = "rag.llm.errors";
+
+    private final MeterRegistry registry;
+
+    public RagMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Records the text extraction of one document, in total and per page.
+     *
+     * @param pages The number of pages, or 0 for formats without pages.
+     */
+    public void recordExtraction(String documentType, int pages, long nanos) {
+        timer(EXTRACTION, "document_type", documentType).record(nanos, TimeUnit.NANOSECONDS);
+        if (pages > 0) {
+            timer(EXTRACTION_PER_PAGE, "document_type", documentType).record(nanos / pages, TimeUnit.NANOSECONDS);
+            summary(DOCUMENT_PAGES, "document_type", documentType).record(pages);
+        }
+    }
+
+    /**
+     * Records how many chunks a document was split into and how many of them had to be embedded.
+     */
+    public void recordChunks(String documentType, int chunks, int embedded) {
+        summary(DOCUMENT_CHUNKS, "document_type", documentType).record(chunks);
+        summary(DOCUMENT_CHUNKS_EMBEDDED, "document_type", documentType).record(embedded);
+    }
+
+    /**
+     * Records a chunk that was not embedded because a stored chunk is nearly the same, with the
+     * estimated similarity of the two; the count of the summary is the number of such chunks.
+     */
+    public void recordNearDuplicate(double similarity) {
+        registry.summary(NEAR_DUPLICATE_SIMILARITY).record(similarity);
+    }
+
+    /**
+     * Records one embedding call.
+     *
+     * @param success Whether the call returned one embedding per text.
+     */
+    public void recordEmbedding(String model, int batchSize, long nanos, boolean success) {
+        timer(EMBEDDING, "model", model, "outcome", success ? "success" : "failure").record(nanos, TimeUnit.NANOSECONDS);
+        summary(EMBEDDING_BATCH_SIZE, "model", model).record(batchSize);
+    }
+
+    /**
+     * Counts a failed embedding request by HTTP status, so that throttling (429) stands out.
+     */
+    public void recordEmbeddingError(String model, Throwable error) {
+        counter(EMBEDDING_ERRORS, "model", model, "status", status(error)).increment();
+    }
+
+    /**
+     * Times a vector store operation.
+     *
+     * @param store     The store implementation, e.g. {@code qdrant}.
+     * @param operation The operation, e.g. {@code upsert} or {@code search}.
+     */
+    public <T> T timeVectorStore(String store, String operation, StoreCall<T> call) throws ExecutionException, InterruptedException {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            T result = call.run();
+            outcome = "success";
+            return result;
+        } finally {
+            timer(VECTOR_STORE, "store", store, "operation", operation, "outcome", outcome)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Records one chat completion call.
+     *
+     * @param stage      What the call was for: {@code rewrite}, {@code hyde}, {@code answer} or {@code chat}.
+     * @param deployment The chat deployment.
+     * @param outcome    {@code success}, {@code empty} or {@code failure}.
+     */
+    public void recordLlmCall(String stage, String deployment, long nanos, String outcome) {
+        timer(LLM, "stage", stage, "deployment", deployment, "outcome", outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the token usage reported for one chat completion call.
+     */
+    public void recordTokens(String stage, String deployment, int promptTokens, int completionTokens) {
+        summary(LLM_TOKENS, "stage", stage, "deployment", deployment, "type", "prompt").record(promptTokens);
+        summary(LLM_TOKENS, "stage", stage, "deployment", deployment, "type", "completion").record(completionTokens);
+    }
+
+    /**
+     * Counts a failed chat completion call by HTTP status, so that throttling (429) stands out.
+     */
+    public void recordLlmError(String stage, String deployment, Throwable error) {
+        counter(LLM_ERRORS, "stage", stage, "deployment", deployment, "status", status(error)).increment();
+    }
+
+    /**
+     * The HTTP status of the first {@link HttpResponseException} in the cause chain, or {@code none}.
+     */
+    static String status(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof HttpResponseException httpError && httpError.getResponse() != null) {
+                return String.valueOf(httpError.getResponse().getStatusCode());
+            }
+        }
+        return "none";
+    }
+
+    private Timer timer(String name, String... tags) {
+        return Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private DistributionSummary summary(String name, String... tags) {
+        return DistributionSummary.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter counter(String name, String... tags) {
+        return Counter.builder(name)
+                .tags(tags)
+                .register(registry);
+    }
+
+    @FunctionalInterface
+    public interface StoreCall<T> {
+        T run() throws ExecutionException, InterruptedException;
+    }
+}
@@ -0,0 +1,51 @@
+package com.epam.training.gen.ai.metrics;
+
+import com.epam.training.gen.ai.model.SearchResult;
+import io.micrometer.observation.Observation;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Runs RAG steps inside Micrometer observations. With the OpenTelemetry bridge on the classpath
+ * every observation becomes a span, nested under the observation that is open on the calling thread.
+ * <p>
+ * Low cardinality key values (deployment, stage, store) are also used as metric tags; counts, token
+ * usage and scores are added as high cardinality key values, which only end up on the span.
+ */
+public final class Spans {
+
+    private Spans() {
+    }
+
+    /**
+     * Runs the step with the observation started and in scope, marking it as failed when the step throws.
+     */
+    public static <T> T observe(Observation observation, Step<T> step) throws ExecutionException, InterruptedException {
+        observation.start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return step.run();
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    /**
+     * Adds the number of results and the best score to the observation.
+     */
+    public static void results(Observation observation, List<SearchResult> results) {
+        observation.highCardinalityKeyValue("results", String.valueOf(results.size()));
+        if (!results.isEmpty()) {
+            observation.highCardinalityKeyValue("score.top", String.valueOf(results.get(0).getScore()));
+            observation.highCardinalityKeyValue("score.last", String.valueOf(results.get(results.size() - 1).getScore()));
+        }
+    }
+
+    @FunctionalInterface
+    public interface Step<T> {
+        T run() throws ExecutionException, InterruptedException;
+    }
+}
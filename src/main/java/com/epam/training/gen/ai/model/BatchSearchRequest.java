@@ -0,0 +1,26 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Several query texts searched with the same limit, files and search profile.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchRequest {
+    private List<String> texts;
+    private int limit = 3;
+    /**
+     * The files to search in; null or empty for all documents.
+     */
+    private List<String> sourceFilenames;
+    /**
+     * Name of the search profile of {@code vector-store.search.profiles}; null for the default profile.
+     */
+    private String searchProfile;
+}
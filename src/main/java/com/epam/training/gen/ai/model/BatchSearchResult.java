@@ -0,0 +1,18 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The matches of one query text of a {@link BatchSearchRequest}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchSearchResult {
+    private String text;
+    private List<SearchResult> results;
+}
@@ -4,6 +4,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -12,6 +14,27 @@ public class ChatRequest {
     private Double temperature;
     private String deployment;
     private String sourceFilename;
+    /**
+     * Additional files to retrieve from, combined with {@code sourceFilename}.
+     */
+    private List<String> sourceFilenames;
+    /**
+     * Retrieve from every ingested document when no filename is given.
+     */
+    private boolean searchAllDocuments;
+    /**
+     * Optional, inclusive page range; only chunks overlapping these pages are retrieved.
+     */
+    private Integer pageFrom;
+    private Integer pageTo;
+    /**
+     * Name of the search profile of {@code vector-store.search.profiles}; null for the default profile.
+     */
+    private String searchProfile;
+    /**
+     * Return per-stage timings, token usage and retrieval scores with the response.
+     */
+    private boolean diagnostics;
 
 
     public ChatRequest(String input) {
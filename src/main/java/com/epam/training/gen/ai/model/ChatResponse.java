@@ -1,13 +1,39 @@
 package com.epam.training.gen.ai.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ChatResponse {
     private String response;
     private String error;
-}
\ No newline at end of file
+
+    /**
+     * The sources the answer's {@code [n]} markers refer to; left out for answers without retrieval.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Citation> citations;
+
+    /**
+     * Per-stage timings, token usage and retrieval scores; only set when the request asked for them.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ResponseDiagnostics diagnostics;
+
+    public ChatResponse(String response, String error) {
+        this.response = response;
+        this.error = error;
+    }
+
+    public ChatResponse(String response, String error, List<Citation> citations) {
+        this.response = response;
+        this.error = error;
+        this.citations = citations;
+    }
+}
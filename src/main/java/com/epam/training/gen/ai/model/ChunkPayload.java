@@ -0,0 +1,71 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Payload stored alongside each chunk vector in the vector store.
+ * <p>
+ * {@code documentType} (e.g. {@code pdf}) and {@code ingestedAt} (epoch milliseconds) are written to
+ * indexed Qdrant payload fields; the in-process stores only keep the text, source filename and
+ * position. The position is the 1-based page range of the chunk (null for documents without pages)
+ * and its character offsets in the extracted document text.
+ * <p>
+ * A chunk that several documents share, e.g. boilerplate merged as a near duplicate, keeps the
+ * filename and position of the document that stored it first; {@code otherSourceFilenames} lists
+ * the other documents, so searches restricted to one of them find it too.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkPayload {
+    private String text;
+    private String sourceFilename;
+    private String documentType;
+    private Long ingestedAt;
+    private Integer pageStart;
+    private Integer pageEnd;
+    private Integer charStart;
+    private Integer charEnd;
+    private List<String> otherSourceFilenames = List.of();
+
+    public ChunkPayload(String text, String sourceFilename) {
+        this.text = text;
+        this.sourceFilename = sourceFilename;
+    }
+
+    public ChunkPayload(String text, String sourceFilename, String documentType, Long ingestedAt) {
+        this(text, sourceFilename);
+        this.documentType = documentType;
+        this.ingestedAt = ingestedAt;
+    }
+
+    /**
+     * Sets the page range and character offsets of the chunk.
+     *
+     * @return This payload.
+     */
+    public ChunkPayload withPosition(Integer pageStart, Integer pageEnd, Integer charStart, Integer charEnd) {
+        this.pageStart = pageStart;
+        this.pageEnd = pageEnd;
+        this.charStart = charStart;
+        this.charEnd = charEnd;
+        return this;
+    }
+
+    /**
+     * The source filename followed by the other documents referencing the chunk.
+     */
+    public List<String> sourceFilenames() {
+        List<String> filenames = new ArrayList<>(1 + otherSourceFilenames.size());
+        if (sourceFilename != null) {
+            filenames.add(sourceFilename);
+        }
+        filenames.addAll(otherSourceFilenames);
+        return filenames;
+    }
+}
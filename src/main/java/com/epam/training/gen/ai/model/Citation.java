@@ -0,0 +1,23 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A source passage used to answer a RAG question. {@code index} is the {@code [n]} marker the
+ * answer refers to; pages are 1-based and null for documents without pages, and the character
+ * offsets locate the chunk in the extracted document text.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Citation {
+    private int index;
+    private String sourceFilename;
+    private Integer pageStart;
+    private Integer pageEnd;
+    private Integer charStart;
+    private Integer charEnd;
+    private String snippet;
+}
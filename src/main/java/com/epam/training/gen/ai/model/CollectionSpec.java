@@ -0,0 +1,57 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Index parameters of a new versioned Qdrant collection and what to do with it once created.
+ * Unset index parameters fall back to {@code vector-store.qdrant.collection.*}, then to the Qdrant
+ * defaults and the configured quantization.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionSpec {
+    /**
+     * HNSW edges per node.
+     */
+    private Integer m;
+    /**
+     * HNSW candidate list size while building the graph.
+     */
+    private Integer efConstruct;
+    /**
+     * Filtered searches matching fewer points (in KB of vectors) use a full scan instead of the graph.
+     */
+    private Integer fullScanThreshold;
+    /**
+     * Store the HNSW graph on disk instead of in memory.
+     */
+    private Boolean hnswOnDisk;
+    /**
+     * Keep the original vectors in memory-mapped files instead of RAM.
+     */
+    private Boolean vectorsOnDisk;
+    /**
+     * Keep payloads on disk instead of RAM.
+     */
+    private Boolean payloadOnDisk;
+    /**
+     * {@code none}, {@code scalar} or {@code binary}; null keeps {@code vector-store.quantization.type}.
+     */
+    private String quantization;
+    /**
+     * Copy the points of the active collection into the new one in the background.
+     */
+    private boolean reindex;
+    /**
+     * Embed the chunk texts again instead of copying the stored vectors, e.g. after an embedding
+     * model change.
+     */
+    private boolean reembed;
+    /**
+     * Point the alias at the new collection once the reindex has completed.
+     */
+    private boolean activate;
+}
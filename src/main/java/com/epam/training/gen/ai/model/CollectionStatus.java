@@ -0,0 +1,20 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The collections behind the search alias: which one the alias points to and the versioned ones
+ * that exist next to it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollectionStatus {
+    private String alias;
+    private String activeCollection;
+    private List<String> collections;
+}
@@ -0,0 +1,21 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The chunks stored for one version of an ingested document. {@code version} starts at 1 and is
+ * incremented on every re-ingest; {@code ingestedAt} is in epoch milliseconds.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DocumentManifest {
+    private String sourceFilename;
+    private int version;
+    private long ingestedAt;
+    private List<String> chunkIds;
+}
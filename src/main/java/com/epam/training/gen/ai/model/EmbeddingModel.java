@@ -0,0 +1,26 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Identifies the model that produced a set of vectors. Vector stores record it with their data and
+ * refuse to mix vectors of different models, whose similarity scores are meaningless to compare.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbeddingModel {
+
+    /**
+     * The Azure OpenAI model all vectors were embedded with before the model was recorded.
+     */
+    public static final EmbeddingModel ADA_002 = new EmbeddingModel("azure:text-embedding-ada-002", 1536);
+
+    /**
+     * Provider and model name, e.g. {@code azure:text-embedding-ada-002}.
+     */
+    private String id;
+    private int dimension;
+}
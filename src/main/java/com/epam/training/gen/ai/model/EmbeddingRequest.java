@@ -11,5 +11,9 @@ public class EmbeddingRequest {
 
     private String text;
     private int limit = 3;
+    /**
+     * Name of the search profile of {@code vector-store.search.profiles}; null for the default profile.
+     */
+    private String searchProfile;
 
 }
\ No newline at end of file
@@ -1,6 +1,5 @@
 package com.epam.training.gen.ai.model;
 
-import com.azure.ai.openai.models.EmbeddingItem;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,7 +11,7 @@ import java.util.List;
 @AllArgsConstructor
 public class EmbeddingResponse {
 
-    private List<EmbeddingItem> embedding;
+    private List<EmbeddingVector> embedding;
     private String error;
 
 }
\ No newline at end of file
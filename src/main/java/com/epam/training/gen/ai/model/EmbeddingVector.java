@@ -0,0 +1,23 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An embedding returned by the embeddings API, kept as a primitive {@code float[]} from the response
+ * parser through to the vector store so its 1,536 components are never boxed.
+ * <p>
+ * The array is shared, not copied; callers must not modify it after handing it on.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbeddingVector {
+    private int promptIndex;
+    private float[] embedding;
+
+    public int dimension() {
+        return embedding == null ? 0 : embedding.length;
+    }
+}
@@ -0,0 +1,44 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Arrays;
+
+/**
+ * Text extracted from an uploaded document together with where each page starts in it.
+ * <p>
+ * {@code pageOffsets[i]} is the character offset at which page {@code i + 1} starts. Formats without
+ * fixed pages (DOCX) have no page offsets.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExtractedDocument {
+    private String text;
+    private int[] pageOffsets;
+
+    public boolean hasPages() {
+        return pageOffsets != null && pageOffsets.length > 0;
+    }
+
+    /**
+     * The 1-based page containing the given character offset, or null when the document has no pages.
+     */
+    public Integer pageAt(int charOffset) {
+        if (!hasPages()) {
+            return null;
+        }
+        int index = Arrays.binarySearch(pageOffsets, charOffset);
+        if (index < 0) {
+            index = -index - 2;
+        } else {
+            // Empty pages share their offset with the next page; a character belongs to the last of them.
+            while (index + 1 < pageOffsets.length && pageOffsets[index + 1] == charOffset) {
+                index++;
+            }
+        }
+        return Math.max(0, index) + 1;
+    }
+}
@@ -0,0 +1,25 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One chat completion call of a request. Token counts are null when the deployment did not
+ * report usage, and calls served from the prompt cache have no tokens and {@code cached} set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LlmCallUsage {
+    private String stage;
+    private String deployment;
+    /**
+     * The model ID of the chat completion service behind the deployment.
+     */
+    private String model;
+    private double durationMs;
+    private Integer promptTokens;
+    private Integer completionTokens;
+    private boolean cached;
+}
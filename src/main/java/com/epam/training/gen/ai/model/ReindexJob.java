@@ -0,0 +1,24 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Progress of a background copy of the points of one collection into another. {@code status} is
+ * {@code RUNNING}, {@code SUCCESS} or {@code FAILED}; times are in epoch milliseconds.
+ */
+@Data
+@NoArgsConstructor
+public class ReindexJob {
+    private String id;
+    private String sourceCollection;
+    private String targetCollection;
+    private boolean reembed;
+    private boolean activate;
+    private String status;
+    private long total;
+    private long copied;
+    private long startedAt;
+    private Long finishedAt;
+    private String error;
+}
@@ -0,0 +1,41 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing and usage of a single chat or RAG request, returned when the request sets
+ * {@code diagnostics}. Stages are listed in execution order; durations are in milliseconds.
+ */
+@Data
+public class ResponseDiagnostics {
+    /**
+     * The deployment that produced the answer.
+     */
+    private String deployment;
+    private double totalMs;
+    private Map<String, Double> stageMs = new LinkedHashMap<>();
+    private List<LlmCallUsage> llmCalls = new ArrayList<>();
+    private List<RetrievedChunk> retrievedChunks = new ArrayList<>();
+    private int cacheHits;
+
+    public void addStage(String stage, long nanos) {
+        stageMs.merge(stage, millis(nanos), Double::sum);
+    }
+
+    public void addLlmCall(LlmCallUsage call) {
+        llmCalls.add(call);
+        if (call.isCached()) {
+            cacheHits++;
+        }
+    }
+
+    public static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,19 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chunk returned by retrieval, before context compression, with its fused or similarity score.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetrievedChunk {
+    private String uuid;
+    private String sourceFilename;
+    private Integer pageStart;
+    private Integer pageEnd;
+    private float score;
+}
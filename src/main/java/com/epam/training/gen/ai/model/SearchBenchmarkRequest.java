@@ -0,0 +1,27 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Queries and {@code hnsw_ef} values for a recall/latency sweep against exact search.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchBenchmarkRequest {
+    private List<String> queries;
+    private int limit = 10;
+    private List<Integer> hnswEf = List.of(16, 32, 64, 128, 256);
+    /**
+     * Timed searches per query and {@code hnsw_ef} value.
+     */
+    private int repetitions = 3;
+    /**
+     * The profile whose other settings (rescoring, oversampling) the sweep keeps; null for the default.
+     */
+    private String searchProfile;
+}
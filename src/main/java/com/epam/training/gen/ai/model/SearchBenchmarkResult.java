@@ -0,0 +1,33 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Latency and recall@limit of every swept {@code hnsw_ef} value, measured against exact search.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchBenchmarkResult {
+    private int queries;
+    private int limit;
+    private double exactMeanLatencyMs;
+    private List<EfMeasurement> measurements;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class EfMeasurement {
+        private int hnswEf;
+        private double meanLatencyMs;
+        private double p95LatencyMs;
+        /**
+         * The share of the exact top results that were found, averaged over the queries.
+         */
+        private double recall;
+    }
+}
@@ -0,0 +1,106 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.util.StringUtils;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Restricts a search to chunks from a set of source files. An empty set searches all documents.
+ * <p>
+ * An optional, inclusive page range further restricts the search to chunks overlapping those pages;
+ * chunks without pages (e.g. from DOCX files) never match a page range.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchFilter {
+
+    private Set<String> sourceFilenames = Collections.emptySet();
+    private Integer pageFrom;
+    private Integer pageTo;
+
+    /**
+     * A filter matching every stored chunk.
+     */
+    public static SearchFilter all() {
+        return new SearchFilter();
+    }
+
+    /**
+     * A filter for a single file, or for all documents when the filename is blank.
+     */
+    public static SearchFilter forFile(String sourceFilename) {
+        return StringUtils.hasText(sourceFilename) ? forFiles(Set.of(sourceFilename)) : all();
+    }
+
+    /**
+     * A filter for the given files; blank names are ignored.
+     */
+    public static SearchFilter forFiles(Collection<String> sourceFilenames) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : sourceFilenames) {
+            if (StringUtils.hasText(name)) {
+                names.add(name);
+            }
+        }
+        return new SearchFilter(Collections.unmodifiableSet(names), null, null);
+    }
+
+    /**
+     * Restricts this filter to chunks overlapping the inclusive page range; either bound may be null.
+     *
+     * @return This filter.
+     */
+    public SearchFilter withPages(Integer pageFrom, Integer pageTo) {
+        this.pageFrom = pageFrom;
+        this.pageTo = pageTo;
+        return this;
+    }
+
+    /**
+     * Whether the filter matches chunks from every source file. A page range may still apply.
+     */
+    public boolean isAllDocuments() {
+        return sourceFilenames == null || sourceFilenames.isEmpty();
+    }
+
+    public boolean hasPageRange() {
+        return pageFrom != null || pageTo != null;
+    }
+
+    public boolean matches(String sourceFilename) {
+        return isAllDocuments() || sourceFilenames.contains(sourceFilename);
+    }
+
+    /**
+     * Whether a chunk spanning the given pages overlaps the page range. Non-positive pages mean the
+     * chunk has no page information.
+     */
+    public boolean matchesPages(int pageStart, int pageEnd) {
+        if (!hasPageRange()) {
+            return true;
+        }
+        return pageStart > 0
+                && (pageFrom == null || pageEnd >= pageFrom)
+                && (pageTo == null || pageStart <= pageTo);
+    }
+
+    public boolean matchesPages(Integer pageStart, Integer pageEnd) {
+        return matchesPages(pageStart == null ? 0 : pageStart, pageEnd == null ? 0 : pageEnd);
+    }
+
+    @Override
+    public String toString() {
+        String files = isAllDocuments() ? "all documents" : String.join(", ", sourceFilenames);
+        if (!hasPageRange()) {
+            return files;
+        }
+        return files + " (pages " + (pageFrom == null ? "" : pageFrom) + "-" + (pageTo == null ? "" : pageTo) + ")";
+    }
+}
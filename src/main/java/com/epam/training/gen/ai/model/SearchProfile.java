@@ -0,0 +1,56 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How a vector search trades recall for latency. Unset values use the settings of the vector store
+ * ({@code vector-store.hnsw.ef-search}, {@code vector-store.quantization.*}).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchProfile {
+    private String name;
+    /**
+     * Size of the HNSW candidate list while searching; larger finds more true neighbours but is slower.
+     */
+    private Integer hnswEf;
+    /**
+     * Compare the query with every stored vector instead of walking the HNSW graph or using quantized vectors.
+     */
+    private boolean exact;
+    /**
+     * Re-rank candidates found on quantized vectors with the original vectors.
+     */
+    private Boolean rescore;
+    /**
+     * Candidates fetched per result before rescoring.
+     */
+    private Double oversampling;
+
+    /**
+     * A profile that leaves every setting to the vector store.
+     */
+    public static SearchProfile storeDefaults() {
+        return new SearchProfile();
+    }
+
+    /**
+     * An exact search, the ground truth for recall measurements.
+     */
+    public static SearchProfile exactSearch() {
+        SearchProfile profile = new SearchProfile();
+        profile.setName("exact");
+        profile.setExact(true);
+        return profile;
+    }
+
+    /**
+     * A copy of this profile with another HNSW candidate list size.
+     */
+    public SearchProfile withHnswEf(int hnswEf) {
+        return new SearchProfile(name, hnswEf, exact, rescore, oversampling);
+    }
+}
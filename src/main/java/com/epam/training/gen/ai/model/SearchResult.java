@@ -1,8 +1,10 @@
 package com.epam.training.gen.ai.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.With;
 
 import java.util.List;
 
@@ -12,7 +14,45 @@ import java.util.List;
 public class SearchResult {
     private float score;
     private String uuid;
+    @With
     private String text;
     private List<Float> embeddingPoints;
     private String sourceFilename;
-}
\ No newline at end of file
+
+    /**
+     * The stored embedding, only filled when the search asked for vectors (e.g. for MMR re-ranking).
+     */
+    @JsonIgnore
+    private float[] vector;
+
+    /**
+     * Where the chunk came from: 1-based pages (null when the document has none) and character
+     * offsets in the extracted document text (null for chunks stored before positions were kept).
+     */
+    private Integer pageStart;
+    private Integer pageEnd;
+    private Integer charStart;
+    private Integer charEnd;
+
+    /**
+     * The other documents sharing this chunk besides {@code sourceFilename}; empty for most chunks.
+     */
+    private List<String> otherSourceFilenames = List.of();
+
+    public SearchResult(float score, String uuid, String text, List<Float> embeddingPoints, String sourceFilename) {
+        this(score, uuid, text, embeddingPoints, sourceFilename, null);
+    }
+
+    public SearchResult(float score, String uuid, String text, List<Float> embeddingPoints, String sourceFilename, float[] vector) {
+        this(score, uuid, text, embeddingPoints, sourceFilename, vector, null, null, null, null, List.of());
+    }
+
+    /**
+     * A result carrying the text, source filenames and position of a stored payload.
+     */
+    public SearchResult(float score, String uuid, ChunkPayload payload) {
+        this(score, uuid, payload.getText(), null, payload.getSourceFilename(), null,
+                payload.getPageStart(), payload.getPageEnd(), payload.getCharStart(), payload.getCharEnd(),
+                payload.getOtherSourceFilenames());
+    }
+}
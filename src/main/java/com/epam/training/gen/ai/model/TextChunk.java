@@ -0,0 +1,19 @@
+package com.epam.training.gen.ai.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chunk of extracted text with its position in the document text. {@code charStart} is
+ * inclusive and {@code charEnd} exclusive, and both point at the trimmed chunk text, so
+ * {@code documentText.substring(charStart, charEnd)} equals {@code text}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TextChunk {
+    private String text;
+    private int charStart;
+    private int charEnd;
+}
@@ -1,6 +1,10 @@
 package com.epam.training.gen.ai.service;
 
 
+import com.azure.ai.openai.models.CompletionsUsage;
+import com.epam.training.gen.ai.metrics.RagMetrics;
+import com.epam.training.gen.ai.model.LlmCallUsage;
+import com.epam.training.gen.ai.model.ResponseDiagnostics;
 import com.microsoft.semantickernel.Kernel;
 import com.microsoft.semantickernel.orchestration.InvocationContext;
 import com.microsoft.semantickernel.orchestration.InvocationReturnMode;
@@ -11,6 +15,8 @@ import com.microsoft.semantickernel.services.chatcompletion.AuthorRole;
 import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
 import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
 import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -34,6 +40,10 @@ public class ChatBotService {
 
     private final Map<String, ChatCompletionService> chatCompletionServices = new HashMap<>();
 
+    private final RagMetrics metrics;
+
+    private final ObservationRegistry observationRegistry;
+
     @Autowired
     private ChatHistory chatHistory;
 
@@ -50,7 +60,11 @@ public class ChatBotService {
     public ChatBotService(
             @Qualifier("openAI") ChatCompletionService openAIChatCompletionService,
             @Qualifier("mistral") ChatCompletionService mistralChatCompletionService,
-            @Qualifier("deepseek") ChatCompletionService deepSeekChatCompletionService) {
+            @Qualifier("deepseek") ChatCompletionService deepSeekChatCompletionService,
+            RagMetrics metrics,
+            ObservationRegistry observationRegistry) {
+        this.metrics = metrics;
+        this.observationRegistry = observationRegistry;
         chatCompletionServices.put("openAI", openAIChatCompletionService);
         chatCompletionServices.put("mistral", mistralChatCompletionService);
         chatCompletionServices.put("deepseek", deepSeekChatCompletionService);
@@ -60,25 +74,75 @@ public class ChatBotService {
         return getChatBotResponse(prompt, temperature, deployment, chatHistory);
     }
 
+    /**
+     * Continues the shared conversation and adds the call's duration and token usage to the diagnostics.
+     */
+    public String getChatBotResponse(String prompt, Double temperature, String deployment, ResponseDiagnostics diagnostics) {
+        return getChatBotResponse(prompt, temperature, deployment, chatHistory, "chat", diagnostics);
+    }
+
 
     public String getChatBotResponse(String prompt, Double temperature, String deployment, ChatHistory chatHistory) {
+        return getChatBotResponse(prompt, temperature, deployment, chatHistory, "chat");
+    }
+
+    /**
+     * Sends the prompt with the given history in an {@code rag.llm} span and records the call's
+     * latency and token usage.
+     *
+     * @param stage What the call is for, e.g. {@code rewrite}, {@code hyde} or {@code answer}; used as metric tag.
+     * @return The assistant's response.
+     */
+    public String getChatBotResponse(String prompt, Double temperature, String deployment, ChatHistory chatHistory, String stage) {
+        return getChatBotResponse(prompt, temperature, deployment, chatHistory, stage, null);
+    }
+
+    /**
+     * Sends the prompt and adds the call's duration and token usage to the request's diagnostics.
+     *
+     * @param diagnostics The diagnostics of the request, or null when they were not requested.
+     * @see #getChatBotResponse(String, Double, String, ChatHistory, String)
+     */
+    public String getChatBotResponse(String prompt, Double temperature, String deployment, ChatHistory chatHistory, String stage,
+                                     ResponseDiagnostics diagnostics) {
         chatHistory.addUserMessage(prompt);
         log.info("Creating InvocationContext with temperature: {}, deployment: {}", temperature, deployment);
         InvocationContext invocationContext = invocationContext(temperature == null ? defaultTemperature : temperature);
         ChatCompletionService chatCompletionService = chatCompletionServices.get(deployment);
         Kernel kernel = kernel(chatCompletionService);
 
-        try {
+        Observation observation = Observation.createNotStarted("rag.llm", observationRegistry)
+                .lowCardinalityKeyValue("stage", stage)
+                .lowCardinalityKeyValue("deployment", deployment)
+                .start();
+        long start = System.nanoTime();
+        try (Observation.Scope scope = observation.openScope()) {
             log.info("getChatBotResponse  prompt {} ", prompt);
             List<ChatMessageContent<?>> results = chatCompletionService
                     .getChatMessageContentsAsync(chatHistory, kernel, invocationContext)
                     .block();
 
             if (results == null) {
+                metrics.recordLlmCall(stage, deployment, System.nanoTime() - start, "empty");
+                if (diagnostics != null) {
+                    diagnostics.addLlmCall(new LlmCallUsage(stage, deployment, chatCompletionService.getModelId(),
+                            ResponseDiagnostics.millis(System.nanoTime() - start), null, null, false));
+                }
                 log.trace("Could NOT get AI response on user input");
                 return NO_RESPONSE_ERROR_HANDLING;
 
             }
+            long nanos = System.nanoTime() - start;
+            metrics.recordLlmCall(stage, deployment, nanos, "success");
+            LlmCallUsage usage = usage(results, stage, deployment, chatCompletionService.getModelId(), nanos);
+            if (usage.getPromptTokens() != null) {
+                metrics.recordTokens(stage, deployment, usage.getPromptTokens(), usage.getCompletionTokens());
+                observation.highCardinalityKeyValue("tokens.prompt", String.valueOf(usage.getPromptTokens()))
+                        .highCardinalityKeyValue("tokens.completion", String.valueOf(usage.getCompletionTokens()));
+            }
+            if (diagnostics != null) {
+                diagnostics.addLlmCall(usage);
+            }
 
             var response = results.stream()
                     .filter(result -> result.getAuthorRole() == AuthorRole.ASSISTANT && result.getContent() != null)
@@ -95,12 +159,36 @@ public class ChatBotService {
             chatHistory.addAssistantMessage(response);
             return response;
         } catch (Exception e) {
+            metrics.recordLlmCall(stage, deployment, System.nanoTime() - start, "failure");
+            metrics.recordLlmError(stage, deployment, e);
+            observation.error(e);
             log.error("Error while creating chatbot message: " + e.getMessage());
             throw new RuntimeException(e);
+        } finally {
+            observation.stop();
         }
 
     }
 
+    /**
+     * Reads the token usage the OpenAI connector reports in the message metadata. Tool calls
+     * answered by plugins produce several messages, so the usage of all of them is added up.
+     * The token counts are null when no message reported usage.
+     */
+    static LlmCallUsage usage(List<ChatMessageContent<?>> results, String stage, String deployment, String model, long nanos) {
+        int promptTokens = 0;
+        int completionTokens = 0;
+        boolean reported = false;
+        for (ChatMessageContent<?> result : results) {
+            if (result.getMetadata() != null && result.getMetadata().getUsage() instanceof CompletionsUsage usage) {
+                promptTokens += usage.getPromptTokens();
+                completionTokens += usage.getCompletionTokens();
+                reported = true;
+            }
+        }
+        return new LlmCallUsage(stage, deployment, model, ResponseDiagnostics.millis(nanos),
+                reported ? promptTokens : null, reported ? completionTokens : null, false);
+    }
 
     /**
      * Creates an {@link InvocationContext} bean with default prompt
@@ -0,0 +1,194 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.CollectionSpec;
+import com.epam.training.gen.ai.model.CollectionStatus;
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.model.ReindexJob;
+import com.epam.training.gen.ai.store.QdrantVectorStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Blue/green management of the Qdrant collections behind the search alias.
+ * <p>
+ * A new versioned collection is created with its own index parameters, the points of the active
+ * collection are copied into it on a background thread, and the alias is switched to it in one
+ * atomic request, so searches keep being served from the old collection until the new one is
+ * complete. Stored vectors are copied as they are unless a re-embed is requested. Writes made
+ * during the copy are mirrored to the new collection, and keep being mirrored after a successful
+ * copy until it is activated or another reindex starts. Only one reindex runs at a time.
+ */
+@Service
+@ConditionalOnProperty(name = "vector-store.type", havingValue = "qdrant", matchIfMissing = true)
+@Slf4j
+public class CollectionLifecycleService {
+
+    private final QdrantVectorStore vectorStore;
+    private final EmbeddingService embeddingService;
+    private final int batchSize;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "collection-reindex");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, ReindexJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicReference<ReindexJob> running = new AtomicReference<>();
+
+    public CollectionLifecycleService(QdrantVectorStore vectorStore, EmbeddingService embeddingService,
+                                      @Value("${vector-store.qdrant.reindex-batch-size:256}") int batchSize) {
+        this.vectorStore = vectorStore;
+        this.embeddingService = embeddingService;
+        this.batchSize = batchSize;
+    }
+
+    public CollectionStatus status() throws ExecutionException, InterruptedException {
+        return new CollectionStatus(QdrantVectorStore.COLLECTION_NAME, vectorStore.activeCollection(), vectorStore.collectionVersions());
+    }
+
+    /**
+     * Creates the next collection version with the given index parameters. The collection is empty
+     * and inactive until it is reindexed and activated.
+     *
+     * @return The name of the new collection.
+     */
+    public String create(CollectionSpec spec) throws ExecutionException, InterruptedException {
+        String collection = vectorStore.nextCollectionVersion();
+        vectorStore.createCollection(collection, spec);
+        return collection;
+    }
+
+    /**
+     * Starts copying the points of the active collection into the target collection.
+     *
+     * @param target   The collection to fill.
+     * @param reembed  Whether to embed the chunk texts again instead of copying the stored vectors.
+     * @param activate Whether to point the alias at the target once the copy has succeeded.
+     * @return The job, in state {@code RUNNING}.
+     * @throws IllegalStateException If another reindex is running, there is nothing to copy from, or
+     *                               the vectors would be copied from another embedding model.
+     */
+    public ReindexJob reindex(String target, boolean reembed, boolean activate) throws ExecutionException, InterruptedException {
+        String source = vectorStore.activeCollection();
+        if (source == null) {
+            throw new IllegalStateException("There is no active collection to reindex from");
+        }
+        if (source.equals(target)) {
+            throw new IllegalStateException("Collection " + target + " is already active");
+        }
+        String mismatch = reembed ? null : vectorStore.embeddingModelMismatch(source);
+        if (mismatch != null) {
+            throw new IllegalStateException(mismatch);
+        }
+
+        ReindexJob job = new ReindexJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setSourceCollection(source);
+        job.setTargetCollection(target);
+        job.setReembed(reembed);
+        job.setActivate(activate);
+        job.setStatus("RUNNING");
+        job.setStartedAt(System.currentTimeMillis());
+        if (!running.compareAndSet(null, job)) {
+            throw new IllegalStateException("Reindex " + running.get().getId() + " into "
+                    + running.get().getTargetCollection() + " is still running");
+        }
+        jobs.put(job.getId(), job);
+
+        // mirror before the first page is read, so that no write falls between the copy and the mirror
+        vectorStore.mirrorWritesTo(target);
+        executor.submit(() -> run(job));
+        log.info("Started reindex {} from {} into {} (reembed: {}, activate: {})", job.getId(), source, target, reembed, activate);
+        return job;
+    }
+
+    public Optional<ReindexJob> job(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public List<ReindexJob> jobs() {
+        return List.copyOf(jobs.values());
+    }
+
+    /**
+     * Points the alias at a collection and stops mirroring writes to it.
+     */
+    public void activate(String collection, boolean dropLegacy) throws ExecutionException, InterruptedException {
+        ReindexJob job = running.get();
+        if (job != null && job.getTargetCollection().equals(collection)) {
+            throw new IllegalStateException("Reindex " + job.getId() + " into " + collection + " is still running");
+        }
+        vectorStore.activate(collection, dropLegacy);
+        if (collection.equals(vectorStore.mirrorCollection())) {
+            vectorStore.mirrorWritesTo(null);
+        }
+    }
+
+    /**
+     * Deletes an inactive collection, stopping the mirrored writes to it if a finished reindex left
+     * them on.
+     */
+    public void delete(String collection) throws ExecutionException, InterruptedException {
+        ReindexJob job = running.get();
+        if (job != null && job.getTargetCollection().equals(collection)) {
+            throw new IllegalStateException("Reindex " + job.getId() + " into " + collection + " is still running");
+        }
+        if (collection.equals(vectorStore.mirrorCollection())) {
+            vectorStore.mirrorWritesTo(null);
+        }
+        vectorStore.deleteCollection(collection);
+    }
+
+    void run(ReindexJob job) {
+        try {
+            Function<List<String>, List<float[]>> embedder = job.isReembed() ? this::embed : null;
+            vectorStore.copyPoints(job.getSourceCollection(), job.getTargetCollection(), batchSize, embedder, job::setCopied);
+            long failures = vectorStore.mirrorFailures();
+            if (failures > 0) {
+                throw new IllegalStateException(failures + " writes could not be mirrored to " + job.getTargetCollection());
+            }
+            job.setStatus("SUCCESS");
+            if (job.isActivate()) {
+                vectorStore.activate(job.getTargetCollection(), false);
+                vectorStore.mirrorWritesTo(null);
+            }
+            log.info("Reindex {} into {} finished with {} points", job.getId(), job.getTargetCollection(), job.getCopied());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.error("Reindex {} into {} failed: {}", job.getId(), job.getTargetCollection(), e.getMessage(), e);
+            vectorStore.mirrorWritesTo(null);
+            job.setStatus("FAILED");
+            job.setError(e.getMessage());
+        } finally {
+            job.setFinishedAt(System.currentTimeMillis());
+            running.set(null);
+        }
+    }
+
+    private List<float[]> embed(List<String> texts) {
+        return embeddingService.buildEmbeddings(texts).stream()
+                .map(EmbeddingVector::getEmbedding)
+                .collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,148 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.model.SearchResult;
+import com.epam.training.gen.ai.store.VectorMath;
+import com.epam.training.gen.ai.util.DataExtraction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Shrinks the retrieved chunks to the sentences most relevant to the question before they are
+ * put in the final RAG prompt.
+ * <p>
+ * Chunks are split into sentences with {@link DataExtraction#splitSentences}. The question and all
+ * sentences are embedded with one batched request and each sentence is scored by its cosine
+ * similarity to the question. The best sentences are kept up to the token budget and put back in
+ * their original order, so every chunk keeps reading top to bottom; dropped runs are marked with
+ * {@value #GAP}. Chunks without a kept sentence are left out. If the context already fits the
+ * budget, or the embedding call fails, the chunks are returned unchanged.
+ */
+@Component
+@Slf4j
+public class ContextCompressor {
+
+    static final String GAP = " ... ";
+
+    private final EmbeddingService embeddingService;
+    private final DataExtraction dataExtraction;
+    private final boolean enabled;
+    private final int maxTokens;
+    private final int maxSentenceLength;
+    private final int maxSentences;
+
+    public ContextCompressor(EmbeddingService embeddingService, DataExtraction dataExtraction,
+                             @Value("${rag.compression.enabled:true}") boolean enabled,
+                             @Value("${rag.compression.max-tokens:800}") int maxTokens,
+                             @Value("${rag.compression.max-sentence-length:600}") int maxSentenceLength,
+                             @Value("${rag.compression.max-sentences:256}") int maxSentences) {
+        this.embeddingService = embeddingService;
+        this.dataExtraction = dataExtraction;
+        this.enabled = enabled;
+        this.maxTokens = maxTokens;
+        this.maxSentenceLength = maxSentenceLength;
+        this.maxSentences = maxSentences;
+    }
+
+    /**
+     * Compresses the retrieved chunks for a question.
+     *
+     * @param question The user's question, embedded as the query.
+     * @param results  The retrieved chunks in prompt order.
+     * @return The chunks with their text reduced to the kept sentences, in the same order.
+     */
+    public List<SearchResult> compress(String question, List<SearchResult> results) {
+        if (!enabled || maxTokens <= 0 || results.isEmpty()) {
+            return results;
+        }
+        int contextTokens = results.stream().mapToInt(result -> ContextSelector.estimateTokens(result.getText())).sum();
+        if (contextTokens <= maxTokens) {
+            log.debug("Context of ~{} tokens fits the compression budget {}, not compressing", contextTokens, maxTokens);
+            return results;
+        }
+
+        List<Sentence> sentences = new ArrayList<>();
+        for (int chunk = 0; chunk < results.size() && sentences.size() < maxSentences; chunk++) {
+            List<String> split = dataExtraction.splitSentences(results.get(chunk).getText(), maxSentenceLength);
+            for (int i = 0; i < split.size() && sentences.size() < maxSentences; i++) {
+                sentences.add(new Sentence(chunk, i, split.get(i)));
+            }
+        }
+        if (sentences.isEmpty()) {
+            return results;
+        }
+
+        List<String> inputs = new ArrayList<>(sentences.size() + 1);
+        inputs.add(question);
+        sentences.forEach(sentence -> inputs.add(sentence.text));
+        List<EmbeddingVector> embeddings = embeddingService.buildEmbeddings(inputs);
+        if (embeddings.size() != inputs.size()) {
+            log.warn("Got {} embeddings for {} inputs, using uncompressed context", embeddings.size(), inputs.size());
+            return results;
+        }
+
+        float[] query = VectorMath.normalize(embeddings.get(0).getEmbedding());
+        for (int i = 0; i < sentences.size(); i++) {
+            Sentence sentence = sentences.get(i);
+            sentence.score = VectorMath.dot(query, VectorMath.normalize(embeddings.get(i + 1).getEmbedding()));
+        }
+
+        List<Sentence> ranked = new ArrayList<>(sentences);
+        ranked.sort(Comparator.comparingDouble((Sentence sentence) -> sentence.score).reversed());
+        int usedTokens = 0;
+        for (Sentence sentence : ranked) {
+            int tokens = ContextSelector.estimateTokens(sentence.text);
+            if (usedTokens + tokens <= maxTokens) {
+                sentence.kept = true;
+                usedTokens += tokens;
+            }
+        }
+        if (usedTokens == 0) {
+            ranked.get(0).kept = true;
+        }
+
+        List<SearchResult> compressed = new ArrayList<>(results.size());
+        for (int chunk = 0; chunk < results.size(); chunk++) {
+            String text = join(sentences, chunk);
+            if (!text.isEmpty()) {
+                compressed.add(results.get(chunk).withText(text));
+            }
+        }
+        log.info("Compressed context from ~{} to ~{} tokens ({} of {} sentences kept)", contextTokens, usedTokens,
+                sentences.stream().filter(sentence -> sentence.kept).count(), sentences.size());
+        return compressed;
+    }
+
+    private static String join(List<Sentence> sentences, int chunk) {
+        StringBuilder text = new StringBuilder();
+        int previous = -1;
+        for (Sentence sentence : sentences.stream().filter(s -> s.chunk == chunk && s.kept).collect(Collectors.toList())) {
+            if (text.length() > 0) {
+                text.append(sentence.index == previous + 1 ? " " : GAP);
+            }
+            text.append(sentence.text);
+            previous = sentence.index;
+        }
+        return text.toString();
+    }
+
+    private static final class Sentence {
+        private final int chunk;
+        private final int index;
+        private final String text;
+        private float score;
+        private boolean kept;
+
+        private Sentence(int chunk, int index, String text) {
+            this.chunk = chunk;
+            this.index = index;
+            this.text = text;
+        }
+    }
+}
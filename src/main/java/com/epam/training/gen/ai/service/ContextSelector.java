@@ -0,0 +1,138 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.SearchResult;
+import com.epam.training.gen.ai.store.VectorMath;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Post-retrieval stage that turns a ranked list of candidates into the chunks sent to the LLM.
+ * <p>
+ * Candidates are re-ordered with Maximal Marginal Relevance: each pick maximises
+ * {@code lambda * relevance - (1 - lambda) * max similarity to the chunks already picked}, so a
+ * near-duplicate of a chunk already in the prompt loses to a less relevant but new one.
+ * Relevance is the retrieval score divided by the best score among the candidates (this works for
+ * cosine and RRF scores alike) and similarity is the dot product of the stored, normalised vectors.
+ * The picks are then trimmed to a token budget, estimated at four characters per token.
+ */
+@Component
+@Slf4j
+public class ContextSelector {
+
+    static final int CHARS_PER_TOKEN = 4;
+
+    private final boolean mmrEnabled;
+    private final double lambda;
+    private final int maxTokens;
+
+    public ContextSelector(@Value("${retrieval.mmr.enabled:true}") boolean mmrEnabled,
+                           @Value("${retrieval.mmr.lambda:0.7}") double lambda,
+                           @Value("${retrieval.context.max-tokens:2500}") int maxTokens) {
+        if (lambda < 0 || lambda > 1) {
+            throw new IllegalArgumentException("retrieval.mmr.lambda must be between 0 and 1, was " + lambda);
+        }
+        this.mmrEnabled = mmrEnabled;
+        this.lambda = lambda;
+        this.maxTokens = maxTokens;
+    }
+
+    /**
+     * Whether candidates are diversified with MMR, in which case callers should over-fetch them with vectors.
+     */
+    public boolean isMmrEnabled() {
+        return mmrEnabled;
+    }
+
+    /**
+     * Picks the chunks to put in the prompt.
+     *
+     * @param candidates The retrieved candidates, best first.
+     * @param limit      The maximum number of chunks.
+     * @return At most {@code limit} chunks in pick order, within the token budget. The first pick is
+     * always kept, even if it alone exceeds the budget.
+     */
+    public List<SearchResult> select(List<SearchResult> candidates, int limit) {
+        List<SearchResult> ordered = mmrEnabled
+                ? diversify(candidates, limit)
+                : candidates.subList(0, Math.min(limit, candidates.size()));
+        return trimToBudget(ordered);
+    }
+
+    List<SearchResult> diversify(List<SearchResult> candidates, int limit) {
+        int n = candidates.size();
+        int wanted = Math.min(limit, n);
+        float[] relevance = normalisedScores(candidates);
+        float[] maxSimilarity = new float[n];
+        boolean[] picked = new boolean[n];
+        List<SearchResult> selected = new ArrayList<>(wanted);
+
+        while (selected.size() < wanted) {
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (picked[i]) {
+                    continue;
+                }
+                double score = lambda * relevance[i] - (1 - lambda) * maxSimilarity[i];
+                if (score > bestScore) {
+                    bestScore = score;
+                    best = i;
+                }
+            }
+            picked[best] = true;
+            SearchResult pick = candidates.get(best);
+            selected.add(pick);
+
+            float[] pickVector = pick.getVector();
+            if (pickVector == null) {
+                continue;
+            }
+            for (int i = 0; i < n; i++) {
+                float[] vector = candidates.get(i).getVector();
+                if (!picked[i] && vector != null && vector.length == pickVector.length) {
+                    maxSimilarity[i] = Math.max(maxSimilarity[i], VectorMath.dot(pickVector, vector));
+                }
+            }
+        }
+        return selected;
+    }
+
+    private List<SearchResult> trimToBudget(List<SearchResult> ordered) {
+        if (maxTokens <= 0 || ordered.isEmpty()) {
+            return ordered;
+        }
+        List<SearchResult> kept = new ArrayList<>(ordered.size());
+        int usedTokens = 0;
+        for (SearchResult result : ordered) {
+            int tokens = estimateTokens(result.getText());
+            if (kept.isEmpty() || usedTokens + tokens <= maxTokens) {
+                kept.add(result);
+                usedTokens += tokens;
+            }
+        }
+        if (kept.size() < ordered.size()) {
+            log.debug("Token budget {} kept {} of {} chunks (~{} tokens)", maxTokens, kept.size(), ordered.size(), usedTokens);
+        }
+        return kept;
+    }
+
+    static int estimateTokens(String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private static float[] normalisedScores(List<SearchResult> candidates) {
+        float max = 0f;
+        for (SearchResult candidate : candidates) {
+            max = Math.max(max, candidate.getScore());
+        }
+        float[] relevance = new float[candidates.size()];
+        for (int i = 0; i < relevance.length; i++) {
+            relevance[i] = max > 0 ? Math.max(0f, candidates.get(i).getScore()) / max : 1f;
+        }
+        return relevance;
+    }
+}
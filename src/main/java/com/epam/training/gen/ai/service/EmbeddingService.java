@@ -1,58 +1,59 @@
 package com.epam.training.gen.ai.service;
 
-import com.azure.ai.openai.OpenAIAsyncClient;
-import com.azure.ai.openai.models.EmbeddingItem;
-import com.azure.ai.openai.models.Embeddings;
-import com.azure.ai.openai.models.EmbeddingsOptions;
+import com.epam.training.gen.ai.embedding.EmbeddingProvider;
+import com.epam.training.gen.ai.metrics.RagMetrics;
+import com.epam.training.gen.ai.metrics.Spans;
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.DocumentManifest;
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.model.ExtractedDocument;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
 import com.epam.training.gen.ai.model.SearchResult;
+import com.epam.training.gen.ai.model.TextChunk;
+import com.epam.training.gen.ai.store.Bm25Index;
+import com.epam.training.gen.ai.store.DocumentManifests;
+import com.epam.training.gen.ai.store.NearDuplicateIndex;
+import com.epam.training.gen.ai.store.VectorStore;
+import com.epam.training.gen.ai.util.ChunkIdStrategy;
 import com.epam.training.gen.ai.util.DataExtraction;
 import com.epam.training.gen.ai.util.IdGenerator;
-import io.qdrant.client.*;
-import io.qdrant.client.grpc.Collections.CollectionOperationResponse;
-import io.qdrant.client.grpc.Collections.Distance;
-import io.qdrant.client.grpc.Collections.VectorParams;
-import io.qdrant.client.grpc.JsonWithInt;
-import io.qdrant.client.grpc.Points;
-import io.qdrant.client.grpc.Points.PointStruct;
-import io.qdrant.client.grpc.Points.QueryPoints;
-import io.qdrant.client.grpc.Points.ScoredPoint;
-import io.qdrant.client.grpc.Points.UpdateResult;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
-import reactor.core.publisher.Mono;
-
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
-import static io.qdrant.client.ConditionFactory.filter;
-import static io.qdrant.client.ConditionFactory.matchKeyword;
-import static io.qdrant.client.QueryFactory.nearest;
-import static io.qdrant.client.ValueFactory.value;
-import static io.qdrant.client.VectorsFactory.vectors;
-import static io.qdrant.client.WithPayloadSelectorFactory.enable;
-
 @Service
 @Slf4j
 public class EmbeddingService {
 
     public static final int ADA_002_MODEL_DIMENSION_SIZE = 1536;
-    private static final String COLLECTION_NAME = "embedding_collection";
-    private static final String PAYLOAD_TEXT_KEY = "text";
-    private static final String PAYLOAD_SOURCE_FILENAME_KEY = "source_filename";
 
 
-    private final OpenAIAsyncClient openAIAsyncClient;
-    private final QdrantClient qdrantClient;
+    private final EmbeddingProvider embeddingProvider;
+    private final VectorStore vectorStore;
+    private final Bm25Index bm25Index;
+    private final DocumentManifests documentManifests;
+    private final NearDuplicateIndex nearDuplicates;
     private final IdGenerator idGenerator;
     private final DataExtraction dataExtraction;
-
-    @Value("${embedding.openai.deployment}") // Updated path
-    private String embeddingDeployment;
+    private final RagMetrics metrics;
+    private final ObservationRegistry observationRegistry;
+    private final String storeName;
 
     @Value("${embedding.chunk.size}")
     private int chunkSize;
@@ -60,78 +61,151 @@ public class EmbeddingService {
     @Value("${embedding.chunk.sentence_end_tolerance}")
     private int sentenceEndTolerance;
 
+    @Value("${embedding.openai.batch-size:256}")
+    private int embeddingBatchSize = 256;
+
     @Autowired
-    public EmbeddingService(OpenAIAsyncClient openAIAsyncClient, QdrantClient qdrantClient, IdGenerator idGenerator, DataExtraction dataExtraction) {
-        this.openAIAsyncClient = openAIAsyncClient;
-        this.qdrantClient = qdrantClient;
+    public EmbeddingService(EmbeddingProvider embeddingProvider, VectorStore vectorStore, Bm25Index bm25Index, DocumentManifests documentManifests, NearDuplicateIndex nearDuplicates, IdGenerator idGenerator, DataExtraction dataExtraction, RagMetrics metrics, ObservationRegistry observationRegistry) {
+        this.embeddingProvider = embeddingProvider;
+        this.vectorStore = vectorStore;
+        this.bm25Index = bm25Index;
+        this.documentManifests = documentManifests;
+        this.nearDuplicates = nearDuplicates;
         this.idGenerator = idGenerator;
         this.dataExtraction = dataExtraction;
+        this.metrics = metrics;
+        this.observationRegistry = observationRegistry;
+        this.storeName = vectorStore.getClass().getSimpleName().replace("VectorStore", "").toLowerCase();
     }
 
     public String chunkAndStoreEmbeddings(String fullText) throws ExecutionException, InterruptedException {
         return chunkAndStoreEmbeddings(fullText, null);
     }
 
+    public String chunkAndStoreEmbeddings(String fullText, String sourceFilename) throws ExecutionException, InterruptedException {
+        return chunkAndStoreEmbeddings(fullText, sourceFilename, null);
+    }
+
+    public String chunkAndStoreEmbeddings(String fullText, String sourceFilename, String documentType) throws ExecutionException, InterruptedException {
+        return chunkAndStoreEmbeddings(new ExtractedDocument(fullText, null), sourceFilename, documentType);
+    }
+
     /**
-     * Chunks the given text, generates embeddings for each chunk, and stores them
-     * along with the source filename.
+     * Chunks the given document, generates embeddings for each chunk, and stores them
+     * along with the source filename, document type, ingest time, page range and
+     * character offsets. Every stored chunk is also added to the BM25 index.
+     * <p>
+     * When the document was ingested before, its {@link DocumentManifest} is diffed with the
+     * new chunk IDs: unchanged chunks are not embedded again (only their payload is updated if
+     * they moved), and chunks of the previous version that no document references any more are
+     * deleted from the vector store and the BM25 index.
      *
-     * @param fullText       The complete text content extracted from a document.
+     * @param document       The text extracted from a document, with its page offsets if it has pages.
      * @param sourceFilename The original filename of the document.
+     * @param documentType   The document type (e.g. "pdf", "docx"), or null if unknown.
      * @return A status string indicating the overall outcome (e.g., "SUCCESS", "FAILED_PARTIAL", "SKIPPED_BLANK_TEXT").
-     * @throws ExecutionException   If there's an error during Qdrant interaction.
+     * @throws ExecutionException   If there's an error during vector store interaction.
      * @throws InterruptedException If the thread is interrupted during async operations.
      */
-    public String chunkAndStoreEmbeddings(String fullText, String sourceFilename) throws ExecutionException, InterruptedException {
+    public String chunkAndStoreEmbeddings(ExtractedDocument document, String sourceFilename, String documentType) throws ExecutionException, InterruptedException {
+        Observation observation = Observation.createNotStarted("rag.ingest", observationRegistry)
+                .lowCardinalityKeyValue("document.type", documentType == null ? "unknown" : documentType)
+                .highCardinalityKeyValue("source.filename", String.valueOf(sourceFilename));
+        return Spans.observe(observation, () -> storeChunks(document, sourceFilename, documentType, observation));
+    }
+
+    private String storeChunks(ExtractedDocument document, String sourceFilename, String documentType, Observation observation) throws ExecutionException, InterruptedException {
+        String fullText = document.getText();
         if (fullText == null || fullText.isBlank()) {
             log.warn("Skipping embedding storage for null or blank text.");
             return "SKIPPED_BLANK_TEXT";
         }
 
-        if (!StringUtils.hasText(sourceFilename)) {
+        String filename = StringUtils.hasText(sourceFilename) ? sourceFilename : null;
+        if (filename == null) {
             log.warn("Source filename is missing, proceeding without storing filename metadata.");
         }
 
         log.info("Starting chunking and embedding process for text starting with: '{}...'", fullText.substring(0, Math.min(fullText.length(), 100)));
 
-        List<String> chunks = dataExtraction.chunkTextSimple(fullText, chunkSize, sentenceEndTolerance);
+        List<TextChunk> chunks = dataExtraction.chunkText(fullText, chunkSize, sentenceEndTolerance);
         log.info("Text divided into {} chunks.", chunks.size());
 
+        DocumentManifest previous = filename == null ? null : documentManifests.get(filename);
+        ChunkIdStrategy idStrategy = idStrategyFor(previous, chunks);
+        List<String> chunkIds = chunks.stream()
+                .map(chunk -> idGenerator.generateConsistentId(chunk.getText(), idStrategy))
+                .collect(Collectors.toList());
+        Map<String, SearchResult> previousChunks = previousChunks(previous, chunkIds);
+        // chunks of the previous version that will be deleted must not absorb their edited successors
+        Set<String> deletedChunks = filename == null ? Collections.emptySet() : new HashSet<>(documentManifests.orphans(filename, chunkIds));
+
+        long ingestedAt = System.currentTimeMillis();
+        String[] storedIdByChunk = new String[chunks.size()];
+        List<PendingChunk> pending = new ArrayList<>();
+        int batchSize = Math.max(1, embeddingBatchSize);
         int successfulEmbeddings = 0;
         int failedEmbeddings = 0;
         int skippedEmbeddings = 0;
+        int movedChunks = 0;
+        int nearDuplicateChunks = 0;
 
         for (int i = 0; i < chunks.size(); i++) {
-            String chunk = chunks.get(i);
-            String chunkId = idGenerator.generateConsistentId(chunk);
-
+            TextChunk textChunk = chunks.get(i);
+            String chunk = textChunk.getText();
+            String chunkId = chunkIds.get(i);
+            Integer pageStart = document.pageAt(textChunk.getCharStart());
+            Integer pageEnd = document.pageAt(textChunk.getCharEnd() - 1);
+            ChunkPayload payload = new ChunkPayload(chunk, filename, documentType, ingestedAt)
+                    .withPosition(pageStart, pageEnd, textChunk.getCharStart(), textChunk.getCharEnd());
+
+            SearchResult unchanged = previousChunks.get(chunkId);
+            int[] signature = unchanged == null && nearDuplicates.isEnabled() ? nearDuplicates.signature(chunk) : null;
             try {
-                if (embeddingExists(chunkId)) {
-                    log.debug("Embedding for chunk {} (ID: {}) already exists, skipping.", i + 1, chunkId);
+                if (unchanged != null) {
+                    // a chunk shared with another document keeps the position of the document that stored it
+                    if (Objects.equals(unchanged.getSourceFilename(), filename) && !samePosition(unchanged, payload)) {
+                        log.debug("Chunk {} (ID: {}) is unchanged but moved, updating its payload.", i + 1, chunkId);
+                        vectorStore.updatePayload(chunkId, payload);
+                        bm25Index.add(chunkId, chunk, filename, pageStart, pageEnd);
+                        movedChunks++;
+                    } else if (!bm25Index.contains(chunkId)) {
+                        bm25Index.add(chunkId, chunk, filename, pageStart, pageEnd);
+                    }
+                    addSignature(chunkId, chunk);
+                    storedIdByChunk[i] = chunkId;
                     skippedEmbeddings++;
                     continue;
                 }
 
-                log.debug("Processing chunk {}/{} (ID: {}): '{}...'", i + 1, chunks.size(), chunkId, chunk.substring(0, Math.min(chunk.length(), 50)));
-                List<EmbeddingItem> embeddings = buildEmbedding(chunk);
+                // a repeated chunk of this document is matched against its stored first occurrence
+                if (pending.stream().anyMatch(other -> other.id().equals(chunkId)
+                        || signature != null && nearDuplicates.isDuplicate(signature, other.signature()))) {
+                    int stored = embedAndStore(pending, storedIdByChunk);
+                    successfulEmbeddings += stored;
+                    failedEmbeddings += pending.size() - stored;
+                    pending.clear();
+                }
 
-                if (embeddings.isEmpty()) {
-                    log.warn("No embedding generated for chunk {} (ID: {}). Skipping storage.", i + 1, chunkId);
-                    failedEmbeddings++;
+                if (vectorStore.contains(chunkId)) {
+                    log.debug("Embedding for chunk {} (ID: {}) already exists, skipping.", i + 1, chunkId);
+                    if (!bm25Index.contains(chunkId)) {
+                        bm25Index.add(chunkId, chunk, filename, pageStart, pageEnd);
+                    }
+                    addSignature(chunkId, chunk);
+                    storedIdByChunk[i] = chunkId;
+                    skippedEmbeddings++;
                     continue;
                 }
 
-                EmbeddingItem embeddingItem = embeddings.get(0);
-                String storeResult = storeEmbedding(embeddingItem, chunk, chunkId,sourceFilename);
-                log.info("Stored embedding for chunk {} (ID: {}) with result: {}", i + 1, chunkId, storeResult);
-
-                if (storeResult.startsWith("Completed") || storeResult.startsWith("Updated")) {
-                    successfulEmbeddings++;
-                } else {
-                    log.warn("Failed to store embedding for chunk {} (ID: {}). Result: {}", i + 1, chunkId, storeResult);
-                    failedEmbeddings++;
+                String duplicateId = signature == null ? null : storedNearDuplicate(signature, deletedChunks);
+                if (duplicateId != null) {
+                    // merged into the stored chunk: the manifest references it, which keeps it from being deleted with its own document
+                    log.debug("Chunk {} (ID: {}) is a near duplicate of stored chunk {}, not embedding it.", i + 1, chunkId, duplicateId);
+                    storedIdByChunk[i] = duplicateId;
+                    nearDuplicateChunks++;
+                    continue;
                 }
-
             } catch (ExecutionException | InterruptedException e) {
                 log.error("Error processing chunk {} (ID: {}): {}", i + 1, chunkId, e.getMessage(), e);
                 failedEmbeddings++;
@@ -139,221 +213,398 @@ public class EmbeddingService {
                     Thread.currentThread().interrupt();
                     throw e;
                 }
+                continue;
             } catch (Exception e) {
                 log.error("Unexpected error processing chunk {} (ID: {}): {}", i + 1, chunkId, e.getMessage(), e);
                 failedEmbeddings++;
+                continue;
+            }
+
+            log.debug("Queueing chunk {}/{} (ID: {}) for embedding: '{}...'", i + 1, chunks.size(), chunkId, chunk.substring(0, Math.min(chunk.length(), 50)));
+            pending.add(new PendingChunk(i, chunkId, payload, signature));
+            if (pending.size() >= batchSize) {
+                int stored = embedAndStore(pending, storedIdByChunk);
+                successfulEmbeddings += stored;
+                failedEmbeddings += pending.size() - stored;
+                pending.clear();
+            }
+        }
+        if (!pending.isEmpty()) {
+            int stored = embedAndStore(pending, storedIdByChunk);
+            successfulEmbeddings += stored;
+            failedEmbeddings += pending.size() - stored;
+        }
+        List<String> storedIds = Arrays.stream(storedIdByChunk).filter(Objects::nonNull).collect(Collectors.toList());
+
+        if (filename != null) {
+            List<String> orphans = documentManifests.orphans(filename, storedIds);
+            if (!orphans.isEmpty()) {
+                storeCall("delete", () -> {
+                    vectorStore.delete(orphans);
+                    return null;
+                });
+                bm25Index.remove(orphans);
+                nearDuplicates.remove(orphans);
             }
+            DocumentManifest manifest = documentManifests.put(filename, storedIds, ingestedAt);
+            updateSharedSourceFilenames(previous, manifest);
+            log.info("Stored version {} of {}: {} chunks, {} unchanged ({} moved), {} stale chunks deleted.",
+                    manifest.getVersion(), filename, manifest.getChunkIds().size(), previousChunks.size(), movedChunks, orphans.size());
         }
 
-        log.info("Embedding process completed. Success: {}, Failed: {}, Skipped (Already Exists): {}",
-                successfulEmbeddings, failedEmbeddings, skippedEmbeddings);
+        metrics.recordChunks(documentType == null ? "unknown" : documentType, chunks.size(), successfulEmbeddings + failedEmbeddings);
+        observation.highCardinalityKeyValue("chunks", String.valueOf(chunks.size()))
+                .highCardinalityKeyValue("chunks.embedded", String.valueOf(successfulEmbeddings))
+                .highCardinalityKeyValue("chunks.failed", String.valueOf(failedEmbeddings))
+                .highCardinalityKeyValue("chunks.skipped", String.valueOf(skippedEmbeddings))
+                .highCardinalityKeyValue("chunks.near_duplicates", String.valueOf(nearDuplicateChunks));
+        vectorStore.flush();
+        bm25Index.flush();
+        documentManifests.flush();
+        nearDuplicates.flush();
+        log.info("Embedding process completed. Success: {}, Failed: {}, Skipped (Already Exists): {}, Near duplicates: {}",
+                successfulEmbeddings, failedEmbeddings, skippedEmbeddings, nearDuplicateChunks);
 
         if (failedEmbeddings > 0 && successfulEmbeddings == 0) {
             return "FAILED_ALL_CHUNKS";
         } else if (failedEmbeddings > 0) {
             return "SUCCESS_PARTIAL";
-        } else if (successfulEmbeddings > 0 || skippedEmbeddings > 0) {
+        } else if (successfulEmbeddings > 0 || skippedEmbeddings > 0 || nearDuplicateChunks > 0) {
             return "SUCCESS";
         } else {
             return "NO_CHUNKS_PROCESSED";
         }
     }
 
-    public List<EmbeddingItem> buildEmbedding(String textChunk) {
-        String textChunksubstring = textChunk.substring(0, Math.min(textChunk.length(), 50));
-        log.debug("Building embedding for text chunk starting with: '{}...'", textChunksubstring);
+    /**
+     * Embeds a batch of new chunks with one request and stores them one by one. A chunk whose
+     * embedding or upsert fails is left out of {@code storedIdByChunk}.
+     *
+     * @return The number of chunks stored.
+     * @throws InterruptedException If the thread is interrupted while storing.
+     */
+    private int embedAndStore(List<PendingChunk> batch, String[] storedIdByChunk) throws InterruptedException {
+        List<EmbeddingVector> embeddings;
         try {
-            EmbeddingsOptions embeddingsOptions = new EmbeddingsOptions(List.of(textChunk));
-            Mono<Embeddings> embeddingsMono = openAIAsyncClient.getEmbeddings(embeddingDeployment, embeddingsOptions);
-            Embeddings embeddings = embeddingsMono.block();
-
-            if (embeddings == null || embeddings.getData() == null || embeddings.getData().isEmpty()) {
-                log.warn("No embeddings returned from OpenAI API for text chunk starting with: '{}...'", textChunksubstring);
-                return Collections.emptyList();
-            }
-
-            return embeddings.getData();
-
+            embeddings = buildEmbeddings(batch.stream().map(pending -> pending.payload().getText()).collect(Collectors.toList()));
         } catch (Exception e) {
-            log.error("Error while generating embedding for text chunk starting with '{}...': {}", textChunksubstring, e.getMessage(), e);
-            return Collections.emptyList();
+            log.error("Unexpected error embedding {} chunks starting with chunk {}: {}", batch.size(), batch.get(0).index() + 1, e.getMessage(), e);
+            return 0;
+        }
+        if (embeddings.size() != batch.size()) {
+            log.warn("Got {} embeddings for {} chunks starting with chunk {}. Skipping their storage.", embeddings.size(), batch.size(), batch.get(0).index() + 1);
+            return 0;
+        }
+        int stored = 0;
+        for (int k = 0; k < batch.size(); k++) {
+            PendingChunk chunk = batch.get(k);
+            ChunkPayload payload = chunk.payload();
+            try {
+                if (!storeEmbedding(embeddings.get(k), chunk.id(), payload)) {
+                    log.warn("Failed to store embedding for chunk {} (ID: {}).", chunk.index() + 1, chunk.id());
+                    continue;
+                }
+                log.info("Stored embedding for chunk {} (ID: {})", chunk.index() + 1, chunk.id());
+                bm25Index.add(chunk.id(), payload.getText(), payload.getSourceFilename(), payload.getPageStart(), payload.getPageEnd());
+                if (chunk.signature() != null) {
+                    nearDuplicates.add(chunk.id(), chunk.signature());
+                }
+                storedIdByChunk[chunk.index()] = chunk.id();
+                stored++;
+            } catch (ExecutionException e) {
+                log.error("Error storing chunk {} (ID: {}): {}", chunk.index() + 1, chunk.id(), e.getMessage(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw e;
+            } catch (Exception e) {
+                log.error("Unexpected error storing chunk {} (ID: {}): {}", chunk.index() + 1, chunk.id(), e.getMessage(), e);
+            }
         }
+        return stored;
     }
 
-    public List<SearchResult> searchSimilarText(String queryText, int limit) throws ExecutionException, InterruptedException {
-        return searchSimilarText(queryText, limit, null);
+    /**
+     * The ID strategy for the chunks of a document: the one of its manifest when legacy IDs are kept.
+     * A document without a manifest may have been ingested with MD5 IDs before manifests were
+     * written; if its first chunk is stored under its MD5 ID, the document keeps MD5 IDs instead of
+     * being embedded again under new ones next to the old points.
+     */
+    private ChunkIdStrategy idStrategyFor(DocumentManifest previous, List<TextChunk> chunks) throws ExecutionException, InterruptedException {
+        if (previous != null) {
+            return idGenerator.strategyFor(previous.getChunkIds());
+        }
+        ChunkIdStrategy strategy = idGenerator.strategy();
+        if (strategy != ChunkIdStrategy.MD5 && idGenerator.keepsLegacyIds() && !chunks.isEmpty()
+                && vectorStore.contains(ChunkIdStrategy.MD5.id(chunks.get(0).getText()))) {
+            log.info("Document without a manifest has chunks stored under MD5 IDs, keeping that strategy.");
+            return ChunkIdStrategy.MD5;
+        }
+        return strategy;
     }
 
-    public List<SearchResult> searchSimilarText(String queryText, int limit, String sourceFilename) throws ExecutionException, InterruptedException {
-        log.info("Searching for {} similar text chunks for query (file filter: {})", limit, sourceFilename == null ? "None" : sourceFilename);
-        List<EmbeddingItem> queryEmbeddings = buildEmbedding(queryText);
-        if (queryEmbeddings.isEmpty()) {
-            log.warn("Could not generate embedding for search query: {}", queryText);
-            return Collections.emptyList();
+    /**
+     * Lets the points of chunks that several documents share carry the filenames of all of them, so
+     * that searches restricted to any of these documents find them. Covers the chunks the document
+     * shares now and the ones it dropped but other documents still reference. The document that
+     * stored a point stays its first filename while it references it.
+     */
+    private void updateSharedSourceFilenames(DocumentManifest previous, DocumentManifest manifest) throws ExecutionException, InterruptedException {
+        Set<String> ids = new LinkedHashSet<>(manifest.getChunkIds());
+        if (previous != null) {
+            ids.addAll(previous.getChunkIds());
         }
-
-        List<ScoredPoint> scoredPoints = searchEmbeddingWithPayload(queryEmbeddings, limit, sourceFilename);
-        log.info("Found {} potentially relevant text chunks", scoredPoints.size());
-
-        return scoredPoints.stream()
-                .map(this::mapScoredPointToSearchResultWithText)
-                .filter(searchResult -> searchResult.getText() != null && !searchResult.getText().isEmpty())
+        Set<String> current = new HashSet<>(manifest.getChunkIds());
+        Map<String, List<String>> referencingFiles = documentManifests.referencingFiles(ids);
+        List<String> candidates = referencingFiles.entrySet().stream()
+                .filter(entry -> entry.getValue().size() > 1 || !current.contains(entry.getKey()))
+                .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            return;
+        }
+        int updated = storeCall("source_filenames", () -> {
+            int changed = 0;
+            for (SearchResult stored : vectorStore.retrieve(candidates, false)) {
+                List<String> files = referencingFiles.get(stored.getUuid());
+                List<String> sourceFilenames = new ArrayList<>(files.size());
+                String first = files.contains(stored.getSourceFilename()) ? stored.getSourceFilename() : files.get(0);
+                sourceFilenames.add(first);
+                files.stream().filter(file -> !file.equals(first)).forEach(sourceFilenames::add);
+
+                List<String> storedFilenames = new ArrayList<>();
+                storedFilenames.add(stored.getSourceFilename());
+                storedFilenames.addAll(stored.getOtherSourceFilenames());
+                if (!storedFilenames.equals(sourceFilenames)) {
+                    vectorStore.setSourceFilenames(stored.getUuid(), sourceFilenames);
+                    changed++;
+                }
+                bm25Index.setSourceFilenames(stored.getUuid(), sourceFilenames);
+            }
+            return changed;
+        });
+        log.debug("Updated the source filenames of {} of {} shared chunks", updated, candidates.size());
     }
 
-    private SearchResult mapScoredPointToSearchResultWithText(ScoredPoint scoredPoint) {
-        SearchResult result = new SearchResult();
-        result.setScore(scoredPoint.getScore());
-        String pointIdStr = "N/A";
-        if (scoredPoint.getId().hasUuid()) {
-            pointIdStr = scoredPoint.getId().getUuid();
-            result.setUuid(pointIdStr);
-        } else if (scoredPoint.getId().hasNum()) {
-            pointIdStr = String.valueOf(scoredPoint.getId().getNum());
-            result.setUuid(pointIdStr);
+    /**
+     * Fetches the stored points of the chunks that were already in the previous version of the
+     * document, with one request. Chunks listed in the manifest but missing from the store are
+     * left out and get embedded again.
+     */
+    private Map<String, SearchResult> previousChunks(DocumentManifest previous, List<String> chunkIds) throws ExecutionException, InterruptedException {
+        if (previous == null) {
+            return Collections.emptyMap();
+        }
+        Set<String> previousIds = new HashSet<>(previous.getChunkIds());
+        List<String> unchangedIds = chunkIds.stream().filter(previousIds::contains).distinct().collect(Collectors.toList());
+        if (unchangedIds.isEmpty()) {
+            return Collections.emptyMap();
         }
+        return vectorStore.retrieve(unchangedIds, false).stream()
+                .collect(Collectors.toMap(SearchResult::getUuid, result -> result, (first, second) -> first));
+    }
 
-        JsonWithInt.Value textValue = scoredPoint.getPayloadMap().get(PAYLOAD_TEXT_KEY);
-        if (textValue != null && textValue.hasStringValue()) {
-            result.setText(textValue.getStringValue());
-        } else {
-            log.warn("Found point {} without expected text payload key '{}'", pointIdStr, PAYLOAD_TEXT_KEY);
-            result.setText("");
+    /**
+     * The ID of a stored chunk that is a near duplicate of the new chunk, or null. A match whose
+     * point is no longer in the vector store, e.g. after switching collections, is dropped from the
+     * index and the chunk gets embedded.
+     */
+    private String storedNearDuplicate(int[] signature, Set<String> excluded) throws ExecutionException, InterruptedException {
+        NearDuplicateIndex.Match match = nearDuplicates.findDuplicate(signature, excluded);
+        if (match == null) {
+            return null;
+        }
+        if (!vectorStore.contains(match.id())) {
+            nearDuplicates.remove(List.of(match.id()));
+            return null;
         }
+        metrics.recordNearDuplicate(match.similarity());
+        return match.id();
+    }
 
-        JsonWithInt.Value filenameValue = scoredPoint.getPayloadMap().get(PAYLOAD_SOURCE_FILENAME_KEY);
-        if (filenameValue != null && filenameValue.hasStringValue()) {
-            result.setSourceFilename(filenameValue.getStringValue());
-        } else {
-            log.trace("Point {} does not have source filename payload key '{}'", pointIdStr, PAYLOAD_SOURCE_FILENAME_KEY);
-            result.setSourceFilename(null);
+    private void addSignature(String chunkId, String chunk) {
+        if (nearDuplicates.isEnabled() && !nearDuplicates.contains(chunkId)) {
+            nearDuplicates.add(chunkId, nearDuplicates.signature(chunk));
         }
+    }
 
-        return result;
+    private static boolean samePosition(SearchResult stored, ChunkPayload payload) {
+        return Objects.equals(stored.getPageStart(), payload.getPageStart())
+                && Objects.equals(stored.getPageEnd(), payload.getPageEnd())
+                && Objects.equals(stored.getCharStart(), payload.getCharStart())
+                && Objects.equals(stored.getCharEnd(), payload.getCharEnd());
     }
 
     /**
-     * Stores a single embedding chunk.
+     * Generates the embedding of a text chunk.
      *
-     * @param embeddingItem The embedding data.
-     * @param textChunk     The text content of the chunk.
-     * @param chunkId       The pre-generated consistent ID for this chunk.
-     * @return The status name from Qdrant update result.
-     * @throws ExecutionException   If Qdrant interaction fails.
-     * @throws InterruptedException If the thread is interrupted.
+     * @param textChunk The text to embed.
+     * @return The embeddings, or an empty list if the call failed.
+     * @see #buildEmbeddings(List)
      */
-    private String storeEmbedding(EmbeddingItem embeddingItem, String textChunk, String chunkId, String sourceFilename) throws ExecutionException, InterruptedException {
-        createCollectionIfNotExists();
-        UpdateResult updateResult;
-        try {
-            PointStruct point = createPointStruct(embeddingItem, textChunk, chunkId, sourceFilename);
-            updateResult = qdrantClient.upsertAsync(COLLECTION_NAME, List.of(point)).get();
-            log.debug("Stored embedding for chunk ID: {}", chunkId);
-        } catch (Exception e) {
-            log.error("Error while storing embedding for chunk ID {}: {}", chunkId, e.getMessage(), e);
-            throw new RuntimeException("Error while storing embedding for chunk ID " + chunkId, e);
-        }
-        return updateResult.getStatus().name();
+    public List<EmbeddingVector> buildEmbedding(String textChunk) {
+        return buildEmbeddings(List.of(textChunk));
     }
 
+    /**
+     * Generates the embeddings of several texts with the configured {@link EmbeddingProvider}.
+     *
+     * @param texts The texts to embed.
+     * @return The embeddings ordered by prompt index, or an empty list if the call failed.
+     */
+    public List<EmbeddingVector> buildEmbeddings(List<String> texts) {
+        String textChunk = texts.get(0);
+        log.debug("Building {} embedding(s) with {} for text chunk starting with: '{}...'", texts.size(),
+                embeddingProvider.model().getId(), textChunk.substring(0, Math.min(textChunk.length(), 50)));
+        Observation observation = Observation.createNotStarted("rag.embed", observationRegistry)
+                .lowCardinalityKeyValue("model", embeddingProvider.model().getId())
+                .highCardinalityKeyValue("texts", String.valueOf(texts.size()));
+        return observation.observe(() -> {
+            long start = System.nanoTime();
+            List<EmbeddingVector> embeddings = embeddingProvider.embed(texts);
+            metrics.recordEmbedding(embeddingProvider.model().getId(), texts.size(), System.nanoTime() - start,
+                    embeddings.size() == texts.size());
+            observation.highCardinalityKeyValue("embeddings", String.valueOf(embeddings.size()));
+            return embeddings;
+        });
+    }
 
-    private void createCollectionIfNotExists() throws ExecutionException, InterruptedException {
-        boolean exists = qdrantClient.collectionExistsAsync(COLLECTION_NAME).get();
-        if (exists) {
-            return;
-        }
-        log.info("Creating collection: {}", COLLECTION_NAME);
-        try {
-            CollectionOperationResponse result = qdrantClient.createCollectionAsync(COLLECTION_NAME, VectorParams.newBuilder().setDistance(Distance.Cosine)
-                    .setSize(ADA_002_MODEL_DIMENSION_SIZE).build()).get();
-            log.info("Collection creation result: [{}]", result.getResult());
-            if (!result.getResult()) {
-                log.error("Failed to create collection {}", COLLECTION_NAME);
-                throw new RuntimeException("Failed to create Qdrant collection: " + COLLECTION_NAME);
-            }
-        } catch (ExecutionException e) {
-            if (e.getMessage() != null && e.getMessage().contains("already exists")) {
-                log.warn("Collection {} already exists (detected during creation attempt).", COLLECTION_NAME);
-            } else {
-                log.error("Failed to create collection {} due to execution error: {}", COLLECTION_NAME, e.getMessage(), e);
-                throw e;
-            }
-        }
+    public List<SearchResult> searchSimilarText(String queryText, int limit) throws ExecutionException, InterruptedException {
+        return searchSimilarText(queryText, limit, null);
+    }
+
+    public List<SearchResult> searchSimilarText(String queryText, int limit, String sourceFilename) throws ExecutionException, InterruptedException {
+        return searchSimilarText(queryText, limit, SearchFilter.forFile(sourceFilename), false);
     }
 
-    private List<ScoredPoint> searchEmbeddingWithPayload(List<EmbeddingItem> embeddings, int limit, String sourceFilename) throws ExecutionException, InterruptedException {
-        if (!qdrantClient.collectionExistsAsync(COLLECTION_NAME).get()) {
-            log.warn("Collection doesn't exist during search: {}", COLLECTION_NAME);
+    /**
+     * Embeds the query text and searches the vector store.
+     *
+     * @param queryText   The text to embed as the query.
+     * @param limit       The maximum number of results.
+     * @param filter      The source files the results must come from.
+     * @param withVectors Whether the results should carry their stored vectors.
+     * @return The non-empty matches ordered by descending score.
+     */
+    public List<SearchResult> searchSimilarText(String queryText, int limit, SearchFilter filter, boolean withVectors) throws ExecutionException, InterruptedException {
+        return searchSimilarText(queryText, limit, filter, withVectors, SearchProfile.storeDefaults());
+    }
+
+    /**
+     * Embeds the query text and searches the vector store with the given search profile.
+     *
+     * @see #searchSimilarText(String, int, SearchFilter, boolean)
+     */
+    public List<SearchResult> searchSimilarText(String queryText, int limit, SearchFilter filter, boolean withVectors, SearchProfile profile) throws ExecutionException, InterruptedException {
+        Observation observation = Observation.createNotStarted("rag.search", observationRegistry)
+                .lowCardinalityKeyValue("search.profile", profile.getName())
+                .highCardinalityKeyValue("limit", String.valueOf(limit));
+        return Spans.observe(observation, () -> {
+            List<SearchResult> results = search(queryText, limit, filter, withVectors, profile);
+            Spans.results(observation, results);
+            return results;
+        });
+    }
+
+    private List<SearchResult> search(String queryText, int limit, SearchFilter filter, boolean withVectors, SearchProfile profile) throws ExecutionException, InterruptedException {
+        log.info("Searching for {} similar text chunks for query (file filter: {}, profile: {})", limit, filter, profile.getName());
+        List<EmbeddingVector> queryEmbeddings = buildEmbedding(queryText);
+        if (queryEmbeddings.isEmpty()) {
+            log.warn("Could not generate embedding for search query: {}", queryText);
             return Collections.emptyList();
         }
-        var queryEmbeddings = embeddings.stream().map(EmbeddingItem::getEmbedding).flatMap(List::stream).collect(Collectors.toList());
-
-        QueryPoints.Builder queryBuilder = QueryPoints.newBuilder()
-                .setCollectionName(COLLECTION_NAME)
-                .setQuery(nearest(queryEmbeddings))
-                .setWithPayload(enable(true))
-                .setWithVectors(WithVectorsSelectorFactory.enable(false))
-                .setLimit(limit);
-
-        if (StringUtils.hasText(sourceFilename)) {
-            log.debug("Applying filter for source_filename: {}", sourceFilename);
-            queryBuilder.setFilter(
-                    Points.Filter.newBuilder()
-                            .addMust(matchKeyword(PAYLOAD_SOURCE_FILENAME_KEY, sourceFilename))
-                            .build()
-            );
-        } else {
-            log.debug("No source_filename filter applied.");
-        }
 
+        List<SearchResult> searchResults = storeCall("search",
+                () -> vectorStore.search(queryEmbeddings.get(0).getEmbedding(), limit, filter, withVectors, profile));
+        log.info("Found {} potentially relevant text chunks", searchResults.size());
 
-        return qdrantClient.queryAsync(queryBuilder.build()).get();
+        return searchResults.stream()
+                .filter(searchResult -> searchResult.getText() != null && !searchResult.getText().isEmpty())
+                .collect(Collectors.toList());
     }
 
     /**
-     * Checks if an embedding with the given ID already exists in Qdrant.
+     * Embeds many query texts with one embeddings request per {@code embedding.openai.batch-size}
+     * texts and runs all searches with {@link VectorStore#searchBatch}.
      *
-     * @param chunkId The consistent ID of the chunk.
-     * @return true if the embedding exists, false otherwise.
-     * @throws ExecutionException   If Qdrant interaction fails.
-     * @throws InterruptedException If the thread is interrupted.
+     * @param queryTexts  The texts to embed as queries.
+     * @param limit       The maximum number of results per query.
+     * @param filter      The source files the results must come from.
+     * @param withVectors Whether the results should carry their stored vectors.
+     * @param profile     The recall/latency settings of the searches.
+     * @return One list of non-empty matches per query text, in order; empty for texts whose
+     * embeddings request failed.
      */
-    private boolean embeddingExists(String chunkId) throws ExecutionException, InterruptedException {
-        try {
-            return !qdrantClient.retrieveAsync(COLLECTION_NAME, List.of(Points.PointId.newBuilder().setUuid(chunkId).build()), false, false, null)
-                    .get()
-                    .isEmpty();
-        } catch (ExecutionException e) {
-            if (e.getMessage() != null && (e.getMessage().contains("Not found: Collection") || e.getMessage().contains("doesn't exist"))) {
-                log.warn("Collection {} not found during existence check for ID {}. Assuming embedding does not exist.", COLLECTION_NAME, chunkId);
-                return false;
+    public List<List<SearchResult>> searchSimilarTexts(List<String> queryTexts, int limit, SearchFilter filter, boolean withVectors, SearchProfile profile) throws ExecutionException, InterruptedException {
+        int batchSize = Math.max(1, embeddingBatchSize);
+        float[][] queryVectors = new float[queryTexts.size()][];
+        for (int from = 0; from < queryTexts.size(); from += batchSize) {
+            List<String> batch = queryTexts.subList(from, Math.min(from + batchSize, queryTexts.size()));
+            List<EmbeddingVector> embeddings = buildEmbeddings(batch);
+            if (embeddings.size() != batch.size()) {
+                log.warn("Got {} embeddings for queries {} to {}, skipping them", embeddings.size(), from, from + batch.size() - 1);
+                continue;
             }
+            for (int i = 0; i < batch.size(); i++) {
+                queryVectors[from + i] = embeddings.get(i).getEmbedding();
+            }
+        }
 
-            log.error("Error checking embedding existence for ID {}: {}", chunkId, e.getMessage(), e);
-            throw e;
+        List<float[]> embedded = new ArrayList<>(queryTexts.size());
+        for (float[] queryVector : queryVectors) {
+            if (queryVector != null) {
+                embedded.add(queryVector);
+            }
+        }
+        log.info("Batch search for {} queries ({} embedded, limit {}, profile: {})", queryTexts.size(), embedded.size(), limit, profile.getName());
+        List<List<SearchResult>> searchResults = embedded.isEmpty()
+                ? Collections.emptyList()
+                : storeCall("search_batch",
+                        () -> vectorStore.searchBatch(embedded, limit, filter, withVectors, profile));
+
+        List<List<SearchResult>> results = new ArrayList<>(queryTexts.size());
+        int next = 0;
+        for (float[] queryVector : queryVectors) {
+            if (queryVector == null) {
+                results.add(Collections.emptyList());
+                continue;
+            }
+            results.add(searchResults.get(next++).stream()
+                    .filter(searchResult -> searchResult.getText() != null && !searchResult.getText().isEmpty())
+                    .collect(Collectors.toList()));
         }
+        return results;
     }
 
-
     /**
-     * Creates a Qdrant PointStruct for a text chunk.
+     * A new chunk waiting for the embeddings request of its batch.
      *
-     * @param embeddingItem The embedding data.
-     * @param textChunk     The text content of the chunk.
-     * @param chunkId       The pre-generated consistent ID for this chunk.
-     * @return The PointStruct object.
+     * @param index     The position of the chunk in its document.
+     * @param signature The near-duplicate signature, or null when deduplication is off.
      */
-    private PointStruct createPointStruct(EmbeddingItem embeddingItem, String textChunk, String chunkId, String sourceFilename) {
-        Points.PointStruct.Builder builder = PointStruct.newBuilder()
-                .setId(Points.PointId.newBuilder().setUuid(chunkId).build())
-                .setVectors(vectors(embeddingItem.getEmbedding()))
-                .putPayload(PAYLOAD_TEXT_KEY, value(textChunk));
-        if (StringUtils.hasText(sourceFilename)) {
-            builder.putPayload(PAYLOAD_SOURCE_FILENAME_KEY, value(sourceFilename));
-        } else {
-            log.trace("Skipping addition of null/empty source filename to payload for chunk ID: {}", chunkId);
-        }
+    private record PendingChunk(int index, String id, ChunkPayload payload, int[] signature) {
+    }
+
+    /**
+     * Runs a vector store call in its own span and times it.
+     */
+    private <T> T storeCall(String operation, RagMetrics.StoreCall<T> call) throws ExecutionException, InterruptedException {
+        Observation observation = Observation.createNotStarted("rag.vectorstore", observationRegistry)
+                .lowCardinalityKeyValue("store", storeName)
+                .lowCardinalityKeyValue("operation", operation);
+        return Spans.observe(observation, () -> metrics.timeVectorStore(storeName, operation, call));
+    }
 
-                return builder.build();
+    /**
+     * Stores a single embedding chunk.
+     *
+     * @param embedding The embedding data.
+     * @param chunkId   The pre-generated consistent ID for this chunk.
+     * @param payload   The text content of the chunk and its metadata.
+     * @return true if the vector store accepted the point.
+     * @throws ExecutionException   If the vector store interaction fails.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    private boolean storeEmbedding(EmbeddingVector embedding, String chunkId, ChunkPayload payload) throws ExecutionException, InterruptedException {
+        return storeCall("upsert", () -> vectorStore.upsert(chunkId, embedding.getEmbedding(), payload));
     }
-}
\ No newline at end of file
+}
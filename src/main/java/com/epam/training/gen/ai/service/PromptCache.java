@@ -0,0 +1,194 @@
+package com.epam.training.gen.ai.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exact-match cache for deterministic (temperature 0) single-use LLM calls.
+ * <p>
+ * Entries are keyed by a SHA-256 hash of the deployment, the prompt template and the
+ * template inputs, and evicted in least-recently-used order once {@code maxEntries}
+ * is reached. When a persistence file is configured the cache is loaded on startup
+ * and written back on shutdown.
+ * <p>
+ * Hits, misses and the size are exported as {@code rag.prompt.cache.*} meters.
+ */
+@Component
+@Slf4j
+public class PromptCache implements MeterBinder {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Path persistenceFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    private final LinkedHashMap<String, String> entries;
+
+    public PromptCache(@Value("${rag.cache.enabled:true}") boolean enabled,
+                       @Value("${rag.cache.max-entries:1000}") int maxEntries,
+                       @Value("${rag.cache.persistence-file:}") String persistenceFile) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.persistenceFile = StringUtils.hasText(persistenceFile) ? Path.of(persistenceFile) : null;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > PromptCache.this.maxEntries;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Builds the cache key for a single-use call. Every part is length-prefixed before
+     * hashing so that different splits of the same characters never collide.
+     *
+     * @param deployment The LLM deployment serving the call.
+     * @param template   The unformatted prompt template.
+     * @param inputs     The values the template is formatted with.
+     * @return A hex encoded SHA-256 digest.
+     */
+    public String key(String deployment, String template, Object... inputs) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, deployment);
+            update(digest, template);
+            for (Object input : inputs) {
+                update(digest, String.valueOf(input));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public Optional<String> get(String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(value);
+    }
+
+    public void put(String key, String value) {
+        if (!enabled || value == null) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("rag.prompt.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit")
+                .description("Prompt cache lookups")
+                .register(registry);
+        FunctionCounter.builder("rag.prompt.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss")
+                .description("Prompt cache lookups")
+                .register(registry);
+        Gauge.builder("rag.prompt.cache.size", this, PromptCache::size)
+                .description("Prompt cache entries")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!enabled || persistenceFile == null || !Files.exists(persistenceFile)) {
+            return;
+        }
+        try {
+            Map<String, String> stored = objectMapper.readValue(persistenceFile.toFile(), new TypeReference<LinkedHashMap<String, String>>() {
+            });
+            synchronized (entries) {
+                entries.putAll(stored);
+            }
+            log.info("Loaded {} prompt cache entries from {}", size(), persistenceFile);
+        } catch (IOException e) {
+            log.warn("Could not load prompt cache from {}, starting empty: {}", persistenceFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void save() {
+        if (!enabled || persistenceFile == null) {
+            return;
+        }
+        try {
+            Map<String, String> snapshot;
+            synchronized (entries) {
+                snapshot = new LinkedHashMap<>(entries);
+            }
+            Path parent = persistenceFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = persistenceFile.resolveSibling(persistenceFile.getFileName() + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), snapshot);
+            Files.move(tmp, persistenceFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved {} prompt cache entries to {}", snapshot.size(), persistenceFile);
+        } catch (IOException e) {
+            log.error("Failed to save prompt cache to {}: {}", persistenceFile, e.getMessage(), e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String part) {
+        byte[] bytes = part == null ? new byte[0] : part.getBytes(StandardCharsets.UTF_8);
+        int length = part == null ? -1 : bytes.length;
+        digest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+        digest.update(bytes);
+    }
+}
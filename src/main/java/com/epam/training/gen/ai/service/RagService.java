@@ -1,7 +1,17 @@
 package com.epam.training.gen.ai.service;
 
+import com.epam.training.gen.ai.metrics.RagMetrics;
+import com.epam.training.gen.ai.metrics.Spans;
 import com.epam.training.gen.ai.model.ChatResponse;
+import com.epam.training.gen.ai.model.Citation;
+import com.epam.training.gen.ai.model.ExtractedDocument;
+import com.epam.training.gen.ai.model.LlmCallUsage;
+import com.epam.training.gen.ai.model.ResponseDiagnostics;
+import com.epam.training.gen.ai.model.RetrievedChunk;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
 import com.epam.training.gen.ai.model.SearchResult;
+import com.epam.training.gen.ai.store.SearchProfiles;
 import com.epam.training.gen.ai.util.DataExtraction;
 import com.microsoft.semantickernel.Kernel;
 import com.microsoft.semantickernel.orchestration.InvocationContext;
@@ -11,6 +21,8 @@ import com.microsoft.semantickernel.services.chatcompletion.AuthorRole;
 import com.microsoft.semantickernel.services.chatcompletion.ChatCompletionService;
 import com.microsoft.semantickernel.services.chatcompletion.ChatHistory;
 import com.microsoft.semantickernel.services.chatcompletion.ChatMessageContent;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -21,10 +33,12 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
@@ -40,6 +54,18 @@ public class RagService {
 
     private final ChatBotService chatBotService;
 
+    private final PromptCache promptCache;
+
+    private final RetrievalService retrievalService;
+
+    private final ContextCompressor contextCompressor;
+
+    private final SearchProfiles searchProfiles;
+
+    private final RagMetrics metrics;
+
+    private final ObservationRegistry observationRegistry;
+
     @Value("${rag.search.limit}")
     private int searchResultLimit;
 
@@ -59,51 +85,139 @@ public class RagService {
     private ChatHistory chatHistory;
 
     @Autowired
-    public RagService(EmbeddingService embeddingService, DataExtraction dataExtraction, ChatBotService chatBotService) {
+    public RagService(EmbeddingService embeddingService, DataExtraction dataExtraction, ChatBotService chatBotService, PromptCache promptCache, RetrievalService retrievalService, ContextCompressor contextCompressor, SearchProfiles searchProfiles, RagMetrics metrics, ObservationRegistry observationRegistry) {
         this.embeddingService = embeddingService;
         this.dataExtraction = dataExtraction;
         this.chatBotService = chatBotService;
+        this.promptCache = promptCache;
+        this.retrievalService = retrievalService;
+        this.contextCompressor = contextCompressor;
+        this.searchProfiles = searchProfiles;
+        this.metrics = metrics;
+        this.observationRegistry = observationRegistry;
     }
 
     public ChatResponse answerQuestion(String question, String deployment, double temperature, String sourceFilename) {
-        if(sourceFilename==null){
-            return new ChatResponse(chatBotService.getChatBotResponse(question, temperature, deployment), null);
+        return answerQuestion(question, deployment, temperature, sourceFilename == null ? null : SearchFilter.forFile(sourceFilename));
+    }
+
+    /**
+     * Answers a question with retrieval-augmented generation over the documents selected by the filter.
+     *
+     * @param question    The user's question.
+     * @param deployment  The LLM deployment to answer with.
+     * @param temperature The temperature of the final answer.
+     * @param filter      The source files to retrieve from ({@link SearchFilter#all()} for every document),
+     *                    or null to ask the LLM directly without retrieval.
+     * @return The answer, or an error message.
+     */
+    public ChatResponse answerQuestion(String question, String deployment, double temperature, SearchFilter filter) {
+        return answerQuestion(question, deployment, temperature, filter, null);
+    }
+
+    /**
+     * Answers a question with retrieval-augmented generation, searching with a named search profile.
+     * The whole request is traced as an {@code rag.query} span with one child span per step.
+     *
+     * @param searchProfile The name of the search profile, or null for the default profile.
+     * @throws IllegalArgumentException If the search profile is not configured.
+     * @see #answerQuestion(String, String, double, SearchFilter)
+     */
+    public ChatResponse answerQuestion(String question, String deployment, double temperature, SearchFilter filter, String searchProfile) {
+        return answerQuestion(question, deployment, temperature, filter, searchProfile, false);
+    }
+
+    /**
+     * Answers a question and optionally reports where the time went.
+     *
+     * @param withDiagnostics Whether to attach per-stage timings, token usage, retrieval scores and
+     *                        cache hits to the response; nothing is collected when false.
+     * @see #answerQuestion(String, String, double, SearchFilter, String)
+     */
+    public ChatResponse answerQuestion(String question, String deployment, double temperature, SearchFilter filter, String searchProfile,
+                                       boolean withDiagnostics) {
+        SearchProfile profile = searchProfiles.resolve(searchProfile);
+        ResponseDiagnostics diagnostics = withDiagnostics ? new ResponseDiagnostics() : null;
+        long start = System.nanoTime();
+        Observation observation = Observation.createNotStarted("rag.query", observationRegistry)
+                .lowCardinalityKeyValue("deployment", deployment)
+                .lowCardinalityKeyValue("search.profile", profile.getName())
+                .highCardinalityKeyValue("filter", String.valueOf(filter));
+        ChatResponse response = observation.observe(() -> answer(question, deployment, temperature, filter, profile, diagnostics));
+        if (diagnostics != null) {
+            diagnostics.setDeployment(deployment);
+            diagnostics.setTotalMs(ResponseDiagnostics.millis(System.nanoTime() - start));
+            response.setDiagnostics(diagnostics);
+        }
+        return response;
+    }
+
+    private ChatResponse answer(String question, String deployment, double temperature, SearchFilter filter, SearchProfile profile,
+                                ResponseDiagnostics diagnostics) {
+        if(filter==null){
+            return directAnswer(question, deployment, temperature, diagnostics);
         }
 
-        log.info("Received RAG question: '{}' using deployment: {}, temp: {}, sourceFile: {}",
-                question, deployment, temperature, sourceFilename);
+        log.info("Received RAG question: '{}' using deployment: {}, temp: {}, sourceFiles: {}, searchProfile: {}",
+                question, deployment, temperature, filter, profile.getName());
 
         try {
 
             // 1. Rewrite the query for better retrieval
-            String rewrittenQuery = rewriteQuery(question, deployment);
+            long stageStart = System.nanoTime();
+            String rewrittenQuery = rewriteQuery(question, deployment, diagnostics);
+            stage(diagnostics, "rewrite", stageStart);
             log.info("Original query: '{}', Rewritten query: '{}'", question, rewrittenQuery);
 
             //2. Get Hypothetical document to query relevant document
-            String hypotheticalDocument = createHypotheticalDocument(rewrittenQuery, deployment);
+            stageStart = System.nanoTime();
+            String hypotheticalDocument = createHypotheticalDocument(rewrittenQuery, deployment, diagnostics);
+            stage(diagnostics, "hyde", stageStart);
             log.info("Hypothetical document created : {}", hypotheticalDocument);
 
-            // 3. Search for relevant documents using hypothetical document
-            log.info("Searching embeddings with limit {} for file: {}", searchResultLimit, sourceFilename);
-            List<SearchResult> searchResults = embeddingService.searchSimilarText(hypotheticalDocument, searchResultLimit, sourceFilename);
+            // 3. Search for relevant documents: vectors with the hypothetical document, BM25 with the question terms
+            log.info("Searching embeddings with limit {} for files: {}", searchResultLimit, filter);
+            Observation retrieval = Observation.createNotStarted("rag.retrieve", observationRegistry)
+                    .highCardinalityKeyValue("limit", String.valueOf(searchResultLimit));
+            stageStart = System.nanoTime();
+            List<SearchResult> searchResults = Spans.observe(retrieval, () -> {
+                List<SearchResult> results = retrievalService.retrieve(hypotheticalDocument, question + "\n" + rewrittenQuery, searchResultLimit, filter, profile);
+                Spans.results(retrieval, results);
+                return results;
+            });
+            stage(diagnostics, "retrieve", stageStart);
+            if (diagnostics != null) {
+                searchResults.forEach(result -> diagnostics.getRetrievedChunks().add(new RetrievedChunk(result.getUuid(),
+                        result.getSourceFilename(), result.getPageStart(), result.getPageEnd(), result.getScore())));
+            }
 
             if (searchResults.isEmpty()) {
                 log.warn("No relevant documents found for question: {}, asking directly to llm.", question);
-                 return new ChatResponse(chatBotService.getChatBotResponse(question, temperature, deployment), null);
+                return directAnswer(question, deployment, temperature, diagnostics);
             }
 
-            // 4. Build Context String
-            String context = searchResults.stream()
-                    .map(sr -> StringUtils.hasText(sr.getSourceFilename())
-                            ? String.format("Source: %s\nContent: %s", sr.getSourceFilename(), sr.getText())
-                            : sr.getText())
+            // 4. Keep only the sentences most relevant to the question
+            List<SearchResult> retrieved = searchResults;
+            Observation compression = Observation.createNotStarted("rag.compress", observationRegistry)
+                    .highCardinalityKeyValue("chunks", String.valueOf(retrieved.size()));
+            stageStart = System.nanoTime();
+            searchResults = compression.observe(() -> contextCompressor.compress(question, retrieved));
+            stage(diagnostics, "compress", stageStart);
+
+            // 5. Build Context String, numbering the sources so the answer can cite them
+            List<Citation> citations = citations(searchResults);
+            String context = citations.stream()
+                    .map(RagService::contextEntry)
                     .collect(Collectors.joining("\n---\n"));
 
-            // 5. Augment Prompt
+            // 6. Augment Prompt
             String augmentedPrompt = String.format(ragPromptTemplate, context, question);
             log.debug("Augmented prompt for LLM (first 500 chars): {}", augmentedPrompt.substring(0, Math.min(augmentedPrompt.length(), 500)));
 
-            return new ChatResponse(chatBotService.getChatBotResponse(augmentedPrompt, temperature, deployment), null);
+            stageStart = System.nanoTime();
+            String answer = chatBotService.getChatBotResponse(augmentedPrompt, temperature, deployment, chatHistory, "answer", diagnostics);
+            stage(diagnostics, "answer", stageStart);
+            return new ChatResponse(answer, null, citations);
 
 
         } catch (ExecutionException | InterruptedException e) {
@@ -116,32 +230,99 @@ public class RagService {
         }
     }
 
-    private String rewriteQuery(String query, String deployment){
-        String rewriteQueryTemplate = String.format(enhanceQueryTemplate, query);
-        String response = singleUseQuery(rewriteQueryTemplate, deployment, 0.0);
+    private ChatResponse directAnswer(String question, String deployment, double temperature, ResponseDiagnostics diagnostics) {
+        long start = System.nanoTime();
+        String answer = chatBotService.getChatBotResponse(question, temperature, deployment, chatHistory, "direct", diagnostics);
+        stage(diagnostics, "direct", start);
+        return new ChatResponse(answer, null);
+    }
+
+    private static void stage(ResponseDiagnostics diagnostics, String stage, long start) {
+        if (diagnostics != null) {
+            diagnostics.addStage(stage, System.nanoTime() - start);
+        }
+    }
+
+    private String rewriteQuery(String query, String deployment, ResponseDiagnostics diagnostics){
+        String response = singleUseQuery("rewrite", diagnostics, enhanceQueryTemplate, deployment, 0.0, query);
         return response.equals(FAILED_TO_GET_RESPONSE)?query:response;
     }
 
-    private String createHypotheticalDocument(String query, String deployment){
-        String hydeTemplate = String.format(ragHydeTemplate, query, chunkSize/4);
-        String response = singleUseQuery(hydeTemplate, deployment, 0.0);
+    private String createHypotheticalDocument(String query, String deployment, ResponseDiagnostics diagnostics){
+        String response = singleUseQuery("hyde", diagnostics, ragHydeTemplate, deployment, 0.0, query, chunkSize/4);
         return response.equals(FAILED_TO_GET_RESPONSE)?query:response;
     }
 
     /**
-     * Runs the user query using an LLM always with a new ChatHistory instance.
+     * Formats the template with the given inputs and runs it using an LLM always with a
+     * new ChatHistory instance. Deterministic calls (temperature 0) are served from the
+     * {@link PromptCache} when the same deployment, template and inputs were seen before.
      *
-     * @param query The user query.
+     * @param stage         What the query is for, used as metric tag.
+     * @param diagnostics   The diagnostics of the request, or null.
+     * @param template      The prompt template.
      * @param deployment    The LLM deployment to use for querying.
      * @param temperature   The temperature setting for the LLM call.
+     * @param inputs        The values the template is formatted with.
      * @return The response from the LLM.
      */
-    private String singleUseQuery(String query, String deployment, double temperature) {
+    private String singleUseQuery(String stage, ResponseDiagnostics diagnostics, String template, String deployment, double temperature, Object... inputs) {
+        boolean cacheable = temperature == 0.0 && promptCache.isEnabled();
+        String cacheKey = cacheable ? promptCache.key(deployment, template, inputs) : null;
+        if (cacheable) {
+            Optional<String> cached = promptCache.get(cacheKey);
+            if (cached.isPresent()) {
+                log.debug("Prompt cache hit for deployment {}", deployment);
+                if (diagnostics != null) {
+                    diagnostics.addLlmCall(new LlmCallUsage(stage, deployment, null, 0, null, null, true));
+                }
+                return cached.get();
+            }
+        }
+
+        String query = String.format(template, inputs);
         ChatHistory newHistory = new ChatHistory(Collections.emptyList());
         newHistory.addUserMessage(query);
-        return chatBotService.getChatBotResponse(query, temperature, deployment, newHistory);
+        String response = chatBotService.getChatBotResponse(query, temperature, deployment, newHistory, stage, diagnostics);
+
+        if (cacheable && response != null && !response.equals(FAILED_TO_GET_RESPONSE)
+                && !response.equals(ChatBotService.NO_RESPONSE_ERROR_HANDLING)) {
+            promptCache.put(cacheKey, response);
+        }
+        return response;
+    }
+
+
+    /**
+     * Numbers the chunks sent to the LLM from 1, in prompt order. The snippet is the text the LLM
+     * actually saw, so it is the compressed text when the context was compressed.
+     */
+    static List<Citation> citations(List<SearchResult> searchResults) {
+        List<Citation> citations = new ArrayList<>(searchResults.size());
+        for (int i = 0; i < searchResults.size(); i++) {
+            SearchResult result = searchResults.get(i);
+            citations.add(new Citation(i + 1, result.getSourceFilename(), result.getPageStart(), result.getPageEnd(),
+                    result.getCharStart(), result.getCharEnd(), result.getText()));
+        }
+        return citations;
+    }
+
+    private static String contextEntry(Citation citation) {
+        if (!StringUtils.hasText(citation.getSourceFilename())) {
+            return String.format("[%d]\nContent: %s", citation.getIndex(), citation.getSnippet());
+        }
+        String pages = "";
+        if (citation.getPageStart() != null) {
+            pages = citation.getPageStart().equals(citation.getPageEnd())
+                    ? String.format(" (page %d)", citation.getPageStart())
+                    : String.format(" (pages %d-%d)", citation.getPageStart(), citation.getPageEnd());
+        }
+        return String.format("[%d] Source: %s%s\nContent: %s", citation.getIndex(), citation.getSourceFilename(), pages, citation.getSnippet());
     }
 
+    private static String documentType(String contentType) {
+        return contentType.equalsIgnoreCase("application/pdf") ? "pdf" : "docx";
+    }
 
     /**
      * Processes an uploaded file (PDF or DOCX), extracts text, and stores its embedding.
@@ -149,21 +330,22 @@ public class RagService {
      * @param file The uploaded MultipartFile.
      * @return A status string indicating the outcome (e.g., "SUCCESS", "FAILED_...", "SKIPPED_...").
      * @throws IOException If there's an error reading the file stream or during text extraction.
-     * @throws ExecutionException | InterruptedException If there's an error during embedding storage (Qdrant interaction).
+     * @throws ExecutionException | InterruptedException If there's an error during embedding storage (vector store interaction).
      * @throws RuntimeException for other unexpected errors during embedding/storage.
      */
     public String processAndStoreDocument(MultipartFile file) throws IOException, ExecutionException, InterruptedException {
         String filename = file.getOriginalFilename();
         String contentType = file.getContentType();
-        String textContent = null;
+        ExtractedDocument document = null;
 
         log.info("Processing uploaded document: {}", filename);
 
+        long start = System.nanoTime();
         try (InputStream inputStream = file.getInputStream()) {
             if (contentType != null && contentType.equalsIgnoreCase("application/pdf")) {
-                textContent = dataExtraction.extractTextFromPdf(inputStream, filename);
+                document = dataExtraction.extractPdf(inputStream, filename);
             } else if (contentType != null && contentType.equalsIgnoreCase("application/vnd.openxmlformats-officedocument.wordprocessingml.document")) {
-                textContent = dataExtraction.extractTextFromDocx(inputStream, filename);
+                document = dataExtraction.extractDocx(inputStream, filename);
             } else {
                 // This should ideally be caught by the controller, but double-check
                 log.warn("Unsupported content type '{}' passed to service for file {}", contentType, filename);
@@ -171,12 +353,17 @@ public class RagService {
             }
         }
 
-        if (textContent == null || textContent.isBlank()) {
+        if (document != null) {
+            metrics.recordExtraction(documentType(contentType), document.getPageOffsets() == null ? 0 : document.getPageOffsets().length,
+                    System.nanoTime() - start);
+        }
+
+        if (document == null || document.getText() == null || document.getText().isBlank()) {
             log.warn("No text content extracted from {} or content is blank.", filename);
-            return textContent == null ? "SKIPPED_EXTRACTION_FAILED" : "SKIPPED_BLANK_TEXT";
+            return document == null || document.getText() == null ? "SKIPPED_EXTRACTION_FAILED" : "SKIPPED_BLANK_TEXT";
         }
 
         log.info("Extracted text from {}. Proceeding to embed and store.", filename);
-        return embeddingService.chunkAndStoreEmbeddings(textContent, filename);
+        return embeddingService.chunkAndStoreEmbeddings(document, filename, documentType(contentType));
     }
 }
\ No newline at end of file
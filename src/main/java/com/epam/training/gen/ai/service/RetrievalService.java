@@ -0,0 +1,145 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
+import com.epam.training.gen.ai.model.SearchResult;
+import com.epam.training.gen.ai.store.Bm25Index;
+import com.epam.training.gen.ai.store.VectorStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Hybrid retrieval: dense vector search and BM25 lexical search run in parallel and their
+ * rankings are merged with reciprocal-rank fusion (RRF).
+ * <p>
+ * Vector search finds paraphrases, BM25 finds exact terms such as plan names and policy codes.
+ * RRF only looks at ranks, so the two incomparable score scales never need to be normalised:
+ * each result scores {@code sum(1 / (k + rank))} over the lists it appears in.
+ * <p>
+ * When MMR is enabled a larger pool of candidates is fetched together with their vectors and
+ * the {@link ContextSelector} picks a diverse subset of them that fits the token budget.
+ */
+@Service
+@Slf4j
+public class RetrievalService {
+
+    private final EmbeddingService embeddingService;
+    private final VectorStore vectorStore;
+    private final Bm25Index bm25Index;
+    private final ContextSelector contextSelector;
+    private final boolean hybridEnabled;
+    private final int candidates;
+    private final int rrfK;
+    private final int mmrCandidates;
+
+    public RetrievalService(EmbeddingService embeddingService, VectorStore vectorStore, Bm25Index bm25Index,
+                            ContextSelector contextSelector,
+                            @Value("${retrieval.hybrid.enabled:true}") boolean hybridEnabled,
+                            @Value("${retrieval.hybrid.candidates:20}") int candidates,
+                            @Value("${retrieval.hybrid.rrf-k:60}") int rrfK,
+                            @Value("${retrieval.mmr.candidates:10}") int mmrCandidates) {
+        this.embeddingService = embeddingService;
+        this.vectorStore = vectorStore;
+        this.bm25Index = bm25Index;
+        this.contextSelector = contextSelector;
+        this.hybridEnabled = hybridEnabled;
+        this.candidates = candidates;
+        this.rrfK = rrfK;
+        this.mmrCandidates = mmrCandidates;
+    }
+
+    /**
+     * Finds the chunks most relevant to a question.
+     *
+     * @param semanticQuery The text embedded for vector search (e.g. a hypothetical answer).
+     * @param lexicalQuery  The text matched term by term with BM25 (e.g. the user's question).
+     * @param limit         The maximum number of results.
+     * @param filter        The source files the results must come from.
+     * @param profile       The recall/latency settings of the vector search.
+     * @return The selected results in pick order. With hybrid retrieval enabled the score of each
+     * result is its RRF score, otherwise the vector similarity.
+     * @throws ExecutionException   If the vector store interaction fails.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    public List<SearchResult> retrieve(String semanticQuery, String lexicalQuery, int limit, SearchFilter filter, SearchProfile profile) throws ExecutionException, InterruptedException {
+        boolean withVectors = contextSelector.isMmrEnabled();
+        int poolSize = withVectors ? Math.max(limit, mmrCandidates) : limit;
+        if (!hybridEnabled) {
+            return contextSelector.select(embeddingService.searchSimilarText(semanticQuery, poolSize, filter, withVectors, profile), limit);
+        }
+
+        int depth = Math.max(poolSize, candidates);
+        CompletableFuture<List<Bm25Index.Hit>> lexicalSearch = CompletableFuture.supplyAsync(() -> bm25Index.search(lexicalQuery, depth, filter));
+        List<SearchResult> denseResults = embeddingService.searchSimilarText(semanticQuery, depth, filter, withVectors, profile);
+
+        List<Bm25Index.Hit> lexicalHits;
+        try {
+            lexicalHits = lexicalSearch.get();
+        } catch (ExecutionException e) {
+            log.warn("BM25 search failed, using vector results only: {}", e.getMessage(), e);
+            lexicalHits = Collections.emptyList();
+        }
+        log.info("Hybrid retrieval: {} vector and {} BM25 candidates for limit {}", denseResults.size(), lexicalHits.size(), limit);
+
+        return contextSelector.select(fuse(denseResults, lexicalHits, poolSize, withVectors), limit);
+    }
+
+    private List<SearchResult> fuse(List<SearchResult> denseResults, List<Bm25Index.Hit> lexicalHits, int limit, boolean withVectors) throws ExecutionException, InterruptedException {
+        Map<String, Double> fusedScores = new HashMap<>();
+        Map<String, SearchResult> resultsById = new LinkedHashMap<>();
+        for (int rank = 0; rank < denseResults.size(); rank++) {
+            SearchResult result = denseResults.get(rank);
+            fusedScores.merge(result.getUuid(), reciprocalRank(rank), Double::sum);
+            resultsById.putIfAbsent(result.getUuid(), result);
+        }
+        for (int rank = 0; rank < lexicalHits.size(); rank++) {
+            fusedScores.merge(lexicalHits.get(rank).id(), reciprocalRank(rank), Double::sum);
+        }
+
+        List<String> ranked = fusedScores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        List<String> missing = new ArrayList<>();
+        for (String id : ranked.subList(0, Math.min(limit, ranked.size()))) {
+            if (!resultsById.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (SearchResult result : vectorStore.retrieve(missing, withVectors)) {
+                resultsById.put(result.getUuid(), result);
+            }
+        }
+
+        List<SearchResult> fused = new ArrayList<>(limit);
+        for (String id : ranked) {
+            SearchResult result = resultsById.get(id);
+            if (result == null || result.getText() == null || result.getText().isEmpty()) {
+                continue;
+            }
+            result.setScore(fusedScores.get(id).floatValue());
+            fused.add(result);
+            if (fused.size() == limit) {
+                break;
+            }
+        }
+        return fused;
+    }
+
+    private double reciprocalRank(int rank) {
+        return 1.0 / (rrfK + rank + 1);
+    }
+}
@@ -0,0 +1,131 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.model.SearchBenchmarkRequest;
+import com.epam.training.gen.ai.model.SearchBenchmarkResult;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
+import com.epam.training.gen.ai.model.SearchResult;
+import com.epam.training.gen.ai.store.SearchProfiles;
+import com.epam.training.gen.ai.store.VectorStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Sweeps {@code hnsw_ef} over a set of queries and reports latency and recall against exact search,
+ * to pick the search profile settings for a collection.
+ * <p>
+ * The queries are embedded once up front and every query is searched once untimed to warm up
+ * caches, so the timings only cover the vector store. Recall is {@code |approximate ∩ exact| / |exact|}
+ * of the top {@code limit} IDs. The in-process flat store always searches exactly, so its recall is 1
+ * for every value.
+ */
+@Service
+@Slf4j
+public class SearchBenchmarkService {
+
+    private final EmbeddingService embeddingService;
+    private final VectorStore vectorStore;
+    private final SearchProfiles searchProfiles;
+
+    public SearchBenchmarkService(EmbeddingService embeddingService, VectorStore vectorStore, SearchProfiles searchProfiles) {
+        this.embeddingService = embeddingService;
+        this.vectorStore = vectorStore;
+        this.searchProfiles = searchProfiles;
+    }
+
+    /**
+     * Runs the sweep.
+     *
+     * @throws IllegalArgumentException If there are no queries or {@code hnsw_ef} values, or the
+     *                                  search profile is unknown.
+     * @throws IllegalStateException    If the queries could not be embedded.
+     */
+    public SearchBenchmarkResult run(SearchBenchmarkRequest request) throws ExecutionException, InterruptedException {
+        if (request.getQueries() == null || request.getQueries().isEmpty()) {
+            throw new IllegalArgumentException("At least one query is required");
+        }
+        if (request.getHnswEf() == null || request.getHnswEf().isEmpty() || request.getLimit() <= 0) {
+            throw new IllegalArgumentException("A positive limit and at least one hnswEf value are required");
+        }
+        SearchProfile base = searchProfiles.resolve(request.getSearchProfile());
+        List<EmbeddingVector> embeddings = embeddingService.buildEmbeddings(request.getQueries());
+        if (embeddings.size() != request.getQueries().size()) {
+            throw new IllegalStateException("Got " + embeddings.size() + " embeddings for " + request.getQueries().size() + " queries");
+        }
+        List<float[]> queries = embeddings.stream().map(EmbeddingVector::getEmbedding).collect(Collectors.toList());
+        int limit = request.getLimit();
+        int repetitions = Math.max(1, request.getRepetitions());
+
+        for (float[] query : queries) {
+            vectorStore.search(query, limit, SearchFilter.all(), false, base);
+        }
+
+        List<Set<String>> exactIds = new ArrayList<>(queries.size());
+        long[] exactNanos = new long[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            long start = System.nanoTime();
+            List<SearchResult> exact = vectorStore.search(queries.get(i), limit, SearchFilter.all(), false, SearchProfile.exactSearch());
+            exactNanos[i] = System.nanoTime() - start;
+            exactIds.add(ids(exact));
+        }
+
+        List<SearchBenchmarkResult.EfMeasurement> measurements = new ArrayList<>(request.getHnswEf().size());
+        for (int ef : request.getHnswEf()) {
+            SearchProfile profile = base.withHnswEf(ef);
+            long[] nanos = new long[queries.size() * repetitions];
+            double recallSum = 0;
+            int recallQueries = 0;
+            for (int repetition = 0; repetition < repetitions; repetition++) {
+                for (int i = 0; i < queries.size(); i++) {
+                    long start = System.nanoTime();
+                    List<SearchResult> results = vectorStore.search(queries.get(i), limit, SearchFilter.all(), false, profile);
+                    nanos[repetition * queries.size() + i] = System.nanoTime() - start;
+                    if (repetition == 0 && !exactIds.get(i).isEmpty()) {
+                        recallSum += recall(exactIds.get(i), ids(results));
+                        recallQueries++;
+                    }
+                }
+            }
+            double recall = recallQueries == 0 ? 1.0 : recallSum / recallQueries;
+            measurements.add(new SearchBenchmarkResult.EfMeasurement(ef, meanMillis(nanos), percentileMillis(nanos, 0.95), recall));
+            log.info("hnsw_ef {}: mean {} ms, recall@{} {}", ef, String.format("%.3f", meanMillis(nanos)), limit, String.format("%.3f", recall));
+        }
+        return new SearchBenchmarkResult(queries.size(), limit, meanMillis(exactNanos), measurements);
+    }
+
+    static double recall(Set<String> exact, Set<String> found) {
+        int hits = 0;
+        for (String id : found) {
+            if (exact.contains(id)) {
+                hits++;
+            }
+        }
+        return (double) hits / exact.size();
+    }
+
+    static double meanMillis(long[] nanos) {
+        return Arrays.stream(nanos).average().orElse(0) / 1_000_000.0;
+    }
+
+    static double percentileMillis(long[] nanos, double percentile) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int index = Math.max(0, (int) Math.ceil(percentile * sorted.length) - 1);
+        return sorted[index] / 1_000_000.0;
+    }
+
+    private static Set<String> ids(List<SearchResult> results) {
+        Set<String> ids = new HashSet<>(results.size());
+        results.forEach(result -> ids.add(result.getUuid()));
+        return ids;
+    }
+}
@@ -0,0 +1,520 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.SearchFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * In-process BM25 inverted index over chunk texts, used next to the vector store for exact-term matches.
+ * <p>
+ * Each term maps to a posting list of document ordinals and term frequencies held in primitive
+ * {@code int[]} arrays. Ordinals only grow, so posting lists stay sorted and are written to disk
+ * delta- and varint-encoded. Re-indexing an ID tombstones its old document; tombstoned documents
+ * are skipped at query time and dropped when the index is saved. The page range of every document
+ * is kept so lexical hits honour the page range of a {@link SearchFilter}, and a chunk that several
+ * documents share matches a filter on any of them.
+ */
+@Component
+@Slf4j
+public class Bm25Index {
+
+    private static final int SNAPSHOT_MAGIC = 0x424D3235; // "BM25"
+    private static final int SNAPSHOT_VERSION = 3;
+    private static final int NO_PAGE = 0;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "has", "have", "in", "is", "it",
+            "its", "of", "on", "or", "that", "the", "this", "to", "was", "were", "will", "with");
+
+    private final float k1;
+    private final float b;
+    private final Path indexFile;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final Map<String, Integer> docsById = new HashMap<>();
+    private final FileAssignments files = new FileAssignments(64);
+    private final BitSet deleted = new BitSet();
+    private int[] docLengths = new int[64];
+    private int[] pageStartByDoc = new int[64];
+    private int[] pageEndByDoc = new int[64];
+    private long totalLength;
+    private boolean dirty;
+
+    public Bm25Index(@Value("${retrieval.bm25.k1:1.2}") float k1,
+                     @Value("${retrieval.bm25.b:0.75}") float b,
+                     @Value("${retrieval.bm25.index-file:}") String indexFile) {
+        this.k1 = k1;
+        this.b = b;
+        this.indexFile = StringUtils.hasText(indexFile) ? Path.of(indexFile) : null;
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return docsById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of live (not replaced) documents.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docsById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a chunk, replacing any earlier document with the same ID.
+     *
+     * @param id             The consistent chunk ID, shared with the vector store.
+     * @param text           The chunk text.
+     * @param sourceFilename The source filename, or null.
+     */
+    public void add(String id, String text, String sourceFilename) {
+        add(id, text, sourceFilename, null, null);
+    }
+
+    /**
+     * Indexes a chunk with its page range, replacing any earlier document with the same ID.
+     *
+     * @param id             The consistent chunk ID, shared with the vector store.
+     * @param text           The chunk text.
+     * @param sourceFilename The source filename, or null.
+     * @param pageStart      The first page of the chunk, or null if the document has no pages.
+     * @param pageEnd        The last page of the chunk, or null if the document has no pages.
+     */
+    public void add(String id, String text, String sourceFilename, Integer pageStart, Integer pageEnd) {
+        Map<String, Integer> termFrequencies = termFrequencies(text);
+        lock.writeLock().lock();
+        try {
+            Integer previous = docsById.get(id);
+            if (previous != null) {
+                deleted.set(previous);
+                files.unassign(previous);
+                totalLength -= docLengths[previous];
+            }
+            int doc = ids.size();
+            ids.add(id);
+            docsById.put(id, doc);
+            ensureDocCapacity(doc + 1);
+            int length = 0;
+            for (Map.Entry<String, Integer> entry : termFrequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new Postings()).add(doc, entry.getValue());
+                length += entry.getValue();
+            }
+            docLengths[doc] = length;
+            totalLength += length;
+            files.assign(doc, sourceFilename, List.of());
+            pageStartByDoc[doc] = pageStart == null ? NO_PAGE : pageStart;
+            pageEndByDoc[doc] = pageEnd == null ? NO_PAGE : pageEnd;
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets the documents an indexed chunk belongs to, e.g. when another document references a shared
+     * chunk. The first filename replaces the source filename; lexical hits for any of them return it.
+     *
+     * @param id              The chunk ID.
+     * @param sourceFilenames The source filename followed by the other documents; must not be empty.
+     * @return false if the ID is not indexed.
+     */
+    public boolean setSourceFilenames(String id, List<String> sourceFilenames) {
+        lock.writeLock().lock();
+        try {
+            Integer doc = docsById.get(id);
+            if (doc == null) {
+                return false;
+            }
+            files.assign(doc, sourceFilenames.get(0), sourceFilenames.subList(1, sourceFilenames.size()));
+            dirty = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes documents by ID. Their postings are dropped when the index is next saved.
+     *
+     * @param idsToRemove The chunk IDs to remove; unknown IDs are ignored.
+     */
+    public void remove(Collection<String> idsToRemove) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idsToRemove) {
+                Integer doc = docsById.remove(id);
+                if (doc != null) {
+                    deleted.set(doc);
+                    files.unassign(doc);
+                    totalLength -= docLengths[doc];
+                    dirty = true;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Hit> search(String query, int limit, String sourceFilename) {
+        return search(query, limit, SearchFilter.forFile(sourceFilename));
+    }
+
+    /**
+     * Ranks documents against the query with Okapi BM25.
+     *
+     * @param query  The free-text query.
+     * @param limit  The maximum number of results.
+     * @param filter The files and pages the results must come from.
+     * @return The matching chunk IDs with their BM25 scores, best first.
+     */
+    public List<Hit> search(String query, int limit, SearchFilter filter) {
+        Set<String> terms = termFrequencies(query).keySet();
+        lock.readLock().lock();
+        try {
+            int live = docsById.size();
+            if (terms.isEmpty() || live == 0 || limit <= 0) {
+                return Collections.emptyList();
+            }
+            IntPredicate fileFilter = null;
+            if (!filter.isAllDocuments()) {
+                if (files.count(filter.getSourceFilenames()) == 0) {
+                    return Collections.emptyList();
+                }
+                fileFilter = files.filter(filter.getSourceFilenames());
+            }
+
+            float averageLength = Math.max(1f, (float) totalLength / live);
+            float[] scores = new float[ids.size()];
+            boolean[] seen = new boolean[ids.size()];
+            int[] touched = new int[64];
+            int touchedCount = 0;
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                // document frequency still counts replaced documents until the next save, hence the clamp
+                float idf = (float) Math.log(1 + Math.max(0.0, live - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    int doc = list.docs[i];
+                    if (deleted.get(doc) || (fileFilter != null && !fileFilter.test(doc))
+                            || !filter.matchesPages(pageStartByDoc[doc], pageEndByDoc[doc])) {
+                        continue;
+                    }
+                    int tf = list.freqs[i];
+                    float norm = k1 * (1 - b + b * docLengths[doc] / averageLength);
+                    if (!seen[doc]) {
+                        seen[doc] = true;
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = doc;
+                    }
+                    scores[doc] += idf * tf * (k1 + 1) / (tf + norm);
+                }
+            }
+
+            NodeHeap best = NodeHeap.minHeap(limit + 1);
+            for (int i = 0; i < touchedCount; i++) {
+                int doc = touched[i];
+                if (best.size() < limit || scores[doc] > best.topScore()) {
+                    best.push(doc, scores[doc]);
+                    if (best.size() > limit) {
+                        best.pop();
+                    }
+                }
+            }
+            Hit[] hits = new Hit[best.size()];
+            for (int i = hits.length - 1; i >= 0; i--) {
+                float score = best.topScore();
+                hits[i] = new Hit(ids.get(best.pop()), score);
+            }
+            return Arrays.asList(hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        if (indexFile == null || !Files.exists(indexFile)) {
+            log.info("No BM25 index to load, starting with an empty index.");
+            return;
+        }
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Unrecognised BM25 index header");
+            }
+            int version = in.readInt();
+            if (version < 1 || version > SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported BM25 index version " + version);
+            }
+            clear();
+            int docCount = in.readInt();
+            ensureDocCapacity(docCount);
+            String[] fileNames = new String[in.readInt()];
+            for (int i = 0; i < fileNames.length; i++) {
+                fileNames[i] = in.readUTF();
+            }
+            for (int doc = 0; doc < docCount; doc++) {
+                String id = in.readUTF();
+                ids.add(id);
+                docsById.put(id, doc);
+                docLengths[doc] = in.readInt();
+                int fileId = in.readInt();
+                if (version >= 2) {
+                    pageStartByDoc[doc] = in.readInt();
+                    pageEndByDoc[doc] = in.readInt();
+                }
+                List<String> otherFiles = new ArrayList<>();
+                if (version >= 3) {
+                    for (int i = in.readInt(); i > 0; i--) {
+                        otherFiles.add(fileNames[in.readInt()]);
+                    }
+                }
+                files.assign(doc, fileId == FileAssignments.NO_FILE ? null : fileNames[fileId], otherFiles);
+                totalLength += docLengths[doc];
+            }
+            int termCount = in.readInt();
+            for (int t = 0; t < termCount; t++) {
+                String term = in.readUTF();
+                int size = in.readInt();
+                Postings list = new Postings(size);
+                int doc = 0;
+                for (int i = 0; i < size; i++) {
+                    doc += readVarInt(in);
+                    list.add(doc, readVarInt(in));
+                }
+                postings.put(term, list);
+            }
+            dirty = false;
+            log.info("Loaded BM25 index with {} documents and {} terms from {}", docCount, termCount, indexFile);
+        } catch (IOException e) {
+            log.error("Failed to load BM25 index from {}, starting empty: {}", indexFile, e.getMessage(), e);
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the index if anything changed since the last save, leaving out replaced documents.
+     * The file is written next to the target and moved into place.
+     */
+    @PreDestroy
+    public synchronized void flush() {
+        if (indexFile == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            Path parent = indexFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                writeTo(out);
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+            log.info("Saved BM25 index with {} documents to {}", docsById.size(), indexFile);
+        } catch (IOException e) {
+            log.error("Failed to save BM25 index to {}: {}", indexFile, e.getMessage(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void writeTo(DataOutputStream out) throws IOException {
+        int[] remap = new int[ids.size()];
+        int live = 0;
+        for (int doc = 0; doc < ids.size(); doc++) {
+            remap[doc] = deleted.get(doc) ? -1 : live++;
+        }
+
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(live);
+        String[] fileNames = files.names();
+        out.writeInt(fileNames.length);
+        for (String name : fileNames) {
+            out.writeUTF(name);
+        }
+        for (int doc = 0; doc < ids.size(); doc++) {
+            if (remap[doc] >= 0) {
+                out.writeUTF(ids.get(doc));
+                out.writeInt(docLengths[doc]);
+                out.writeInt(files.fileId(doc));
+                out.writeInt(pageStartByDoc[doc]);
+                out.writeInt(pageEndByDoc[doc]);
+                int[] otherFileIds = files.otherFileIds(doc);
+                out.writeInt(otherFileIds.length);
+                for (int fileId : otherFileIds) {
+                    out.writeInt(fileId);
+                }
+            }
+        }
+
+        Map<String, Postings> livePostings = new LinkedHashMap<>();
+        for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+            Postings list = entry.getValue();
+            Postings compacted = new Postings(list.size);
+            for (int i = 0; i < list.size; i++) {
+                if (remap[list.docs[i]] >= 0) {
+                    compacted.add(remap[list.docs[i]], list.freqs[i]);
+                }
+            }
+            if (compacted.size > 0) {
+                livePostings.put(entry.getKey(), compacted);
+            }
+        }
+        out.writeInt(livePostings.size());
+        for (Map.Entry<String, Postings> entry : livePostings.entrySet()) {
+            Postings list = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeInt(list.size);
+            int previous = 0;
+            for (int i = 0; i < list.size; i++) {
+                writeVarInt(out, list.docs[i] - previous);
+                writeVarInt(out, list.freqs[i]);
+                previous = list.docs[i];
+            }
+        }
+    }
+
+    /**
+     * Lower-cased letter/digit runs without common English stop words, with their counts.
+     */
+    static Map<String, Integer> termFrequencies(String text) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        if (text == null) {
+            return frequencies;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                frequencies.merge(token, 1, Integer::sum);
+            }
+        }
+        return frequencies;
+    }
+
+    private void ensureDocCapacity(int required) {
+        if (required > docLengths.length) {
+            int capacity = Math.max(required, docLengths.length * 2);
+            docLengths = Arrays.copyOf(docLengths, capacity);
+            pageStartByDoc = Arrays.copyOf(pageStartByDoc, capacity);
+            pageEndByDoc = Arrays.copyOf(pageEndByDoc, capacity);
+        }
+    }
+
+    private void clear() {
+        postings.clear();
+        ids.clear();
+        docsById.clear();
+        files.clear();
+        deleted.clear();
+        docLengths = new int[64];
+        pageStartByDoc = new int[64];
+        pageEndByDoc = new int[64];
+        totalLength = 0;
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte next = in.readByte();
+            value |= (next & 0x7F) << shift;
+            if (next >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in BM25 index");
+    }
+
+    /**
+     * A chunk ID with its BM25 score.
+     */
+    public record Hit(String id, float score) {
+    }
+
+    /**
+     * Document ordinals and term frequencies of one term, in ascending ordinal order.
+     */
+    private static final class Postings {
+
+        private int[] docs;
+        private int[] freqs;
+        private int size;
+
+        Postings() {
+            this(4);
+        }
+
+        Postings(int capacity) {
+            docs = new int[Math.max(1, capacity)];
+            freqs = new int[Math.max(1, capacity)];
+        }
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+}
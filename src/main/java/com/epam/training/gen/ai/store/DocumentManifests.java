@@ -0,0 +1,241 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.DocumentManifest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-document manifests: the chunk IDs stored for the current version of every source file.
+ * <p>
+ * Chunk IDs are content hashes, so a re-uploaded document shares the IDs of its unchanged chunks
+ * with the previous version. Diffing the new chunk IDs against the manifest tells which chunks
+ * need embedding and which stored points became orphans. The same chunk text can appear in several
+ * documents, so an ID only counts as orphaned when no other manifest references it. Manifests are
+ * saved to {@code vector-store.manifest-file} after every ingest and on shutdown.
+ */
+@Component
+@Slf4j
+public class DocumentManifests {
+
+    private static final int SNAPSHOT_MAGIC = 0x444D4E46; // "DMNF"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final Path manifestFile;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, DocumentManifest> manifests = new HashMap<>();
+    private final Map<String, Integer> referenceCounts = new HashMap<>();
+    private boolean dirty;
+
+    public DocumentManifests(@Value("${vector-store.manifest-file:}") String manifestFile) {
+        this.manifestFile = StringUtils.hasText(manifestFile) ? Path.of(manifestFile) : null;
+    }
+
+    /**
+     * The manifest of the current version of a document, or null if it was never ingested.
+     */
+    public DocumentManifest get(String sourceFilename) {
+        lock.readLock().lock();
+        try {
+            return manifests.get(sourceFilename);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return manifests.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The chunk IDs of the current version of a document that are not in the new version and not
+     * referenced by any other document, i.e. the points to delete once the new version is stored.
+     *
+     * @param sourceFilename The document being re-ingested.
+     * @param newChunkIds    The chunk IDs of the new version.
+     * @return The orphaned IDs, in manifest order.
+     */
+    public List<String> orphans(String sourceFilename, Collection<String> newChunkIds) {
+        lock.readLock().lock();
+        try {
+            DocumentManifest current = manifests.get(sourceFilename);
+            if (current == null) {
+                return Collections.emptyList();
+            }
+            Set<String> kept = new HashSet<>(newChunkIds);
+            List<String> orphans = new ArrayList<>();
+            for (String id : current.getChunkIds()) {
+                if (!kept.contains(id) && referenceCounts.getOrDefault(id, 0) <= 1) {
+                    orphans.add(id);
+                }
+            }
+            return orphans;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The documents referencing each of the given chunk IDs, sorted by filename. IDs no manifest
+     * references are left out.
+     */
+    public Map<String, List<String>> referencingFiles(Collection<String> chunkIds) {
+        Set<String> wanted = new HashSet<>(chunkIds);
+        Map<String, List<String>> files = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (DocumentManifest manifest : manifests.values()) {
+                for (String id : manifest.getChunkIds()) {
+                    if (wanted.contains(id)) {
+                        files.computeIfAbsent(id, key -> new ArrayList<>(2)).add(manifest.getSourceFilename());
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        files.values().forEach(Collections::sort);
+        return files;
+    }
+
+    /**
+     * Records the chunks of a new version of a document, replacing the previous manifest.
+     *
+     * @param sourceFilename The document.
+     * @param chunkIds       The IDs of its stored chunks; duplicates are dropped.
+     * @param ingestedAt     The ingest time in epoch milliseconds.
+     * @return The new manifest, with the version after the previous one.
+     */
+    public DocumentManifest put(String sourceFilename, Collection<String> chunkIds, long ingestedAt) {
+        List<String> ids = List.copyOf(new LinkedHashSet<>(chunkIds));
+        lock.writeLock().lock();
+        try {
+            DocumentManifest previous = manifests.get(sourceFilename);
+            if (previous != null) {
+                release(previous.getChunkIds());
+            }
+            DocumentManifest manifest = new DocumentManifest(sourceFilename, previous == null ? 1 : previous.getVersion() + 1, ingestedAt, ids);
+            manifests.put(sourceFilename, manifest);
+            ids.forEach(id -> referenceCounts.merge(id, 1, Integer::sum));
+            dirty = true;
+            return manifest;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        if (manifestFile == null || !Files.exists(manifestFile)) {
+            log.info("No document manifests to load.");
+            return;
+        }
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(manifestFile), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Unrecognised document manifest header");
+            }
+            manifests.clear();
+            referenceCounts.clear();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String sourceFilename = in.readUTF();
+                int version = in.readInt();
+                long ingestedAt = in.readLong();
+                int idCount = in.readInt();
+                List<String> ids = new ArrayList<>(idCount);
+                for (int id = 0; id < idCount; id++) {
+                    ids.add(in.readUTF());
+                }
+                manifests.put(sourceFilename, new DocumentManifest(sourceFilename, version, ingestedAt, List.copyOf(ids)));
+                ids.forEach(id -> referenceCounts.merge(id, 1, Integer::sum));
+            }
+            dirty = false;
+            log.info("Loaded {} document manifests from {}", count, manifestFile);
+        } catch (IOException e) {
+            log.error("Failed to load document manifests from {}, starting empty: {}", manifestFile, e.getMessage(), e);
+            manifests.clear();
+            referenceCounts.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the manifests if anything changed since the last save. The file is written next to
+     * the target and moved into place.
+     */
+    @PreDestroy
+    public synchronized void flush() {
+        if (manifestFile == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            Path parent = manifestFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(manifests.size());
+                for (DocumentManifest manifest : manifests.values()) {
+                    out.writeUTF(manifest.getSourceFilename());
+                    out.writeInt(manifest.getVersion());
+                    out.writeLong(manifest.getIngestedAt());
+                    out.writeInt(manifest.getChunkIds().size());
+                    for (String id : manifest.getChunkIds()) {
+                        out.writeUTF(id);
+                    }
+                }
+            }
+            Files.move(tmp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+            log.info("Saved {} document manifests to {}", manifests.size(), manifestFile);
+        } catch (IOException e) {
+            log.error("Failed to save document manifests to {}: {}", manifestFile, e.getMessage(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void release(List<String> ids) {
+        for (String id : ids) {
+            referenceCounts.computeIfPresent(id, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.epam.training.gen.ai.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * The source files of the points of an in-process store, by ordinal, for filtering searches on the
+ * source filename.
+ * <p>
+ * A point belongs to one file, or to several when documents share a chunk (see
+ * {@link NearDuplicateIndex}): the first file of every ordinal is kept in an {@code int[]}, the
+ * other files of the few shared points in a map. Filenames are numbered in order of appearance. Not
+ * thread-safe; the owning store locks around it.
+ */
+final class FileAssignments {
+
+    static final int NO_FILE = -1;
+
+    private final Map<String, Integer> fileIds = new HashMap<>();
+    private final Map<Integer, int[]> otherFileIdsByOrdinal = new HashMap<>();
+    private int[] fileIdByOrdinal;
+    private int[] pointsPerFile = new int[4];
+
+    FileAssignments(int initialCapacity) {
+        fileIdByOrdinal = new int[initialCapacity];
+        Arrays.fill(fileIdByOrdinal, NO_FILE);
+    }
+
+    /**
+     * Assigns the files of an ordinal, replacing its previous files.
+     *
+     * @param sourceFilename The file of the point, or null.
+     * @param others         The other files referencing the point; may be empty.
+     */
+    void assign(int ordinal, String sourceFilename, List<String> others) {
+        unassign(ordinal);
+        if (sourceFilename == null) {
+            return;
+        }
+        fileIdByOrdinal[ordinal] = reference(sourceFilename);
+        if (!others.isEmpty()) {
+            int[] otherIds = new int[others.size()];
+            for (int i = 0; i < otherIds.length; i++) {
+                otherIds[i] = reference(others.get(i));
+            }
+            otherFileIdsByOrdinal.put(ordinal, otherIds);
+        }
+    }
+
+    /**
+     * Removes the files of an ordinal, e.g. of a deleted point.
+     */
+    void unassign(int ordinal) {
+        ensureCapacity(ordinal + 1);
+        if (fileIdByOrdinal[ordinal] != NO_FILE) {
+            pointsPerFile[fileIdByOrdinal[ordinal]]--;
+            fileIdByOrdinal[ordinal] = NO_FILE;
+        }
+        int[] otherIds = otherFileIdsByOrdinal.remove(ordinal);
+        if (otherIds != null) {
+            for (int fileId : otherIds) {
+                pointsPerFile[fileId]--;
+            }
+        }
+    }
+
+    /**
+     * Number of points belonging to the given files. A point shared by several of them is counted
+     * once per file, so this is an upper bound; it is zero exactly when no point matches.
+     */
+    int count(Collection<String> sourceFilenames) {
+        int count = 0;
+        for (String sourceFilename : sourceFilenames) {
+            Integer fileId = fileIds.get(sourceFilename);
+            count += fileId == null ? 0 : pointsPerFile[fileId];
+        }
+        return count;
+    }
+
+    /**
+     * Predicate accepting the ordinals that belong to one of the given files.
+     */
+    IntPredicate filter(Collection<String> sourceFilenames) {
+        boolean[] wanted = new boolean[fileIds.size()];
+        for (String sourceFilename : sourceFilenames) {
+            Integer fileId = fileIds.get(sourceFilename);
+            if (fileId != null) {
+                wanted[fileId] = true;
+            }
+        }
+        int[] fileIdByOrdinal = this.fileIdByOrdinal;
+        return ordinal -> {
+            int fileId = ordinal < fileIdByOrdinal.length ? fileIdByOrdinal[ordinal] : NO_FILE;
+            if (fileId == NO_FILE) {
+                return false;
+            }
+            if (fileId < wanted.length && wanted[fileId]) {
+                return true;
+            }
+            int[] otherIds = otherFileIdsByOrdinal.get(ordinal);
+            if (otherIds != null) {
+                for (int otherId : otherIds) {
+                    if (otherId < wanted.length && wanted[otherId]) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * The filenames by file ID, for snapshots that store file IDs.
+     */
+    String[] names() {
+        String[] names = new String[fileIds.size()];
+        fileIds.forEach((name, fileId) -> names[fileId] = name);
+        return names;
+    }
+
+    /**
+     * The ID of the first file of an ordinal, or {@link #NO_FILE}.
+     */
+    int fileId(int ordinal) {
+        return ordinal < fileIdByOrdinal.length ? fileIdByOrdinal[ordinal] : NO_FILE;
+    }
+
+    /**
+     * The IDs of the other files of an ordinal; empty for a point of a single file.
+     */
+    int[] otherFileIds(int ordinal) {
+        int[] otherIds = otherFileIdsByOrdinal.get(ordinal);
+        return otherIds == null ? new int[0] : otherIds;
+    }
+
+    /**
+     * The other filenames of an ordinal; empty for a point of a single file.
+     */
+    List<String> otherNames(int ordinal) {
+        int[] otherIds = otherFileIdsByOrdinal.get(ordinal);
+        if (otherIds == null) {
+            return List.of();
+        }
+        String[] names = names();
+        List<String> otherNames = new ArrayList<>(otherIds.length);
+        for (int fileId : otherIds) {
+            otherNames.add(names[fileId]);
+        }
+        return otherNames;
+    }
+
+    void clear() {
+        fileIds.clear();
+        otherFileIdsByOrdinal.clear();
+        Arrays.fill(fileIdByOrdinal, NO_FILE);
+        pointsPerFile = new int[4];
+    }
+
+    private int reference(String sourceFilename) {
+        int fileId = fileIds.computeIfAbsent(sourceFilename, name -> fileIds.size());
+        if (fileId >= pointsPerFile.length) {
+            pointsPerFile = Arrays.copyOf(pointsPerFile, pointsPerFile.length * 2);
+        }
+        pointsPerFile[fileId]++;
+        return fileId;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > fileIdByOrdinal.length) {
+            int previous = fileIdByOrdinal.length;
+            fileIdByOrdinal = Arrays.copyOf(fileIdByOrdinal, Math.max(required, previous + (previous >> 1)));
+            Arrays.fill(fileIdByOrdinal, previous, fileIdByOrdinal.length, NO_FILE);
+        }
+    }
+}
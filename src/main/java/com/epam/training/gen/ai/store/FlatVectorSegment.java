@@ -0,0 +1,716 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.SearchFilter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+/**
+ * On-disk segment of pre-normalised float32 vectors searched exactly by brute force.
+ * <p>
+ * Layout of the segment directory:
+ * <ul>
+ *     <li>{@code vectors.f32} &ndash; a 64 byte header (magic, version, dimension, count) followed by
+ *     {@code count * dimension} little-endian floats. The file is memory-mapped in chunks of
+ *     {@code vectorsPerChunk} vectors and written through the mapping.</li>
+ *     <li>{@code payloads.dat} &ndash; append-only payload records: id, text and source filename, each a
+ *     length-prefixed UTF-8 string, followed (since version 2) by four ints: first page, last page and
+ *     the character offsets of the chunk, {@code -1} when unknown, and (since version 3) the number
+ *     of other documents sharing the chunk and their filenames.</li>
+ *     <li>{@code payloads.idx} &ndash; one big-endian long per vector: the offset of its payload record,
+ *     or {@code -1} once the vector is deleted.</li>
+ * </ul>
+ * The vector count in the header is only advanced by {@link #flush()}, so after a crash the segment
+ * reopens at the last flushed state. Older segments stay readable and keep being written in their
+ * record format: version 1 without positions, versions 1 and 2 without the other documents of
+ * shared chunks, which are then only known until the segment is reopened. Deleted vectors keep their ordinal and are skipped
+ * by searches. Search scans the mapped vectors with an unrolled dot product,
+ * split across a {@link ForkJoinPool}.
+ * <p>
+ * With quantization enabled a compact copy of every vector is kept on the heap and the scan runs
+ * over that copy instead. The best candidates can then be rescored against the mapped float
+ * vectors, which restores exact scores and most of the recall lost to quantization.
+ * <p>
+ * Not thread-safe for writes; {@link FlatVectorStore} serialises writers against readers.
+ */
+public class FlatVectorSegment implements Closeable {
+
+    static final String VECTORS_FILE = "vectors.f32";
+    static final String PAYLOADS_FILE = "payloads.dat";
+    static final String OFFSETS_FILE = "payloads.idx";
+
+    private static final int MAGIC = 0x464C5654; // "FLVT"
+    private static final int VERSION = 3;
+    private static final int FIRST_VERSION_WITH_POSITIONS = 2;
+    private static final int FIRST_VERSION_WITH_OTHER_FILES = 3;
+    private static final int POSITION_FIELDS = 4;
+    private static final int NO_POSITION = -1;
+    private static final long DELETED = -1L;
+    private static final int HEADER_BYTES = 64;
+    private static final int COUNT_POSITION = 12;
+    private static final int PARALLEL_THRESHOLD = 4096;
+    private static final int LEAF_SIZE = 1024;
+
+    private final Path directory;
+    private final int dimension;
+    private final int vectorsPerChunk;
+    private final long vectorBytes;
+    private final FileChannel vectorChannel;
+    private final FileChannel payloadChannel;
+    private final FileChannel offsetChannel;
+    private final MappedByteBuffer header;
+    private final QuantizationSettings quantization;
+    private final QuantizedVectors quantized;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private final List<FloatBuffer> chunkViews = new ArrayList<>();
+
+    private int version;
+    private int count;
+    private long payloadEnd;
+    private long[] payloadOffsets = new long[1024];
+    private final List<String> ids = new ArrayList<>();
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    private final FileAssignments files = new FileAssignments(1024);
+    private final BitSet deleted = new BitSet();
+    private int[] pageStartByOrdinal = new int[1024];
+    private int[] pageEndByOrdinal = new int[1024];
+
+    private FlatVectorSegment(Path directory, int dimension, int vectorsPerChunk, QuantizationSettings quantization) throws IOException {
+        this.directory = directory;
+        this.dimension = dimension;
+        this.quantization = quantization;
+        this.quantized = quantization.enabled() ? new QuantizedVectors(quantization.type(), dimension, 1024) : null;
+        this.vectorBytes = (long) dimension * Float.BYTES;
+        long maxPerChunk = Integer.MAX_VALUE / vectorBytes;
+        this.vectorsPerChunk = (int) Math.max(1, Math.min(vectorsPerChunk, maxPerChunk));
+
+        Files.createDirectories(directory);
+        this.vectorChannel = FileChannel.open(directory.resolve(VECTORS_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.payloadChannel = FileChannel.open(directory.resolve(PAYLOADS_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.offsetChannel = FileChannel.open(directory.resolve(OFFSETS_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.header = vectorChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+    }
+
+    /**
+     * Opens the segment in the given directory, creating it if it does not exist.
+     *
+     * @param directory       The segment directory.
+     * @param dimension       The vector dimension; must match an existing segment.
+     * @param vectorsPerChunk The number of vectors per memory mapping.
+     */
+    public static FlatVectorSegment open(Path directory, int dimension, int vectorsPerChunk) throws IOException {
+        return open(directory, dimension, vectorsPerChunk, QuantizationSettings.NONE);
+    }
+
+    /**
+     * Opens the segment in the given directory, creating it if it does not exist. Quantized vectors
+     * are not persisted; they are rebuilt from the float vectors on open.
+     *
+     * @param directory       The segment directory.
+     * @param dimension       The vector dimension; must match an existing segment.
+     * @param vectorsPerChunk The number of vectors per memory mapping.
+     * @param quantization    The quantization used for the in-memory search pass.
+     */
+    public static FlatVectorSegment open(Path directory, int dimension, int vectorsPerChunk, QuantizationSettings quantization) throws IOException {
+        FlatVectorSegment segment = new FlatVectorSegment(directory, dimension, vectorsPerChunk, quantization);
+        try {
+            segment.readState();
+        } catch (IOException | RuntimeException e) {
+            segment.close();
+            throw e;
+        }
+        return segment;
+    }
+
+    /**
+     * The number of ordinals, including deleted vectors.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * The number of vectors that are not deleted.
+     */
+    public int liveCount() {
+        return ordinalsById.size();
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    public QuantizationSettings quantization() {
+        return quantization;
+    }
+
+    /**
+     * Heap bytes per vector used by the search pass: the quantized copy, or zero when the scan reads
+     * the mapped float vectors directly.
+     */
+    public int heapBytesPerVector() {
+        return quantized == null ? 0 : quantized.bytesPerVector();
+    }
+
+    public Integer ordinalOf(String id) {
+        return ordinalsById.get(id);
+    }
+
+    public String idOf(int ordinal) {
+        return ids.get(ordinal);
+    }
+
+    /**
+     * Number of stored vectors whose payload has the given source filename, as first or other file.
+     */
+    public int countForFile(String sourceFilename) {
+        return countForFiles(List.of(sourceFilename));
+    }
+
+    /**
+     * Number of stored vectors whose payload has one of the given source filenames. A vector shared
+     * by several of them is counted once per file.
+     */
+    public int countForFiles(Collection<String> sourceFilenames) {
+        return files.count(sourceFilenames);
+    }
+
+    /**
+     * Predicate accepting the ordinals whose payload has the given source filename.
+     */
+    public IntPredicate fileFilter(String sourceFilename) {
+        return fileFilter(List.of(sourceFilename));
+    }
+
+    /**
+     * Predicate accepting the ordinals whose payload has one of the given source filenames.
+     */
+    public IntPredicate fileFilter(Collection<String> sourceFilenames) {
+        return files.filter(sourceFilenames);
+    }
+
+    /**
+     * Predicate accepting the ordinals whose pages overlap the page range of the filter.
+     */
+    public IntPredicate pageFilter(SearchFilter filter) {
+        return ordinal -> filter.matchesPages(pageStartByOrdinal[ordinal], pageEndByOrdinal[ordinal]);
+    }
+
+    /**
+     * Appends a vector and its payload, returning the new ordinal. The vector is normalised on the
+     * way in. The vector becomes visible to searches immediately and durable after {@link #flush()}.
+     */
+    public int append(String id, float[] vector, ChunkPayload payload) throws IOException {
+        checkDimension(vector);
+        int ordinal = count;
+        writeVector(ordinal, vector);
+        long offset = writePayload(id, payload);
+        ensureOrdinalCapacity(ordinal + 1);
+        payloadOffsets[ordinal] = offset;
+        offsetChannel.write(longBuffer(offset), (long) ordinal * Long.BYTES);
+
+        ids.add(id);
+        ordinalsById.put(id, ordinal);
+        files.assign(ordinal, payload.getSourceFilename(), payload.getOtherSourceFilenames());
+        assignPages(ordinal, payload.getPageStart(), payload.getPageEnd());
+        count++;
+        return ordinal;
+    }
+
+    /**
+     * Replaces the vector and payload of an existing ordinal. The old payload record is left in
+     * {@code payloads.dat} and no longer referenced.
+     */
+    public void overwrite(int ordinal, float[] vector, ChunkPayload payload) throws IOException {
+        checkDimension(vector);
+        checkOrdinal(ordinal);
+        writeVector(ordinal, vector);
+        long offset = writePayload(ids.get(ordinal), payload);
+        payloadOffsets[ordinal] = offset;
+        offsetChannel.write(longBuffer(offset), (long) ordinal * Long.BYTES);
+        files.assign(ordinal, payload.getSourceFilename(), payload.getOtherSourceFilenames());
+        assignPages(ordinal, payload.getPageStart(), payload.getPageEnd());
+    }
+
+    /**
+     * Deletes the vector with the given ID by writing {@code -1} as its payload offset. The vector
+     * and payload bytes stay in the files; the ordinal is never reused.
+     *
+     * @return false if no vector has the ID.
+     */
+    public boolean delete(String id) throws IOException {
+        Integer ordinal = ordinalsById.remove(id);
+        if (ordinal == null) {
+            return false;
+        }
+        payloadOffsets[ordinal] = DELETED;
+        offsetChannel.write(longBuffer(DELETED), (long) ordinal * Long.BYTES);
+        deleted.set(ordinal);
+        files.unassign(ordinal);
+        assignPages(ordinal, null, null);
+        return true;
+    }
+
+    /**
+     * Reads the payload of an ordinal from {@code payloads.dat}.
+     */
+    public ChunkPayload payload(int ordinal) throws IOException {
+        checkOrdinal(ordinal);
+        long position = payloadOffsets[ordinal];
+        String[] fields = new String[3];
+        int[] positions = new int[POSITION_FIELDS];
+        List<String> otherFiles = new ArrayList<>();
+        readRecord(position, fields, positions, otherFiles, true);
+        ChunkPayload payload = new ChunkPayload(fields[1], fields[2])
+                .withPosition(position(positions[0]), position(positions[1]), position(positions[2]), position(positions[3]));
+        // older records cannot hold the other files, which are then only kept in memory
+        payload.setOtherSourceFilenames(version >= FIRST_VERSION_WITH_OTHER_FILES ? otherFiles : files.otherNames(ordinal));
+        return payload;
+    }
+
+    /**
+     * Copies the stored (normalised) vector of an ordinal out of the mapped file.
+     */
+    public float[] vector(int ordinal) {
+        checkOrdinal(ordinal);
+        float[] vector = new float[dimension];
+        readVector(ordinal, vector);
+        return vector;
+    }
+
+    /**
+     * Top-k search by cosine similarity. Exact unless quantization is enabled; with rescoring the
+     * returned scores are exact but a true neighbour may still be missed by the quantized pass.
+     *
+     * @param query  The query vector, need not be normalised.
+     * @param k      The number of results.
+     * @param accept Optional predicate ordinals must satisfy.
+     * @param pool   The pool used to scan large segments in parallel.
+     * @return Up to k hits ordered by descending score.
+     */
+    public List<ScoredNode> search(float[] query, int k, IntPredicate accept, ForkJoinPool pool) {
+        return search(query, k, accept, pool, quantization);
+    }
+
+    /**
+     * Top-k search with other quantization search settings than the segment's, e.g. to skip the
+     * quantized vectors ({@link QuantizationSettings#NONE}) or rescore more candidates. The quantization
+     * type of the stored vectors cannot be changed per search; only whether they are used is.
+     *
+     * @param settings How to search the quantized vectors of this segment.
+     * @see #search(float[], int, IntPredicate, ForkJoinPool)
+     */
+    public List<ScoredNode> search(float[] query, int k, IntPredicate accept, ForkJoinPool pool, QuantizationSettings settings) {
+        checkDimension(query);
+        if (count == 0 || k <= 0) {
+            return Collections.emptyList();
+        }
+        float[] normalised = VectorMath.normalize(query);
+        if (!deleted.isEmpty()) {
+            IntPredicate live = ordinal -> !deleted.get(ordinal);
+            accept = accept == null ? live : live.and(accept);
+        }
+        if (quantized == null || !settings.enabled()) {
+            return toHits(scan(new ScanTask(normalised, null, k, accept, 0, count), pool));
+        }
+
+        int candidates = settings.candidates(k);
+        NodeHeap best = scan(new ScanTask(normalised, quantized.prepare(normalised), candidates, accept, 0, count), pool);
+        if (!settings.rescore()) {
+            return toHits(best);
+        }
+        NodeHeap rescored = NodeHeap.minHeap(k + 1);
+        float[] candidate = new float[dimension];
+        while (best.size() > 0) {
+            int ordinal = best.pop();
+            readVector(ordinal, candidate);
+            float score = VectorMath.dot(normalised, 0, candidate, 0, dimension);
+            if (rescored.size() < k || score > rescored.topScore()) {
+                rescored.push(ordinal, score);
+                if (rescored.size() > k) {
+                    rescored.pop();
+                }
+            }
+        }
+        return toHits(rescored);
+    }
+
+    private NodeHeap scan(ScanTask task, ForkJoinPool pool) {
+        return count >= PARALLEL_THRESHOLD && pool != null ? pool.invoke(task) : task.compute();
+    }
+
+    private List<ScoredNode> toHits(NodeHeap best) {
+        ScoredNode[] hits = new ScoredNode[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            float score = best.topScore();
+            hits[i] = new ScoredNode(best.pop(), score);
+        }
+        return Arrays.asList(hits);
+    }
+
+    /**
+     * Publishes the current vector count in the header and forces all files to disk.
+     */
+    public void flush() throws IOException {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+        payloadChannel.force(false);
+        offsetChannel.force(false);
+        header.putInt(COUNT_POSITION, count);
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            vectorChannel.truncate(HEADER_BYTES + count * vectorBytes);
+        } finally {
+            vectorChannel.close();
+            payloadChannel.close();
+            offsetChannel.close();
+        }
+    }
+
+    private void readState() throws IOException {
+        if (header.getInt(0) == 0) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, dimension);
+            header.putInt(COUNT_POSITION, 0);
+            version = VERSION;
+        } else {
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a flat vector segment: " + directory);
+            }
+            if (header.getInt(4) < 1 || header.getInt(4) > VERSION) {
+                throw new IOException("Unsupported flat vector segment version: " + header.getInt(4));
+            }
+            if (header.getInt(8) != dimension) {
+                throw new IOException("Segment dimension " + header.getInt(8) + " does not match " + dimension);
+            }
+            version = header.getInt(4);
+        }
+
+        int flushedCount = header.getInt(COUNT_POSITION);
+        int offsetCount = (int) Math.min(Integer.MAX_VALUE, offsetChannel.size() / Long.BYTES);
+        count = Math.min(flushedCount, offsetCount);
+        ensureOrdinalCapacity(count);
+
+        ByteBuffer offsets = ByteBuffer.allocate(8192);
+        for (int ordinal = 0; ordinal < count; ) {
+            offsets.clear();
+            int batch = Math.min(count - ordinal, offsets.capacity() / Long.BYTES);
+            offsets.limit(batch * Long.BYTES);
+            readFully(offsetChannel, offsets, (long) ordinal * Long.BYTES);
+            offsets.flip();
+            for (int i = 0; i < batch; i++) {
+                payloadOffsets[ordinal++] = offsets.getLong();
+            }
+        }
+
+        payloadEnd = 0;
+        String[] fields = new String[3];
+        int[] positions = new int[POSITION_FIELDS];
+        List<String> otherFiles = new ArrayList<>();
+        for (int ordinal = 0; ordinal < count; ordinal++) {
+            if (payloadOffsets[ordinal] == DELETED) {
+                ids.add(null);
+                deleted.set(ordinal);
+                assignPages(ordinal, null, null);
+                continue;
+            }
+            long end = readRecord(payloadOffsets[ordinal], fields, positions, otherFiles, false);
+            payloadEnd = Math.max(payloadEnd, end);
+            ids.add(fields[0]);
+            ordinalsById.put(fields[0], ordinal);
+            files.assign(ordinal, fields[2], otherFiles);
+            assignPages(ordinal, position(positions[0]), position(positions[1]));
+        }
+        // Drop anything appended after the last flush so new records do not interleave with it.
+        offsetChannel.truncate((long) count * Long.BYTES);
+        payloadChannel.truncate(payloadEnd);
+
+        int chunksNeeded = count == 0 ? 0 : (count - 1) / vectorsPerChunk + 1;
+        for (int chunk = 0; chunk < chunksNeeded; chunk++) {
+            mapChunk(chunk);
+        }
+        if (quantized != null) {
+            float[] vector = new float[dimension];
+            for (int ordinal = 0; ordinal < count; ordinal++) {
+                readVector(ordinal, vector);
+                quantized.set(ordinal, vector);
+            }
+        }
+    }
+
+    private void writeVector(int ordinal, float[] vector) throws IOException {
+        int chunk = ordinal / vectorsPerChunk;
+        while (chunks.size() <= chunk) {
+            mapChunk(chunks.size());
+        }
+        float[] normalised = VectorMath.normalize(vector);
+        chunkViews.get(chunk).put((ordinal % vectorsPerChunk) * dimension, normalised);
+        if (quantized != null) {
+            quantized.set(ordinal, normalised);
+        }
+    }
+
+    private void readVector(int ordinal, float[] target) {
+        chunkViews.get(ordinal / vectorsPerChunk).get((ordinal % vectorsPerChunk) * dimension, target);
+    }
+
+    private void mapChunk(int chunk) throws IOException {
+        long position = HEADER_BYTES + (long) chunk * vectorsPerChunk * vectorBytes;
+        MappedByteBuffer mapped = vectorChannel.map(FileChannel.MapMode.READ_WRITE, position, vectorsPerChunk * vectorBytes);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        chunks.add(mapped);
+        chunkViews.add(mapped.asFloatBuffer());
+    }
+
+    private long writePayload(String id, ChunkPayload payload) throws IOException {
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] textBytes = payload.getText() == null ? new byte[0] : payload.getText().getBytes(StandardCharsets.UTF_8);
+        byte[] fileBytes = payload.getSourceFilename() == null ? null : payload.getSourceFilename().getBytes(StandardCharsets.UTF_8);
+
+        boolean withPositions = version >= FIRST_VERSION_WITH_POSITIONS;
+        List<byte[]> otherFileBytes = new ArrayList<>();
+        int otherFilesLength = 0;
+        if (version >= FIRST_VERSION_WITH_OTHER_FILES) {
+            for (String other : payload.getOtherSourceFilenames()) {
+                otherFileBytes.add(other.getBytes(StandardCharsets.UTF_8));
+                otherFilesLength += Integer.BYTES + otherFileBytes.get(otherFileBytes.size() - 1).length;
+            }
+            otherFilesLength += Integer.BYTES;
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(3 * Integer.BYTES + idBytes.length + textBytes.length + (fileBytes == null ? 0 : fileBytes.length)
+                + (withPositions ? POSITION_FIELDS * Integer.BYTES : 0) + otherFilesLength);
+        record.putInt(idBytes.length).put(idBytes);
+        record.putInt(textBytes.length).put(textBytes);
+        record.putInt(fileBytes == null ? -1 : fileBytes.length);
+        if (fileBytes != null) {
+            record.put(fileBytes);
+        }
+        if (withPositions) {
+            record.putInt(orNoPosition(payload.getPageStart()));
+            record.putInt(orNoPosition(payload.getPageEnd()));
+            record.putInt(orNoPosition(payload.getCharStart()));
+            record.putInt(orNoPosition(payload.getCharEnd()));
+        }
+        if (version >= FIRST_VERSION_WITH_OTHER_FILES) {
+            record.putInt(otherFileBytes.size());
+            for (byte[] bytes : otherFileBytes) {
+                record.putInt(bytes.length).put(bytes);
+            }
+        }
+        record.flip();
+
+        long offset = payloadEnd;
+        while (record.hasRemaining()) {
+            payloadEnd += payloadChannel.write(record, payloadEnd);
+        }
+        return offset;
+    }
+
+    /**
+     * Reads a payload record into {@code fields} (id, text, filename), {@code positions} (first page,
+     * last page, start and end offset; {@code -1} when unknown or not stored) and {@code otherFiles}
+     * (the other documents sharing the chunk; left empty when not stored).
+     *
+     * @param withText Whether to decode the text; when false the text bytes are skipped.
+     * @return The position just after the record.
+     */
+    private long readRecord(long position, String[] fields, int[] positions, List<String> otherFiles, boolean withText) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+        for (int field = 0; field < 3; field++) {
+            length.clear();
+            readFully(payloadChannel, length, position);
+            length.flip();
+            int size = length.getInt();
+            position += Integer.BYTES;
+            if (size < 0) {
+                fields[field] = null;
+                continue;
+            }
+            if (field == 1 && !withText) {
+                fields[field] = null;
+            } else {
+                ByteBuffer value = ByteBuffer.allocate(size);
+                readFully(payloadChannel, value, position);
+                fields[field] = new String(value.array(), StandardCharsets.UTF_8);
+            }
+            position += size;
+        }
+        Arrays.fill(positions, NO_POSITION);
+        if (version >= FIRST_VERSION_WITH_POSITIONS) {
+            ByteBuffer values = ByteBuffer.allocate(POSITION_FIELDS * Integer.BYTES);
+            readFully(payloadChannel, values, position);
+            values.flip();
+            for (int i = 0; i < POSITION_FIELDS; i++) {
+                positions[i] = values.getInt();
+            }
+            position += values.capacity();
+        }
+        otherFiles.clear();
+        if (version >= FIRST_VERSION_WITH_OTHER_FILES) {
+            length.clear();
+            readFully(payloadChannel, length, position);
+            length.flip();
+            int otherCount = length.getInt();
+            position += Integer.BYTES;
+            for (int i = 0; i < otherCount; i++) {
+                length.clear();
+                readFully(payloadChannel, length, position);
+                length.flip();
+                ByteBuffer value = ByteBuffer.allocate(length.getInt());
+                readFully(payloadChannel, value, position + Integer.BYTES);
+                otherFiles.add(new String(value.array(), StandardCharsets.UTF_8));
+                position += Integer.BYTES + value.capacity();
+            }
+        }
+        return position;
+    }
+
+    private static int orNoPosition(Integer value) {
+        return value == null ? NO_POSITION : value;
+    }
+
+    private static Integer position(int value) {
+        return value == NO_POSITION ? null : value;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file in flat vector segment");
+            }
+            position += read;
+        }
+    }
+
+    private static ByteBuffer longBuffer(long value) {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        buffer.putLong(value).flip();
+        return buffer;
+    }
+
+    private void assignPages(int ordinal, Integer pageStart, Integer pageEnd) {
+        pageStartByOrdinal[ordinal] = pageStart == null ? NO_POSITION : pageStart;
+        pageEndByOrdinal[ordinal] = pageEnd == null ? NO_POSITION : pageEnd;
+    }
+
+    private void ensureOrdinalCapacity(int required) {
+        if (required > payloadOffsets.length) {
+            int capacity = Math.max(required, payloadOffsets.length + (payloadOffsets.length >> 1));
+            payloadOffsets = Arrays.copyOf(payloadOffsets, capacity);
+            pageStartByOrdinal = Arrays.copyOf(pageStartByOrdinal, capacity);
+            pageEndByOrdinal = Arrays.copyOf(pageEndByOrdinal, capacity);
+        }
+    }
+
+    private void checkDimension(float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("Expected vector of dimension " + dimension + " but got "
+                    + (vector == null ? "null" : vector.length));
+        }
+    }
+
+    private void checkOrdinal(int ordinal) {
+        if (ordinal < 0 || ordinal >= count) {
+            throw new IndexOutOfBoundsException("Ordinal " + ordinal + " out of range [0, " + count + ")");
+        }
+    }
+
+    /**
+     * Scans a range of ordinals, splitting it in halves until ranges are small enough to scan on
+     * one thread. Each leaf keeps its own top-k heap and the heaps are merged on the way up.
+     * Scores come from the quantized vectors when a quantized query is given.
+     */
+    private final class ScanTask extends RecursiveTask<NodeHeap> {
+
+        private final float[] query;
+        private final QuantizedVectors.Query quantizedQuery;
+        private final int k;
+        private final IntPredicate accept;
+        private final int from;
+        private final int to;
+
+        ScanTask(float[] query, QuantizedVectors.Query quantizedQuery, int k, IntPredicate accept, int from, int to) {
+            this.query = query;
+            this.quantizedQuery = quantizedQuery;
+            this.k = k;
+            this.accept = accept;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected NodeHeap compute() {
+            if (to - from <= LEAF_SIZE || getPool() == null) {
+                return scan();
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask left = new ScanTask(query, quantizedQuery, k, accept, from, middle);
+            ScanTask right = new ScanTask(query, quantizedQuery, k, accept, middle, to);
+            left.fork();
+            NodeHeap best = right.compute();
+            NodeHeap other = left.join();
+            while (other.size() > 0) {
+                float score = other.topScore();
+                int node = other.pop();
+                offer(best, node, score);
+            }
+            return best;
+        }
+
+        private NodeHeap scan() {
+            NodeHeap best = NodeHeap.minHeap(k + 1);
+            float[] candidate = quantizedQuery == null ? new float[dimension] : null;
+            for (int ordinal = from; ordinal < to; ordinal++) {
+                if (accept != null && !accept.test(ordinal)) {
+                    continue;
+                }
+                if (quantizedQuery != null) {
+                    offer(best, ordinal, quantized.score(quantizedQuery, ordinal));
+                } else {
+                    readVector(ordinal, candidate);
+                    offer(best, ordinal, VectorMath.dot(query, 0, candidate, 0, dimension));
+                }
+            }
+            return best;
+        }
+
+        private void offer(NodeHeap best, int node, float score) {
+            if (best.size() < k || score > best.topScore()) {
+                best.push(node, score);
+                if (best.size() > k) {
+                    best.pop();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.EmbeddingModel;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
+import com.epam.training.gen.ai.model.SearchResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * {@link VectorStore} doing exact search over a memory-mapped {@link FlatVectorSegment}.
+ * <p>
+ * Gives perfect recall and needs no index build, at the cost of scanning every vector per query.
+ * The scan is spread over {@code vector-store.flat.parallelism} threads, which keeps latency low
+ * up to a few million vectors. Data is written straight into the segment files under
+ * {@code vector-store.flat.directory}, so there is no separate snapshot step. With
+ * {@code vector-store.quantization.type} set, the scan runs over a compact in-memory copy and the
+ * mapped float vectors are only read to rescore the best candidates. The embedding model of the
+ * vectors is recorded in the {@value #MODEL_FILE} file of the directory, and a directory with vectors
+ * of another model is not opened.
+ */
+@Component
+@ConditionalOnProperty(name = "vector-store.type", havingValue = "flat")
+@Slf4j
+public class FlatVectorStore implements VectorStore {
+
+    static final String MODEL_FILE = "embedding-model";
+
+    private final FlatVectorSegment segment;
+    private final ForkJoinPool pool;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FlatVectorStore(@Value("${vector-store.flat.directory:./data/flat}") String directory,
+                           @Value("${vector-store.flat.vectors-per-mapping:16384}") int vectorsPerMapping,
+                           @Value("${vector-store.flat.parallelism:0}") int parallelism,
+                           @Value("${vector-store.quantization.type:none}") String quantization,
+                           @Value("${vector-store.quantization.rescore:true}") boolean rescore,
+                           @Value("${vector-store.quantization.oversampling:2.0}") double oversampling,
+                           EmbeddingModel embeddingModel) throws IOException {
+        QuantizationSettings settings = new QuantizationSettings(VectorQuantization.parse(quantization), rescore, oversampling);
+        this.segment = FlatVectorSegment.open(Path.of(directory), embeddingModel.getDimension(), vectorsPerMapping, settings);
+        try {
+            checkEmbeddingModel(Path.of(directory), embeddingModel);
+        } catch (IOException | RuntimeException e) {
+            segment.close();
+            throw e;
+        }
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        log.info("Opened flat vector segment with {} vectors in {} (quantization: {})", segment.size(), directory, settings);
+    }
+
+    @Override
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return segment.ordinalOf(id) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean upsert(String id, float[] vector, ChunkPayload payload) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = segment.ordinalOf(id);
+            if (existing != null) {
+                segment.overwrite(existing, vector, payload);
+            } else {
+                segment.append(id, vector, payload);
+            }
+            return true;
+        } catch (IOException e) {
+            log.error("Error while storing embedding for chunk ID {}: {}", id, e.getMessage(), e);
+            throw new UncheckedIOException("Error while storing embedding for chunk ID " + id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean updatePayload(String id, ChunkPayload payload) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = segment.ordinalOf(id);
+            if (ordinal == null) {
+                return false;
+            }
+            segment.overwrite(ordinal, segment.vector(ordinal), payload);
+            return true;
+        } catch (IOException e) {
+            log.error("Error while updating the payload of chunk ID {}: {}", id, e.getMessage(), e);
+            throw new UncheckedIOException("Error while updating the payload of chunk ID " + id, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Collection<String> ids) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (String id : ids) {
+                if (segment.delete(id)) {
+                    removed++;
+                }
+            }
+            log.debug("Deleted {} of {} requested vectors from the flat segment", removed, ids.size());
+        } catch (IOException e) {
+            log.error("Error while deleting from flat vector segment: {}", e.getMessage(), e);
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchResult> search(float[] queryVector, int limit, String sourceFilename) {
+        return search(queryVector, limit, SearchFilter.forFile(sourceFilename), false);
+    }
+
+    @Override
+    public List<SearchResult> search(float[] queryVector, int limit, SearchFilter filter, boolean withVectors) {
+        return search(queryVector, limit, filter, withVectors, SearchProfile.storeDefaults());
+    }
+
+    /**
+     * Scans all vectors; the profile only changes how quantized vectors are used, and an exact profile
+     * scans the float vectors even when quantization is enabled. {@code hnswEf} is ignored.
+     */
+    @Override
+    public List<SearchResult> search(float[] queryVector, int limit, SearchFilter filter, boolean withVectors, SearchProfile profile) {
+        lock.readLock().lock();
+        try {
+            IntPredicate accept = filter.hasPageRange() ? segment.pageFilter(filter) : null;
+            if (!filter.isAllDocuments()) {
+                if (segment.countForFiles(filter.getSourceFilenames()) == 0) {
+                    return Collections.emptyList();
+                }
+                IntPredicate fileFilter = segment.fileFilter(filter.getSourceFilenames());
+                accept = accept == null ? fileFilter : fileFilter.and(accept);
+            }
+
+            List<ScoredNode> hits = segment.search(queryVector, limit, accept, pool, quantization(profile));
+            log.debug("Flat search over {} vectors returned {} hits (filter: {})", segment.size(), hits.size(), filter);
+
+            List<SearchResult> results = new ArrayList<>(hits.size());
+            for (ScoredNode hit : hits) {
+                SearchResult result = new SearchResult(hit.score(), segment.idOf(hit.node()), segment.payload(hit.node()));
+                if (withVectors) {
+                    result.setVector(segment.vector(hit.node()));
+                }
+                results.add(result);
+            }
+            return results;
+        } catch (IOException e) {
+            log.error("Error while reading payloads from flat vector segment: {}", e.getMessage(), e);
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private QuantizationSettings quantization(SearchProfile profile) {
+        QuantizationSettings configured = segment.quantization();
+        if (profile.isExact()) {
+            return QuantizationSettings.NONE;
+        }
+        if (profile.getRescore() == null && profile.getOversampling() == null) {
+            return configured;
+        }
+        return new QuantizationSettings(configured.type(),
+                profile.getRescore() == null ? configured.rescore() : profile.getRescore(),
+                profile.getOversampling() == null ? configured.oversampling() : profile.getOversampling());
+    }
+
+    @Override
+    public List<SearchResult> retrieve(List<String> ids, boolean withVectors) {
+        lock.readLock().lock();
+        try {
+            List<SearchResult> results = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Integer ordinal = segment.ordinalOf(id);
+                if (ordinal != null) {
+                    SearchResult result = new SearchResult(0f, id, segment.payload(ordinal));
+                    if (withVectors) {
+                        result.setVector(segment.vector(ordinal));
+                    }
+                    results.add(result);
+                }
+            }
+            return results;
+        } catch (IOException e) {
+            log.error("Error while reading payloads from flat vector segment: {}", e.getMessage(), e);
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.liveCount();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Makes everything written so far durable.
+     */
+    @Override
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            segment.flush();
+        } catch (IOException e) {
+            log.error("Failed to flush flat vector segment: {}", e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Records the model in a new directory, or checks that it matches the recorded one. Segments
+     * written before the model was recorded hold ada-002 vectors.
+     */
+    private void checkEmbeddingModel(Path directory, EmbeddingModel embeddingModel) throws IOException {
+        Path modelFile = directory.resolve(MODEL_FILE);
+        String recorded = Files.exists(modelFile) ? Files.readString(modelFile).trim()
+                : segment.size() > 0 ? EmbeddingModel.ADA_002.getId() : null;
+        if (recorded != null && !recorded.equals(embeddingModel.getId())) {
+            throw new IllegalStateException("Flat vector segment " + directory + " holds vectors of " + recorded
+                    + ", but the embedding model is " + embeddingModel.getId() + "; re-ingest into another directory");
+        }
+        if (!Files.exists(modelFile)) {
+            Files.writeString(modelFile, embeddingModel.getId() + System.lineSeparator());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.error("Failed to close flat vector segment: {}", e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+            pool.shutdown();
+        }
+    }
+}
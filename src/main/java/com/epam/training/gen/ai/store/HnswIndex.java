@@ -0,0 +1,531 @@
+package com.epam.training.gen.ai.store;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical Navigable Small World graph (Malkov &amp; Yashunin) over L2-normalised float vectors.
+ * <p>
+ * Vectors live in one flat primitive {@code float[]} ({@code node * dimension} offsets), layer-0
+ * links in one flat {@code int[]}, so the index holds no boxed values. Similarity is the dot
+ * product of normalised vectors, i.e. cosine similarity.
+ * <p>
+ * Not thread-safe for writes. Concurrent searches are safe as long as no insert runs at the same
+ * time, which {@link HnswVectorStore} guarantees with a read/write lock.
+ */
+public class HnswIndex {
+
+    private static final int MAGIC = 0x484E5357; // "HNSW"
+    private static final int VERSION = 1;
+    private static final int MAX_LEVEL = 16;
+
+    private final int dimension;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+    private final ThreadLocal<VisitedSet> visitedSets = ThreadLocal.withInitial(VisitedSet::new);
+
+    private float[] vectors;
+    private int[] levels;
+    private int[] level0Links;
+    private int[][] upperLinks;
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    public HnswIndex(int dimension, int m, int efConstruction, long seed) {
+        if (dimension <= 0 || m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("Invalid HNSW parameters: dimension=" + dimension + ", m=" + m + ", efConstruction=" + efConstruction);
+        }
+        this.dimension = dimension;
+        this.m = m;
+        this.maxM0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1d / Math.log(m);
+        this.random = new SplittableRandom(seed);
+        allocate(16);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int dimension() {
+        return dimension;
+    }
+
+    /**
+     * Adds a vector to the graph. The vector is copied and normalised.
+     *
+     * @param vector The vector to add.
+     * @return The node number assigned to the vector.
+     */
+    public int add(float[] vector) {
+        checkDimension(vector);
+        ensureCapacity(size + 1);
+        int node = size;
+        copyNormalised(vector, node);
+
+        int level = randomLevel();
+        levels[node] = level;
+        if (level > 0) {
+            upperLinks[node] = new int[level * (m + 1)];
+        }
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int queryOffset = node * dimension;
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > level; layer--) {
+            current = greedyClosest(vectors, queryOffset, current, layer);
+        }
+
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            NodeHeap found = searchLayer(vectors, queryOffset, current, layer, efConstruction, null);
+            int[] candidates = drainBestFirst(found);
+            current = candidates[0];
+            int[] selected = selectNeighbours(queryOffset, candidates, m);
+            setLinks(node, layer, selected, selected.length);
+            int maxConnections = layer == 0 ? maxM0 : m;
+            for (int neighbour : selected) {
+                addLink(neighbour, node, layer, maxConnections);
+            }
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    /**
+     * Replaces the vector of an existing node in place. Links are kept, which is fine for
+     * small changes; callers with very different vectors should add a new node instead.
+     */
+    public void update(int node, float[] vector) {
+        checkDimension(vector);
+        checkNode(node);
+        copyNormalised(vector, node);
+    }
+
+    /**
+     * Approximate k-nearest-neighbour search.
+     *
+     * @param query  The query vector, need not be normalised.
+     * @param k      The number of results.
+     * @param ef     The size of the dynamic candidate list; larger is slower and more accurate.
+     * @param accept Optional predicate nodes must satisfy to be returned. Rejected nodes are still
+     *               used to navigate the graph.
+     * @return Up to k hits ordered by descending score.
+     */
+    public List<ScoredNode> search(float[] query, int k, int ef, IntPredicate accept) {
+        checkDimension(query);
+        if (size == 0 || k <= 0) {
+            return Collections.emptyList();
+        }
+        float[] normalised = VectorMath.normalize(query);
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > 0; layer--) {
+            current = greedyClosest(normalised, 0, current, layer);
+        }
+        NodeHeap found = searchLayer(normalised, 0, current, 0, Math.max(ef, k), accept);
+        return topHits(found, k);
+    }
+
+    /**
+     * Exact search by scanning every node. Used for highly selective filters and as the
+     * reference for recall measurements.
+     */
+    public List<ScoredNode> bruteForce(float[] query, int k, IntPredicate accept) {
+        checkDimension(query);
+        if (size == 0 || k <= 0) {
+            return Collections.emptyList();
+        }
+        float[] normalised = VectorMath.normalize(query);
+        NodeHeap best = NodeHeap.minHeap(k + 1);
+        for (int node = 0; node < size; node++) {
+            if (accept != null && !accept.test(node)) {
+                continue;
+            }
+            float score = VectorMath.dot(normalised, 0, vectors, node * dimension, dimension);
+            if (best.size() < k || score > best.topScore()) {
+                best.push(node, score);
+                if (best.size() > k) {
+                    best.pop();
+                }
+            }
+        }
+        return topHits(best, k);
+    }
+
+    /**
+     * Copies the stored (normalised) vector of a node into a new array.
+     */
+    public float[] vector(int node) {
+        checkNode(node);
+        return Arrays.copyOfRange(vectors, node * dimension, (node + 1) * dimension);
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(dimension);
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(size);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        writeFloats(out, vectors, size * dimension);
+        writeInts(out, levels, size);
+        writeInts(out, level0Links, size * (maxM0 + 1));
+        for (int node = 0; node < size; node++) {
+            if (levels[node] > 0) {
+                writeInts(out, upperLinks[node], upperLinks[node].length);
+            }
+        }
+    }
+
+    public static HnswIndex readFrom(DataInputStream in, long seed) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an HNSW index snapshot");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported HNSW snapshot version: " + version);
+        }
+        int dimension = in.readInt();
+        int m = in.readInt();
+        int efConstruction = in.readInt();
+        int size = in.readInt();
+
+        HnswIndex index = new HnswIndex(dimension, m, efConstruction, seed);
+        index.allocate(Math.max(16, size));
+        index.entryPoint = in.readInt();
+        index.maxLevel = in.readInt();
+        readFloats(in, index.vectors, size * dimension);
+        readInts(in, index.levels, size);
+        readInts(in, index.level0Links, size * (index.maxM0 + 1));
+        for (int node = 0; node < size; node++) {
+            int level = index.levels[node];
+            if (level > 0) {
+                index.upperLinks[node] = new int[level * (m + 1)];
+                readInts(in, index.upperLinks[node], index.upperLinks[node].length);
+            }
+        }
+        index.size = size;
+        return index;
+    }
+
+    private int greedyClosest(float[] query, int queryOffset, int start, int layer) {
+        int current = start;
+        float currentScore = VectorMath.dot(query, queryOffset, vectors, current * dimension, dimension);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            int[] links = links(current, layer);
+            int base = linkBase(current, layer);
+            int count = links[base];
+            for (int i = 1; i <= count; i++) {
+                int neighbour = links[base + i];
+                float score = VectorMath.dot(query, queryOffset, vectors, neighbour * dimension, dimension);
+                if (score > currentScore) {
+                    currentScore = score;
+                    current = neighbour;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first beam search on one layer.
+     *
+     * @return A min-heap (worst result on top) of at most ef accepted nodes.
+     */
+    private NodeHeap searchLayer(float[] query, int queryOffset, int entry, int layer, int ef, IntPredicate accept) {
+        VisitedSet visited = visitedSets.get();
+        visited.reset(size);
+
+        NodeHeap candidates = NodeHeap.maxHeap(ef * 2);
+        NodeHeap results = NodeHeap.minHeap(ef + 1);
+
+        float entryScore = VectorMath.dot(query, queryOffset, vectors, entry * dimension, dimension);
+        visited.visit(entry);
+        candidates.push(entry, entryScore);
+        if (accept == null || accept.test(entry)) {
+            results.push(entry, entryScore);
+        }
+
+        while (candidates.size() > 0) {
+            float candidateScore = candidates.topScore();
+            if (results.size() >= ef && candidateScore < results.topScore()) {
+                break;
+            }
+            int candidate = candidates.pop();
+            int[] links = links(candidate, layer);
+            int base = linkBase(candidate, layer);
+            int count = links[base];
+            for (int i = 1; i <= count; i++) {
+                int neighbour = links[base + i];
+                if (!visited.visit(neighbour)) {
+                    continue;
+                }
+                float score = VectorMath.dot(query, queryOffset, vectors, neighbour * dimension, dimension);
+                if (results.size() < ef || score > results.topScore()) {
+                    candidates.push(neighbour, score);
+                    if (accept == null || accept.test(neighbour)) {
+                        results.push(neighbour, score);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Neighbour selection heuristic: a candidate is kept only if it is closer to the query than
+     * to every neighbour already selected, which keeps links spread in different directions.
+     *
+     * @param candidates Candidates ordered best first.
+     */
+    private int[] selectNeighbours(int queryOffset, int[] candidates, int limit) {
+        int[] selected = new int[Math.min(limit, candidates.length)];
+        int count = 0;
+        for (int candidate : candidates) {
+            if (count >= limit) {
+                break;
+            }
+            if (candidate == queryOffset / dimension) {
+                continue;
+            }
+            float toQuery = VectorMath.dot(vectors, queryOffset, vectors, candidate * dimension, dimension);
+            boolean keep = true;
+            for (int i = 0; i < count; i++) {
+                float toSelected = VectorMath.dot(vectors, selected[i] * dimension, vectors, candidate * dimension, dimension);
+                if (toSelected > toQuery) {
+                    keep = false;
+                    break;
+                }
+            }
+            if (keep) {
+                selected[count++] = candidate;
+            }
+        }
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    private void addLink(int node, int newNeighbour, int layer, int maxConnections) {
+        int[] links = links(node, layer);
+        int base = linkBase(node, layer);
+        int count = links[base];
+        if (count < maxConnections) {
+            links[base + 1 + count] = newNeighbour;
+            links[base] = count + 1;
+            return;
+        }
+
+        NodeHeap ranked = NodeHeap.maxHeap(count + 1);
+        int nodeOffset = node * dimension;
+        for (int i = 1; i <= count; i++) {
+            int neighbour = links[base + i];
+            ranked.push(neighbour, VectorMath.dot(vectors, nodeOffset, vectors, neighbour * dimension, dimension));
+        }
+        ranked.push(newNeighbour, VectorMath.dot(vectors, nodeOffset, vectors, newNeighbour * dimension, dimension));
+        int[] ordered = new int[ranked.size()];
+        for (int i = 0; i < ordered.length; i++) {
+            ordered[i] = ranked.pop();
+        }
+        int[] selected = selectNeighbours(nodeOffset, ordered, maxConnections);
+        setLinks(node, layer, selected, selected.length);
+    }
+
+    private void setLinks(int node, int layer, int[] neighbours, int count) {
+        int[] links = links(node, layer);
+        int base = linkBase(node, layer);
+        links[base] = count;
+        System.arraycopy(neighbours, 0, links, base + 1, count);
+    }
+
+    private int[] links(int node, int layer) {
+        return layer == 0 ? level0Links : upperLinks[node];
+    }
+
+    private int linkBase(int node, int layer) {
+        return layer == 0 ? node * (maxM0 + 1) : (layer - 1) * (m + 1);
+    }
+
+    private static int[] drainBestFirst(NodeHeap minHeap) {
+        int[] ordered = new int[minHeap.size()];
+        for (int i = ordered.length - 1; i >= 0; i--) {
+            ordered[i] = minHeap.pop();
+        }
+        return ordered;
+    }
+
+    private static List<ScoredNode> topHits(NodeHeap minHeap, int k) {
+        while (minHeap.size() > k) {
+            minHeap.pop();
+        }
+        ScoredNode[] hits = new ScoredNode[minHeap.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            float score = minHeap.topScore();
+            hits[i] = new ScoredNode(minHeap.pop(), score);
+        }
+        List<ScoredNode> result = new ArrayList<>(hits.length);
+        Collections.addAll(result, hits);
+        return result;
+    }
+
+    private int randomLevel() {
+        double uniform = 1d - random.nextDouble();
+        return Math.min(MAX_LEVEL, (int) (-Math.log(uniform) * levelMultiplier));
+    }
+
+    private void copyNormalised(float[] vector, int node) {
+        int offset = node * dimension;
+        System.arraycopy(vector, 0, vectors, offset, dimension);
+        double norm = Math.sqrt(VectorMath.dot(vectors, offset, vectors, offset, dimension));
+        if (norm > 0d) {
+            float inverse = (float) (1d / norm);
+            for (int i = offset; i < offset + dimension; i++) {
+                vectors[i] *= inverse;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        vectors = new float[capacity * dimension];
+        levels = new int[capacity];
+        level0Links = new int[capacity * (maxM0 + 1)];
+        upperLinks = new int[capacity][];
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = levels.length;
+        if (required <= capacity) {
+            return;
+        }
+        long grown = Math.max(required, capacity + (capacity >> 1));
+        if (grown * dimension > Integer.MAX_VALUE - 8) {
+            grown = (Integer.MAX_VALUE - 8) / dimension;
+            if (grown < required) {
+                throw new IllegalStateException("HNSW index is full: " + size + " vectors of dimension " + dimension);
+            }
+        }
+        int newCapacity = (int) grown;
+        vectors = Arrays.copyOf(vectors, newCapacity * dimension);
+        levels = Arrays.copyOf(levels, newCapacity);
+        level0Links = Arrays.copyOf(level0Links, newCapacity * (maxM0 + 1));
+        upperLinks = Arrays.copyOf(upperLinks, newCapacity);
+    }
+
+    private void checkDimension(float[] vector) {
+        if (vector == null || vector.length != dimension) {
+            throw new IllegalArgumentException("Expected vector of dimension " + dimension + " but got "
+                    + (vector == null ? "null" : vector.length));
+        }
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= size) {
+            throw new IndexOutOfBoundsException("Node " + node + " out of range [0, " + size + ")");
+        }
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (int i = 0; i < count; ) {
+            int batch = Math.min(count - i, buffer.capacity() / Float.BYTES);
+            buffer.clear();
+            buffer.asFloatBuffer().put(values, i, batch);
+            out.write(buffer.array(), 0, batch * Float.BYTES);
+            i += batch;
+        }
+    }
+
+    private static void readFloats(DataInputStream in, float[] values, int count) throws IOException {
+        byte[] bytes = new byte[8192];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        for (int i = 0; i < count; ) {
+            int batch = Math.min(count - i, bytes.length / Float.BYTES);
+            in.readFully(bytes, 0, batch * Float.BYTES);
+            buffer.clear();
+            buffer.asFloatBuffer().get(values, i, batch);
+            i += batch;
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        for (int i = 0; i < count; ) {
+            int batch = Math.min(count - i, buffer.capacity() / Integer.BYTES);
+            buffer.clear();
+            buffer.asIntBuffer().put(values, i, batch);
+            out.write(buffer.array(), 0, batch * Integer.BYTES);
+            i += batch;
+        }
+    }
+
+    private static void readInts(DataInputStream in, int[] values, int count) throws IOException {
+        byte[] bytes = new byte[8192];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        for (int i = 0; i < count; ) {
+            int batch = Math.min(count - i, bytes.length / Integer.BYTES);
+            in.readFully(bytes, 0, batch * Integer.BYTES);
+            buffer.clear();
+            buffer.asIntBuffer().get(values, i, batch);
+            i += batch;
+        }
+    }
+
+    /**
+     * Generation-stamped visited marks, reused per thread to avoid clearing an array per search.
+     */
+    private static final class VisitedSet {
+        private int[] marks = new int[0];
+        private int generation;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length + (marks.length >> 1))];
+                generation = 0;
+            }
+            generation++;
+            if (generation == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * @return true if the node had not been visited yet.
+         */
+        boolean visit(int node) {
+            if (marks[node] == generation) {
+                return false;
+            }
+            marks[node] = generation;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,422 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.EmbeddingModel;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
+import com.epam.training.gen.ai.model.SearchResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+
+/**
+ * In-process {@link VectorStore} backed by an {@link HnswIndex}.
+ * <p>
+ * Avoids the network hop to Qdrant for small and medium corpora. Filters on the source filename
+ * and page range are applied while walking the graph; when only a few points match the file filter
+ * the store scans them directly instead. Deleted points are tombstoned: they stay in the graph to
+ * keep it connected but are never returned. The whole store is snapshotted to
+ * {@code vector-store.hnsw.snapshot-file} after every ingest and on shutdown, and reloaded on startup.
+ * The snapshot records the embedding model, and a snapshot of another model is not loaded.
+ */
+@Component
+@ConditionalOnProperty(name = "vector-store.type", havingValue = "hnsw")
+@Slf4j
+public class HnswVectorStore implements VectorStore {
+
+    private static final int SNAPSHOT_MAGIC = 0x48565354; // "HVST"
+    private static final int SNAPSHOT_VERSION = 5;
+    private static final int NO_POSITION = -1;
+    private static final long LEVEL_SEED = 42L;
+
+    private final int m;
+    private final int efConstruction;
+    private final int efSearch;
+    private final int fullScanThreshold;
+    private final Path snapshotFile;
+    private final EmbeddingModel embeddingModel;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private HnswIndex index;
+    private final List<String> ids = new ArrayList<>();
+    private final List<ChunkPayload> payloads = new ArrayList<>();
+    private final Map<String, Integer> nodesById = new HashMap<>();
+    private final FileAssignments files = new FileAssignments(16);
+    private final BitSet deleted = new BitSet();
+    private boolean dirty;
+
+    public HnswVectorStore(int m, int efConstruction, int efSearch, int fullScanThreshold, String snapshotFile) {
+        this(m, efConstruction, efSearch, fullScanThreshold, snapshotFile, EmbeddingModel.ADA_002);
+    }
+
+    @Autowired
+    public HnswVectorStore(@Value("${vector-store.hnsw.m:16}") int m,
+                           @Value("${vector-store.hnsw.ef-construction:200}") int efConstruction,
+                           @Value("${vector-store.hnsw.ef-search:64}") int efSearch,
+                           @Value("${vector-store.hnsw.full-scan-threshold:2000}") int fullScanThreshold,
+                           @Value("${vector-store.hnsw.snapshot-file:}") String snapshotFile,
+                           EmbeddingModel embeddingModel) {
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.efSearch = efSearch;
+        this.fullScanThreshold = fullScanThreshold;
+        this.snapshotFile = StringUtils.hasText(snapshotFile) ? Path.of(snapshotFile) : null;
+        this.embeddingModel = embeddingModel;
+        this.index = new HnswIndex(embeddingModel.getDimension(), m, efConstruction, LEVEL_SEED);
+    }
+
+    @Override
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return nodesById.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean upsert(String id, float[] vector, ChunkPayload payload) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = nodesById.get(id);
+            if (existing != null) {
+                index.update(existing, vector);
+                replacePayload(existing, payload);
+            } else {
+                int node = index.add(vector);
+                ids.add(id);
+                payloads.add(payload);
+                nodesById.put(id, node);
+                files.assign(node, payload.getSourceFilename(), payload.getOtherSourceFilenames());
+            }
+            dirty = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean updatePayload(String id, ChunkPayload payload) {
+        lock.writeLock().lock();
+        try {
+            Integer node = nodesById.get(id);
+            if (node == null) {
+                return false;
+            }
+            replacePayload(node, payload);
+            dirty = true;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Collection<String> idsToDelete) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            for (String id : idsToDelete) {
+                Integer node = nodesById.remove(id);
+                if (node != null) {
+                    deleted.set(node);
+                    files.unassign(node);
+                    removed++;
+                }
+            }
+            dirty |= removed > 0;
+            log.debug("Tombstoned {} of {} requested HNSW points", removed, idsToDelete.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchResult> search(float[] queryVector, int limit, String sourceFilename) {
+        return search(queryVector, limit, SearchFilter.forFile(sourceFilename), false);
+    }
+
+    @Override
+    public List<SearchResult> search(float[] queryVector, int limit, SearchFilter filter, boolean withVectors) {
+        return search(queryVector, limit, filter, withVectors, SearchProfile.storeDefaults());
+    }
+
+    /**
+     * Searches the graph with the profile's {@code hnswEf} (default {@code vector-store.hnsw.ef-search});
+     * exact profiles and filters matching few points scan the matching vectors instead.
+     */
+    @Override
+    public List<SearchResult> search(float[] queryVector, int limit, SearchFilter filter, boolean withVectors, SearchProfile profile) {
+        lock.readLock().lock();
+        try {
+            IntPredicate accept = deleted.isEmpty() ? null : node -> !deleted.get(node);
+            if (filter.hasPageRange()) {
+                IntPredicate pageFilter = node -> filter.matchesPages(payloads.get(node).getPageStart(), payloads.get(node).getPageEnd());
+                accept = accept == null ? pageFilter : accept.and(pageFilter);
+            }
+            boolean fullScan = profile.isExact();
+            if (!filter.isAllDocuments()) {
+                int matching = files.count(filter.getSourceFilenames());
+                if (matching == 0) {
+                    return Collections.emptyList();
+                }
+                IntPredicate fileFilter = files.filter(filter.getSourceFilenames());
+                accept = accept == null ? fileFilter : fileFilter.and(accept);
+                fullScan = fullScan || matching <= fullScanThreshold;
+            }
+
+            int ef = profile.getHnswEf() == null ? efSearch : profile.getHnswEf();
+            List<ScoredNode> hits = fullScan
+                    ? index.bruteForce(queryVector, limit, accept)
+                    : index.search(queryVector, limit, Math.max(ef, limit), accept);
+            log.debug("HNSW search returned {} hits (filter: {}, full scan: {})", hits.size(), filter, fullScan);
+
+            List<SearchResult> results = new ArrayList<>(hits.size());
+            for (ScoredNode hit : hits) {
+                SearchResult result = new SearchResult(hit.score(), ids.get(hit.node()), payloads.get(hit.node()));
+                if (withVectors) {
+                    result.setVector(index.vector(hit.node()));
+                }
+                results.add(result);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchResult> retrieve(List<String> idsToFetch, boolean withVectors) {
+        lock.readLock().lock();
+        try {
+            List<SearchResult> results = new ArrayList<>(idsToFetch.size());
+            for (String id : idsToFetch) {
+                Integer node = nodesById.get(id);
+                if (node != null) {
+                    SearchResult result = new SearchResult(0f, id, payloads.get(node));
+                    if (withVectors) {
+                        result.setVector(index.vector(node));
+                    }
+                    results.add(result);
+                }
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return nodesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Loads the snapshot, if there is one.
+     *
+     * @throws IllegalStateException If the snapshot holds vectors of another embedding model. The
+     *                               store does not start empty in that case, which would overwrite
+     *                               the snapshot on the next flush.
+     */
+    @PostConstruct
+    public void load() {
+        if (snapshotFile == null || !Files.exists(snapshotFile)) {
+            log.info("No HNSW snapshot to load, starting with an empty index.");
+            return;
+        }
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Unrecognised snapshot header");
+            }
+            int version = in.readInt();
+            if (version < 1 || version > SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            // snapshots from before the model was recorded all hold ada-002 vectors
+            String model = version >= 4 ? in.readUTF() : EmbeddingModel.ADA_002.getId();
+            if (!model.equals(embeddingModel.getId())) {
+                throw new IllegalStateException("HNSW snapshot " + snapshotFile + " holds vectors of " + model
+                        + ", but the embedding model is " + embeddingModel.getId() + "; re-ingest into another snapshot file");
+            }
+            HnswIndex loaded = HnswIndex.readFrom(in, LEVEL_SEED);
+            if (loaded.dimension() != embeddingModel.getDimension()) {
+                throw new IOException("Snapshot dimension " + loaded.dimension() + " does not match " + embeddingModel.getDimension());
+            }
+            int count = loaded.size();
+            List<String> loadedIds = new ArrayList<>(count);
+            List<ChunkPayload> loadedPayloads = new ArrayList<>(count);
+            BitSet loadedDeleted = new BitSet();
+            for (int node = 0; node < count; node++) {
+                loadedIds.add(in.readUTF());
+                if (version >= 3 && in.readBoolean()) {
+                    loadedDeleted.set(node);
+                }
+                String text = readString(in);
+                String filename = in.readBoolean() ? in.readUTF() : null;
+                ChunkPayload payload = new ChunkPayload(text, filename);
+                if (version >= 5) {
+                    payload.setOtherSourceFilenames(readOtherFilenames(in));
+                }
+                if (version >= 2) {
+                    payload.withPosition(readPosition(in), readPosition(in), readPosition(in), readPosition(in));
+                }
+                loadedPayloads.add(payload);
+            }
+
+            clear();
+            index = loaded;
+            for (int node = 0; node < count; node++) {
+                ids.add(loadedIds.get(node));
+                payloads.add(loadedPayloads.get(node));
+                if (loadedDeleted.get(node)) {
+                    deleted.set(node);
+                } else {
+                    nodesById.put(loadedIds.get(node), node);
+                    ChunkPayload payload = loadedPayloads.get(node);
+                    files.assign(node, payload.getSourceFilename(), payload.getOtherSourceFilenames());
+                }
+            }
+            dirty = false;
+            log.info("Loaded HNSW snapshot with {} vectors ({} deleted) from {}", count, deleted.cardinality(), snapshotFile);
+        } catch (IOException e) {
+            log.error("Failed to load HNSW snapshot from {}, starting empty: {}", snapshotFile, e.getMessage(), e);
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the snapshot if anything changed since the last one. The file is written next to the
+     * target and moved into place so a crash never leaves a half-written snapshot.
+     */
+    @Override
+    @PreDestroy
+    public synchronized void flush() {
+        if (snapshotFile == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeUTF(embeddingModel.getId());
+                index.writeTo(out);
+                for (int node = 0; node < index.size(); node++) {
+                    ChunkPayload payload = payloads.get(node);
+                    out.writeUTF(ids.get(node));
+                    out.writeBoolean(deleted.get(node));
+                    writeString(out, payload.getText());
+                    out.writeBoolean(payload.getSourceFilename() != null);
+                    if (payload.getSourceFilename() != null) {
+                        out.writeUTF(payload.getSourceFilename());
+                    }
+                    out.writeInt(payload.getOtherSourceFilenames().size());
+                    for (String other : payload.getOtherSourceFilenames()) {
+                        out.writeUTF(other);
+                    }
+                    writePosition(out, payload.getPageStart());
+                    writePosition(out, payload.getPageEnd());
+                    writePosition(out, payload.getCharStart());
+                    writePosition(out, payload.getCharEnd());
+                }
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+            log.info("Saved HNSW snapshot with {} vectors to {}", index.size(), snapshotFile);
+        } catch (IOException e) {
+            log.error("Failed to save HNSW snapshot to {}: {}", snapshotFile, e.getMessage(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void replacePayload(int node, ChunkPayload payload) {
+        payloads.set(node, payload);
+        files.assign(node, payload.getSourceFilename(), payload.getOtherSourceFilenames());
+    }
+
+    private void clear() {
+        index = new HnswIndex(embeddingModel.getDimension(), m, efConstruction, LEVEL_SEED);
+        ids.clear();
+        payloads.clear();
+        nodesById.clear();
+        files.clear();
+        deleted.clear();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writePosition(DataOutputStream out, Integer value) throws IOException {
+        out.writeInt(value == null ? NO_POSITION : value);
+    }
+
+    private static Integer readPosition(DataInputStream in) throws IOException {
+        int value = in.readInt();
+        return value == NO_POSITION ? null : value;
+    }
+
+    private static List<String> readOtherFilenames(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count == 0) {
+            return List.of();
+        }
+        List<String> filenames = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            filenames.add(in.readUTF());
+        }
+        return filenames;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,318 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.util.MinHash;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * MinHash signatures of the stored chunks with a locality-sensitive hashing (LSH) index, used at
+ * ingest to find chunks that are nearly the same as one already stored, e.g. the boilerplate
+ * sections that several benefit documents share, or the same paragraph with other line breaks.
+ * <p>
+ * Chunks only match if they contain the same amounts in the same order. Two paragraphs that
+ * differ in a deductible or a copay amount are different facts however similar their words are,
+ * while a few changed words among a hundred would still score above the threshold. The signature
+ * values are therefore keyed by {@link MinHash#amounts}: for equal amounts this keeps the
+ * similarity, for different amounts it makes the signatures unrelated. Plain numbers, such as the
+ * page or section a chunk refers to, only count as words.
+ * <p>
+ * A signature of {@code hashes} values is split into {@code bands} bands. Two chunks become
+ * candidates when all values of at least one band are equal, which is likely above a similarity of
+ * about {@code (1 / bands) ^ (bands / hashes)} and unlikely below it. Candidates are then compared on
+ * their whole signature against the threshold. The signatures are saved to
+ * {@code embedding.dedup.index-file} after every ingest and on shutdown; the buckets are rebuilt on
+ * load. A file written with other signature settings is ignored, and the index fills up again as
+ * documents are re-uploaded.
+ */
+@Component
+@Slf4j
+public class NearDuplicateIndex {
+
+    private static final int SNAPSHOT_MAGIC = 0x4E445550; // "NDUP"
+    private static final int SNAPSHOT_VERSION = 5;
+
+    private final boolean enabled;
+    private final double threshold;
+    private final int hashes;
+    private final int bands;
+    private final int rows;
+    private final int shingleWords;
+    private final Path indexFile;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, int[]> signatures = new HashMap<>();
+    private final Map<Long, List<String>> buckets = new HashMap<>();
+    private boolean dirty;
+
+    public NearDuplicateIndex(@Value("${embedding.dedup.enabled:false}") boolean enabled,
+                              @Value("${embedding.dedup.threshold:0.9}") double threshold,
+                              @Value("${embedding.dedup.hashes:128}") int hashes,
+                              @Value("${embedding.dedup.bands:16}") int bands,
+                              @Value("${embedding.dedup.shingle-words:3}") int shingleWords,
+                              @Value("${embedding.dedup.index-file:}") String indexFile) {
+        if (hashes < 1 || hashes > MinHash.MAX_HASHES || bands < 1 || hashes % bands != 0) {
+            throw new IllegalArgumentException("embedding.dedup.hashes must be a multiple of embedding.dedup.bands and at most "
+                    + MinHash.MAX_HASHES + ", got " + hashes + " hashes and " + bands + " bands");
+        }
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.hashes = hashes;
+        this.bands = bands;
+        this.rows = hashes / bands;
+        this.shingleWords = shingleWords;
+        this.indexFile = StringUtils.hasText(indexFile) ? Path.of(indexFile) : null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Computes the signature of a chunk text, keyed by its amounts.
+     */
+    public int[] signature(String text) {
+        int[] signature = MinHash.signature(text, hashes, shingleWords);
+        long amounts = MinHash.amounts(text);
+        if (amounts != 0) {
+            // a different key per position, so equal values stay equal only under equal amounts
+            for (int k = 0; k < signature.length; k++) {
+                signature[k] ^= (int) ((amounts + k) * 0x9E3779B97F4A7C15L >>> 32);
+            }
+        }
+        return signature;
+    }
+
+    public boolean contains(String id) {
+        lock.readLock().lock();
+        try {
+            return signatures.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return signatures.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the most similar stored chunk at or above the threshold.
+     *
+     * @param signature The signature of the new chunk.
+     * @param excluded  Chunk IDs that must not be returned, e.g. chunks about to be deleted.
+     * @return The match, or null if there is none or the index is disabled.
+     */
+    public Match findDuplicate(int[] signature, Set<String> excluded) {
+        if (!enabled) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Set<String> candidates = new HashSet<>();
+            for (int band = 0; band < bands; band++) {
+                List<String> bucket = buckets.get(bandKey(signature, band));
+                if (bucket != null) {
+                    candidates.addAll(bucket);
+                }
+            }
+            Match best = null;
+            for (String id : candidates) {
+                if (excluded.contains(id)) {
+                    continue;
+                }
+                double similarity = MinHash.similarity(signature, signatures.get(id));
+                if (similarity >= threshold && (best == null || similarity > best.similarity())) {
+                    best = new Match(id, similarity);
+                }
+            }
+            return best;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether two signatures are near duplicates of each other, e.g. of chunks not stored yet.
+     */
+    public boolean isDuplicate(int[] signature, int[] other) {
+        return enabled && MinHash.similarity(signature, other) >= threshold;
+    }
+
+    /**
+     * Adds the signature of a stored chunk. Adding an ID again keeps the first signature, which is
+     * the same for the same chunk text.
+     */
+    public void add(String id, int[] signature) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (signatures.putIfAbsent(id, signature) == null) {
+                index(id, signature);
+                dirty = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the signatures of deleted chunks; unknown IDs are ignored.
+     */
+    public void remove(Collection<String> ids) {
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) {
+                int[] signature = signatures.remove(id);
+                if (signature == null) {
+                    continue;
+                }
+                for (int band = 0; band < bands; band++) {
+                    long key = bandKey(signature, band);
+                    List<String> bucket = buckets.get(key);
+                    if (bucket != null) {
+                        bucket.remove(id);
+                        if (bucket.isEmpty()) {
+                            buckets.remove(key);
+                        }
+                    }
+                }
+                dirty = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        if (!enabled || indexFile == null || !Files.exists(indexFile)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile), 1 << 16))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("Ignoring near-duplicate index {}: unknown format.", indexFile);
+                return;
+            }
+            int fileHashes = in.readInt();
+            int fileShingleWords = in.readInt();
+            if (fileHashes != hashes || fileShingleWords != shingleWords) {
+                log.warn("Ignoring near-duplicate index {}: written with {} hashes and {}-word shingles, configured are {} and {}.",
+                        indexFile, fileHashes, fileShingleWords, hashes, shingleWords);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                int[] signature = new int[hashes];
+                for (int k = 0; k < hashes; k++) {
+                    signature[k] = in.readInt();
+                }
+                signatures.put(id, signature);
+                index(id, signature);
+            }
+            log.info("Loaded {} near-duplicate signatures from {}", signatures.size(), indexFile);
+        } catch (IOException e) {
+            log.error("Failed to load near-duplicate index from {}, starting empty: {}", indexFile, e.getMessage(), e);
+            signatures.clear();
+            buckets.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the signatures if anything changed since the last save. The file is written next to
+     * the target and moved into place.
+     */
+    @PreDestroy
+    public synchronized void flush() {
+        if (!enabled || indexFile == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (!dirty) {
+                return;
+            }
+            Path parent = indexFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(hashes);
+                out.writeInt(shingleWords);
+                out.writeInt(signatures.size());
+                for (Map.Entry<String, int[]> entry : signatures.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    for (int value : entry.getValue()) {
+                        out.writeInt(value);
+                    }
+                }
+            }
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+            log.info("Saved {} near-duplicate signatures to {}", signatures.size(), indexFile);
+        } catch (IOException e) {
+            log.error("Failed to save near-duplicate index to {}: {}", indexFile, e.getMessage(), e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(String id, int[] signature) {
+        for (int band = 0; band < bands; band++) {
+            buckets.computeIfAbsent(bandKey(signature, band), key -> new ArrayList<>(1)).add(id);
+        }
+    }
+
+    /**
+     * Hashes the values of one band together with the band number, so equal values in different
+     * bands do not share a bucket.
+     */
+    private long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int k = band * rows; k < (band + 1) * rows; k++) {
+            key = key * 0x9E3779B97F4A7C15L + signature[k];
+        }
+        return key;
+    }
+
+    /**
+     * A stored chunk and its estimated Jaccard similarity to the new chunk.
+     */
+    public record Match(String id, double similarity) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.epam.training.gen.ai.store;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (node, score) pairs kept in parallel primitive arrays, so graph and
+ * brute-force searches do not allocate a boxed entry per visited vector.
+ */
+final class NodeHeap {
+
+    private final boolean max;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    private NodeHeap(boolean max, int initialCapacity) {
+        this.max = max;
+        int capacity = Math.max(4, initialCapacity);
+        this.nodes = new int[capacity];
+        this.scores = new float[capacity];
+    }
+
+    /**
+     * Heap with the highest score on top.
+     */
+    static NodeHeap maxHeap(int initialCapacity) {
+        return new NodeHeap(true, initialCapacity);
+    }
+
+    /**
+     * Heap with the lowest score on top.
+     */
+    static NodeHeap minHeap(int initialCapacity) {
+        return new NodeHeap(false, initialCapacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    float topScore() {
+        return scores[0];
+    }
+
+    int topNode() {
+        return nodes[0];
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(score, scores[parent])) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+
+    /**
+     * Removes the top entry and returns its node.
+     */
+    int pop() {
+        int top = nodes[0];
+        size--;
+        if (size > 0) {
+            int node = nodes[size];
+            float score = scores[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                int right = child + 1;
+                if (right < size && before(scores[right], scores[child])) {
+                    child = right;
+                }
+                if (!before(scores[child], score)) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                scores[i] = scores[child];
+                i = child;
+            }
+            nodes[i] = node;
+            scores[i] = score;
+        }
+        return top;
+    }
+
+    private boolean before(float a, float b) {
+        return max ? a > b : a < b;
+    }
+}
@@ -0,0 +1,1068 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.CollectionSpec;
+import com.epam.training.gen.ai.model.EmbeddingModel;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
+import com.epam.training.gen.ai.model.SearchResult;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.WithVectorsSelectorFactory;
+import io.qdrant.client.grpc.Collections.AliasDescription;
+import io.qdrant.client.grpc.Collections.AliasOperations;
+import io.qdrant.client.grpc.Collections.BinaryQuantization;
+import io.qdrant.client.grpc.Collections.CollectionInfo;
+import io.qdrant.client.grpc.Collections.CollectionOperationResponse;
+import io.qdrant.client.grpc.Collections.CreateAlias;
+import io.qdrant.client.grpc.Collections.CreateCollection;
+import io.qdrant.client.grpc.Collections.DeleteAlias;
+import io.qdrant.client.grpc.Collections.Distance;
+import io.qdrant.client.grpc.Collections.HnswConfigDiff;
+import io.qdrant.client.grpc.Collections.PayloadSchemaType;
+import io.qdrant.client.grpc.Collections.QuantizationConfig;
+import io.qdrant.client.grpc.Collections.QuantizationType;
+import io.qdrant.client.grpc.Collections.ScalarQuantization;
+import io.qdrant.client.grpc.Collections.VectorParams;
+import io.qdrant.client.grpc.Collections.VectorsConfig;
+import io.qdrant.client.grpc.JsonWithInt;
+import io.qdrant.client.grpc.Points;
+import io.qdrant.client.grpc.Points.PointStruct;
+import io.qdrant.client.grpc.Points.QuantizationSearchParams;
+import io.qdrant.client.grpc.Points.QueryPoints;
+import io.qdrant.client.grpc.Points.RetrievedPoint;
+import io.qdrant.client.grpc.Points.ScoredPoint;
+import io.qdrant.client.grpc.Points.ScrollPoints;
+import io.qdrant.client.grpc.Points.ScrollResponse;
+import io.qdrant.client.grpc.Points.SearchParams;
+import io.qdrant.client.grpc.Points.UpdateResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+import static io.qdrant.client.ConditionFactory.isEmpty;
+import static io.qdrant.client.ConditionFactory.matchKeyword;
+import static io.qdrant.client.ConditionFactory.matchKeywords;
+import static io.qdrant.client.ConditionFactory.range;
+import static io.qdrant.client.ValueFactory.list;
+import static io.qdrant.client.ValueFactory.value;
+import static io.qdrant.client.WithPayloadSelectorFactory.enable;
+
+/**
+ * {@link VectorStore} backed by a Qdrant collection accessed over gRPC.
+ * <p>
+ * When {@code vector-store.quantization.type} is set, the collection is created with the matching
+ * Qdrant quantization config and searches ask Qdrant to rescore oversampled candidates with the
+ * original vectors. The quantization of an existing collection is not changed.
+ * <p>
+ * Reads and writes go through {@value #COLLECTION_NAME}, which is an alias for a versioned
+ * collection ({@code embedding_collection_v1}, {@code _v2}, ...) so that a collection built with
+ * other index parameters can take over without downtime, see {@link #activate}. A collection created
+ * under that name before aliases were used keeps working until it is replaced. While a reindex runs,
+ * writes are mirrored to the target collection so that it does not miss documents ingested meanwhile.
+ * <p>
+ * Every point records the embedding model in its {@value #PAYLOAD_EMBEDDING_MODEL_KEY} payload field.
+ * If the active collection holds vectors of another model, searches and writes fail until a
+ * collection re-embedded with the configured model is activated.
+ */
+@Component
+@ConditionalOnProperty(name = "vector-store.type", havingValue = "qdrant", matchIfMissing = true)
+@Slf4j
+public class QdrantVectorStore implements VectorStore {
+
+    public static final String COLLECTION_NAME = "embedding_collection";
+    static final String VERSION_SUFFIX = "_v";
+    static final String PAYLOAD_TEXT_KEY = "text";
+    static final String PAYLOAD_SOURCE_FILENAME_KEY = "source_filename";
+    static final String PAYLOAD_DOCUMENT_TYPE_KEY = "document_type";
+    static final String PAYLOAD_INGESTED_AT_KEY = "ingested_at";
+    static final String PAYLOAD_PAGE_START_KEY = "page_start";
+    static final String PAYLOAD_PAGE_END_KEY = "page_end";
+    static final String PAYLOAD_CHAR_START_KEY = "char_start";
+    static final String PAYLOAD_CHAR_END_KEY = "char_end";
+    static final String PAYLOAD_EMBEDDING_MODEL_KEY = "embedding_model";
+
+    /**
+     * Payload fields indexed when the collection is created.
+     */
+    static final Map<String, PayloadSchemaType> PAYLOAD_INDEXES = Map.of(
+            PAYLOAD_SOURCE_FILENAME_KEY, PayloadSchemaType.Keyword,
+            PAYLOAD_DOCUMENT_TYPE_KEY, PayloadSchemaType.Keyword,
+            PAYLOAD_INGESTED_AT_KEY, PayloadSchemaType.Integer,
+            PAYLOAD_PAGE_START_KEY, PayloadSchemaType.Integer,
+            PAYLOAD_PAGE_END_KEY, PayloadSchemaType.Integer,
+            PAYLOAD_EMBEDDING_MODEL_KEY, PayloadSchemaType.Keyword);
+
+    private final QdrantClient qdrantClient;
+    private final QuantizationSettings quantization;
+    private final boolean quantizedAlwaysRam;
+    private final EmbeddingModel embeddingModel;
+    @Value("${vector-store.qdrant.collection.m:#{null}}")
+    private Integer defaultM;
+    @Value("${vector-store.qdrant.collection.ef-construct:#{null}}")
+    private Integer defaultEfConstruct;
+    @Value("${vector-store.qdrant.collection.vectors-on-disk:#{null}}")
+    private Boolean defaultVectorsOnDisk;
+    @Value("${vector-store.qdrant.collection.payload-on-disk:#{null}}")
+    private Boolean defaultPayloadOnDisk;
+    /**
+     * Queries per {@code queryBatch} request; larger batches can exceed gRPC's default 4 MB message limit.
+     */
+    @Value("${vector-store.qdrant.query-batch-size:64}")
+    private int queryBatchSize = 64;
+    private volatile boolean collectionReady;
+    private volatile String embeddingModelMismatch;
+    private volatile String mirrorCollection;
+    private final AtomicLong mirrorFailures = new AtomicLong();
+    // writes hold the read lock; a copy holds the write lock while it re-checks and writes a page
+    private final ReadWriteLock copyLock = new ReentrantReadWriteLock();
+
+    public QdrantVectorStore(QdrantClient qdrantClient, String quantization, boolean rescore, double oversampling,
+                             boolean quantizedAlwaysRam) {
+        this(qdrantClient, quantization, rescore, oversampling, quantizedAlwaysRam, EmbeddingModel.ADA_002);
+    }
+
+    @Autowired
+    public QdrantVectorStore(QdrantClient qdrantClient,
+                             @Value("${vector-store.quantization.type:none}") String quantization,
+                             @Value("${vector-store.quantization.rescore:true}") boolean rescore,
+                             @Value("${vector-store.quantization.oversampling:2.0}") double oversampling,
+                             @Value("${vector-store.quantization.always-ram:true}") boolean quantizedAlwaysRam,
+                             EmbeddingModel embeddingModel) {
+        this.qdrantClient = qdrantClient;
+        this.quantization = new QuantizationSettings(VectorQuantization.parse(quantization), rescore, oversampling);
+        this.quantizedAlwaysRam = quantizedAlwaysRam;
+        this.embeddingModel = embeddingModel;
+    }
+
+    /**
+     * Checks if an embedding with the given ID already exists in Qdrant.
+     *
+     * @param chunkId The consistent ID of the chunk.
+     * @return true if the embedding exists, false otherwise.
+     * @throws ExecutionException   If Qdrant interaction fails.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    @Override
+    public boolean contains(String chunkId) throws ExecutionException, InterruptedException {
+        try {
+            return !qdrantClient.retrieveAsync(COLLECTION_NAME, List.of(Points.PointId.newBuilder().setUuid(chunkId).build()), false, false, null)
+                    .get()
+                    .isEmpty();
+        } catch (ExecutionException e) {
+            if (e.getMessage() != null && (e.getMessage().contains("Not found: Collection") || e.getMessage().contains("doesn't exist"))) {
+                log.warn("Collection {} not found during existence check for ID {}. Assuming embedding does not exist.", COLLECTION_NAME, chunkId);
+                return false;
+            }
+
+            log.error("Error checking embedding existence for ID {}: {}", chunkId, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Stores a single embedding chunk.
+     *
+     * @param chunkId The pre-generated consistent ID for this chunk.
+     * @param vector  The embedding data.
+     * @param payload The text content of the chunk and its source filename.
+     * @return true if Qdrant reported the update as completed.
+     * @throws ExecutionException   If Qdrant interaction fails.
+     * @throws InterruptedException If the thread is interrupted.
+     */
+    @Override
+    public boolean upsert(String chunkId, float[] vector, ChunkPayload payload) throws ExecutionException, InterruptedException {
+        createCollectionIfNotExists();
+        requireEmbeddingModel();
+        UpdateResult updateResult;
+        copyLock.readLock().lock();
+        try {
+            PointStruct point = createPointStruct(chunkId, vector, payload);
+            updateResult = qdrantClient.upsertAsync(COLLECTION_NAME, List.of(point)).get();
+            log.debug("Stored embedding for chunk ID: {}", chunkId);
+            String mirror = mirrorCollection;
+            if (mirror != null) {
+                mirror(mirror, "upsert", () -> qdrantClient.upsertAsync(mirror, List.of(point)).get());
+            }
+        } catch (Exception e) {
+            log.error("Error while storing embedding for chunk ID {}: {}", chunkId, e.getMessage(), e);
+            throw new RuntimeException("Error while storing embedding for chunk ID " + chunkId, e);
+        } finally {
+            copyLock.readLock().unlock();
+        }
+        String status = updateResult.getStatus().name();
+        return status.startsWith("Completed") || status.startsWith("Updated");
+    }
+
+    @Override
+    public List<SearchResult> search(float[] queryVector, int limit, SearchFilter filter, boolean withVectors, SearchProfile profile) throws ExecutionException, InterruptedException {
+        if (!collectionExists()) {
+            log.warn("Collection doesn't exist during search: {}", COLLECTION_NAME);
+            return Collections.emptyList();
+        }
+        requireEmbeddingModel();
+
+        log.debug("Searching with filter: {}", filter);
+        return qdrantClient.queryAsync(queryPoints(queryVector, limit, filter, withVectors, profile)).get().stream()
+                .map(this::mapScoredPointToSearchResultWithText)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Sends the searches with {@code queryBatch}, {@code vector-store.qdrant.query-batch-size} queries
+     * per request, so that each request costs one round trip instead of one per query.
+     */
+    @Override
+    public List<List<SearchResult>> searchBatch(List<float[]> queryVectors, int limit, SearchFilter filter, boolean withVectors, SearchProfile profile) throws ExecutionException, InterruptedException {
+        List<List<SearchResult>> results = new ArrayList<>(queryVectors.size());
+        if (!collectionExists()) {
+            log.warn("Collection doesn't exist during batch search: {}", COLLECTION_NAME);
+            queryVectors.forEach(queryVector -> results.add(Collections.emptyList()));
+            return results;
+        }
+        requireEmbeddingModel();
+        int batchSize = Math.max(1, queryBatchSize);
+        for (int from = 0; from < queryVectors.size(); from += batchSize) {
+            List<QueryPoints> queries = new ArrayList<>(Math.min(batchSize, queryVectors.size() - from));
+            for (float[] queryVector : queryVectors.subList(from, Math.min(from + batchSize, queryVectors.size()))) {
+                queries.add(queryPoints(queryVector, limit, filter, withVectors, profile));
+            }
+            for (Points.BatchResult batchResult : qdrantClient.queryBatchAsync(COLLECTION_NAME, queries).get()) {
+                results.add(batchResult.getResultList().stream()
+                        .map(this::mapScoredPointToSearchResultWithText)
+                        .collect(Collectors.toList()));
+            }
+        }
+        log.debug("Batch search of {} queries took {} requests", queryVectors.size(), (queryVectors.size() + batchSize - 1) / batchSize);
+        return results;
+    }
+
+    private QueryPoints queryPoints(float[] queryVector, int limit, SearchFilter filter, boolean withVectors, SearchProfile profile) {
+        QueryPoints.Builder queryBuilder = QueryPoints.newBuilder()
+                .setCollectionName(COLLECTION_NAME)
+                .setQuery(nearest(queryVector))
+                .setWithPayload(enable(true))
+                .setWithVectors(WithVectorsSelectorFactory.enable(withVectors))
+                .setLimit(limit);
+
+        SearchParams searchParams = searchParams(profile);
+        if (!searchParams.equals(SearchParams.getDefaultInstance())) {
+            queryBuilder.setParams(searchParams);
+        }
+
+        Points.Filter payloadFilter = payloadFilter(filter);
+        if (payloadFilter != null) {
+            queryBuilder.setFilter(payloadFilter);
+        }
+        return queryBuilder.build();
+    }
+
+    @Override
+    public boolean updatePayload(String chunkId, ChunkPayload payload) throws ExecutionException, InterruptedException {
+        requireEmbeddingModel();
+        Points.PointId pointId = Points.PointId.newBuilder().setUuid(chunkId).build();
+        Map<String, JsonWithInt.Value> fields = new HashMap<>(payloadMap(payload));
+        fields.put(PAYLOAD_EMBEDDING_MODEL_KEY, value(embeddingModel.getId()));
+        UpdateResult updateResult;
+        copyLock.readLock().lock();
+        try {
+            updateResult = qdrantClient.overwritePayloadAsync(COLLECTION_NAME, fields, pointId, true, null, null).get();
+            log.debug("Updated payload of chunk ID {}: {}", chunkId, updateResult.getStatus());
+            String mirror = mirrorCollection;
+            if (mirror != null) {
+                // a point the copy has not reached yet is missing from the target; the copy reads the updated payload later
+                mirror(mirror, "payload update", () -> {
+                    try {
+                        qdrantClient.overwritePayloadAsync(mirror, fields, pointId, true, null, null).get();
+                    } catch (ExecutionException e) {
+                        if (!isNotFound(e)) {
+                            throw e;
+                        }
+                        log.debug("Chunk ID {} is not in {} yet, its payload will be copied", chunkId, mirror);
+                    }
+                });
+            }
+        } finally {
+            copyLock.readLock().unlock();
+        }
+        return updateResult.getStatus() == Points.UpdateStatus.Completed;
+    }
+
+    /**
+     * Sets only the {@code source_filename} field, which becomes a list when several documents share
+     * the chunk; the keyword condition of a file filter matches any element of it.
+     */
+    @Override
+    public boolean setSourceFilenames(String chunkId, List<String> sourceFilenames) throws ExecutionException, InterruptedException {
+        requireEmbeddingModel();
+        Points.PointId pointId = Points.PointId.newBuilder().setUuid(chunkId).build();
+        Map<String, JsonWithInt.Value> fields = Map.of(PAYLOAD_SOURCE_FILENAME_KEY, filenamesValue(sourceFilenames));
+        UpdateResult updateResult;
+        copyLock.readLock().lock();
+        try {
+            updateResult = qdrantClient.setPayloadAsync(COLLECTION_NAME, fields, pointId, true, null, null).get();
+            log.debug("Set source filenames of chunk ID {} to {}: {}", chunkId, sourceFilenames, updateResult.getStatus());
+            String mirror = mirrorCollection;
+            if (mirror != null) {
+                mirror(mirror, "source filename update", () -> {
+                    try {
+                        qdrantClient.setPayloadAsync(mirror, fields, pointId, true, null, null).get();
+                    } catch (ExecutionException e) {
+                        if (!isNotFound(e)) {
+                            throw e;
+                        }
+                        log.debug("Chunk ID {} is not in {} yet, its source filenames will be copied", chunkId, mirror);
+                    }
+                });
+            }
+        } finally {
+            copyLock.readLock().unlock();
+        }
+        return updateResult.getStatus() == Points.UpdateStatus.Completed;
+    }
+
+    /**
+     * Deletes the points with one request and waits for Qdrant to apply it.
+     */
+    @Override
+    public void delete(Collection<String> ids) throws ExecutionException, InterruptedException {
+        if (ids.isEmpty() || !collectionExists()) {
+            return;
+        }
+        List<Points.PointId> pointIds = ids.stream()
+                .map(id -> Points.PointId.newBuilder().setUuid(id).build())
+                .collect(Collectors.toList());
+        copyLock.readLock().lock();
+        try {
+            UpdateResult updateResult = qdrantClient.deleteAsync(COLLECTION_NAME, pointIds).get();
+            log.info("Deleted {} points from {}: {}", pointIds.size(), COLLECTION_NAME, updateResult.getStatus());
+            String mirror = mirrorCollection;
+            if (mirror != null) {
+                mirror(mirror, "delete", () -> qdrantClient.deleteAsync(mirror, pointIds).get());
+            }
+        } finally {
+            copyLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<SearchResult> retrieve(List<String> ids, boolean withVectors) throws ExecutionException, InterruptedException {
+        if (ids.isEmpty() || !collectionExists()) {
+            return Collections.emptyList();
+        }
+        List<Points.PointId> pointIds = ids.stream()
+                .map(id -> Points.PointId.newBuilder().setUuid(id).build())
+                .collect(Collectors.toList());
+        return qdrantClient.retrieveAsync(COLLECTION_NAME, pointIds, true, withVectors, null).get().stream()
+                .map(this::mapRetrievedPointToSearchResult)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Creates {@code embedding_collection_v1} and points the alias at it on the first write.
+     */
+    private void createCollectionIfNotExists() throws ExecutionException, InterruptedException {
+        if (collectionExists()) {
+            return;
+        }
+        String collection = COLLECTION_NAME + VERSION_SUFFIX + 1;
+        try {
+            createCollection(collection, new CollectionSpec());
+            qdrantClient.createAliasAsync(COLLECTION_NAME, collection).get();
+            log.info("Created alias {} for collection {}", COLLECTION_NAME, collection);
+            collectionReady = true;
+        } catch (ExecutionException e) {
+            if (e.getMessage() != null && e.getMessage().contains("already exists")) {
+                log.warn("Collection {} already exists (detected during creation attempt).", collection);
+                if (!collectionExists()) {
+                    qdrantClient.createAliasAsync(COLLECTION_NAME, collection).get();
+                }
+            } else {
+                log.error("Failed to create collection {} due to execution error: {}", collection, e.getMessage(), e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Whether {@value #COLLECTION_NAME} exists, as an alias or as a collection created before
+     * aliases were used. Only a positive answer is cached.
+     */
+    private boolean collectionExists() throws ExecutionException, InterruptedException {
+        if (!collectionReady) {
+            String active = activeCollection();
+            if (active != null) {
+                embeddingModelMismatch = embeddingModelMismatch(active);
+                if (embeddingModelMismatch != null) {
+                    log.error(embeddingModelMismatch);
+                }
+                collectionReady = true;
+            }
+        }
+        return collectionReady;
+    }
+
+    private void requireEmbeddingModel() {
+        String mismatch = embeddingModelMismatch;
+        if (mismatch != null) {
+            throw new IllegalStateException(mismatch);
+        }
+    }
+
+    /**
+     * Checks that a collection holds vectors of the configured embedding model: its vector size must
+     * match, and no point may record another model. Points written before the model was recorded
+     * count as ada-002 vectors.
+     *
+     * @return Why the collection cannot be used with the configured model, or null if it can.
+     */
+    public String embeddingModelMismatch(String collection) throws ExecutionException, InterruptedException {
+        CollectionInfo info = qdrantClient.getCollectionInfoAsync(collection).get();
+        VectorsConfig vectors = info.getConfig().getParams().getVectorsConfig();
+        if (!vectors.hasParams() || vectors.getParams().getSize() != embeddingModel.getDimension()) {
+            return "Collection " + collection + " does not hold single " + embeddingModel.getDimension()
+                    + "-dimensional vectors of " + embeddingModel.getId() + "; create a new collection version and reindex it with reembed";
+        }
+        Points.Filter.Builder otherModels = Points.Filter.newBuilder()
+                .addMustNot(matchKeyword(PAYLOAD_EMBEDDING_MODEL_KEY, embeddingModel.getId()));
+        if (embeddingModel.getId().equals(EmbeddingModel.ADA_002.getId())) {
+            otherModels.addMustNot(isEmpty(PAYLOAD_EMBEDDING_MODEL_KEY));
+        }
+        long count = qdrantClient.countAsync(collection, otherModels.build(), true).get();
+        if (count > 0) {
+            return "Collection " + collection + " holds " + count + " points embedded with another model than "
+                    + embeddingModel.getId() + "; create a new collection version and reindex it with reembed";
+        }
+        return null;
+    }
+
+    /**
+     * Creates a collection with the given index parameters and the payload indexes.
+     *
+     * @param name The collection name.
+     * @param spec The HNSW and quantization parameters; unset values use the defaults.
+     * @throws RuntimeException If Qdrant did not create the collection.
+     */
+    public void createCollection(String name, CollectionSpec spec) throws ExecutionException, InterruptedException {
+        CreateCollection request = collectionRequest(name, spec);
+        log.info("Creating collection: {} (hnsw: [{}], quantization: {})", name, request.getHnswConfig(),
+                request.hasQuantizationConfig() ? request.getQuantizationConfig() : "none");
+        CollectionOperationResponse result = qdrantClient.createCollectionAsync(request).get();
+        log.info("Collection creation result: [{}]", result.getResult());
+        if (!result.getResult()) {
+            log.error("Failed to create collection {}", name);
+            throw new RuntimeException("Failed to create Qdrant collection: " + name);
+        }
+        createPayloadIndexes(name);
+    }
+
+    CreateCollection collectionRequest(String name, CollectionSpec spec) {
+        VectorParams.Builder vectorParams = VectorParams.newBuilder().setDistance(Distance.Cosine)
+                .setSize(embeddingModel.getDimension());
+        Boolean vectorsOnDisk = spec.getVectorsOnDisk() != null ? spec.getVectorsOnDisk() : defaultVectorsOnDisk;
+        if (vectorsOnDisk != null) {
+            vectorParams.setOnDisk(vectorsOnDisk);
+        }
+        CreateCollection.Builder request = CreateCollection.newBuilder()
+                .setCollectionName(name)
+                .setVectorsConfig(VectorsConfig.newBuilder().setParams(vectorParams));
+        Boolean payloadOnDisk = spec.getPayloadOnDisk() != null ? spec.getPayloadOnDisk() : defaultPayloadOnDisk;
+        if (payloadOnDisk != null) {
+            request.setOnDiskPayload(payloadOnDisk);
+        }
+        HnswConfigDiff.Builder hnsw = HnswConfigDiff.newBuilder();
+        Integer m = spec.getM() != null ? spec.getM() : defaultM;
+        if (m != null) {
+            hnsw.setM(m);
+        }
+        Integer efConstruct = spec.getEfConstruct() != null ? spec.getEfConstruct() : defaultEfConstruct;
+        if (efConstruct != null) {
+            hnsw.setEfConstruct(efConstruct);
+        }
+        if (spec.getFullScanThreshold() != null) {
+            hnsw.setFullScanThreshold(spec.getFullScanThreshold());
+        }
+        if (spec.getHnswOnDisk() != null) {
+            hnsw.setOnDisk(spec.getHnswOnDisk());
+        }
+        if (!hnsw.build().equals(HnswConfigDiff.getDefaultInstance())) {
+            request.setHnswConfig(hnsw);
+        }
+        VectorQuantization type = spec.getQuantization() == null ? quantization.type() : VectorQuantization.parse(spec.getQuantization());
+        QuantizationConfig quantizationConfig = quantizationConfig(type);
+        if (quantizationConfig != null) {
+            request.setQuantizationConfig(quantizationConfig);
+        }
+        return request.build();
+    }
+
+    /**
+     * Returns the collection {@value #COLLECTION_NAME} resolves to: the alias target, the collection
+     * of that name if it predates aliases, or null if neither exists.
+     */
+    public String activeCollection() throws ExecutionException, InterruptedException {
+        for (AliasDescription alias : qdrantClient.listAliasesAsync().get()) {
+            if (COLLECTION_NAME.equals(alias.getAliasName())) {
+                return alias.getCollectionName();
+            }
+        }
+        return qdrantClient.collectionExistsAsync(COLLECTION_NAME).get() ? COLLECTION_NAME : null;
+    }
+
+    /**
+     * Lists the versioned collections ({@code embedding_collection_v<n>}) by ascending version.
+     */
+    public List<String> collectionVersions() throws ExecutionException, InterruptedException {
+        List<String> versions = new ArrayList<>();
+        for (String collection : qdrantClient.listCollectionsAsync().get()) {
+            if (version(collection) > 0) {
+                versions.add(collection);
+            }
+        }
+        versions.sort((a, b) -> Integer.compare(version(a), version(b)));
+        return versions;
+    }
+
+    /**
+     * Returns the name of the next collection version.
+     */
+    public String nextCollectionVersion() throws ExecutionException, InterruptedException {
+        List<String> versions = collectionVersions();
+        int latest = versions.isEmpty() ? 0 : version(versions.get(versions.size() - 1));
+        return COLLECTION_NAME + VERSION_SUFFIX + (latest + 1);
+    }
+
+    static int version(String collection) {
+        String prefix = COLLECTION_NAME + VERSION_SUFFIX;
+        if (!collection.startsWith(prefix) || collection.length() == prefix.length()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(collection.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Points {@value #COLLECTION_NAME} at another collection. Moving an existing alias deletes and
+     * recreates it in one atomic request, so searches never see a missing collection.
+     * <p>
+     * A collection created under the alias name before aliases were used has to be deleted first,
+     * which leaves a short window without a collection; this is only done with {@code dropLegacy}.
+     *
+     * @param collection The collection to activate.
+     * @param dropLegacy Whether an old collection named {@value #COLLECTION_NAME} may be deleted.
+     * @throws IllegalStateException If the target does not exist or holds vectors of another
+     *                               embedding model, or a legacy collection is in the way and
+     *                               {@code dropLegacy} is false.
+     */
+    public void activate(String collection, boolean dropLegacy) throws ExecutionException, InterruptedException {
+        if (!qdrantClient.collectionExistsAsync(collection).get()) {
+            throw new IllegalStateException("Collection " + collection + " does not exist");
+        }
+        String mismatch = embeddingModelMismatch(collection);
+        if (mismatch != null) {
+            throw new IllegalStateException(mismatch);
+        }
+        String active = activeCollection();
+        List<AliasOperations> operations = new ArrayList<>();
+        if (COLLECTION_NAME.equals(active)) {
+            if (!dropLegacy) {
+                throw new IllegalStateException("Collection " + COLLECTION_NAME
+                        + " predates aliases and has to be deleted to activate " + collection + ", set dropLegacy to do so");
+            }
+            log.warn("Deleting legacy collection {} to replace it with an alias for {}", COLLECTION_NAME, collection);
+            qdrantClient.deleteCollectionAsync(COLLECTION_NAME).get();
+        } else if (active != null) {
+            operations.add(AliasOperations.newBuilder()
+                    .setDeleteAlias(DeleteAlias.newBuilder().setAliasName(COLLECTION_NAME))
+                    .build());
+        }
+        operations.add(AliasOperations.newBuilder()
+                .setCreateAlias(CreateAlias.newBuilder().setAliasName(COLLECTION_NAME).setCollectionName(collection))
+                .build());
+        CollectionOperationResponse result = qdrantClient.updateAliasesAsync(operations).get();
+        if (!result.getResult()) {
+            throw new RuntimeException("Failed to point alias " + COLLECTION_NAME + " at " + collection);
+        }
+        embeddingModelMismatch = null;
+        collectionReady = true;
+        log.info("Alias {} now points at {} (was {})", COLLECTION_NAME, collection, active);
+    }
+
+    /**
+     * Deletes a collection that is neither active nor receiving mirrored writes.
+     *
+     * @throws IllegalStateException If the collection is in use.
+     */
+    public void deleteCollection(String collection) throws ExecutionException, InterruptedException {
+        if (collection.equals(activeCollection()) || collection.equals(mirrorCollection)) {
+            throw new IllegalStateException("Collection " + collection + " is in use and cannot be deleted");
+        }
+        qdrantClient.deleteCollectionAsync(collection).get();
+        log.info("Deleted collection {}", collection);
+    }
+
+    /**
+     * Copies all points of one collection into another, one scroll page at a time. Points that
+     * already exist in the target are skipped: they were written there by mirrored writes while the
+     * copy ran and are newer than the scrolled ones.
+     * <p>
+     * A page can change in the source between being read and being written, e.g. while its chunks
+     * are embedded again. So before writing, the copy holds back upserts, payload updates and
+     * deletes, and re-checks the page against both collections. Points deleted from the source are
+     * dropped, points that mirrored writes put into the target are skipped, and the rest get their
+     * current source payload.
+     *
+     * @param source    The collection to read.
+     * @param target    The collection to write.
+     * @param batchSize The number of points per scroll page and upsert.
+     * @param embedder  Embeds the chunk texts of a page again with the configured embedding model, or
+     *                  null to copy the stored vectors.
+     * @param progress  Receives the number of points read so far after every page.
+     * @return The number of points written to the target.
+     */
+    public long copyPoints(String source, String target, int batchSize, Function<List<String>, List<float[]>> embedder,
+                           LongConsumer progress) throws ExecutionException, InterruptedException {
+        long read = 0;
+        long written = 0;
+        Points.PointId offset = null;
+        do {
+            ScrollPoints.Builder request = ScrollPoints.newBuilder()
+                    .setCollectionName(source)
+                    .setLimit(batchSize)
+                    .setWithPayload(enable(true))
+                    .setWithVectors(WithVectorsSelectorFactory.enable(embedder == null));
+            if (offset != null) {
+                request.setOffset(offset);
+            }
+            ScrollResponse page = qdrantClient.scrollAsync(request.build()).get();
+            List<PointStruct> points = copies(page.getResultList(), target, embedder);
+            if (!points.isEmpty()) {
+                copyLock.writeLock().lock();
+                try {
+                    points = current(points, source, target, embedder != null);
+                    if (!points.isEmpty()) {
+                        qdrantClient.upsertAsync(target, points).get();
+                    }
+                } finally {
+                    copyLock.writeLock().unlock();
+                }
+                written += points.size();
+            }
+            read += page.getResultCount();
+            progress.accept(read);
+            offset = page.hasNextPageOffset() ? page.getNextPageOffset() : null;
+        } while (offset != null);
+        log.info("Copied {} of {} points from {} to {}", written, read, source, target);
+        return written;
+    }
+
+    private List<PointStruct> copies(List<RetrievedPoint> page, String target, Function<List<String>, List<float[]>> embedder)
+            throws ExecutionException, InterruptedException {
+        if (page.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Points.PointId> ids = page.stream().map(RetrievedPoint::getId).collect(Collectors.toList());
+        Set<Points.PointId> existing = new HashSet<>();
+        qdrantClient.retrieveAsync(target, ids, false, false, null).get()
+                .forEach(point -> existing.add(point.getId()));
+
+        List<RetrievedPoint> missing = new ArrayList<>();
+        for (RetrievedPoint point : page) {
+            if (existing.contains(point.getId())) {
+                continue;
+            }
+            JsonWithInt.Value text = point.getPayloadMap().get(PAYLOAD_TEXT_KEY);
+            if (embedder != null && (text == null || !text.hasStringValue() || text.getStringValue().isBlank())) {
+                log.warn("Skipping point {} without text, it cannot be embedded again", point.getId());
+                continue;
+            }
+            missing.add(point);
+        }
+        if (missing.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<float[]> vectors = null;
+        if (embedder != null) {
+            vectors = embedder.apply(missing.stream()
+                    .map(point -> point.getPayloadMap().get(PAYLOAD_TEXT_KEY).getStringValue())
+                    .collect(Collectors.toList()));
+            if (vectors.size() != missing.size()) {
+                throw new IllegalStateException("Got " + vectors.size() + " embeddings for " + missing.size() + " chunks");
+            }
+        }
+        List<PointStruct> points = new ArrayList<>(missing.size());
+        for (int i = 0; i < missing.size(); i++) {
+            RetrievedPoint point = missing.get(i);
+            PointStruct.Builder copy = PointStruct.newBuilder()
+                    .setId(point.getId())
+                    .setVectors(vectors == null ? point.getVectors() : Points.Vectors.newBuilder().setVector(denseVector(vectors.get(i))).build())
+                    .putAllPayload(point.getPayloadMap());
+            if (vectors != null) {
+                copy.putPayload(PAYLOAD_EMBEDDING_MODEL_KEY, value(embeddingModel.getId()));
+            }
+            points.add(copy.build());
+        }
+        return points;
+    }
+
+    /**
+     * Re-checks the copies of a page against the source and the target, while writes are held back.
+     *
+     * @param reembedded Whether the copies have new vectors, which are kept along with their model.
+     * @return The copies of the points still in the source and not yet in the target, with the
+     * current source payload.
+     */
+    private List<PointStruct> current(List<PointStruct> points, String source, String target, boolean reembedded)
+            throws ExecutionException, InterruptedException {
+        List<Points.PointId> ids = points.stream().map(PointStruct::getId).collect(Collectors.toList());
+        Map<Points.PointId, RetrievedPoint> inSource = new HashMap<>();
+        qdrantClient.retrieveAsync(source, ids, true, false, null).get()
+                .forEach(point -> inSource.put(point.getId(), point));
+        Set<Points.PointId> inTarget = new HashSet<>();
+        qdrantClient.retrieveAsync(target, ids, false, false, null).get()
+                .forEach(point -> inTarget.add(point.getId()));
+
+        List<PointStruct> current = new ArrayList<>(points.size());
+        for (PointStruct point : points) {
+            RetrievedPoint stored = inSource.get(point.getId());
+            if (stored == null) {
+                log.debug("Point {} was deleted from {} during the copy, not copying it", point.getId(), source);
+                continue;
+            }
+            if (inTarget.contains(point.getId())) {
+                continue;
+            }
+            PointStruct.Builder copy = point.toBuilder().clearPayload().putAllPayload(stored.getPayloadMap());
+            if (reembedded) {
+                copy.putPayload(PAYLOAD_EMBEDDING_MODEL_KEY, value(embeddingModel.getId()));
+            }
+            current.add(copy.build());
+        }
+        return current;
+    }
+
+    /**
+     * Starts or stops mirroring upserts, payload updates and deletes to a second collection, so that
+     * a collection being reindexed receives the writes made in the meantime. Failed mirror writes
+     * are logged and counted but do not fail the write to the active collection. A payload update of
+     * a point that is not in the target yet is not a failure: the copy reads the updated payload.
+     *
+     * @param collection The collection to mirror writes to, or null to stop.
+     */
+    public void mirrorWritesTo(String collection) {
+        mirrorFailures.set(0);
+        mirrorCollection = collection;
+        log.info("Mirroring writes to {}", collection == null ? "no collection" : collection);
+    }
+
+    /**
+     * The number of mirror writes that failed since {@link #mirrorWritesTo} was last called.
+     */
+    public long mirrorFailures() {
+        return mirrorFailures.get();
+    }
+
+    /**
+     * The collection writes are mirrored to, or null.
+     */
+    public String mirrorCollection() {
+        return mirrorCollection;
+    }
+
+    private void mirror(String collection, String operation, MirrorWrite write) {
+        try {
+            write.run();
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            mirrorFailures.incrementAndGet();
+            log.error("Mirrored {} to {} failed: {}", operation, collection, e.getMessage(), e);
+        }
+    }
+
+    private static boolean isNotFound(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof StatusRuntimeException status && status.getStatus().getCode() == Status.Code.NOT_FOUND) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface MirrorWrite {
+        void run() throws Exception;
+    }
+
+    /**
+     * Maps a search profile to Qdrant search params. Quantization params are sent when quantization is
+     * configured or the profile sets them, since a collection created through the admin API may be
+     * quantized differently from the configuration.
+     */
+    SearchParams searchParams(SearchProfile profile) {
+        SearchParams.Builder params = SearchParams.newBuilder();
+        if (profile.getHnswEf() != null) {
+            params.setHnswEf(profile.getHnswEf());
+        }
+        if (profile.isExact()) {
+            params.setExact(true);
+        } else if (quantization.enabled() || profile.getRescore() != null || profile.getOversampling() != null) {
+            params.setQuantization(QuantizationSearchParams.newBuilder()
+                    .setRescore(profile.getRescore() == null ? quantization.rescore() : profile.getRescore())
+                    .setOversampling(profile.getOversampling() == null ? quantization.oversampling() : profile.getOversampling()));
+        }
+        return params.build();
+    }
+
+    /**
+     * Maps a search filter to a Qdrant payload filter, or null when it matches all documents.
+     * Several filenames become a single {@code match any} condition on the keyword index. A page
+     * range becomes range conditions on the integer page indexes that keep every overlapping chunk:
+     * {@code page_end >= from} and {@code page_start <= to}.
+     */
+    static Points.Filter payloadFilter(SearchFilter filter) {
+        if (filter.isAllDocuments() && !filter.hasPageRange()) {
+            return null;
+        }
+        Points.Filter.Builder builder = Points.Filter.newBuilder();
+        if (!filter.isAllDocuments()) {
+            List<String> filenames = List.copyOf(filter.getSourceFilenames());
+            builder.addMust(filenames.size() == 1
+                    ? matchKeyword(PAYLOAD_SOURCE_FILENAME_KEY, filenames.get(0))
+                    : matchKeywords(PAYLOAD_SOURCE_FILENAME_KEY, filenames));
+        }
+        if (filter.hasPageRange()) {
+            // page_start >= 1 also excludes chunks without pages when only an upper bound is given
+            builder.addMust(range(PAYLOAD_PAGE_START_KEY, Points.Range.newBuilder()
+                    .setGte(1)
+                    .setLte(filter.getPageTo() == null ? Integer.MAX_VALUE : filter.getPageTo())
+                    .build()));
+            if (filter.getPageFrom() != null) {
+                builder.addMust(range(PAYLOAD_PAGE_END_KEY, Points.Range.newBuilder().setGte(filter.getPageFrom()).build()));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates the payload indexes used by filtered searches. Without an index Qdrant evaluates
+     * filter conditions by reading the payload of every candidate point.
+     */
+    private void createPayloadIndexes(String collection) throws ExecutionException, InterruptedException {
+        for (Map.Entry<String, PayloadSchemaType> index : PAYLOAD_INDEXES.entrySet()) {
+            UpdateResult result = qdrantClient.createPayloadIndexAsync(collection, index.getKey(), index.getValue(),
+                    null, true, null, null).get();
+            log.info("Created {} payload index on {}: {}", index.getValue(), index.getKey(), result.getStatus());
+        }
+    }
+
+    /**
+     * Maps the configured quantization to Qdrant's collection config, or null when disabled.
+     */
+    QuantizationConfig quantizationConfig() {
+        return quantizationConfig(quantization.type());
+    }
+
+    private QuantizationConfig quantizationConfig(VectorQuantization type) {
+        switch (type) {
+            case SCALAR:
+                return QuantizationConfig.newBuilder()
+                        .setScalar(ScalarQuantization.newBuilder()
+                                .setType(QuantizationType.Int8)
+                                .setAlwaysRam(quantizedAlwaysRam))
+                        .build();
+            case BINARY:
+                return QuantizationConfig.newBuilder()
+                        .setBinary(BinaryQuantization.newBuilder().setAlwaysRam(quantizedAlwaysRam))
+                        .build();
+            default:
+                return null;
+        }
+    }
+
+    private SearchResult mapScoredPointToSearchResultWithText(ScoredPoint scoredPoint) {
+        SearchResult result = mapPoint(scoredPoint.getId(), scoredPoint.getScore(), scoredPoint.getPayloadMap());
+        if (scoredPoint.hasVectors()) {
+            result.setVector(toFloatArray(scoredPoint.getVectors()));
+        }
+        return result;
+    }
+
+    private SearchResult mapRetrievedPointToSearchResult(RetrievedPoint retrievedPoint) {
+        SearchResult result = mapPoint(retrievedPoint.getId(), 0f, retrievedPoint.getPayloadMap());
+        if (retrievedPoint.hasVectors()) {
+            result.setVector(toFloatArray(retrievedPoint.getVectors()));
+        }
+        return result;
+    }
+
+    private SearchResult mapPoint(Points.PointId pointId, float score, Map<String, JsonWithInt.Value> payload) {
+        SearchResult result = new SearchResult();
+        result.setScore(score);
+        String pointIdStr = "N/A";
+        if (pointId.hasUuid()) {
+            pointIdStr = pointId.getUuid();
+            result.setUuid(pointIdStr);
+        } else if (pointId.hasNum()) {
+            pointIdStr = String.valueOf(pointId.getNum());
+            result.setUuid(pointIdStr);
+        }
+
+        JsonWithInt.Value textValue = payload.get(PAYLOAD_TEXT_KEY);
+        if (textValue != null && textValue.hasStringValue()) {
+            result.setText(textValue.getStringValue());
+        } else {
+            log.warn("Found point {} without expected text payload key '{}'", pointIdStr, PAYLOAD_TEXT_KEY);
+            result.setText("");
+        }
+
+        JsonWithInt.Value filenameValue = payload.get(PAYLOAD_SOURCE_FILENAME_KEY);
+        if (filenameValue != null && filenameValue.hasStringValue()) {
+            result.setSourceFilename(filenameValue.getStringValue());
+        } else if (filenameValue != null && filenameValue.hasListValue() && filenameValue.getListValue().getValuesCount() > 0) {
+            // a chunk shared by several documents: the first one stored it
+            List<String> filenames = filenameValue.getListValue().getValuesList().stream()
+                    .map(JsonWithInt.Value::getStringValue)
+                    .collect(Collectors.toList());
+            result.setSourceFilename(filenames.get(0));
+            result.setOtherSourceFilenames(filenames.subList(1, filenames.size()));
+        } else {
+            log.trace("Point {} does not have source filename payload key '{}'", pointIdStr, PAYLOAD_SOURCE_FILENAME_KEY);
+            result.setSourceFilename(null);
+        }
+
+        result.setPageStart(intValue(payload.get(PAYLOAD_PAGE_START_KEY)));
+        result.setPageEnd(intValue(payload.get(PAYLOAD_PAGE_END_KEY)));
+        result.setCharStart(intValue(payload.get(PAYLOAD_CHAR_START_KEY)));
+        result.setCharEnd(intValue(payload.get(PAYLOAD_CHAR_END_KEY)));
+        return result;
+    }
+
+    private static Integer intValue(JsonWithInt.Value value) {
+        return value != null && value.hasIntegerValue() ? (int) value.getIntegerValue() : null;
+    }
+
+    /**
+     * Builds a nearest-neighbour query. Unlike {@code QueryFactory.nearest(float...)}, which goes through
+     * {@code Floats.asList} and boxes every component, the floats are added one by one.
+     */
+    static Points.Query nearest(float[] queryVector) {
+        Points.DenseVector.Builder dense = Points.DenseVector.newBuilder();
+        for (float value : queryVector) {
+            dense.addData(value);
+        }
+        return Points.Query.newBuilder()
+                .setNearest(Points.VectorInput.newBuilder().setDense(dense))
+                .build();
+    }
+
+    /**
+     * Copies the unnamed dense vector of a point into a {@code float[]} with the indexed getter,
+     * skipping the boxed {@code getDataList()} view. Returns null for named or sparse vectors.
+     */
+    static float[] toFloatArray(Points.Vectors vectors) {
+        if (!vectors.hasVector() || vectors.getVector().hasIndices()) {
+            return null;
+        }
+        Points.Vector vector = vectors.getVector();
+        float[] values = new float[vector.getDataCount()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = vector.getData(i);
+        }
+        return values;
+    }
+
+    /**
+     * Builds a dense point vector without boxing, see {@link #nearest(float[])}.
+     */
+    static Points.Vector denseVector(float[] vector) {
+        Points.Vector.Builder builder = Points.Vector.newBuilder();
+        for (float value : vector) {
+            builder.addData(value);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a Qdrant PointStruct for a text chunk.
+     *
+     * @param chunkId The pre-generated consistent ID for this chunk.
+     * @param vector  The embedding data.
+     * @param payload The text content of the chunk and its source filename.
+     * @return The PointStruct object.
+     */
+    private PointStruct createPointStruct(String chunkId, float[] vector, ChunkPayload payload) {
+        if (!StringUtils.hasText(payload.getSourceFilename())) {
+            log.trace("Skipping addition of null/empty source filename to payload for chunk ID: {}", chunkId);
+        }
+        return PointStruct.newBuilder()
+                .setId(Points.PointId.newBuilder().setUuid(chunkId).build())
+                .setVectors(Points.Vectors.newBuilder().setVector(denseVector(vector)))
+                .putAllPayload(payloadMap(payload))
+                .putPayload(PAYLOAD_EMBEDDING_MODEL_KEY, value(embeddingModel.getId()))
+                .build();
+    }
+
+    /**
+     * Maps a chunk payload to Qdrant payload fields, leaving out the fields without a value.
+     */
+    static Map<String, JsonWithInt.Value> payloadMap(ChunkPayload payload) {
+        Map<String, JsonWithInt.Value> fields = new HashMap<>();
+        fields.put(PAYLOAD_TEXT_KEY, value(payload.getText()));
+        if (StringUtils.hasText(payload.getSourceFilename())) {
+            fields.put(PAYLOAD_SOURCE_FILENAME_KEY, filenamesValue(payload.sourceFilenames()));
+        }
+        if (StringUtils.hasText(payload.getDocumentType())) {
+            fields.put(PAYLOAD_DOCUMENT_TYPE_KEY, value(payload.getDocumentType()));
+        }
+        if (payload.getIngestedAt() != null) {
+            fields.put(PAYLOAD_INGESTED_AT_KEY, value(payload.getIngestedAt()));
+        }
+        putInteger(fields, PAYLOAD_PAGE_START_KEY, payload.getPageStart());
+        putInteger(fields, PAYLOAD_PAGE_END_KEY, payload.getPageEnd());
+        putInteger(fields, PAYLOAD_CHAR_START_KEY, payload.getCharStart());
+        putInteger(fields, PAYLOAD_CHAR_END_KEY, payload.getCharEnd());
+        return fields;
+    }
+
+    /**
+     * A single filename as a string, several as a list of strings.
+     */
+    private static JsonWithInt.Value filenamesValue(List<String> filenames) {
+        if (filenames.size() == 1) {
+            return value(filenames.get(0));
+        }
+        return list(filenames.stream().map(filename -> value(filename)).collect(Collectors.toList()));
+    }
+
+    private static void putInteger(Map<String, JsonWithInt.Value> fields, String key, Integer value) {
+        if (value != null) {
+            fields.put(key, value(value));
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.epam.training.gen.ai.store;
+
+/**
+ * How stored vectors are quantized and how searches over them are refined.
+ *
+ * @param type         The quantization applied to stored vectors.
+ * @param rescore      Whether the top candidates found on quantized vectors are re-ranked with the
+ *                     original float vectors.
+ * @param oversampling How many candidates to fetch per requested result before rescoring.
+ */
+public record QuantizationSettings(VectorQuantization type, boolean rescore, double oversampling) {
+
+    public static final QuantizationSettings NONE = new QuantizationSettings(VectorQuantization.NONE, false, 1.0);
+
+    public QuantizationSettings {
+        if (oversampling < 1.0) {
+            throw new IllegalArgumentException("Oversampling must be at least 1.0 but was " + oversampling);
+        }
+    }
+
+    public boolean enabled() {
+        return type != VectorQuantization.NONE;
+    }
+
+    /**
+     * Number of candidates to collect on the quantized vectors for a top-{@code k} search.
+     */
+    public int candidates(int k) {
+        return rescore ? (int) Math.ceil(k * oversampling) : k;
+    }
+}
@@ -0,0 +1,183 @@
+package com.epam.training.gen.ai.store;
+
+import java.util.Arrays;
+
+/**
+ * Compact in-memory copy of normalised vectors used for the first, approximate pass of a search.
+ * <p>
+ * {@link VectorQuantization#SCALAR} stores each component as a signed byte scaled by the absolute
+ * maximum of its own vector, so the dot product becomes an integer dot product times two scales.
+ * {@link VectorQuantization#BINARY} keeps only the sign of each component packed into longs and
+ * scores by the fraction of agreeing signs, computed with {@link Long#bitCount(long)}.
+ */
+final class QuantizedVectors {
+
+    private final VectorQuantization type;
+    private final int dimension;
+    private final int words;
+    private byte[] codes;
+    private float[] scales;
+    private long[] bits;
+    private int size;
+
+    QuantizedVectors(VectorQuantization type, int dimension, int initialCapacity) {
+        if (type == VectorQuantization.NONE) {
+            throw new IllegalArgumentException("Quantization type NONE has no quantized representation");
+        }
+        this.type = type;
+        this.dimension = dimension;
+        this.words = (dimension + 63) >>> 6;
+        int capacity = Math.max(16, initialCapacity);
+        if (type == VectorQuantization.SCALAR) {
+            codes = new byte[capacity * dimension];
+            scales = new float[capacity];
+        } else {
+            bits = new long[capacity * words];
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    VectorQuantization type() {
+        return type;
+    }
+
+    /**
+     * Heap bytes used per stored vector.
+     */
+    int bytesPerVector() {
+        return type == VectorQuantization.SCALAR ? dimension + Float.BYTES : words * Long.BYTES;
+    }
+
+    /**
+     * Stores the vector at the given ordinal, growing the storage when it is the next ordinal.
+     * The vector is expected to be normalised already.
+     */
+    void set(int ordinal, float[] vector) {
+        if (ordinal > size) {
+            throw new IndexOutOfBoundsException("Ordinal " + ordinal + " leaves a gap after " + size);
+        }
+        if (ordinal == size) {
+            ensureCapacity(size + 1);
+            size++;
+        }
+        if (type == VectorQuantization.SCALAR) {
+            scales[ordinal] = quantizeScalar(vector, codes, ordinal * dimension);
+        } else {
+            quantizeBinary(vector, bits, ordinal * words);
+        }
+    }
+
+    /**
+     * Quantizes a normalised query once so it can be scored against many stored vectors.
+     */
+    Query prepare(float[] query) {
+        if (type == VectorQuantization.SCALAR) {
+            byte[] queryCodes = new byte[dimension];
+            float scale = quantizeScalar(query, queryCodes, 0);
+            return new Query(queryCodes, scale, null);
+        }
+        long[] queryBits = new long[words];
+        quantizeBinary(query, queryBits, 0);
+        return new Query(null, 0f, queryBits);
+    }
+
+    /**
+     * Approximate cosine similarity between the prepared query and a stored vector.
+     */
+    float score(Query query, int ordinal) {
+        if (type == VectorQuantization.SCALAR) {
+            return dot(query.codes, codes, ordinal * dimension, dimension) * query.scale * scales[ordinal];
+        }
+        int offset = ordinal * words;
+        int differing = 0;
+        for (int w = 0; w < words; w++) {
+            differing += Long.bitCount(query.bits[w] ^ bits[offset + w]);
+        }
+        return 1f - 2f * differing / dimension;
+    }
+
+    private void ensureCapacity(int required) {
+        int capacity = type == VectorQuantization.SCALAR ? scales.length : bits.length / words;
+        if (required <= capacity) {
+            return;
+        }
+        int grown = Math.max(required, capacity + (capacity >> 1));
+        if (type == VectorQuantization.SCALAR) {
+            codes = Arrays.copyOf(codes, grown * dimension);
+            scales = Arrays.copyOf(scales, grown);
+        } else {
+            bits = Arrays.copyOf(bits, grown * words);
+        }
+    }
+
+    /**
+     * Writes {@code round(v / scale)} for each component and returns the scale,
+     * where the scale maps the largest absolute component to 127.
+     */
+    private float quantizeScalar(float[] vector, byte[] target, int offset) {
+        float max = 0f;
+        for (float value : vector) {
+            max = Math.max(max, Math.abs(value));
+        }
+        if (max == 0f) {
+            Arrays.fill(target, offset, offset + dimension, (byte) 0);
+            return 0f;
+        }
+        float scale = max / 127f;
+        float inverse = 127f / max;
+        for (int i = 0; i < dimension; i++) {
+            target[offset + i] = (byte) Math.round(vector[i] * inverse);
+        }
+        return scale;
+    }
+
+    private void quantizeBinary(float[] vector, long[] target, int offset) {
+        Arrays.fill(target, offset, offset + words, 0L);
+        for (int i = 0; i < dimension; i++) {
+            if (vector[i] > 0f) {
+                target[offset + (i >>> 6)] |= 1L << (i & 63);
+            }
+        }
+    }
+
+    /**
+     * Integer dot product unrolled by four, like {@link VectorMath#dot(float[], int, float[], int, int)}.
+     */
+    private static int dot(byte[] query, byte[] stored, int offset, int length) {
+        int s0 = 0;
+        int s1 = 0;
+        int s2 = 0;
+        int s3 = 0;
+        int i = 0;
+        int upper = length & ~3;
+        for (; i < upper; i += 4) {
+            s0 += query[i] * stored[offset + i];
+            s1 += query[i + 1] * stored[offset + i + 1];
+            s2 += query[i + 2] * stored[offset + i + 2];
+            s3 += query[i + 3] * stored[offset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += query[i] * stored[offset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * A query quantized the same way as the stored vectors.
+     */
+    static final class Query {
+
+        private final byte[] codes;
+        private final float scale;
+        private final long[] bits;
+
+        private Query(byte[] codes, float scale, long[] bits) {
+            this.codes = codes;
+            this.scale = scale;
+            this.bits = bits;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.epam.training.gen.ai.store;
+
+/**
+ * A node (vector ordinal) of an in-process index and its cosine similarity to the query.
+ */
+public record ScoredNode(int node, float score) {
+}
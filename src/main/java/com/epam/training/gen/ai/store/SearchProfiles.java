@@ -0,0 +1,55 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.SearchProfile;
+import jakarta.annotation.PostConstruct;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The named search profiles of {@code vector-store.search.profiles}, e.g. a fast {@code interactive}
+ * profile for chat, a cheaper {@code batch} profile and an exact {@code evaluation} profile. Requests
+ * select one by name; requests without a name use {@code vector-store.search.default-profile}.
+ */
+@Component
+@ConfigurationProperties(prefix = "vector-store.search")
+@Data
+@Slf4j
+public class SearchProfiles {
+
+    private String defaultProfile = "interactive";
+    private Map<String, SearchProfile> profiles = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        profiles.forEach((name, profile) -> profile.setName(name));
+        if (!profiles.containsKey(defaultProfile)) {
+            log.warn("Default search profile '{}' is not configured, using the vector store settings", defaultProfile);
+        }
+        log.info("Search profiles: {} (default: {})", profiles.keySet(), defaultProfile);
+    }
+
+    /**
+     * Looks up a profile by name.
+     *
+     * @param name The profile name, or null/blank for the default profile.
+     * @return The profile; the vector store settings if the default profile is not configured.
+     * @throws IllegalArgumentException If a name is given that is not configured.
+     */
+    public SearchProfile resolve(String name) {
+        if (!StringUtils.hasText(name)) {
+            SearchProfile profile = profiles.get(defaultProfile);
+            return profile != null ? profile : SearchProfile.storeDefaults();
+        }
+        SearchProfile profile = profiles.get(name);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown search profile '" + name + "', expected one of " + profiles.keySet());
+        }
+        return profile;
+    }
+}
@@ -0,0 +1,62 @@
+package com.epam.training.gen.ai.store;
+
+/**
+ * Small set of primitive vector helpers shared by the in-process vector stores.
+ * <p>
+ * All stores keep vectors L2-normalised, so cosine similarity reduces to a plain dot product.
+ */
+public final class VectorMath {
+
+    private VectorMath() {
+    }
+
+    /**
+     * Dot product of {@code length} floats starting at the given offsets. The loop is
+     * unrolled by four with independent accumulators so the JIT can keep the FMA units busy.
+     */
+    public static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        int upper = length & ~3;
+        for (; i < upper; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    public static float dot(float[] a, float[] b) {
+        if (a.length != b.length) {
+            throw new IllegalArgumentException("Vector dimensions differ: " + a.length + " != " + b.length);
+        }
+        return dot(a, 0, b, 0, a.length);
+    }
+
+    /**
+     * Returns an L2-normalised copy of the vector. A zero vector is returned unchanged.
+     */
+    public static float[] normalize(float[] vector) {
+        float[] copy = vector.clone();
+        normalizeInPlace(copy);
+        return copy;
+    }
+
+    public static void normalizeInPlace(float[] vector) {
+        double norm = Math.sqrt(dot(vector, 0, vector, 0, vector.length));
+        if (norm == 0d) {
+            return;
+        }
+        float inverse = (float) (1d / norm);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= inverse;
+        }
+    }
+}
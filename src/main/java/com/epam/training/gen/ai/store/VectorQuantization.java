@@ -0,0 +1,39 @@
+package com.epam.training.gen.ai.store;
+
+import java.util.Locale;
+
+/**
+ * Compression applied to stored vectors.
+ */
+public enum VectorQuantization {
+
+    /**
+     * Full float32 vectors, 4 bytes per dimension.
+     */
+    NONE,
+
+    /**
+     * One signed byte per dimension plus a per-vector scale, about 4x smaller than float32.
+     */
+    SCALAR,
+
+    /**
+     * One bit per dimension (the sign), 32x smaller than float32. Only a coarse ranking, best
+     * combined with rescoring.
+     */
+    BINARY;
+
+    /**
+     * Parses a configuration value such as {@code scalar} or {@code int8}. Blank means {@link #NONE}.
+     */
+    public static VectorQuantization parse(String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        String normalized = value.trim().toUpperCase(Locale.ROOT);
+        if ("INT8".equals(normalized)) {
+            return SCALAR;
+        }
+        return valueOf(normalized);
+    }
+}
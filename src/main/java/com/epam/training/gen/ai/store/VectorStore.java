@@ -0,0 +1,154 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
+import com.epam.training.gen.ai.model.SearchResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Storage and similarity search for chunk embeddings.
+ * <p>
+ * The active implementation is selected with {@code vector-store.type}: {@code qdrant}
+ * (default) talks to a Qdrant server over gRPC, {@code hnsw} keeps an in-process
+ * HNSW graph that is snapshotted to disk, and {@code flat} scans memory-mapped vector files.
+ */
+public interface VectorStore {
+
+    /**
+     * Checks whether a point with the given ID is already stored.
+     *
+     * @param id The consistent chunk ID.
+     * @return true if the point exists, false otherwise.
+     */
+    boolean contains(String id) throws ExecutionException, InterruptedException;
+
+    /**
+     * Inserts or replaces a single point.
+     *
+     * @param id      The consistent chunk ID.
+     * @param vector  The embedding of the chunk.
+     * @param payload The chunk text and metadata.
+     * @return true if the point was stored.
+     */
+    boolean upsert(String id, float[] vector, ChunkPayload payload) throws ExecutionException, InterruptedException;
+
+    /**
+     * Finds the points most similar to the query vector by cosine similarity.
+     *
+     * @param queryVector    The query embedding.
+     * @param limit          The maximum number of results.
+     * @param sourceFilename Optional filename the results must come from, null for no filter.
+     * @return The matches ordered by descending score.
+     */
+    default List<SearchResult> search(float[] queryVector, int limit, String sourceFilename) throws ExecutionException, InterruptedException {
+        return search(queryVector, limit, SearchFilter.forFile(sourceFilename), false);
+    }
+
+    /**
+     * Finds the points most similar to the query vector by cosine similarity.
+     *
+     * @param queryVector The query embedding.
+     * @param limit       The maximum number of results.
+     * @param filter      The source files the results must come from.
+     * @param withVectors Whether to return the stored (normalised) vectors with the results.
+     * @return The matches ordered by descending score.
+     */
+    default List<SearchResult> search(float[] queryVector, int limit, SearchFilter filter, boolean withVectors) throws ExecutionException, InterruptedException {
+        return search(queryVector, limit, filter, withVectors, SearchProfile.storeDefaults());
+    }
+
+    /**
+     * Finds the points most similar to the query vector by cosine similarity.
+     *
+     * @param queryVector The query embedding.
+     * @param limit       The maximum number of results.
+     * @param filter      The source files the results must come from.
+     * @param withVectors Whether to return the stored (normalised) vectors with the results.
+     * @param profile     The recall/latency settings of this search; unset values use the store settings.
+     * @return The matches ordered by descending score.
+     */
+    List<SearchResult> search(float[] queryVector, int limit, SearchFilter filter, boolean withVectors, SearchProfile profile) throws ExecutionException, InterruptedException;
+
+    /**
+     * Runs several searches with the same limit, filter and profile. The default implementation
+     * searches one query after the other; remote stores send them in as few requests as possible.
+     *
+     * @param queryVectors The query embeddings.
+     * @return One result list per query, in the order of the queries.
+     * @see #search(float[], int, SearchFilter, boolean, SearchProfile)
+     */
+    default List<List<SearchResult>> searchBatch(List<float[]> queryVectors, int limit, SearchFilter filter, boolean withVectors, SearchProfile profile) throws ExecutionException, InterruptedException {
+        List<List<SearchResult>> results = new ArrayList<>(queryVectors.size());
+        for (float[] queryVector : queryVectors) {
+            results.add(search(queryVector, limit, filter, withVectors, profile));
+        }
+        return results;
+    }
+
+    /**
+     * Looks up stored points by ID, for results found by other means (e.g. lexical search).
+     *
+     * @param ids         The chunk IDs to fetch.
+     * @param withVectors Whether to return the stored (normalised) vectors with the results.
+     * @return The stored points with text and metadata, in no particular order and with a zero score.
+     *         Unknown IDs are left out.
+     */
+    List<SearchResult> retrieve(List<String> ids, boolean withVectors) throws ExecutionException, InterruptedException;
+
+    /**
+     * Replaces the payload of a stored point and keeps its vector, e.g. when an unchanged chunk
+     * moved within a re-ingested document. The default implementation fetches the stored vector
+     * and upserts it again.
+     *
+     * @param id      The consistent chunk ID.
+     * @param payload The new chunk text and metadata.
+     * @return true if the point exists and was updated.
+     */
+    default boolean updatePayload(String id, ChunkPayload payload) throws ExecutionException, InterruptedException {
+        List<SearchResult> stored = retrieve(List.of(id), true);
+        if (stored.isEmpty() || stored.get(0).getVector() == null) {
+            return false;
+        }
+        return upsert(id, stored.get(0).getVector(), payload);
+    }
+
+    /**
+     * Sets the documents a stored point belongs to, e.g. when another document references a shared
+     * chunk. The first filename replaces the source filename and the others become its other source
+     * filenames; searches filtered on any of them find the point. The default implementation
+     * rewrites the text, filenames and position with {@link #updatePayload}.
+     *
+     * @param id              The consistent chunk ID.
+     * @param sourceFilenames The source filename followed by the other documents; must not be empty.
+     * @return true if the point exists and was updated.
+     */
+    default boolean setSourceFilenames(String id, List<String> sourceFilenames) throws ExecutionException, InterruptedException {
+        List<SearchResult> stored = retrieve(List.of(id), false);
+        if (stored.isEmpty()) {
+            return false;
+        }
+        SearchResult result = stored.get(0);
+        ChunkPayload payload = new ChunkPayload(result.getText(), sourceFilenames.get(0))
+                .withPosition(result.getPageStart(), result.getPageEnd(), result.getCharStart(), result.getCharEnd());
+        payload.setOtherSourceFilenames(List.copyOf(sourceFilenames.subList(1, sourceFilenames.size())));
+        return updatePayload(id, payload);
+    }
+
+    /**
+     * Deletes points by ID, e.g. the orphaned chunks of a re-ingested document. Unknown IDs are ignored.
+     *
+     * @param ids The chunk IDs to delete.
+     */
+    void delete(Collection<String> ids) throws ExecutionException, InterruptedException;
+
+    /**
+     * Persists any buffered state. Called once an ingest run has finished.
+     */
+    default void flush() {
+    }
+}
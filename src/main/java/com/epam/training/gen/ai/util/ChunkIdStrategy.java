@@ -0,0 +1,75 @@
+package com.epam.training.gen.ai.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * How chunk IDs are derived from chunk text. Both strategies produce UUID strings, which every
+ * vector store accepts as point ID, and mark them with a different UUID version, so the strategy
+ * that produced an existing ID can be told from the ID alone.
+ */
+public enum ChunkIdStrategy {
+
+    /**
+     * Name-based UUID version 3: MD5 of the UTF-8 encoded text. The original scheme, kept for
+     * documents that were ingested with it.
+     */
+    MD5('3') {
+        @Override
+        public String id(String text) {
+            return UUID.nameUUIDFromBytes(text.getBytes(StandardCharsets.UTF_8)).toString();
+        }
+    },
+
+    /**
+     * UUID version 8 holding 122 bits of a 128-bit MurmurHash3 of the text's chars. Several times
+     * faster than {@link #MD5}, with no copy of the text and no {@code MessageDigest} per call.
+     */
+    MURMUR3('8') {
+        @Override
+        public String id(String text) {
+            long[] hash = Murmur3.hash128(text, 0);
+            long mostSigBits = (hash[0] & ~0xF000L) | 0x8000L;
+            long leastSigBits = (hash[1] & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+            return new UUID(mostSigBits, leastSigBits).toString();
+        }
+    };
+
+    private final char uuidVersion;
+
+    ChunkIdStrategy(char uuidVersion) {
+        this.uuidVersion = uuidVersion;
+    }
+
+    /**
+     * Derives the ID of a chunk. The same text always gets the same ID.
+     */
+    public abstract String id(String text);
+
+    /**
+     * The strategy that produced the given ID, or null for IDs of neither strategy, e.g. random UUIDs.
+     */
+    public static ChunkIdStrategy of(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        char version = id.charAt(14);
+        for (ChunkIdStrategy strategy : values()) {
+            if (strategy.uuidVersion == version) {
+                return strategy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a configuration value such as {@code md5} or {@code murmur3}. Blank means {@link #MD5}.
+     */
+    public static ChunkIdStrategy parse(String value) {
+        if (value == null || value.isBlank()) {
+            return MD5;
+        }
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
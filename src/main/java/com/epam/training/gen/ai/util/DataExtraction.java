@@ -1,24 +1,70 @@
 package com.epam.training.gen.ai.util;
 
+import com.epam.training.gen.ai.model.ExtractedDocument;
+import com.epam.training.gen.ai.model.TextChunk;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.text.PDFTextStripper;
-import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
-import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 public class DataExtraction {
 
+    private static final String SENTENCE_TERMINATORS = ".!?";
+
+    private final TextNormalizer textNormalizer;
+    private final int threads;
+    private final int minPagesPerSegment;
+    private final ExecutorService workers;
+
+    /**
+     * Extracts PDFs on the calling thread and normalizes extracted text with the default
+     * {@link TextNormalizer} settings.
+     */
+    public DataExtraction() {
+        this(new TextNormalizer(), 1, 16);
+    }
+
+    /**
+     * @param textNormalizer     Cleans the extracted text.
+     * @param threads            The number of threads extracting page ranges of one PDF in parallel,
+     *                           0 for one per available processor, 1 to extract on the calling thread only.
+     * @param minPagesPerSegment The fewest pages a thread extracts; smaller PDFs use fewer threads.
+     */
+    @Autowired
+    public DataExtraction(TextNormalizer textNormalizer,
+                          @Value("${embedding.extraction.threads:0}") int threads,
+                          @Value("${embedding.extraction.min-pages-per-segment:16}") int minPagesPerSegment) {
+        this.textNormalizer = textNormalizer;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.minPagesPerSegment = Math.max(1, minPagesPerSegment);
+        // the calling thread extracts the first segment itself
+        this.workers = this.threads > 1 ? Executors.newFixedThreadPool(this.threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "pdf-extraction");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
 
     /**
      * Extracts text content from a PDF file provided as an InputStream.
@@ -29,6 +75,21 @@ public class DataExtraction {
      * @throws IOException if reading the stream or loading the PDF fails.
      */
     public String extractTextFromPdf(InputStream inputStream, String filename) throws IOException {
+        ExtractedDocument document = extractPdf(inputStream, filename);
+        return document == null ? null : document.getText();
+    }
+
+    /**
+     * Extracts text content from a PDF file together with the offset at which each page starts.
+     * The text is normalized by the {@link TextNormalizer}, which also removes repeated page
+     * headers and footers.
+     *
+     * @param inputStream The InputStream of the PDF file.
+     * @param filename    The name of the file (for logging purposes).
+     * @return The extracted document, or null if the PDF is encrypted.
+     * @throws IOException if reading the stream or loading the PDF fails.
+     */
+    public ExtractedDocument extractPdf(InputStream inputStream, String filename) throws IOException {
         log.debug("Attempting to extract text from PDF: {}", filename);
         byte[] pdfBytes = null;
         try {
@@ -43,10 +104,13 @@ public class DataExtraction {
                 log.warn("Skipping encrypted PDF file: {}", filename);
                 return null;
             }
-            PDFTextStripper pdfStripper = new PDFTextStripper();
-            String text = pdfStripper.getText(document);
-            log.info("Successfully extracted text from PDF: {}", filename);
-            return text;
+            int pageCount = document.getNumberOfPages();
+            int segments = Math.min(threads, pageCount / minPagesPerSegment);
+            ExtractedDocument extracted = segments > 1
+                    ? extractSegments(document, pdfBytes, segments)
+                    : extractPages(document, 1, pageCount, new int[pageCount]);
+            log.info("Successfully extracted text from PDF: {} ({} pages, {} segments)", filename, pageCount, Math.max(1, segments));
+            return textNormalizer.normalize(extracted);
         } catch (IOException e) {
             log.error("Failed to load or extract text from PDF file {}: {}", filename, e.getMessage(), e);
             throw e;
@@ -56,6 +120,67 @@ public class DataExtraction {
         }
     }
 
+    /**
+     * Extracts equal page ranges of the document concurrently and joins them in page order. PDFBox
+     * documents are not thread-safe, so every worker loads its own document from the shared bytes,
+     * while the calling thread extracts the first range from the already loaded one. The text is
+     * the same as that of a single stripper over all pages.
+     */
+    private ExtractedDocument extractSegments(PDDocument document, byte[] pdfBytes, int segments) throws IOException {
+        int pageCount = document.getNumberOfPages();
+        int[] pageOffsets = new int[pageCount];
+        List<Future<ExtractedDocument>> futures = new ArrayList<>(segments - 1);
+        for (int segment = 1; segment < segments; segment++) {
+            int startPage = segment * pageCount / segments + 1;
+            int endPage = (segment + 1) * pageCount / segments;
+            futures.add(workers.submit(() -> {
+                try (PDDocument copy = Loader.loadPDF(pdfBytes)) {
+                    return extractPages(copy, startPage, endPage, pageOffsets);
+                }
+            }));
+        }
+
+        StringBuilder text = new StringBuilder();
+        try {
+            text.append(extractPages(document, 1, pageCount / segments, pageOffsets).getText());
+            for (int segment = 1; segment < segments; segment++) {
+                int base = text.length();
+                text.append(futures.get(segment - 1).get().getText());
+                for (int page = segment * pageCount / segments; page < (segment + 1) * pageCount / segments; page++) {
+                    pageOffsets[page] += base;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting PDF pages");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("PDF page extraction failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return new ExtractedDocument(text.toString(), pageOffsets);
+    }
+
+    /**
+     * Extracts the pages from {@code startPage} to {@code endPage} (1-based, inclusive) and records
+     * where each of them starts in the returned text in {@code pageOffsets}.
+     */
+    private static ExtractedDocument extractPages(PDDocument document, int startPage, int endPage, int[] pageOffsets) throws IOException {
+        StringWriter writer = new StringWriter();
+        PageTrackingStripper pdfStripper = new PageTrackingStripper(writer, pageOffsets);
+        pdfStripper.setStartPage(startPage);
+        pdfStripper.setEndPage(endPage);
+        pdfStripper.writeText(document, writer);
+        return new ExtractedDocument(writer.toString(), pageOffsets);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
     /**
      * Extracts text content from a DOCX file provided as an InputStream.
      *
@@ -65,12 +190,32 @@ public class DataExtraction {
      * @throws IOException if reading the stream or processing the DOCX fails.
      */
     public String extractTextFromDocx(InputStream inputStream, String filename) throws IOException {
+        return extractDocx(inputStream, filename).getText();
+    }
+
+    /**
+     * Extracts text content from a DOCX file and normalizes its whitespace. The file is streamed
+     * paragraph by paragraph with {@link DocxStreamReader} instead of being loaded as a document
+     * model; headings start after a blank line, other paragraphs on a new line. Page breaks in DOCX
+     * depend on the renderer, so the returned document has no page offsets.
+     *
+     * @param inputStream The InputStream of the DOCX file.
+     * @param filename    The name of the file (for logging purposes).
+     * @return The extracted document.
+     * @throws IOException if reading the stream or processing the DOCX fails.
+     */
+    public ExtractedDocument extractDocx(InputStream inputStream, String filename) throws IOException {
         log.debug("Attempting to extract text from DOCX: {}", filename);
-        try (XWPFDocument document = new XWPFDocument(inputStream);
-             XWPFWordExtractor extractor = new XWPFWordExtractor(document)) {
-            String text = extractor.getText();
+        try {
+            StringBuilder text = new StringBuilder();
+            DocxStreamReader.read(inputStream, (paragraph, headingLevel) -> {
+                if (!text.isEmpty()) {
+                    text.append(headingLevel > 0 ? "\n\n" : "\n");
+                }
+                text.append(paragraph);
+            });
             log.info("Successfully extracted text from DOCX: {}", filename);
-            return text;
+            return textNormalizer.normalize(new ExtractedDocument(text.toString(), null));
         } catch (IOException e) {
             log.error("Failed to extract text from DOCX file {}: {}", filename, e.getMessage(), e);
             throw e;
@@ -93,17 +238,31 @@ public class DataExtraction {
      * @return A list of text chunks.
      */
     public List<String> chunkTextSimple(String text, int chunkSize, int sentenceEndTolerance) {
+        return chunkText(text, chunkSize, sentenceEndTolerance).stream()
+                .map(TextChunk::getText)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Chunks text like {@link #chunkTextSimple} and keeps the character offsets of every chunk,
+     * so chunks can be mapped back to pages and cited.
+     *
+     * @param text                 The text to chunk.
+     * @param chunkSize            The target maximum size of each chunk (can be exceeded by sentenceEndTolerance).
+     * @param sentenceEndTolerance tolerance window for sentence end, defaults to zero
+     * @return The chunks with the offsets of their trimmed text.
+     */
+    public List<TextChunk> chunkText(String text, int chunkSize, int sentenceEndTolerance) {
         if (text == null || text.isBlank() || chunkSize <= 0) {
-            log.warn("chunkTextSimple called with invalid input. Text is null/blank or chunkSize <= 0.");
+            log.warn("chunkText called with invalid input. Text is null/blank or chunkSize <= 0.");
             return Collections.emptyList();
         }
 
         int effectiveTolerance = Math.max(0, sentenceEndTolerance);
 
-        List<String> chunks = new ArrayList<>();
+        List<TextChunk> chunks = new ArrayList<>();
         int textLength = text.length();
         int start = 0;
-        String sentenceTerminators = ".!?";
         // Define a lookbehind window for finding fallback whitespace (e.g., 20% of chunk size, min 10)
         int whitespaceLookbehind = Math.max(10, chunkSize / 5);
 
@@ -112,44 +271,7 @@ public class DataExtraction {
 
         while (start < textLength) {
             int currentChunkStart = start;
-            int sentenceEnd = -1;
-            int searchStart = start;
-            int earliestTerminatorPos = textLength;
-
-            for (char terminator : sentenceTerminators.toCharArray()) {
-                int pos = text.indexOf(terminator, searchStart);
-                if (pos != -1) {
-                    boolean isPotentialEndContext = (pos + 1 >= textLength ||
-                            Character.isWhitespace(text.charAt(pos + 1)) ||
-                            text.charAt(pos + 1) == '\n' ||
-                            text.charAt(pos + 1) == '\r' ||
-                            sentenceTerminators.indexOf(text.charAt(pos + 1)) != -1);
-
-                    if (isPotentialEndContext) {
-                        boolean looksLikeMidAcronym = (terminator == '.' &&
-                                pos > searchStart &&
-                                Character.isLetter(text.charAt(pos - 1)) &&
-                                pos + 1 < textLength &&
-                                Character.isLetter(text.charAt(pos + 1)));
-
-                        if (!looksLikeMidAcronym && pos < earliestTerminatorPos) {
-                            earliestTerminatorPos = pos;
-                        }
-                    }
-                }
-            }
-
-            if (earliestTerminatorPos < textLength) {
-                int finalTerminatorPos = earliestTerminatorPos;
-                while (finalTerminatorPos + 1 < textLength &&
-                        sentenceTerminators.indexOf(text.charAt(finalTerminatorPos + 1)) != -1) {
-                    finalTerminatorPos++;
-                }
-                sentenceEnd = finalTerminatorPos + 1;
-            } else {
-                sentenceEnd = textLength;
-            }
-
+            int sentenceEnd = findSentenceEnd(text, start);
 
             int potentialChunkLength = sentenceEnd - currentChunkStart;
             int actualEnd;
@@ -164,21 +286,7 @@ public class DataExtraction {
             } else {
                 log.trace("Sentence too long even with tolerance (length {} > {} + {}). Splitting required near chunk size.",
                         potentialChunkLength, chunkSize, effectiveTolerance);
-                int idealSplitPoint = currentChunkStart + chunkSize;
-                actualEnd = idealSplitPoint;
-
-                boolean whitespaceFound = false;
-                for (int i = idealSplitPoint - 1; i >= Math.max(currentChunkStart, idealSplitPoint - whitespaceLookbehind); i--) {
-                    if (Character.isWhitespace(text.charAt(i))) {
-                        actualEnd = i + 1;
-                        whitespaceFound = true;
-                        log.trace("Found fallback whitespace split point at index {}", i);
-                        break;
-                    }
-                }
-                if (!whitespaceFound) {
-                    log.trace("No suitable whitespace found near index {}, using hard cut at {}.", idealSplitPoint, actualEnd);
-                }
+                actualEnd = findSplitPoint(text, currentChunkStart, chunkSize, whitespaceLookbehind);
             }
 
             actualEnd = Math.min(actualEnd, textLength);
@@ -189,10 +297,18 @@ public class DataExtraction {
                 log.warn("Forcing minimal progress to avoid infinite loop. New end={}", actualEnd);
             }
 
-            String chunk = text.substring(currentChunkStart, actualEnd).trim();
+            int trimmedStart = currentChunkStart;
+            int trimmedEnd = actualEnd;
+            while (trimmedStart < trimmedEnd && text.charAt(trimmedStart) <= ' ') {
+                trimmedStart++;
+            }
+            while (trimmedEnd > trimmedStart && text.charAt(trimmedEnd - 1) <= ' ') {
+                trimmedEnd--;
+            }
+            String chunk = text.substring(trimmedStart, trimmedEnd);
 
             if (!chunk.isBlank()) {
-                chunks.add(chunk);
+                chunks.add(new TextChunk(chunk, trimmedStart, trimmedEnd));
                 log.debug("Added chunk: start={}, end={}, length={}, trimmedLength={}", currentChunkStart, actualEnd, actualEnd - currentChunkStart, chunk.length());
             } else {
                 log.debug("Skipped adding blank chunk: start={}, end={}", currentChunkStart, actualEnd);
@@ -205,4 +321,118 @@ public class DataExtraction {
         log.info("Chunking finished. Total chunks created: {}", chunks.size());
         return chunks;
     }
+
+    /**
+     * Splits text into sentences using the same boundary rules as {@link #chunkTextSimple}.
+     * Sentences longer than {@code maxSentenceLength} are split at whitespace near that length.
+     *
+     * @param text              The text to split.
+     * @param maxSentenceLength The maximum length of a returned sentence.
+     * @return The trimmed, non-blank sentences in text order.
+     */
+    public List<String> splitSentences(String text, int maxSentenceLength) {
+        if (text == null || text.isBlank() || maxSentenceLength <= 0) {
+            return Collections.emptyList();
+        }
+        List<String> sentences = new ArrayList<>();
+        int textLength = text.length();
+        int whitespaceLookbehind = Math.max(10, maxSentenceLength / 5);
+        int start = 0;
+        while (start < textLength) {
+            int end = findSentenceEnd(text, start);
+            if (end - start > maxSentenceLength) {
+                end = findSplitPoint(text, start, maxSentenceLength, whitespaceLookbehind);
+            }
+            String sentence = text.substring(start, end).trim();
+            if (!sentence.isBlank()) {
+                sentences.add(sentence);
+            }
+            start = end;
+        }
+        return sentences;
+    }
+
+    /**
+     * Finds the end (exclusive) of the sentence starting at {@code start}: just past the first
+     * terminator run followed by whitespace, another terminator or the end of the text, skipping
+     * dots inside acronyms. Returns the text length when no sentence end follows.
+     */
+    private int findSentenceEnd(String text, int start) {
+        int textLength = text.length();
+        int earliestTerminatorPos = textLength;
+
+        for (char terminator : SENTENCE_TERMINATORS.toCharArray()) {
+            int pos = text.indexOf(terminator, start);
+            if (pos != -1) {
+                boolean isPotentialEndContext = (pos + 1 >= textLength ||
+                        Character.isWhitespace(text.charAt(pos + 1)) ||
+                        text.charAt(pos + 1) == '\n' ||
+                        text.charAt(pos + 1) == '\r' ||
+                        SENTENCE_TERMINATORS.indexOf(text.charAt(pos + 1)) != -1);
+
+                if (isPotentialEndContext) {
+                    boolean looksLikeMidAcronym = (terminator == '.' &&
+                            pos > start &&
+                            Character.isLetter(text.charAt(pos - 1)) &&
+                            pos + 1 < textLength &&
+                            Character.isLetter(text.charAt(pos + 1)));
+
+                    if (!looksLikeMidAcronym && pos < earliestTerminatorPos) {
+                        earliestTerminatorPos = pos;
+                    }
+                }
+            }
+        }
+
+        if (earliestTerminatorPos == textLength) {
+            return textLength;
+        }
+        int finalTerminatorPos = earliestTerminatorPos;
+        while (finalTerminatorPos + 1 < textLength &&
+                SENTENCE_TERMINATORS.indexOf(text.charAt(finalTerminatorPos + 1)) != -1) {
+            finalTerminatorPos++;
+        }
+        return finalTerminatorPos + 1;
+    }
+
+    /**
+     * Finds a split point for an over-long sentence: just after the last whitespace within the
+     * lookbehind window before {@code start + maxLength}, or a hard cut at that position.
+     */
+    private int findSplitPoint(String text, int start, int maxLength, int whitespaceLookbehind) {
+        int idealSplitPoint = start + maxLength;
+        for (int i = idealSplitPoint - 1; i >= Math.max(start, idealSplitPoint - whitespaceLookbehind); i--) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                log.trace("Found fallback whitespace split point at index {}", i);
+                return i + 1;
+            }
+        }
+        log.trace("No suitable whitespace found near index {}, using hard cut at {}.", idealSplitPoint, idealSplitPoint);
+        return idealSplitPoint;
+    }
+
+    /**
+     * Text stripper that records the length of the output when each page starts, which is the
+     * offset of that page in the extracted text. Strippers of different page ranges can share
+     * the array, each writing only its own pages.
+     */
+    private static final class PageTrackingStripper extends PDFTextStripper {
+
+        private final StringWriter output;
+        private final int[] pageOffsets;
+
+        private PageTrackingStripper(StringWriter output, int[] pageOffsets) {
+            this.output = output;
+            this.pageOffsets = pageOffsets;
+        }
+
+        @Override
+        protected void startPage(PDPage page) throws IOException {
+            int pageIndex = getCurrentPageNo() - 1;
+            if (pageIndex >= 0 && pageIndex < pageOffsets.length) {
+                pageOffsets[pageIndex] = output.getBuffer().length();
+            }
+            super.startPage(page);
+        }
+    }
 }
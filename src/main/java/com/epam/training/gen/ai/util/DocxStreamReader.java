@@ -0,0 +1,241 @@
+package com.epam.training.gen.ai.util;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Reads the paragraphs of a DOCX file one at a time, without loading the document into memory.
+ * <p>
+ * The main part {@code word/document.xml} is parsed with StAX straight from the zip stream, and
+ * every paragraph is passed to the listener as soon as it ends, so memory use depends on the
+ * longest paragraph rather than on the document. Text of runs, tabs, breaks and non-breaking
+ * hyphens is kept; deleted revisions, field codes, headers and footers are not. A table row
+ * becomes one paragraph with its cells separated by tabs. Headings are recognized by the built-in
+ * {@code Heading1} to {@code Heading9} and {@code Title} styles or by a paragraph outline level;
+ * custom styles based on headings are not resolved, since that would need {@code styles.xml} first.
+ */
+public final class DocxStreamReader {
+
+    private static final String WORD_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+    private static final String MAIN_PART = "word/document.xml";
+
+    /**
+     * Receives the paragraphs of a document in order.
+     */
+    @FunctionalInterface
+    public interface ParagraphListener {
+
+        /**
+         * @param text         The paragraph text. The sequence is reused for the next paragraph, so it
+         *                     must be copied to be kept.
+         * @param headingLevel 1 to 9 for headings, with 1 the top level and titles, 0 for body text.
+         */
+        void paragraph(CharSequence text, int headingLevel) throws IOException;
+    }
+
+    private DocxStreamReader() {
+    }
+
+    /**
+     * Streams the paragraphs of a DOCX file to the listener.
+     *
+     * @param inputStream The DOCX file; it is read up to the end of the main document part but not closed.
+     * @param listener    Receives every paragraph outside tables, empty ones included since they
+     *                    often separate sections, and every non-empty table row.
+     * @throws IOException if the stream is not a DOCX file or cannot be parsed.
+     */
+    public static void read(InputStream inputStream, ParagraphListener listener) throws IOException {
+        ZipInputStream zip = new ZipInputStream(inputStream);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            if (MAIN_PART.equals(entry.getName())) {
+                parse(zip, listener);
+                return;
+            }
+        }
+        throw new IOException("Not a DOCX file: " + MAIN_PART + " is missing");
+    }
+
+    private static void parse(InputStream part, ParagraphListener listener) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // an uploaded file must not make the parser read DTDs or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        XMLStreamReader reader = null;
+        try {
+            reader = factory.createXMLStreamReader(part);
+            new Parser(reader, listener).run();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to parse " + MAIN_PART + ": " + e.getMessage(), e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // closing does not close the zip stream, nothing to release
+                }
+            }
+        }
+    }
+
+    /**
+     * The state of one parse. Paragraphs can nest, e.g. in text boxes, so their buffers form a
+     * stack; the buffers are reused across paragraphs.
+     */
+    private static final class Parser {
+
+        private final XMLStreamReader reader;
+        private final ParagraphListener listener;
+        private final Deque<StringBuilder> paragraphs = new ArrayDeque<>();
+        private final Deque<StringBuilder> free = new ArrayDeque<>();
+        private final Deque<Integer> headingLevels = new ArrayDeque<>();
+        private final StringBuilder row = new StringBuilder();
+        private int rowDepth;
+        private int runDepth;
+        private boolean rowCellStarted;
+        private boolean inText;
+
+        private Parser(XMLStreamReader reader, ParagraphListener listener) {
+            this.reader = reader;
+            this.listener = listener;
+        }
+
+        private void run() throws XMLStreamException, IOException {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT && WORD_NS.equals(reader.getNamespaceURI())) {
+                    startElement(reader.getLocalName());
+                } else if (event == XMLStreamConstants.END_ELEMENT && WORD_NS.equals(reader.getNamespaceURI())) {
+                    endElement(reader.getLocalName());
+                } else if (inText && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+                    current().append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+            }
+        }
+
+        private void startElement(String name) {
+            switch (name) {
+                case "p" -> {
+                    StringBuilder paragraph = free.isEmpty() ? new StringBuilder() : free.pop();
+                    paragraph.setLength(0);
+                    paragraphs.push(paragraph);
+                    headingLevels.push(0);
+                }
+                case "r" -> runDepth++;
+                case "t" -> inText = !paragraphs.isEmpty();
+                // tab stops in paragraph properties are also "tab" elements, only those in runs are text
+                case "tab" -> appendIfInRun('\t');
+                case "br", "cr" -> appendIfInRun('\n');
+                case "noBreakHyphen" -> appendIfInRun('-');
+                case "pStyle" -> setHeadingLevel(styleLevel(attribute("val")));
+                case "outlineLvl" -> setHeadingLevel(outlineLevel(attribute("val")));
+                case "tr" -> {
+                    if (rowDepth++ == 0) {
+                        row.setLength(0);
+                        rowCellStarted = false;
+                    }
+                }
+                case "tc" -> {
+                    if (rowCellStarted) {
+                        row.append('\t');
+                    }
+                    rowCellStarted = true;
+                }
+                default -> {
+                }
+            }
+        }
+
+        private void endElement(String name) throws IOException {
+            switch (name) {
+                case "r" -> runDepth--;
+                case "t" -> inText = false;
+                case "p" -> {
+                    if (paragraphs.isEmpty()) {
+                        return;
+                    }
+                    StringBuilder paragraph = paragraphs.pop();
+                    int headingLevel = headingLevels.pop();
+                    if (rowDepth > 0) {
+                        if (!paragraph.isEmpty()) {
+                            if (!row.isEmpty() && row.charAt(row.length() - 1) != '\t') {
+                                row.append(' ');
+                            }
+                            row.append(paragraph);
+                        }
+                    } else {
+                        listener.paragraph(paragraph, headingLevel);
+                    }
+                    free.push(paragraph);
+                }
+                case "tr" -> {
+                    if (--rowDepth == 0 && !row.isEmpty()) {
+                        listener.paragraph(row, 0);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+
+        private StringBuilder current() {
+            return paragraphs.peek();
+        }
+
+        private void appendIfInRun(char c) {
+            if (runDepth > 0 && !paragraphs.isEmpty()) {
+                current().append(c);
+            }
+        }
+
+        private void setHeadingLevel(int level) {
+            if (level > 0 && !headingLevels.isEmpty()) {
+                headingLevels.pop();
+                headingLevels.push(level);
+            }
+        }
+
+        private String attribute(String localName) {
+            String value = reader.getAttributeValue(WORD_NS, localName);
+            return value != null ? value : reader.getAttributeValue(XMLConstants.NULL_NS_URI, localName);
+        }
+    }
+
+    /**
+     * The heading level of a built-in paragraph style ID, or 0.
+     */
+    private static int styleLevel(String styleId) {
+        if (styleId == null) {
+            return 0;
+        }
+        if (styleId.equalsIgnoreCase("Title")) {
+            return 1;
+        }
+        if (styleId.length() == 8 && styleId.regionMatches(true, 0, "Heading", 0, 7)) {
+            char digit = styleId.charAt(7);
+            return digit >= '1' && digit <= '9' ? digit - '0' : 0;
+        }
+        return 0;
+    }
+
+    /**
+     * The heading level of a 0-based outline level; 9 means body text.
+     */
+    private static int outlineLevel(String value) {
+        try {
+            int level = Integer.parseInt(value);
+            return level >= 0 && level < 9 ? level + 1 : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
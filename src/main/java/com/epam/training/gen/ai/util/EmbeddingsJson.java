@@ -0,0 +1,133 @@
+package com.epam.training.gen.ai.util;
+
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes embeddings requests and reads embeddings responses with the Jackson streaming API.
+ * <p>
+ * The SDK model ({@code EmbeddingItem}) exposes vectors as {@code List<Float>}, boxing every component.
+ * Here the request asks for {@code base64} encoding and the response is decoded straight into a
+ * {@code float[]}. Responses with plain JSON number arrays are read into a {@code float[]} as well.
+ */
+public final class EmbeddingsJson {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int INITIAL_DIMENSION = 1536;
+
+    private EmbeddingsJson() {
+    }
+
+    /**
+     * Builds the body of an embeddings request for the given inputs.
+     */
+    public static byte[] writeRequest(List<String> inputs) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + inputs.stream().mapToInt(String::length).sum());
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("input");
+            for (String input : inputs) {
+                generator.writeString(input);
+            }
+            generator.writeEndArray();
+            generator.writeStringField("encoding_format", "base64");
+            generator.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the {@code data} array of an embeddings response.
+     *
+     * @param in The response body.
+     * @return The embeddings ordered by prompt index; empty if the response has no data.
+     * @throws IOException if the body is not a valid embeddings response.
+     */
+    public static List<EmbeddingVector> readResponse(InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            return readResponse(parser);
+        }
+    }
+
+    public static List<EmbeddingVector> readResponse(byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return readResponse(parser);
+        }
+    }
+
+    private static List<EmbeddingVector> readResponse(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Embeddings response is not a JSON object");
+        }
+        List<EmbeddingVector> vectors = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    vectors.add(readItem(parser));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        vectors.sort(Comparator.comparingInt(EmbeddingVector::getPromptIndex));
+        return vectors;
+    }
+
+    private static EmbeddingVector readItem(JsonParser parser) throws IOException {
+        int index = 0;
+        float[] embedding = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("index".equals(field)) {
+                index = parser.getIntValue();
+            } else if ("embedding".equals(field) && value == JsonToken.VALUE_STRING) {
+                embedding = decodeBase64(parser.getBinaryValue());
+            } else if ("embedding".equals(field) && value == JsonToken.START_ARRAY) {
+                embedding = readFloatArray(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (embedding == null) {
+            throw new IOException("Embeddings response item " + index + " has no embedding");
+        }
+        return new EmbeddingVector(index, embedding);
+    }
+
+    private static float[] decodeBase64(byte[] bytes) throws IOException {
+        if (bytes.length % Float.BYTES != 0) {
+            throw new IOException("Base64 embedding has " + bytes.length + " bytes, not a multiple of " + Float.BYTES);
+        }
+        float[] embedding = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(embedding);
+        return embedding;
+    }
+
+    private static float[] readFloatArray(JsonParser parser) throws IOException {
+        float[] values = new float[INITIAL_DIMENSION];
+        int size = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = parser.getFloatValue();
+        }
+        return size == values.length ? values : Arrays.copyOf(values, size);
+    }
+}
@@ -1,36 +1,95 @@
 package com.epam.training.gen.ai.util;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
+import java.util.Collection;
 import java.util.UUID;
 
 @Slf4j
 @Component
 public class IdGenerator {
 
+    private final ChunkIdStrategy strategy;
+    private final boolean keepLegacyIds;
+
+    /**
+     * Uses the original {@link ChunkIdStrategy#MD5} IDs.
+     */
+    public IdGenerator() {
+        this(ChunkIdStrategy.MD5, true);
+    }
+
+    @Autowired
+    public IdGenerator(@Value("${embedding.chunk.id-strategy:md5}") String strategy,
+                       @Value("${embedding.chunk.keep-legacy-ids:true}") boolean keepLegacyIds) {
+        this(ChunkIdStrategy.parse(strategy), keepLegacyIds);
+    }
+
+    public IdGenerator(ChunkIdStrategy strategy, boolean keepLegacyIds) {
+        this.strategy = strategy;
+        this.keepLegacyIds = keepLegacyIds;
+        log.info("Chunk IDs use the {} strategy{}", strategy, keepLegacyIds && strategy != ChunkIdStrategy.MD5
+                ? ", documents ingested with MD5 IDs keep them" : "");
+    }
+
+    /**
+     * The strategy for new documents.
+     */
+    public ChunkIdStrategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * Whether documents ingested with another strategy keep it, see {@link #strategyFor}.
+     */
+    public boolean keepsLegacyIds() {
+        return keepLegacyIds;
+    }
+
     /**
-     * Generates a consistent, name-based UUID (Version 5 using SHA-1 internally)
-     * from the input text. This provides strong collision resistance while
-     * maintaining the standard UUID format.
+     * The strategy for a document that was ingested before with the given chunk IDs: the strategy
+     * of those IDs when legacy IDs are kept, so that re-uploading the document finds its unchanged
+     * chunks instead of embedding them again under new IDs; otherwise the configured strategy.
+     *
+     * @param previousIds The chunk IDs of the previous version of the document, or null for a new document.
+     */
+    public ChunkIdStrategy strategyFor(Collection<String> previousIds) {
+        if (!keepLegacyIds || previousIds == null || previousIds.isEmpty()) {
+            return strategy;
+        }
+        ChunkIdStrategy previous = ChunkIdStrategy.of(previousIds.iterator().next());
+        return previous == null ? strategy : previous;
+    }
+
+    /**
+     * Generates a consistent, name-based UUID from the input text with the configured strategy.
      *
      * @param text The input text to generate an ID for. Must not be null.
      * @return A standard UUID string derived consistently from the input text,
      *         or a random UUID if the input is null or an unexpected error occurs.
      */
     public String generateConsistentId(String text) {
+        return generateConsistentId(text, strategy);
+    }
+
+    /**
+     * Generates a consistent, name-based UUID from the input text with the given strategy:
+     * version 3 (MD5 of the UTF-8 bytes) or version 8 (MurmurHash3 of the chars).
+     *
+     * @param text The input text to generate an ID for. Must not be null.
+     * @return A standard UUID string derived consistently from the input text,
+     *         or a random UUID if the input is null or an unexpected error occurs.
+     */
+    public String generateConsistentId(String text, ChunkIdStrategy strategy) {
         if (text == null) {
             log.warn("Input text for ID generation is null, falling back to random UUID.");
             return UUID.randomUUID().toString();
         }
         try {
-            byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
-
-            UUID generatedUuid = UUID.nameUUIDFromBytes(textBytes);
-
-            return generatedUuid.toString();
+            return strategy.id(text);
         } catch (Exception e) {
             log.error("Failed to generate name-based UUID for text, falling back to random UUID. Text starts with: '{}...'",
                     text.substring(0, Math.min(text.length(), 50)), e);
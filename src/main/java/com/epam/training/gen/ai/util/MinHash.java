@@ -0,0 +1,193 @@
+package com.epam.training.gen.ai.util;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures of texts, for estimating the Jaccard similarity of their word shingles.
+ * <p>
+ * Before shingling, the text is lowercased and reduced to its words: runs of letters, and numbers
+ * with their decimal and thousands separators, a currency sign in front and a percent sign after,
+ * so "$1,500" and "20%" are words of their own. Differences in whitespace, punctuation and line
+ * breaks do not count, but amounts, dates and section numbers do. Each word is hashed in place
+ * without creating substrings. Every shingle is mixed into one
+ * 64-bit hash, and the hash functions are multiply-shift hashes of it with fixed random seeds, so
+ * a signature costs one xor and one multiply per shingle and hash function.
+ */
+public final class MinHash {
+
+    /** The most hash functions a signature can have. */
+    public static final int MAX_HASHES = 1024;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long[] SEEDS = new long[MAX_HASHES];
+    private static final long[] MULTIPLIERS = new long[MAX_HASHES];
+
+    static {
+        // fixed seeds: signatures are persisted and must stay comparable across restarts
+        SplittableRandom random = new SplittableRandom(0x6D696E68617368L);
+        for (int i = 0; i < MAX_HASHES; i++) {
+            SEEDS[i] = random.nextLong();
+            MULTIPLIERS[i] = random.nextLong() | 1;
+        }
+    }
+
+    private MinHash() {
+    }
+
+    /**
+     * Computes the signature of a text.
+     *
+     * @param text         The text.
+     * @param hashes       The number of hash functions, i.e. the signature length.
+     * @param shingleWords The number of consecutive words per shingle.
+     * @return The minimum of every hash function over all shingles; all {@link Integer#MAX_VALUE}
+     * for a text without words.
+     */
+    public static int[] signature(CharSequence text, int hashes, int shingleWords) {
+        if (hashes < 1 || hashes > MAX_HASHES || shingleWords < 1) {
+            throw new IllegalArgumentException("hashes must be 1 to " + MAX_HASHES + " and shingleWords at least 1");
+        }
+        int[] signature = new int[hashes];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+
+        long[] window = new long[shingleWords];
+        int words = 0;
+        Words tokens = new Words(text);
+        while (tokens.next()) {
+            window[words % shingleWords] = tokens.hash;
+            words++;
+            if (words >= shingleWords) {
+                update(signature, shingle(window, words, shingleWords));
+            }
+        }
+        if (words > 0 && words < shingleWords) {
+            // shorter than one shingle: the words seen so far form the only shingle
+            update(signature, shingle(window, words, words));
+        }
+        return signature;
+    }
+
+    /**
+     * Hashes the amounts of a text in order: the numbers with a currency sign in front or a percent
+     * sign after. Two texts have the same value only if they contain the same amounts. Plain numbers
+     * such as page, section or phone numbers are left out.
+     *
+     * @return The hash, or 0 for a text without amounts.
+     */
+    public static long amounts(CharSequence text) {
+        long hash = 0;
+        Words tokens = new Words(text);
+        while (tokens.next()) {
+            if (tokens.amount) {
+                hash = fmix64(hash * FNV_PRIME + tokens.hash) | 1;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * The share of equal positions of two signatures, an estimate of the Jaccard similarity of the
+     * shingle sets. Its standard error is about {@code 1 / sqrt(2 * length)} around 0.5 and smaller
+     * near 0 and 1.
+     */
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return equal / (double) a.length;
+    }
+
+    /**
+     * Combines the hashes of the last {@code size} words, oldest first.
+     */
+    private static long shingle(long[] window, int words, int size) {
+        long hash = FNV_OFFSET;
+        for (int w = words - size; w < words; w++) {
+            hash = Long.rotateLeft(hash * FNV_PRIME, 29) ^ window[w % window.length];
+        }
+        return hash;
+    }
+
+    private static void update(int[] signature, long shingle) {
+        long hash = fmix64(shingle);
+        for (int k = 0; k < signature.length; k++) {
+            int value = (int) (((hash ^ SEEDS[k]) * MULTIPLIERS[k]) >>> 33);
+            if (value < signature[k]) {
+                signature[k] = value;
+            }
+        }
+    }
+
+    /**
+     * Walks the words of a text, hashing each lowercased word without creating a substring.
+     */
+    private static final class Words {
+
+        private final CharSequence text;
+        private final int length;
+        private int position;
+        private long hash;
+        private boolean number;
+        private boolean amount;
+
+        private Words(CharSequence text) {
+            this.text = text;
+            this.length = text.length();
+        }
+
+        private boolean next() {
+            while (position < length && !Character.isLetterOrDigit(text.charAt(position))) {
+                position++;
+            }
+            if (position == length) {
+                return false;
+            }
+            hash = FNV_OFFSET;
+            number = Character.isDigit(text.charAt(position));
+            amount = false;
+            if (!number) {
+                while (position < length && Character.isLetter(text.charAt(position))) {
+                    hash = (hash ^ Character.toLowerCase(text.charAt(position))) * FNV_PRIME;
+                    position++;
+                }
+                return true;
+            }
+            if (position > 0 && Character.getType(text.charAt(position - 1)) == Character.CURRENCY_SYMBOL) {
+                hash = (hash ^ text.charAt(position - 1)) * FNV_PRIME;
+                amount = true;
+            }
+            while (position < length && (Character.isDigit(text.charAt(position)) || isSeparatorInNumber(position))) {
+                hash = (hash ^ text.charAt(position)) * FNV_PRIME;
+                position++;
+            }
+            if (position < length && text.charAt(position) == '%') {
+                hash = (hash ^ '%') * FNV_PRIME;
+                position++;
+                amount = true;
+            }
+            return true;
+        }
+
+        /**
+         * A comma or period between two digits, as in "1,500" or "2.5".
+         */
+        private boolean isSeparatorInNumber(int i) {
+            char c = text.charAt(i);
+            return (c == ',' || c == '.') && i + 1 < length && Character.isDigit(text.charAt(i + 1));
+        }
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,107 @@
+package com.epam.training.gen.ai.util;
+
+/**
+ * MurmurHash3, x64 128-bit variant, computed over the UTF-16 code units of a {@link CharSequence}.
+ * <p>
+ * The result equals the reference algorithm applied to the UTF-16LE encoding of the text, but the
+ * chars are read in place, four to a 64-bit lane, so no byte array is created. The hash is fast and
+ * well distributed but not cryptographic: it is meant for content-addressed IDs, not for
+ * resisting deliberately crafted collisions.
+ */
+public final class Murmur3 {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private Murmur3() {
+    }
+
+    /**
+     * Hashes the text with the given seed.
+     *
+     * @return the two 64-bit halves of the hash, {@code h1} first.
+     */
+    public static long[] hash128(CharSequence text, int seed) {
+        int length = text.length();
+        long h1 = seed & 0xFFFFFFFFL;
+        long h2 = h1;
+
+        // 16-byte blocks of eight chars
+        int offset = 0;
+        for (int blocks = length >>> 3; blocks > 0; blocks--, offset += 8) {
+            long k1 = lane(text, offset);
+            long k2 = lane(text, offset + 4);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        // the remaining 0 to 7 chars: the first four fill k1, the rest k2
+        int remaining = length - offset;
+        long k1 = 0;
+        long k2 = 0;
+        for (int i = 0; i < remaining; i++) {
+            long c = text.charAt(offset + i);
+            if (i < 4) {
+                k1 |= c << (16 * i);
+            } else {
+                k2 |= c << (16 * (i - 4));
+            }
+        }
+        if (remaining > 4) {
+            h2 ^= mixK2(k2);
+        }
+        if (remaining > 0) {
+            h1 ^= mixK1(k1);
+        }
+
+        long byteLength = 2L * length;
+        h1 ^= byteLength;
+        h2 ^= byteLength;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[]{h1, h2};
+    }
+
+    /**
+     * Four chars as one little-endian 64-bit word.
+     */
+    private static long lane(CharSequence text, int offset) {
+        return text.charAt(offset)
+                | (long) text.charAt(offset + 1) << 16
+                | (long) text.charAt(offset + 2) << 32
+                | (long) text.charAt(offset + 3) << 48;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,269 @@
+package com.epam.training.gen.ai.util;
+
+import com.epam.training.gen.ai.model.ExtractedDocument;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cleans extracted text before it is chunked:
+ * <ul>
+ *     <li>Page headers and footers are removed. These are lines among the first or last
+ *     {@code edgeLines} lines of a page that repeat on at least {@code minPages} pages and
+ *     {@code minPageShare} of all pages. Lines are compared ignoring case, whitespace and numbers,
+ *     so "Page 3 of 12" and "Page 4 of 12" are the same line.</li>
+ *     <li>Words hyphenated at a line break are joined again. The hyphen is kept, since PDF text
+ *     rarely breaks words by syllable but often breaks compounds such as "out-of-pocket"; soft
+ *     hyphens are dropped.</li>
+ *     <li>Runs of spaces and tabs become one space, line ends are trimmed, and runs of blank
+ *     lines become one blank line.</li>
+ * </ul>
+ * Detecting headers and footers looks only at the edge lines of each page; the text is then
+ * copied once into a pre-sized buffer without creating a string per line. Page offsets are moved
+ * along with the text.
+ */
+@Slf4j
+@Component
+public class TextNormalizer {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final char SOFT_HYPHEN = '\u00AD';
+
+    private final boolean enabled;
+    private final int edgeLines;
+    private final int minPages;
+    private final double minPageShare;
+
+    /**
+     * Normalizes with the default settings.
+     */
+    public TextNormalizer() {
+        this(true, 3, 3, 0.5);
+    }
+
+    @Autowired
+    public TextNormalizer(@Value("${embedding.normalize.enabled:true}") boolean enabled,
+                          @Value("${embedding.normalize.edge-lines:3}") int edgeLines,
+                          @Value("${embedding.normalize.boilerplate-min-pages:3}") int minPages,
+                          @Value("${embedding.normalize.boilerplate-min-page-share:0.5}") double minPageShare) {
+        this.enabled = enabled;
+        this.edgeLines = edgeLines;
+        this.minPages = Math.max(2, minPages);
+        this.minPageShare = minPageShare;
+    }
+
+    /**
+     * Normalizes the text of a document and moves its page offsets accordingly.
+     *
+     * @param document The extracted document; may be null.
+     * @return A new document with the normalized text, or the same one if normalization is disabled.
+     */
+    public ExtractedDocument normalize(ExtractedDocument document) {
+        if (!enabled || document == null || document.getText() == null) {
+            return document;
+        }
+        String text = document.getText();
+        int[] pageOffsets = document.getPageOffsets();
+        int[] boilerplate = document.hasPages() ? findBoilerplateLines(text, pageOffsets) : new int[0];
+
+        StringBuilder out = new StringBuilder(text.length());
+        int[] newOffsets = document.hasPages() ? new int[pageOffsets.length] : null;
+        int page = 0;
+        int nextBoilerplate = 0;
+        int blankLines = 0;
+        boolean hyphenAtEnd = false;
+
+        int length = text.length();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineEnd(text, lineStart);
+            int next = lineEnd < length ? lineEnd + 1 : length;
+            if (nextBoilerplate < boilerplate.length && boilerplate[nextBoilerplate] == lineStart) {
+                // blank lines that only set a footer apart are not a paragraph break
+                nextBoilerplate++;
+                blankLines = 0;
+                lineStart = next;
+                continue;
+            }
+            int contentStart = skipWhitespace(text, lineStart, lineEnd);
+            int contentEnd = trimEnd(text, contentStart, lineEnd);
+            if (contentStart == contentEnd) {
+                blankLines++;
+                lineStart = next;
+                continue;
+            }
+
+            boolean join = hyphenAtEnd && Character.isLowerCase(text.charAt(contentStart));
+            if (!join && out.length() > 0) {
+                out.append(blankLines > 0 ? "\n\n" : "\n");
+            }
+            blankLines = 0;
+
+            boolean pendingSpace = false;
+            for (int i = contentStart; i < contentEnd; i++) {
+                while (newOffsets != null && page < pageOffsets.length && pageOffsets[page] <= i) {
+                    newOffsets[page++] = out.length();
+                }
+                char c = text.charAt(i);
+                if (isBlank(c)) {
+                    pendingSpace = true;
+                } else if (c != SOFT_HYPHEN) {
+                    if (pendingSpace) {
+                        out.append(' ');
+                        pendingSpace = false;
+                    }
+                    out.append(c);
+                }
+            }
+            char last = text.charAt(contentEnd - 1);
+            hyphenAtEnd = (last == '-' || last == SOFT_HYPHEN)
+                    && contentEnd - 2 >= contentStart && Character.isLetter(text.charAt(contentEnd - 2));
+            lineStart = next;
+        }
+        while (newOffsets != null && page < pageOffsets.length) {
+            newOffsets[page++] = out.length();
+        }
+
+        log.debug("Normalized text from {} to {} chars, removed {} header and footer lines", length, out.length(), boilerplate.length);
+        return new ExtractedDocument(out.toString(), newOffsets);
+    }
+
+    /**
+     * Finds the start offsets of the header and footer lines to remove, in ascending order.
+     */
+    private int[] findBoilerplateLines(String text, int[] pageOffsets) {
+        int pages = pageOffsets.length;
+        int threshold = Math.max(minPages, (int) Math.ceil(minPageShare * pages));
+        if (edgeLines <= 0 || pages < threshold) {
+            return new int[0];
+        }
+
+        int[] starts = new int[pages * edgeLines * 2];
+        long[] keys = new long[starts.length];
+        int candidates = 0;
+        Map<Long, Integer> pageCounts = new HashMap<>();
+        for (int page = 0; page < pages; page++) {
+            int pageStart = pageOffsets[page];
+            int pageEnd = page + 1 < pages ? pageOffsets[page + 1] : text.length();
+            int pageCandidates = candidates;
+
+            int lineStart = pageStart;
+            for (int found = 0; found < edgeLines && lineStart < pageEnd; lineStart = Math.min(pageEnd, lineEnd(text, lineStart) + 1)) {
+                int lineEnd = Math.min(pageEnd, lineEnd(text, lineStart));
+                if (skipWhitespace(text, lineStart, lineEnd) < lineEnd) {
+                    starts[candidates] = lineStart;
+                    keys[candidates++] = lineKey(text, lineStart, lineEnd);
+                    found++;
+                }
+            }
+            int firstLinesEnd = lineStart;
+            int lineEnd = pageEnd;
+            for (int found = 0; found < edgeLines && lineEnd > firstLinesEnd; ) {
+                int start = lineStart(text, lineEnd, firstLinesEnd);
+                if (skipWhitespace(text, start, lineEnd) < lineEnd) {
+                    starts[candidates] = start;
+                    keys[candidates++] = lineKey(text, start, lineEnd);
+                    found++;
+                }
+                lineEnd = start - 1;
+            }
+
+            // a line counts once per page, even if a page repeats it
+            for (int i = pageCandidates; i < candidates; i++) {
+                if (!containsKey(keys, pageCandidates, i, keys[i])) {
+                    pageCounts.merge(keys[i], 1, Integer::sum);
+                }
+            }
+        }
+
+        int[] boilerplate = new int[candidates];
+        int count = 0;
+        for (int i = 0; i < candidates; i++) {
+            if (pageCounts.get(keys[i]) >= threshold) {
+                boilerplate[count++] = starts[i];
+            }
+        }
+        boilerplate = Arrays.copyOf(boilerplate, count);
+        Arrays.sort(boilerplate);
+        return boilerplate;
+    }
+
+    /**
+     * Hashes a line ignoring case and whitespace, with every run of digits counting as one digit.
+     */
+    private static long lineKey(String text, int start, int end) {
+        long hash = FNV_OFFSET;
+        boolean inNumber = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (isBlank(c)) {
+                inNumber = false;
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                if (inNumber) {
+                    continue;
+                }
+                inNumber = true;
+                c = '0';
+            } else {
+                inNumber = false;
+                c = Character.toLowerCase(c);
+            }
+            hash = (hash ^ c) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static boolean containsKey(long[] keys, int from, int to, long key) {
+        for (int i = from; i < to; i++) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int lineEnd(String text, int from) {
+        int end = text.indexOf('\n', from);
+        return end < 0 ? text.length() : end;
+    }
+
+    /**
+     * The start of the line that ends at {@code end}, but not before {@code limit}.
+     */
+    private static int lineStart(String text, int end, int limit) {
+        int start = end;
+        while (start > limit && text.charAt(start - 1) != '\n') {
+            start--;
+        }
+        return start;
+    }
+
+    private static int skipWhitespace(String text, int from, int to) {
+        while (from < to && isBlank(text.charAt(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(String text, int from, int to) {
+        while (to > from && isBlank(text.charAt(to - 1))) {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * Whitespace including no-break spaces, which {@link Character#isWhitespace} does not count.
+     */
+    private static boolean isBlank(char c) {
+        return Character.isWhitespace(c) || Character.isSpaceChar(c);
+    }
+}
@@ -0,0 +1,132 @@
+package com.epam.training.gen.ai.controller;
+
+import com.epam.training.gen.ai.model.ChatResponse;
+import com.epam.training.gen.ai.model.Citation;
+import com.epam.training.gen.ai.model.LlmCallUsage;
+import com.epam.training.gen.ai.model.ResponseDiagnostics;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.service.RagService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@WebMvcTest(RagController.class)
+public class RagControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private RagService ragService;
+
+    @Test
+    public void testQueryWithSeveralFiles() throws Exception {
+        SearchFilter expected = SearchFilter.forFiles(List.of("a.pdf", "b.pdf"));
+        when(ragService.answerQuestion(anyString(), anyString(), anyDouble(), eq(expected), isNull(), eq(false))).thenReturn(new ChatResponse("answer", null));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/rag/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"input\":\"question\",\"sourceFilename\":\"a.pdf\",\"sourceFilenames\":[\"b.pdf\",\"a.pdf\"]}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.response").value("answer"));
+    }
+
+    @Test
+    public void testQueryOverAllDocuments() throws Exception {
+        when(ragService.answerQuestion(anyString(), anyString(), anyDouble(), eq(SearchFilter.all()), isNull(), eq(false))).thenReturn(new ChatResponse("answer", null));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/rag/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"input\":\"question\",\"searchAllDocuments\":true}"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.response").value("answer"));
+    }
+
+    @Test
+    public void testQueryWithPageRangeReturnsCitations() throws Exception {
+        SearchFilter expected = SearchFilter.forFile("manual.pdf").withPages(3, 4);
+        ChatResponse response = new ChatResponse("answer [1]", null,
+                List.of(new Citation(1, "manual.pdf", 3, 3, 1200, 1650, "cited snippet")));
+        when(ragService.answerQuestion(anyString(), anyString(), anyDouble(), eq(expected), isNull(), eq(false))).thenReturn(response);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/rag/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"input\":\"question\",\"sourceFilename\":\"manual.pdf\",\"pageFrom\":3,\"pageTo\":4}"))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.citations[0].pageStart").value(3))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.citations[0].snippet").value("cited snippet"));
+    }
+
+    @Test
+    public void testQueryWithoutFilesSkipsRetrieval() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.post("/rag/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"input\":\"question\"}"))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        verify(ragService).answerQuestion(eq("question"), eq("openAI"), anyDouble(), (SearchFilter) isNull(), isNull(), eq(false));
+    }
+
+    @Test
+    public void testQueryWithSearchProfile() throws Exception {
+        when(ragService.answerQuestion(anyString(), anyString(), anyDouble(), eq(SearchFilter.all()), eq("evaluation"), eq(false)))
+                .thenReturn(new ChatResponse("answer", null));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/rag/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"input\":\"question\",\"searchAllDocuments\":true,\"searchProfile\":\"evaluation\"}"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.response").value("answer"));
+    }
+
+    @Test
+    public void testQueryWithUnknownSearchProfileIsRejected() throws Exception {
+        when(ragService.answerQuestion(anyString(), anyString(), anyDouble(), eq(SearchFilter.all()), eq("fastest"), eq(false)))
+                .thenThrow(new IllegalArgumentException("Unknown search profile 'fastest'"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/rag/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"input\":\"question\",\"searchAllDocuments\":true,\"searchProfile\":\"fastest\"}"))
+                .andExpect(MockMvcResultMatchers.status().isBadRequest())
+                .andExpect(MockMvcResultMatchers.jsonPath("$.error").value("Unknown search profile 'fastest'"));
+    }
+
+    @Test
+    public void testQueryWithDiagnosticsReturnsTimings() throws Exception {
+        ResponseDiagnostics diagnostics = new ResponseDiagnostics();
+        diagnostics.setDeployment("openAI");
+        diagnostics.addStage("retrieve", 12_000_000);
+        diagnostics.addLlmCall(new LlmCallUsage("answer", "openAI", "gpt-4", 850, 1200, 90, false));
+        ChatResponse response = new ChatResponse("answer", null);
+        response.setDiagnostics(diagnostics);
+        when(ragService.answerQuestion(anyString(), anyString(), anyDouble(), eq(SearchFilter.all()), isNull(), eq(true))).thenReturn(response);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/rag/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"input\":\"question\",\"searchAllDocuments\":true,\"diagnostics\":true}"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.diagnostics.stageMs.retrieve").value(12.0))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.diagnostics.llmCalls[0].promptTokens").value(1200));
+    }
+
+    @Test
+    public void testQueryWithoutDiagnosticsOmitsBlock() throws Exception {
+        when(ragService.answerQuestion(anyString(), anyString(), anyDouble(), eq(SearchFilter.all()), isNull(), eq(false))).thenReturn(new ChatResponse("answer", null));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/rag/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"input\":\"question\",\"searchAllDocuments\":true}"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$.diagnostics").doesNotExist());
+    }
+}
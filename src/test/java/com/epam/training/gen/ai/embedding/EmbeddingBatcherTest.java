@@ -0,0 +1,103 @@
+package com.epam.training.gen.ai.embedding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmbeddingBatcherTest {
+
+    @Test
+    @DisplayName("Should return one vector per text in order, in batches of at most the batch size")
+    void embed_shouldSplitIntoBatches() {
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        try (EmbeddingBatcher batcher = new EmbeddingBatcher(texts -> {
+            batchSizes.add(texts.size());
+            return texts.stream().map(text -> new float[]{Float.parseFloat(text)}).toList();
+        }, 4, 50, 2)) {
+            List<String> texts = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                texts.add(String.valueOf(i));
+            }
+
+            List<float[]> vectors = batcher.embed(texts);
+
+            assertThat(vectors).extracting(vector -> vector[0]).containsExactly(0f, 1f, 2f, 3f, 4f, 5f, 6f, 7f, 8f, 9f);
+            assertThat(batchSizes).allMatch(size -> size <= 4);
+            assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Should batch texts of concurrent requests together while the worker is busy")
+    void embed_withConcurrentRequests_shouldShareBatches() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        try (EmbeddingBatcher batcher = new EmbeddingBatcher(texts -> {
+            batches.add(texts);
+            firstBatchStarted.countDown();
+            try {
+                releaseFirstBatch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return texts.stream().map(text -> new float[]{text.length()}).toList();
+        }, 8, 0, 1)) {
+            CompletableFuture<List<float[]>> first = CompletableFuture.supplyAsync(() -> batcher.embed(List.of("a")));
+            assertThat(firstBatchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            List<CompletableFuture<List<float[]>>> waiting = new ArrayList<>();
+            for (String text : List.of("bb", "ccc", "dddd")) {
+                waiting.add(CompletableFuture.supplyAsync(() -> batcher.embed(List.of(text))));
+            }
+            Thread.sleep(200);
+            releaseFirstBatch.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS).get(0)[0]).isEqualTo(1f);
+            for (int i = 0; i < waiting.size(); i++) {
+                assertThat(waiting.get(i).get(5, TimeUnit.SECONDS).get(0)[0]).isEqualTo(i + 2f);
+            }
+            assertThat(batches).hasSize(2);
+            assertThat(batches.get(1)).containsExactlyInAnyOrder("bb", "ccc", "dddd");
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail the texts of a batch whose model call failed")
+    void embed_withFailingModel_shouldThrow() {
+        try (EmbeddingBatcher batcher = new EmbeddingBatcher(texts -> {
+            throw new IllegalStateException("model failed");
+        }, 4, 0, 1)) {
+            assertThatThrownBy(() -> batcher.embed(List.of("a", "b")))
+                    .isInstanceOf(CompletionException.class)
+                    .hasRootCauseMessage("model failed");
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail the texts of the batch being collected and of later calls when closed")
+    void close_withBatchBeingCollected_shouldFailWaitingTexts() throws Exception {
+        EmbeddingBatcher batcher = new EmbeddingBatcher(texts -> texts.stream().map(text -> new float[]{1}).toList(), 8, 60_000, 1);
+        CompletableFuture<List<float[]>> collected = CompletableFuture.supplyAsync(() -> batcher.embed(List.of("a")));
+        Thread.sleep(200);
+
+        batcher.close();
+
+        assertThatThrownBy(() -> collected.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("Embedding batcher is closed");
+        assertThatThrownBy(() -> batcher.embed(List.of("b")))
+                .isInstanceOf(CompletionException.class)
+                .hasRootCauseMessage("Embedding batcher is closed");
+    }
+}
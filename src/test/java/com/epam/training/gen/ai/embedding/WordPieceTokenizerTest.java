@@ -0,0 +1,45 @@
+package com.epam.training.gen.ai.embedding;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WordPieceTokenizerTest {
+
+    private static final List<String> VOCABULARY = List.of(
+            "[PAD]", "[UNK]", "[CLS]", "[SEP]", "the", "plan", "cover", "##s", "dent", "##al", "care", ",", ".", "cafe");
+
+    private final WordPieceTokenizer tokenizer = new WordPieceTokenizer(VOCABULARY, true);
+
+    @Test
+    @DisplayName("Should lowercase, strip accents and split punctuation")
+    void basicTokens_shouldNormaliseAndSplit() {
+        assertThat(tokenizer.basicTokens("The Plan, covers\tdental-care. Café"))
+                .containsExactly("the", "plan", ",", "covers", "dental", "-", "care", ".", "cafe");
+    }
+
+    @Test
+    @DisplayName("Should split words into the longest vocabulary pieces and wrap them in CLS and SEP")
+    void encode_shouldUseWordPieces() {
+        assertThat(tokenizer.encode("The plan covers dental care.", 32))
+                .containsExactly(2, 4, 5, 6, 7, 8, 9, 10, 12, 3);
+        assertThat(tokenizer.encode("Vision", 32)).containsExactly(2, 1, 3);
+    }
+
+    @Test
+    @DisplayName("Should truncate to the maximum length including the special tokens")
+    void encode_withLongText_shouldTruncate() {
+        assertThat(tokenizer.encode("the plan covers dental care", 5)).containsExactly(2, 4, 5, 6, 3);
+    }
+
+    @Test
+    @DisplayName("Should reject a vocabulary without the special tokens")
+    void constructor_withoutSpecialTokens_shouldFail() {
+        assertThatThrownBy(() -> new WordPieceTokenizer(List.of("the", "plan"), true))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,215 @@
+package com.epam.training.gen.ai.loadtest;
+
+import lombok.Data;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+/**
+ * Drives HTTP endpoints at fixed arrival rates and reports throughput and latency percentiles.
+ * <p>
+ * Requests are sent on schedule whether or not earlier ones have completed (an open workload
+ * model), and latency is measured from the time a request was due, not from when it was sent, so
+ * a slow server is not hidden by the generator backing off (coordinated omission). Each scenario
+ * caps its requests in flight; requests due while the cap is reached are counted as dropped.
+ * Results of the warm-up period are discarded.
+ */
+public class LoadGenerator {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private final HttpClient client;
+    private final int maxInFlight;
+
+    public LoadGenerator(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "load-generator");
+                    thread.setDaemon(true);
+                    return thread;
+                }))
+                .build();
+    }
+
+    /**
+     * Runs all scenarios concurrently for the warm-up and the measured duration.
+     *
+     * @return one result per scenario, in the given order.
+     */
+    public List<ScenarioResult> run(List<Scenario> scenarios, Duration warmup, Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(scenarios.size());
+        List<Run> runs = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            Run run = new Run(scenario, start, measureFrom, end);
+            runs.add(run);
+            long periodNanos = (long) (1e9 / scenario.getRatePerSecond());
+            scheduler.scheduleAtFixedRate(run::fire, 0, periodNanos, TimeUnit.NANOSECONDS);
+        }
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, end - System.nanoTime()));
+        scheduler.shutdownNow();
+
+        // let the requests sent before the end complete, bounded by the request timeout
+        long drainUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        for (Run run : runs) {
+            while (run.inFlight.get() > 0 && System.nanoTime() < drainUntil) {
+                TimeUnit.MILLISECONDS.sleep(20);
+            }
+        }
+
+        List<ScenarioResult> results = new ArrayList<>();
+        for (Run run : runs) {
+            results.add(run.result(duration));
+        }
+        return results;
+    }
+
+    /**
+     * Prints the results as a table, latencies in milliseconds.
+     */
+    public static void print(List<ScenarioResult> results, PrintStream out) {
+        out.printf("%-16s %8s %9s %8s %8s %8s %9s %9s %9s %9s %9s %9s%n", "scenario", "target/s", "actual/s",
+                "requests", "errors", "dropped", "p50", "p90", "p95", "p99", "p99.9", "max");
+        for (ScenarioResult result : results) {
+            out.printf("%-16s %8.2f %9.2f %8d %8d %8d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", result.getName(),
+                    result.getTargetRate(), result.getThroughput(), result.getRequests(), result.getErrors(), result.getDropped(),
+                    result.getPercentilesMs().get("p50"), result.getPercentilesMs().get("p90"), result.getPercentilesMs().get("p95"),
+                    result.getPercentilesMs().get("p99"), result.getPercentilesMs().get("p99.9"), result.getMaxMs());
+            if (!result.getStatuses().isEmpty()) {
+                out.printf("%-16s statuses %s%n", "", result.getStatuses());
+            }
+        }
+    }
+
+    /**
+     * One endpoint driven at a fixed rate. The request factory gets the sequence number of the request,
+     * e.g. to rotate through a set of questions.
+     */
+    @Data
+    public static class Scenario {
+        private final String name;
+        private final double ratePerSecond;
+        private final LongFunction<HttpRequest> request;
+    }
+
+    @Data
+    public static class ScenarioResult {
+        private String name;
+        private double targetRate;
+        /** Completed requests per second in the measured period. */
+        private double throughput;
+        private long requests;
+        /** Responses other than 2xx, and requests that failed without a response. */
+        private long errors;
+        private long dropped;
+        /** Responses by status code; 0 counts requests that failed without a response. */
+        private Map<Integer, Long> statuses;
+        private Map<String, Double> percentilesMs;
+        private double meanMs;
+        private double maxMs;
+    }
+
+    private final class Run {
+        private final Scenario scenario;
+        private final long start;
+        private final long measureFrom;
+        private final long end;
+        private final long periodNanos;
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder dropped = new LongAdder();
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final Histogram latencies = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(10), 3);
+
+        Run(Scenario scenario, long start, long measureFrom, long end) {
+            this.scenario = scenario;
+            this.start = start;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.periodNanos = (long) (1e9 / scenario.getRatePerSecond());
+        }
+
+        void fire() {
+            long n = sequence.getAndIncrement();
+            long due = start + n * periodNanos;
+            if (due >= end) {
+                return;
+            }
+            boolean measured = due >= measureFrom;
+            if (inFlight.incrementAndGet() > maxInFlight) {
+                inFlight.decrementAndGet();
+                if (measured) {
+                    dropped.increment();
+                }
+                return;
+            }
+            HttpRequest request;
+            try {
+                request = scenario.getRequest().apply(n);
+            } catch (RuntimeException e) {
+                inFlight.decrementAndGet();
+                throw e;
+            }
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        inFlight.decrementAndGet();
+                        if (!measured) {
+                            return;
+                        }
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due);
+                        latencies.recordValue(Math.min(micros, latencies.getHighestTrackableValue()));
+                        statuses.computeIfAbsent(failure == null ? response.statusCode() : 0, status -> new LongAdder()).increment();
+                    });
+        }
+
+        ScenarioResult result(Duration duration) {
+            ScenarioResult result = new ScenarioResult();
+            result.setName(scenario.getName());
+            result.setTargetRate(scenario.getRatePerSecond());
+            result.setRequests(latencies.getTotalCount());
+            result.setThroughput(latencies.getTotalCount() / (duration.toNanos() / 1e9));
+            result.setDropped(dropped.sum());
+
+            Map<Integer, Long> byStatus = new TreeMap<>();
+            statuses.forEach((status, count) -> byStatus.put(status, count.sum()));
+            result.setStatuses(byStatus);
+            result.setErrors(byStatus.entrySet().stream()
+                    .filter(entry -> entry.getKey() < 200 || entry.getKey() >= 300)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum());
+
+            Map<String, Double> percentiles = new TreeMap<>();
+            for (double percentile : PERCENTILES) {
+                percentiles.put("p" + (percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile)),
+                        latencies.getValueAtPercentile(percentile) / 1000.0);
+            }
+            result.setPercentilesMs(percentiles);
+            result.setMeanMs(latencies.getTotalCount() == 0 ? 0 : latencies.getMean() / 1000.0);
+            result.setMaxMs(latencies.getMaxValue() / 1000.0);
+            return result;
+        }
+    }
+}
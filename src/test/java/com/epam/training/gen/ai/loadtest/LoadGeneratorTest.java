@@ -0,0 +1,85 @@
+package com.epam.training.gen.ai.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LoadGeneratorTest {
+
+    private HttpServer server;
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should send requests at the target rate and count the responses by status")
+    void run_shouldReachTargetRate() throws Exception {
+        AtomicInteger served = new AtomicInteger();
+        server = server(exchange -> {
+            int status = served.incrementAndGet() % 10 == 0 ? 500 : 200;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+
+        List<LoadGenerator.ScenarioResult> results = new LoadGenerator(64).run(
+                List.of(new LoadGenerator.Scenario("ok", 100, n -> request())),
+                Duration.ofMillis(200), Duration.ofSeconds(1));
+
+        LoadGenerator.ScenarioResult result = results.get(0);
+        assertThat(result.getThroughput()).isCloseTo(100, within(15.0));
+        assertThat(result.getStatuses()).containsKeys(200, 500);
+        assertThat(result.getErrors()).isEqualTo(result.getStatuses().get(500));
+        assertThat(result.getPercentilesMs()).containsKeys("p50", "p99", "p99.9");
+    }
+
+    @Test
+    @DisplayName("Should measure latency from the due time and drop requests above the in-flight limit")
+    void run_shouldNotHideQueueingBehindASlowServer() throws Exception {
+        server = server(exchange -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+
+        LoadGenerator.ScenarioResult result = new LoadGenerator(2).run(
+                List.of(new LoadGenerator.Scenario("slow", 50, n -> request())),
+                Duration.ZERO, Duration.ofSeconds(1)).get(0);
+
+        assertThat(result.getDropped()).isPositive();
+        assertThat(result.getPercentilesMs().get("p50")).isGreaterThanOrEqualTo(290);
+    }
+
+    private HttpServer server(com.sun.net.httpserver.HttpHandler handler) throws IOException {
+        HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 128);
+        httpServer.setExecutor(Executors.newCachedThreadPool());
+        httpServer.createContext("/", handler);
+        httpServer.start();
+        return httpServer;
+    }
+
+    private HttpRequest request() {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/"))
+                .GET()
+                .build();
+    }
+}
@@ -0,0 +1,222 @@
+package com.epam.training.gen.ai.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load test: the application runs against {@link StubOpenAiServer} and the in-process HNSW
+ * vector store, the bundled PDFs are uploaded, and {@link LoadGenerator} then drives {@code /api/chat},
+ * {@code /rag/query}, {@code /rag/upload} and {@code /embedding/search} concurrently.
+ * <p>
+ * Run with {@code mvn test -Ploadtest}. Rates are requests per second, set to 0 to skip an endpoint:
+ * {@code -Dloadtest.chat.rate}, {@code -Dloadtest.rag-query.rate}, {@code -Dloadtest.upload.rate} and
+ * {@code -Dloadtest.search.rate}; {@code -Dloadtest.warmup-seconds}, {@code -Dloadtest.duration-seconds}
+ * and {@code -Dloadtest.max-in-flight} shape the run, and {@code -Dloadtest.max-error-rate} fails it.
+ * The stub is configured with the {@code loadtest.stub.*} properties of {@link StubOpenAiServer.Settings}.
+ * The results are printed and written to {@code -Dloadtest.report} (default {@code target/loadtest-report.json}).
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RagLoadTest {
+
+    private static final List<String> DOCUMENTS = List.of(
+            "Benefit_Options.pdf",
+            "Northwind_Health_Plus_Benefits_Details.pdf",
+            "Northwind_Standard_Benefits_Details.pdf",
+            "PerksPlus.pdf",
+            "employee_handbook.pdf",
+            "role_library.pdf");
+
+    private static final List<String> QUESTIONS = List.of(
+            "What is the deductible of Northwind Health Plus?",
+            "Which expenses does PerksPlus reimburse?",
+            "How do I report a workplace safety issue?",
+            "What does the Northwind Standard plan cover for emergency care?",
+            "What are the responsibilities of a product manager?",
+            "How are out-of-network providers handled?",
+            "What is the company's policy on remote work?",
+            "Are vision and dental services included in the benefit options?");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static StubOpenAiServer stub;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void applicationProperties(DynamicPropertyRegistry registry) {
+        StubOpenAiServer.Settings settings = StubOpenAiServer.Settings.fromSystemProperties();
+        stub = StubOpenAiServer.start(settings);
+        stub.trustByDefault();
+        System.out.println("Stub OpenAI at " + stub.endpoint() + ": " + settings);
+
+        registry.add("client-openai-endpoint", stub::endpoint);
+        registry.add("client-openai-key", () -> "stub-key");
+        registry.add("embedding.provider", () -> "azure");
+        registry.add("embedding.openai.dimension", () -> settings.dimension);
+        // in-process vector store and indexes, kept in memory only
+        registry.add("vector-store.type", () -> "hnsw");
+        registry.add("vector-store.hnsw.snapshot-file", () -> "");
+        registry.add("vector-store.manifest-file", () -> "");
+        registry.add("retrieval.bm25.index-file", () -> "");
+        registry.add("embedding.dedup.index-file", () -> "");
+        registry.add("rag.cache.persistence-file", () -> "");
+        // request logging at DEBUG would dominate the timings
+        registry.add("logging.level.com.azure", () -> "WARN");
+        registry.add("logging.level.com.microsoft.semantickernel", () -> "WARN");
+        registry.add("logging.level.com.epam.training.gen.ai", () -> "WARN");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test
+    void mixedWorkload() throws Exception {
+        Map<String, byte[]> documents = new LinkedHashMap<>();
+        for (String name : DOCUMENTS) {
+            documents.put(name, resource("/data/" + name));
+        }
+        seed(documents);
+
+        List<LoadGenerator.Scenario> scenarios = new ArrayList<>();
+        addScenario(scenarios, "chat", "loadtest.chat.rate", 2, n -> post("/api/chat", json(Map.of(
+                "input", QUESTIONS.get((int) (n % QUESTIONS.size())),
+                "temperature", 0.7,
+                "deployment", "openAI"))));
+        addScenario(scenarios, "rag-query", "loadtest.rag-query.rate", 2, n -> post("/rag/query", json(Map.of(
+                "input", QUESTIONS.get((int) (n % QUESTIONS.size())),
+                "deployment", "openAI",
+                "searchAllDocuments", true))));
+        addScenario(scenarios, "embedding-search", "loadtest.search.rate", 10, n -> post("/embedding/search", json(Map.of(
+                "text", QUESTIONS.get((int) (n % QUESTIONS.size())),
+                "limit", 5))));
+        List<String> names = new ArrayList<>(documents.keySet());
+        addScenario(scenarios, "upload", "loadtest.upload.rate", 0.2, n -> {
+            String name = names.get((int) (n % names.size()));
+            return upload(name, documents.get(name));
+        });
+
+        LoadGenerator generator = new LoadGenerator(Integer.getInteger("loadtest.max-in-flight", 256));
+        List<LoadGenerator.ScenarioResult> results = generator.run(scenarios,
+                Duration.ofSeconds(Integer.getInteger("loadtest.warmup-seconds", 10)),
+                Duration.ofSeconds(Integer.getInteger("loadtest.duration-seconds", 60)));
+
+        LoadGenerator.print(results, System.out);
+        System.out.printf("Stub: %d chat and %d embeddings requests (%d texts), %d throttled with 429%n",
+                stub.chatRequests(), stub.embeddingRequests(), stub.embeddedTexts(), stub.throttled());
+        writeReport(results);
+
+        double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.05"));
+        for (LoadGenerator.ScenarioResult result : results) {
+            assertThat(result.getRequests()).as(result.getName() + " requests").isPositive();
+            assertThat((double) (result.getErrors() + result.getDropped()) / (result.getRequests() + result.getDropped()))
+                    .as(result.getName() + " error rate").isLessThanOrEqualTo(maxErrorRate);
+        }
+    }
+
+    /**
+     * Uploads every document once, so that queries and searches find chunks from the start.
+     */
+    private void seed(Map<String, byte[]> documents) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        for (Map.Entry<String, byte[]> document : documents.entrySet()) {
+            HttpResponse<String> response = client.send(upload(document.getKey(), document.getValue()), HttpResponse.BodyHandlers.ofString());
+            assertThat(response.statusCode()).as("seeding " + document.getKey() + ": " + response.body()).isEqualTo(200);
+        }
+    }
+
+    private static void addScenario(List<LoadGenerator.Scenario> scenarios, String name, String rateProperty, double defaultRate,
+                                    LongFunction<HttpRequest> request) {
+        double rate = Double.parseDouble(System.getProperty(rateProperty, String.valueOf(defaultRate)));
+        if (rate > 0) {
+            scenarios.add(new LoadGenerator.Scenario(name, rate, request));
+        }
+    }
+
+    private HttpRequest post(String path, byte[] body) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+    }
+
+    private HttpRequest upload(String filename, byte[] content) {
+        String boundary = "loadtest-" + System.nanoTime();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 256);
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/rag/upload"))
+                .timeout(Duration.ofSeconds(120))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private static byte[] json(Map<String, Object> body) {
+        try {
+            return MAPPER.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] resource(String name) throws IOException {
+        try (InputStream stream = RagLoadTest.class.getResourceAsStream(name)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("No test resource " + name);
+            }
+            return stream.readAllBytes();
+        }
+    }
+
+    private void writeReport(List<LoadGenerator.ScenarioResult> results) throws IOException {
+        Path report = Path.of(System.getProperty("loadtest.report", "target/loadtest-report.json"));
+        if (report.getParent() != null) {
+            Files.createDirectories(report.getParent());
+        }
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("scenarios", results);
+        content.put("stub", Map.of(
+                "chatRequests", stub.chatRequests(),
+                "embeddingRequests", stub.embeddingRequests(),
+                "embeddedTexts", stub.embeddedTexts(),
+                "throttled", stub.throttled()));
+        MAPPER.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report.toFile(), content);
+        System.out.println("Load test report written to " + report.toAbsolutePath());
+    }
+}
@@ -0,0 +1,488 @@
+package com.epam.training.gen.ai.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for an Azure OpenAI resource, serving the chat completions and embeddings endpoints
+ * of every deployment so that the application can be load tested without calling Azure.
+ * <p>
+ * Response latency follows a log-normal distribution given by its median and 99th percentile, a
+ * configurable share of requests is rejected with 429 and a {@code retry-after-ms} header, and
+ * {@code "stream": true} chat requests are answered with server-sent events at a fixed token rate.
+ * Embeddings are hashed bags of words, so texts sharing words get similar vectors and searches
+ * return plausible neighbours.
+ * <p>
+ * The server speaks HTTPS with a self-signed certificate created by {@code keytool}, because the
+ * Azure SDK refuses to send key credentials over plain HTTP.
+ */
+public class StubOpenAiServer implements AutoCloseable {
+
+    private static final String STORE_PASSWORD = "stub-openai";
+    private static final double Z_99 = 2.326;
+
+    private final Settings settings;
+    private final HttpsServer server;
+    private final ExecutorService executor;
+    private final Path keyStore;
+    private final SSLContext sslContext;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final AtomicLong chatRequests = new AtomicLong();
+    private final AtomicLong embeddingRequests = new AtomicLong();
+    private final AtomicLong embeddedTexts = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    private StubOpenAiServer(Settings settings) throws IOException, GeneralSecurityException {
+        this.settings = settings;
+        this.keyStore = createKeyStore();
+        this.sslContext = sslContext(keyStore);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-openai");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpsServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), settings.port), 256);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Starts a stub on the configured port, or on a free one when the port is 0.
+     */
+    public static StubOpenAiServer start(Settings settings) {
+        try {
+            return new StubOpenAiServer(settings);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not set up TLS for the stub OpenAI server", e);
+        }
+    }
+
+    /**
+     * The value for {@code client-openai-endpoint}.
+     */
+    public String endpoint() {
+        return "https://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * An SSL context trusting the stub's certificate, for clients that can be given one.
+     */
+    public SSLContext clientSslContext() {
+        try {
+            TrustManagerFactory trustManagers = trustManagerFactory();
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, trustManagers.getTrustManagers(), null);
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A trust manager factory holding only the stub's certificate.
+     */
+    public TrustManagerFactory trustManagerFactory() throws GeneralSecurityException {
+        TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init(loadKeyStore(keyStore));
+        return factory;
+    }
+
+    /**
+     * Makes the stub's certificate the JVM's default trust store, for clients that are built inside
+     * the application, like the {@code OpenAIAsyncClient} bean. Only for test JVMs that call nothing else over TLS.
+     */
+    public void trustByDefault() {
+        System.setProperty("javax.net.ssl.trustStore", keyStore.toString());
+        System.setProperty("javax.net.ssl.trustStorePassword", STORE_PASSWORD);
+        System.setProperty("javax.net.ssl.trustStoreType", "PKCS12");
+    }
+
+    public long chatRequests() {
+        return chatRequests.get();
+    }
+
+    public long embeddingRequests() {
+        return embeddingRequests.get();
+    }
+
+    public long embeddedTexts() {
+        return embeddedTexts.get();
+    }
+
+    public long throttled() {
+        return throttled.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            Files.deleteIfExists(keyStore);
+            Files.deleteIfExists(keyStore.getParent());
+        } catch (IOException e) {
+            // a leftover temporary key store is harmless
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Only POST is supported");
+                return;
+            }
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = mapper.readTree(body);
+            }
+            if (path.endsWith("/chat/completions")) {
+                chatRequests.incrementAndGet();
+                if (!throttle(exchange)) {
+                    chat(exchange, deployment(path), request);
+                }
+            } else if (path.endsWith("/embeddings")) {
+                embeddingRequests.incrementAndGet();
+                if (!throttle(exchange)) {
+                    embeddings(exchange, deployment(path), request);
+                }
+            } else {
+                sendError(exchange, 404, "Unknown path " + path);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Rejects the request with 429 at the configured rate.
+     *
+     * @return true if the request was rejected.
+     */
+    private boolean throttle(HttpExchange exchange) throws IOException {
+        if (settings.throttleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= settings.throttleRate) {
+            return false;
+        }
+        throttled.incrementAndGet();
+        exchange.getResponseHeaders().add("retry-after-ms", String.valueOf(settings.retryAfterMs));
+        sendError(exchange, 429, "Requests to the deployment have exceeded the call rate limit of the stub. Please retry after "
+                + settings.retryAfterMs + " milliseconds.");
+        return true;
+    }
+
+    private void chat(HttpExchange exchange, String deployment, JsonNode request) throws IOException, InterruptedException {
+        int promptTokens = 0;
+        for (JsonNode message : request.path("messages")) {
+            promptTokens += tokens(message.path("content").asText());
+        }
+        int completionTokens = request.hasNonNull("max_tokens")
+                ? Math.min(settings.completionTokens, request.path("max_tokens").asInt())
+                : settings.completionTokens;
+        String id = "chatcmpl-stub-" + chatRequests.get();
+        long created = System.currentTimeMillis() / 1000;
+
+        Thread.sleep(sampleLatencyMs());
+        if (request.path("stream").asBoolean(false)) {
+            streamChat(exchange, id, created, deployment, completionTokens);
+            return;
+        }
+
+        ObjectNode response = mapper.createObjectNode()
+                .put("id", id)
+                .put("object", "chat.completion")
+                .put("created", created)
+                .put("model", deployment);
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", completion(completionTokens));
+        choice.put("finish_reason", "stop");
+        response.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+        sendJson(exchange, 200, mapper.writeValueAsBytes(response));
+    }
+
+    /**
+     * Sends one server-sent event per token, spaced by the configured token rate, then {@code [DONE]}.
+     */
+    private void streamChat(HttpExchange exchange, String id, long created, String deployment, int completionTokens)
+            throws IOException, InterruptedException {
+        exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        long tokenIntervalNanos = settings.tokensPerSecond > 0 ? (long) (1e9 / settings.tokensPerSecond) : 0;
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int token = 0; token <= completionTokens; token++) {
+                ObjectNode chunk = mapper.createObjectNode()
+                        .put("id", id)
+                        .put("object", "chat.completion.chunk")
+                        .put("created", created)
+                        .put("model", deployment);
+                ObjectNode choice = chunk.putArray("choices").addObject();
+                choice.put("index", 0);
+                ObjectNode delta = choice.putObject("delta");
+                if (token < completionTokens) {
+                    delta.put("content", word(token) + " ");
+                    choice.putNull("finish_reason");
+                } else {
+                    choice.put("finish_reason", "stop");
+                }
+                out.write(("data: " + mapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                if (token < completionTokens && tokenIntervalNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(tokenIntervalNanos);
+                }
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void embeddings(HttpExchange exchange, String deployment, JsonNode request) throws IOException, InterruptedException {
+        JsonNode input = request.path("input");
+        boolean base64 = "base64".equals(request.path("encoding_format").asText());
+        ObjectNode response = mapper.createObjectNode().put("object", "list").put("model", deployment);
+        ArrayNode data = response.putArray("data");
+        int promptTokens = 0;
+        int index = 0;
+        for (JsonNode text : input.isArray() ? input : mapper.createArrayNode().add(input)) {
+            float[] vector = embed(text.asText());
+            promptTokens += tokens(text.asText());
+            ObjectNode item = data.addObject().put("object", "embedding").put("index", index++);
+            if (base64) {
+                ByteBuffer bytes = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                bytes.asFloatBuffer().put(vector);
+                item.put("embedding", Base64.getEncoder().encodeToString(bytes.array()));
+            } else {
+                ArrayNode values = item.putArray("embedding");
+                for (float value : vector) {
+                    values.add(value);
+                }
+            }
+        }
+        embeddedTexts.addAndGet(index);
+        response.putObject("usage").put("prompt_tokens", promptTokens).put("total_tokens", promptTokens);
+
+        Thread.sleep(sampleLatencyMs());
+        sendJson(exchange, 200, mapper.writeValueAsBytes(response));
+    }
+
+    /**
+     * Feature-hashes the lowercased words of the text into a unit vector of the configured dimension.
+     */
+    float[] embed(String text) {
+        float[] vector = new float[settings.dimension];
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            int hash = word.hashCode() * 0x9E3779B9;
+            vector[Math.floorMod(hash, settings.dimension)] += (hash & 0x40000000) == 0 ? 1 : -1;
+        }
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm == 0) {
+            vector[0] = 1;
+            return vector;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= scale;
+        }
+        return vector;
+    }
+
+    /**
+     * Draws from the log-normal distribution with the configured median and 99th percentile.
+     */
+    long sampleLatencyMs() {
+        if (settings.latencyMedianMs <= 0) {
+            return 0;
+        }
+        double sigma = Math.log(Math.max(settings.latencyP99Ms, settings.latencyMedianMs) / (double) settings.latencyMedianMs) / Z_99;
+        return Math.round(settings.latencyMedianMs * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    private static String deployment(String path) {
+        String[] segments = path.split("/");
+        for (int i = 0; i < segments.length - 1; i++) {
+            if ("deployments".equals(segments[i])) {
+                return segments[i + 1];
+            }
+        }
+        return "stub";
+    }
+
+    private static int tokens(String text) {
+        return Math.max(1, text.length() / 4);
+    }
+
+    private static String completion(int tokens) {
+        StringBuilder text = new StringBuilder(tokens * 6);
+        for (int token = 0; token < tokens; token++) {
+            text.append(word(token)).append(token % 12 == 11 ? ". " : " ");
+        }
+        return text.toString().trim();
+    }
+
+    private static String word(int token) {
+        return switch (token % 6) {
+            case 0 -> "stub";
+            case 1 -> "answer";
+            case 2 -> "based";
+            case 3 -> "on";
+            case 4 -> "the";
+            default -> "context";
+        };
+    }
+
+    private void sendJson(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        ObjectNode error = mapper.createObjectNode();
+        error.putObject("error").put("code", String.valueOf(status)).put("message", message);
+        sendJson(exchange, status, mapper.writeValueAsBytes(error));
+    }
+
+    private static Path createKeyStore() throws IOException {
+        Path directory = Files.createTempDirectory("stub-openai");
+        Path file = directory.resolve("stub-openai.p12");
+        Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "stub-openai", "-keyalg", "EC", "-groupname", "secp256r1", "-validity", "2",
+                "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+                "-storetype", "PKCS12", "-keystore", file.toString(),
+                "-storepass", STORE_PASSWORD, "-keypass", STORE_PASSWORD)
+                .redirectErrorStream(true)
+                .start();
+        try {
+            String output = new String(keytool.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            if (keytool.waitFor() != 0) {
+                throw new IOException("keytool failed: " + output);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while creating the stub certificate", e);
+        }
+        return file;
+    }
+
+    private static KeyStore loadKeyStore(Path file) throws GeneralSecurityException {
+        try (InputStream in = Files.newInputStream(file)) {
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            store.load(in, STORE_PASSWORD.toCharArray());
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static SSLContext sslContext(Path keyStore) throws GeneralSecurityException {
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(loadKeyStore(keyStore), STORE_PASSWORD.toCharArray());
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), null, null);
+        return context;
+    }
+
+    /**
+     * Behaviour of the stub; {@link #fromSystemProperties()} reads the {@code loadtest.stub.*} properties.
+     */
+    public static class Settings {
+        int port;
+        int dimension = 1536;
+        long latencyMedianMs = 300;
+        long latencyP99Ms = 1500;
+        double throttleRate = 0.02;
+        long retryAfterMs = 200;
+        double tokensPerSecond = 50;
+        int completionTokens = 120;
+
+        public static Settings fromSystemProperties() {
+            Settings settings = new Settings();
+            settings.port = Integer.getInteger("loadtest.stub.port", settings.port);
+            settings.dimension = Integer.getInteger("loadtest.stub.dimension", settings.dimension);
+            settings.latencyMedianMs = Long.getLong("loadtest.stub.latency-median-ms", settings.latencyMedianMs);
+            settings.latencyP99Ms = Long.getLong("loadtest.stub.latency-p99-ms", settings.latencyP99Ms);
+            settings.throttleRate = Double.parseDouble(System.getProperty("loadtest.stub.throttle-rate", String.valueOf(settings.throttleRate)));
+            settings.retryAfterMs = Long.getLong("loadtest.stub.retry-after-ms", settings.retryAfterMs);
+            settings.tokensPerSecond = Double.parseDouble(System.getProperty("loadtest.stub.tokens-per-second", String.valueOf(settings.tokensPerSecond)));
+            settings.completionTokens = Integer.getInteger("loadtest.stub.completion-tokens", settings.completionTokens);
+            return settings;
+        }
+
+        public Settings latency(long medianMs, long p99Ms) {
+            this.latencyMedianMs = medianMs;
+            this.latencyP99Ms = p99Ms;
+            return this;
+        }
+
+        public Settings throttleRate(double throttleRate) {
+            this.throttleRate = throttleRate;
+            return this;
+        }
+
+        public Settings tokensPerSecond(double tokensPerSecond) {
+            this.tokensPerSecond = tokensPerSecond;
+            return this;
+        }
+
+        public Settings completionTokens(int completionTokens) {
+            this.completionTokens = completionTokens;
+            return this;
+        }
+
+        public Settings dimension(int dimension) {
+            this.dimension = dimension;
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("latency median %d ms / p99 %d ms, 429 rate %.3f, %.0f tokens/s, %d completion tokens, %d dims",
+                    latencyMedianMs, latencyP99Ms, throttleRate, tokensPerSecond, completionTokens, dimension);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.epam.training.gen.ai.loadtest;
+
+import com.azure.ai.openai.OpenAIClient;
+import com.azure.ai.openai.OpenAIClientBuilder;
+import com.azure.ai.openai.models.ChatCompletions;
+import com.azure.ai.openai.models.ChatCompletionsOptions;
+import com.azure.ai.openai.models.ChatRequestUserMessage;
+import com.azure.core.credential.AzureKeyCredential;
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.netty.NettyAsyncHttpClientBuilder;
+import com.azure.core.http.policy.FixedDelayOptions;
+import com.azure.core.http.policy.RetryOptions;
+import com.azure.core.http.rest.RequestOptions;
+import com.azure.core.util.BinaryData;
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.util.EmbeddingsJson;
+import io.netty.handler.ssl.SslContextBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StubOpenAiServerTest {
+
+    private StubOpenAiServer stub;
+
+    @AfterEach
+    void stop() {
+        stub.close();
+    }
+
+    @Test
+    @DisplayName("Should answer chat completions with usage that the Azure SDK can parse")
+    void chatCompletions_shouldBeReadableByTheSdk() throws Exception {
+        stub = StubOpenAiServer.start(new StubOpenAiServer.Settings().latency(0, 0).throttleRate(0).completionTokens(12));
+
+        ChatCompletions completions = client().getChatCompletions("gpt-4",
+                new ChatCompletionsOptions(List.of(new ChatRequestUserMessage("What is the deductible?"))));
+
+        assertThat(completions.getChoices().get(0).getMessage().getContent()).startsWith("stub answer");
+        assertThat(completions.getUsage().getCompletionTokens()).isEqualTo(12);
+        assertThat(completions.getModel()).isEqualTo("gpt-4");
+        assertThat(stub.chatRequests()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should stream one chunk per completion token")
+    void chatCompletionsStream_shouldStreamTokens() throws Exception {
+        stub = StubOpenAiServer.start(new StubOpenAiServer.Settings().latency(0, 0).throttleRate(0).completionTokens(5)
+                .tokensPerSecond(1000));
+
+        String text = client().getChatCompletionsStream("gpt-4",
+                        new ChatCompletionsOptions(List.of(new ChatRequestUserMessage("Hello"))))
+                .stream()
+                .filter(chunk -> !chunk.getChoices().isEmpty() && chunk.getChoices().get(0).getDelta().getContent() != null)
+                .map(chunk -> chunk.getChoices().get(0).getDelta().getContent())
+                .collect(Collectors.joining());
+
+        assertThat(text).isEqualTo("stub answer based on the ");
+    }
+
+    @Test
+    @DisplayName("Should return base64 embeddings that are similar for texts sharing words")
+    void embeddings_shouldBeReadableByEmbeddingsJson() throws Exception {
+        stub = StubOpenAiServer.start(new StubOpenAiServer.Settings().latency(0, 0).throttleRate(0));
+        BinaryData request = BinaryData.fromBytes(EmbeddingsJson.writeRequest(List.of(
+                "Northwind Health Plus deductible", "deductible of Northwind Health Plus", "employee handbook")));
+
+        List<EmbeddingVector> vectors = EmbeddingsJson.readResponse(client()
+                .getEmbeddingsWithResponse("text-embedding-ada-002", request, new RequestOptions())
+                .getValue().toBytes());
+
+        assertThat(vectors).hasSize(3);
+        assertThat(vectors.get(0).getEmbedding()).hasSize(1536);
+        assertThat(dot(vectors.get(0).getEmbedding(), vectors.get(1).getEmbedding()))
+                .isGreaterThan(dot(vectors.get(0).getEmbedding(), vectors.get(2).getEmbedding()));
+        assertThat(stub.embeddedTexts()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should reject requests with 429 at the configured rate")
+    void throttleRate_shouldReturn429() {
+        stub = StubOpenAiServer.start(new StubOpenAiServer.Settings().latency(0, 0).throttleRate(1));
+
+        assertThatThrownBy(() -> client().getChatCompletions("gpt-4",
+                new ChatCompletionsOptions(List.of(new ChatRequestUserMessage("Hello")))))
+                .isInstanceOf(HttpResponseException.class)
+                .satisfies(e -> assertThat(((HttpResponseException) e).getResponse().getStatusCode()).isEqualTo(429));
+        assertThat(stub.throttled()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should draw latencies around the configured median")
+    void sampleLatency_shouldFollowTheConfiguredDistribution() {
+        stub = StubOpenAiServer.start(new StubOpenAiServer.Settings().latency(100, 400));
+
+        long[] samples = new long[10_000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = stub.sampleLatencyMs();
+        }
+        java.util.Arrays.sort(samples);
+
+        assertThat(samples[samples.length / 2]).isBetween(90L, 110L);
+        assertThat(samples[(int) (samples.length * 0.99)]).isBetween(300L, 550L);
+    }
+
+    /**
+     * An SDK client trusting the stub's certificate, without retries so that 429 responses surface.
+     */
+    private OpenAIClient client() throws Exception {
+        var sslContext = SslContextBuilder.forClient().trustManager(stub.trustManagerFactory()).build();
+        return new OpenAIClientBuilder()
+                .endpoint(stub.endpoint())
+                .credential(new AzureKeyCredential("stub-key"))
+                .httpClient(new NettyAsyncHttpClientBuilder(HttpClient.create().secure(spec -> spec.sslContext(sslContext))).build())
+                .retryOptions(new RetryOptions(new FixedDelayOptions(0, Duration.ZERO)))
+                .buildClient();
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,60 @@
+package com.epam.training.gen.ai.metrics;
+
+import com.azure.core.exception.HttpResponseException;
+import com.azure.core.http.HttpResponse;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RagMetricsTest {
+
+    private final PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+    private final RagMetrics metrics = new RagMetrics(registry);
+
+    @Test
+    @DisplayName("Should record extraction time in total and per page with percentile histograms")
+    void recordExtraction_shouldRecordPerPageDuration() {
+        metrics.recordExtraction("pdf", 4, TimeUnit.MILLISECONDS.toNanos(400));
+
+        Timer perPage = registry.get(RagMetrics.EXTRACTION_PER_PAGE).tag("document_type", "pdf").timer();
+        assertThat(perPage.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(100);
+        assertThat(registry.scrape()).contains("rag_extraction_page_duration_seconds_bucket{document_type=\"pdf\",le=");
+        assertThat(registry.get(RagMetrics.EXTRACTION).timer().count()).isEqualTo(1);
+        assertThat(registry.get(RagMetrics.DOCUMENT_PAGES).summary().totalAmount()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should time vector store calls by outcome and rethrow failures")
+    void timeVectorStore_shouldTagOutcome() throws Exception {
+        assertThat(metrics.timeVectorStore("qdrant", "search", () -> "result")).isEqualTo("result");
+        assertThatThrownBy(() -> metrics.timeVectorStore("qdrant", "upsert", () -> {
+            throw new ExecutionException(new IllegalStateException("down"));
+        })).isInstanceOf(ExecutionException.class);
+
+        assertThat(registry.get(RagMetrics.VECTOR_STORE).tags("operation", "search", "outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get(RagMetrics.VECTOR_STORE).tags("operation", "upsert", "outcome", "failure").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should count errors by the HTTP status found in the cause chain")
+    void recordLlmError_shouldTagThrottling() {
+        HttpResponse response = mock(HttpResponse.class);
+        when(response.getStatusCode()).thenReturn(429);
+
+        metrics.recordLlmError("answer", "openAI", new RuntimeException(new HttpResponseException("Too many requests", response)));
+        metrics.recordLlmError("answer", "openAI", new IllegalStateException("no response"));
+
+        assertThat(registry.get(RagMetrics.LLM_ERRORS).tags("deployment", "openAI", "status", "429").counter().count()).isEqualTo(1);
+        assertThat(registry.get(RagMetrics.LLM_ERRORS).tag("status", "none").counter().count()).isEqualTo(1);
+    }
+}
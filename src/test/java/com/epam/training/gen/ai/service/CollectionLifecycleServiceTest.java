@@ -0,0 +1,102 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.ReindexJob;
+import com.epam.training.gen.ai.store.QdrantVectorStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CollectionLifecycleServiceTest {
+
+    private final QdrantVectorStore vectorStore = mock(QdrantVectorStore.class);
+    private final EmbeddingService embeddingService = mock(EmbeddingService.class);
+    private final CollectionLifecycleService service = new CollectionLifecycleService(vectorStore, embeddingService, 100);
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should mirror writes while copying and activate the target when done")
+    void reindex_withActivate_shouldSwapAliasAfterCopy() throws Exception {
+        when(vectorStore.activeCollection()).thenReturn("embedding_collection_v1");
+        doAnswer(invocation -> {
+            invocation.<LongConsumer>getArgument(4).accept(42);
+            return 42L;
+        }).when(vectorStore).copyPoints(anyString(), anyString(), anyInt(), any(), any());
+
+        ReindexJob job = service.reindex("embedding_collection_v2", false, true);
+        awaitFinished(job);
+
+        assertThat(job.getStatus()).isEqualTo("SUCCESS");
+        assertThat(job.getCopied()).isEqualTo(42);
+        assertThat(service.job(job.getId())).containsSame(job);
+        var order = inOrder(vectorStore);
+        order.verify(vectorStore).mirrorWritesTo("embedding_collection_v2");
+        order.verify(vectorStore).copyPoints(eq("embedding_collection_v1"), eq("embedding_collection_v2"), eq(100), isNull(), any());
+        order.verify(vectorStore).activate("embedding_collection_v2", false);
+        order.verify(vectorStore).mirrorWritesTo(null);
+    }
+
+    @Test
+    @DisplayName("Should fail the job and keep the alias when mirrored writes were lost")
+    void reindex_withMirrorFailures_shouldNotActivate() throws Exception {
+        when(vectorStore.activeCollection()).thenReturn("embedding_collection_v1");
+        when(vectorStore.mirrorFailures()).thenReturn(1L);
+
+        ReindexJob job = service.reindex("embedding_collection_v2", true, true);
+        awaitFinished(job);
+
+        assertThat(job.getStatus()).isEqualTo("FAILED");
+        assertThat(job.getError()).contains("could not be mirrored");
+        verify(vectorStore).copyPoints(eq("embedding_collection_v1"), eq("embedding_collection_v2"), eq(100), any(), any());
+        verify(vectorStore, never()).activate(anyString(), eq(false));
+        verify(vectorStore).mirrorWritesTo(null);
+    }
+
+    @Test
+    @DisplayName("Should reject a second reindex while one is running")
+    void reindex_whileRunning_shouldBeRejected() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(vectorStore.activeCollection()).thenReturn("embedding_collection_v1");
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 0L;
+        }).when(vectorStore).copyPoints(anyString(), anyString(), anyInt(), any(), any());
+
+        ReindexJob job = service.reindex("embedding_collection_v2", false, false);
+
+        assertThatThrownBy(() -> service.reindex("embedding_collection_v3", false, false)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service.activate("embedding_collection_v2", false)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service.reindex("embedding_collection_v1", false, false)).isInstanceOf(IllegalStateException.class);
+        release.countDown();
+        awaitFinished(job);
+        assertThat(job.getStatus()).isEqualTo("SUCCESS");
+    }
+
+    private static void awaitFinished(ReindexJob job) throws InterruptedException {
+        for (int i = 0; i < 500 && job.getFinishedAt() == null; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(job.getFinishedAt()).isNotNull();
+    }
+}
@@ -0,0 +1,83 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.model.SearchResult;
+import com.epam.training.gen.ai.util.DataExtraction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContextCompressorTest {
+
+    private static final String DENTAL = "Dental cleanings are covered twice a year.";
+    private static final String GYM = "Gym memberships are reimbursed through PerksPlus.";
+    private static final String DENTAL_COPAY = "Dental fillings have a twenty dollar copay.";
+    private static final String PARKING = "Parking at the main office is free for employees.";
+
+    private EmbeddingService embeddingService;
+
+    @BeforeEach
+    void setUp() {
+        embeddingService = mock(EmbeddingService.class);
+        // Texts mentioning "dental" (including the question) point one way, everything else the other
+        when(embeddingService.buildEmbeddings(anyList())).thenAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            List<EmbeddingVector> embeddings = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                boolean dental = texts.get(i).toLowerCase().contains("dental");
+                embeddings.add(new EmbeddingVector(i, dental ? new float[]{1f, 0.1f} : new float[]{0.1f, 1f}));
+            }
+            return embeddings;
+        });
+    }
+
+    @Test
+    @DisplayName("Should keep the most relevant sentences in their original order and drop empty chunks")
+    void compress_shouldKeepRelevantSentences() {
+        ContextCompressor compressor = new ContextCompressor(embeddingService, new DataExtraction(), true, 22, 600, 256);
+        List<SearchResult> results = List.of(
+                result("a", DENTAL + " " + GYM + " " + DENTAL_COPAY),
+                result("b", PARKING + " " + GYM));
+
+        List<SearchResult> compressed = compressor.compress("Is dental care covered?", results);
+
+        assertThat(compressed).extracting(SearchResult::getUuid).containsExactly("a");
+        assertThat(compressed.get(0).getText()).isEqualTo(DENTAL + ContextCompressor.GAP + DENTAL_COPAY);
+        assertThat(compressed.get(0).getSourceFilename()).isEqualTo("plan.pdf");
+    }
+
+    @Test
+    @DisplayName("Should not call the embeddings API when the context already fits the budget")
+    void compress_withSmallContext_shouldReturnChunksUnchanged() {
+        ContextCompressor compressor = new ContextCompressor(embeddingService, new DataExtraction(), true, 800, 600, 256);
+        List<SearchResult> results = List.of(result("a", DENTAL + " " + GYM));
+
+        assertThat(compressor.compress("Is dental care covered?", results)).isSameAs(results);
+        verify(embeddingService, never()).buildEmbeddings(anyList());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the uncompressed chunks when embedding fails")
+    void compress_withFailedEmbedding_shouldReturnChunksUnchanged() {
+        when(embeddingService.buildEmbeddings(anyList())).thenReturn(Collections.emptyList());
+        ContextCompressor compressor = new ContextCompressor(embeddingService, new DataExtraction(), true, 5, 600, 256);
+        List<SearchResult> results = List.of(result("a", DENTAL + " " + GYM));
+
+        assertThat(compressor.compress("Is dental care covered?", results)).isSameAs(results);
+    }
+
+    private static SearchResult result(String id, String text) {
+        return new SearchResult(0.9f, id, text, null, "plan.pdf");
+    }
+}
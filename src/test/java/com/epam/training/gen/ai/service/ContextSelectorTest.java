@@ -0,0 +1,74 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.SearchResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContextSelectorTest {
+
+    @Test
+    @DisplayName("Should prefer a new chunk over a near-duplicate of an already picked one")
+    void select_withMmr_shouldSkipNearDuplicates() {
+        ContextSelector selector = new ContextSelector(true, 0.7, 0);
+        List<SearchResult> candidates = List.of(
+                result("a", 0.90f, 1f, 0f),
+                result("a-copy", 0.89f, 0.99f, 0.14f),
+                result("b", 0.80f, 0f, 1f));
+
+        assertThat(selector.select(candidates, 2)).extracting(SearchResult::getUuid).containsExactly("a", "b");
+    }
+
+    @Test
+    @DisplayName("Should keep the retrieval order when lambda is 1 or MMR is disabled")
+    void select_withoutDiversity_shouldKeepRetrievalOrder() {
+        List<SearchResult> candidates = List.of(
+                result("a", 0.90f, 1f, 0f),
+                result("a-copy", 0.89f, 1f, 0f),
+                result("b", 0.80f, 0f, 1f));
+
+        assertThat(new ContextSelector(true, 1.0, 0).select(candidates, 2)).extracting(SearchResult::getUuid).containsExactly("a", "a-copy");
+        assertThat(new ContextSelector(false, 0.5, 0).select(candidates, 2)).extracting(SearchResult::getUuid).containsExactly("a", "a-copy");
+    }
+
+    @Test
+    @DisplayName("Should rank candidates without vectors by relevance only")
+    void select_withMissingVectors_shouldFallBackToRelevance() {
+        ContextSelector selector = new ContextSelector(true, 0.7, 0);
+        List<SearchResult> candidates = List.of(
+                new SearchResult(0.03f, "lexical", "text", null, null),
+                result("dense", 0.02f, 1f, 0f),
+                result("dense-copy", 0.01f, 1f, 0f));
+
+        assertThat(selector.select(candidates, 3)).extracting(SearchResult::getUuid).containsExactly("lexical", "dense", "dense-copy");
+    }
+
+    @Test
+    @DisplayName("Should drop chunks that do not fit the token budget but always keep the first")
+    void select_withTokenBudget_shouldTrimChunks() {
+        ContextSelector selector = new ContextSelector(false, 0.7, 100);
+        List<SearchResult> candidates = List.of(
+                new SearchResult(0.9f, "large", "x".repeat(300), null, null),
+                new SearchResult(0.8f, "too-large", "x".repeat(200), null, null),
+                new SearchResult(0.7f, "small", "x".repeat(80), null, null));
+
+        assertThat(selector.select(candidates, 3)).extracting(SearchResult::getUuid).containsExactly("large", "small");
+        assertThat(new ContextSelector(false, 0.7, 10).select(candidates.subList(1, 3), 3)).extracting(SearchResult::getUuid).containsExactly("too-large");
+        assertThat(ContextSelector.estimateTokens("x".repeat(9))).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should reject a lambda outside [0, 1]")
+    void constructor_withInvalidLambda_shouldThrow() {
+        assertThatThrownBy(() -> new ContextSelector(true, 1.5, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SearchResult result(String id, float score, float x, float y) {
+        float norm = (float) Math.sqrt(x * x + y * y);
+        return new SearchResult(score, id, "text of " + id, null, null, new float[]{x / norm, y / norm});
+    }
+}
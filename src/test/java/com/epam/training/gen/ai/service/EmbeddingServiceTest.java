@@ -0,0 +1,317 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.embedding.EmbeddingProvider;
+import com.epam.training.gen.ai.metrics.RagMetrics;
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.model.ExtractedDocument;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
+import com.epam.training.gen.ai.model.SearchResult;
+import com.epam.training.gen.ai.store.Bm25Index;
+import com.epam.training.gen.ai.store.DocumentManifests;
+import com.epam.training.gen.ai.store.HnswVectorStore;
+import com.epam.training.gen.ai.store.NearDuplicateIndex;
+import com.epam.training.gen.ai.util.ChunkIdStrategy;
+import com.epam.training.gen.ai.util.DataExtraction;
+import com.epam.training.gen.ai.util.IdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.tck.TestObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.epam.training.gen.ai.service.EmbeddingService.ADA_002_MODEL_DIMENSION_SIZE;
+import static io.micrometer.observation.tck.TestObservationRegistryAssert.assertThat;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class EmbeddingServiceTest {
+
+    private static final String INTRO = "The plan covers all residents.";
+    private static final String DENTAL = "Dental care is covered twice a year.";
+    private static final String VISION = "Vision care needs a referral.";
+    private static final String HEARING = "Hearing aids are reimbursed.";
+
+    private final Random random = new Random(3);
+    private final IdGenerator idGenerator = new IdGenerator();
+    private HnswVectorStore vectorStore;
+    private Bm25Index bm25Index;
+    private DocumentManifests manifests;
+    private NearDuplicateIndex nearDuplicates;
+    private EmbeddingService embeddingService;
+    private TestObservationRegistry observationRegistry;
+    private final List<String> embedded = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        vectorStore = new HnswVectorStore(8, 50, 32, 2000, "");
+        bm25Index = new Bm25Index(1.2f, 0.75f, "");
+        manifests = new DocumentManifests("");
+        observationRegistry = TestObservationRegistry.create();
+        nearDuplicates = new NearDuplicateIndex(true, 0.9, 128, 16, 3, "");
+        EmbeddingService service = new EmbeddingService(mock(EmbeddingProvider.class), vectorStore, bm25Index, manifests,
+                nearDuplicates, idGenerator, new DataExtraction(), new RagMetrics(new SimpleMeterRegistry()), observationRegistry);
+        // one sentence per chunk
+        ReflectionTestUtils.setField(service, "chunkSize", 40);
+        ReflectionTestUtils.setField(service, "sentenceEndTolerance", 0);
+        embeddingService = spy(service);
+        doAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            embedded.addAll(texts);
+            List<EmbeddingVector> embeddings = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                embeddings.add(new EmbeddingVector(i, randomVector()));
+            }
+            return embeddings;
+        }).when(embeddingService).buildEmbeddings(anyList());
+    }
+
+    @Test
+    @DisplayName("Should embed only new chunks on re-ingest and delete the stale ones")
+    void chunkAndStoreEmbeddings_withNewVersion_shouldEmbedDiffOnly() throws Exception {
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(String.join(" ", INTRO, DENTAL, VISION), null), "plan.pdf", "pdf");
+        assertThat(embedded).containsExactly(INTRO, DENTAL, VISION);
+        verify(embeddingService, times(1)).buildEmbeddings(anyList());
+        embedded.clear();
+
+        String edited = String.join(" ", HEARING, INTRO, DENTAL);
+        String status = embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(edited, null), "plan.pdf", "pdf");
+
+        assertThat(status).isEqualTo("SUCCESS");
+        assertThat(embedded).containsExactly(HEARING);
+        assertThat(vectorStore.size()).isEqualTo(3);
+        assertThat(vectorStore.contains(idGenerator.generateConsistentId(VISION))).isFalse();
+        assertThat(bm25Index.contains(idGenerator.generateConsistentId(VISION))).isFalse();
+        assertThat(manifests.get("plan.pdf").getVersion()).isEqualTo(2);
+
+        SearchResult moved = vectorStore.retrieve(List.of(idGenerator.generateConsistentId(DENTAL)), false).get(0);
+        assertThat(moved.getCharStart()).isEqualTo(edited.indexOf(DENTAL));
+    }
+
+    @Test
+    @DisplayName("Should keep chunks that another document still references")
+    void chunkAndStoreEmbeddings_withSharedChunk_shouldNotDeleteIt() throws Exception {
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(String.join(" ", INTRO, DENTAL), null), "plan.pdf", "pdf");
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(INTRO, null), "summary.pdf", "pdf");
+
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(VISION, null), "plan.pdf", "pdf");
+
+        assertThat(vectorStore.contains(idGenerator.generateConsistentId(INTRO))).isTrue();
+        assertThat(vectorStore.contains(idGenerator.generateConsistentId(DENTAL))).isFalse();
+        assertThat(vectorStore.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should keep the MD5 IDs of documents ingested before switching to Murmur3 IDs")
+    void chunkAndStoreEmbeddings_afterIdStrategyChange_shouldKeepLegacyIds() throws Exception {
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(String.join(" ", INTRO, DENTAL), null), "plan.pdf", "pdf");
+        IdGenerator murmur3 = new IdGenerator(ChunkIdStrategy.MURMUR3, true);
+        ReflectionTestUtils.setField(embeddingService, "idGenerator", murmur3);
+        embedded.clear();
+
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(String.join(" ", INTRO, DENTAL, VISION), null), "plan.pdf", "pdf");
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(HEARING, null), "perks.pdf", "pdf");
+
+        assertThat(embedded).containsExactly(VISION, HEARING);
+        assertThat(manifests.get("plan.pdf").getChunkIds()).containsExactly(idGenerator.generateConsistentId(INTRO),
+                idGenerator.generateConsistentId(DENTAL), idGenerator.generateConsistentId(VISION));
+        assertThat(manifests.get("perks.pdf").getChunkIds()).containsExactly(murmur3.generateConsistentId(HEARING));
+    }
+
+    @Test
+    @DisplayName("Should keep the MD5 IDs of a document stored before manifests were written")
+    void chunkAndStoreEmbeddings_withMd5PointsAndNoManifest_shouldKeepLegacyIds() throws Exception {
+        for (String chunk : List.of(INTRO, DENTAL)) {
+            vectorStore.upsert(idGenerator.generateConsistentId(chunk), randomVector(), new ChunkPayload(chunk, "plan.pdf"));
+        }
+        IdGenerator murmur3 = new IdGenerator(ChunkIdStrategy.MURMUR3, true);
+        ReflectionTestUtils.setField(embeddingService, "idGenerator", murmur3);
+
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(String.join(" ", INTRO, DENTAL, VISION), null), "plan.pdf", "pdf");
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(HEARING, null), "perks.pdf", "pdf");
+
+        assertThat(embedded).containsExactly(VISION, HEARING);
+        assertThat(manifests.get("plan.pdf").getChunkIds()).containsExactly(idGenerator.generateConsistentId(INTRO),
+                idGenerator.generateConsistentId(DENTAL), idGenerator.generateConsistentId(VISION));
+        assertThat(manifests.get("perks.pdf").getChunkIds()).containsExactly(murmur3.generateConsistentId(HEARING));
+        assertThat(vectorStore.size()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should not embed a chunk that differs from a stored one only in case and punctuation")
+    void chunkAndStoreEmbeddings_withNearDuplicate_shouldReferenceStoredChunk() throws Exception {
+        String footer = "Contoso Benefits: all rights reserved, no copies without written permission.";
+        String sameFooter = "CONTOSO benefits -- all rights reserved;  no copies without written permission!";
+        ReflectionTestUtils.setField(embeddingService, "chunkSize", 100);
+
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(String.join(" ", footer, DENTAL, sameFooter), null), "plan.pdf", "pdf");
+
+        assertThat(embedded).containsExactly(footer, DENTAL);
+        String storedId = idGenerator.generateConsistentId(footer);
+        assertThat(manifests.get("plan.pdf").getChunkIds()).containsExactly(storedId, idGenerator.generateConsistentId(DENTAL));
+        assertThat(vectorStore.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should embed chunks that differ only in an amount")
+    void chunkAndStoreEmbeddings_withOtherAmount_shouldEmbedBothChunks() throws Exception {
+        String standard = "Standard members pay a deductible of $1,500 per year and a copay of $20 per visit.";
+        String plus = "Standard members pay a deductible of $2,000 per year and a copay of $40 per visit.";
+        ReflectionTestUtils.setField(embeddingService, "chunkSize", 100);
+
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(String.join(" ", standard, plus), null), "plan.pdf", "pdf");
+
+        assertThat(embedded).containsExactly(standard, plus);
+        assertThat(manifests.get("plan.pdf").getChunkIds()).containsExactly(idGenerator.generateConsistentId(standard),
+                idGenerator.generateConsistentId(plus));
+    }
+
+    @Test
+    @DisplayName("Should merge a near duplicate of another file's chunk and find it in searches restricted to either file")
+    void chunkAndStoreEmbeddings_withNearDuplicateInOtherFile_shouldShareStoredChunk() throws Exception {
+        String footer = "Contoso Benefits: all rights reserved, no copies without written permission.";
+        String sameFooter = "CONTOSO benefits -- all rights reserved;  no copies without written permission!";
+        ReflectionTestUtils.setField(embeddingService, "chunkSize", 100);
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(footer, null), "standard.pdf", "pdf");
+        embedded.clear();
+
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(sameFooter, null), "plus.pdf", "pdf");
+
+        assertThat(embedded).isEmpty();
+        String storedId = idGenerator.generateConsistentId(footer);
+        assertThat(manifests.get("plus.pdf").getChunkIds()).containsExactly(storedId);
+        assertThat(vectorStore.size()).isEqualTo(1);
+        for (String file : List.of("standard.pdf", "plus.pdf")) {
+            List<SearchResult> results = embeddingService.searchSimilarText("rights reserved", 5, SearchFilter.forFile(file), false, SearchProfile.exactSearch());
+            assertThat(results).extracting(SearchResult::getUuid).containsExactly(storedId);
+            assertThat(results.get(0).getSourceFilename()).isEqualTo("standard.pdf");
+            assertThat(results.get(0).getOtherSourceFilenames()).containsExactly("plus.pdf");
+            assertThat(bm25Index.search("rights reserved", 5, SearchFilter.forFile(file))).extracting(Bm25Index.Hit::id).containsExactly(storedId);
+        }
+
+        // the stored chunk outlives the document it came from while another one references it
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(VISION, null), "standard.pdf", "pdf");
+
+        List<SearchResult> results = embeddingService.searchSimilarText("rights reserved", 5, SearchFilter.forFile("plus.pdf"), false, SearchProfile.exactSearch());
+        assertThat(results).extracting(SearchResult::getUuid).contains(storedId);
+        SearchResult shared = vectorStore.retrieve(List.of(storedId), false).get(0);
+        assertThat(shared.getSourceFilename()).isEqualTo("plus.pdf");
+        assertThat(shared.getOtherSourceFilenames()).isEmpty();
+        assertThat(bm25Index.search("rights reserved", 5, SearchFilter.forFile("standard.pdf"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should embed an edited chunk even though it is nearly the same as the version it replaces")
+    void chunkAndStoreEmbeddings_withEditedChunk_shouldNotMatchDeletedVersion() throws Exception {
+        String before = "Dental care is covered twice a year for all members.";
+        String after = "Dental care is covered twice a year for all members!";
+        ReflectionTestUtils.setField(embeddingService, "chunkSize", 100);
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(before, null), "plan.pdf", "pdf");
+        embedded.clear();
+
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(after, null), "plan.pdf", "pdf");
+
+        assertThat(embedded).containsExactly(after);
+        assertThat(vectorStore.contains(idGenerator.generateConsistentId(before))).isFalse();
+        assertThat(nearDuplicates.contains(idGenerator.generateConsistentId(before))).isFalse();
+        assertThat(nearDuplicates.contains(idGenerator.generateConsistentId(after))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should embed the new chunks of a document in batched requests and skip the chunks of a failed batch")
+    void chunkAndStoreEmbeddings_shouldBatchEmbeddings() throws Exception {
+        ReflectionTestUtils.setField(embeddingService, "embeddingBatchSize", 2);
+        doAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            if (texts.contains(HEARING)) {
+                return List.of();
+            }
+            return List.of(new EmbeddingVector(0, randomVector()), new EmbeddingVector(1, randomVector()));
+        }).when(embeddingService).buildEmbeddings(anyList());
+
+        String status = embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(String.join(" ", INTRO, DENTAL, VISION, HEARING), null), "plan.pdf", "pdf");
+
+        assertThat(status).isEqualTo("SUCCESS_PARTIAL");
+        verify(embeddingService, times(1)).buildEmbeddings(List.of(INTRO, DENTAL));
+        verify(embeddingService, times(1)).buildEmbeddings(List.of(VISION, HEARING));
+        assertThat(manifests.get("plan.pdf").getChunkIds()).containsExactly(idGenerator.generateConsistentId(INTRO),
+                idGenerator.generateConsistentId(DENTAL));
+        assertThat(vectorStore.size()).isEqualTo(2);
+        assertThat(bm25Index.contains(idGenerator.generateConsistentId(VISION))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should embed batch queries in batched requests and return results per query in order")
+    void searchSimilarTexts_shouldBatchEmbeddingsAndKeepOrder() throws Exception {
+        List<float[]> stored = new ArrayList<>();
+        for (String text : List.of(INTRO, DENTAL, VISION)) {
+            float[] vector = randomVector();
+            stored.add(vector);
+            vectorStore.upsert(idGenerator.generateConsistentId(text), vector, new ChunkPayload(text, "plan.pdf"));
+        }
+        ReflectionTestUtils.setField(embeddingService, "embeddingBatchSize", 2);
+        // each query embeds to the vector of the stored chunk it names; the second batch fails
+        doAnswer(invocation -> {
+            List<String> texts = invocation.getArgument(0);
+            if (texts.contains("third")) {
+                return List.of();
+            }
+            List<EmbeddingVector> embeddings = new ArrayList<>();
+            for (int i = 0; i < texts.size(); i++) {
+                embeddings.add(new EmbeddingVector(i, stored.get(texts.get(i).equals("first") ? 0 : 1)));
+            }
+            return embeddings;
+        }).when(embeddingService).buildEmbeddings(anyList());
+
+        List<List<SearchResult>> results = embeddingService.searchSimilarTexts(List.of("second", "first", "third"), 1,
+                SearchFilter.all(), false, SearchProfile.exactSearch());
+
+        verify(embeddingService, times(2)).buildEmbeddings(anyList());
+        assertThat(results).hasSize(3);
+        assertThat(results.get(0)).extracting(SearchResult::getText).containsExactly(DENTAL);
+        assertThat(results.get(1)).extracting(SearchResult::getText).containsExactly(INTRO);
+        assertThat(results.get(2)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should trace ingestion and search with chunk counts and result scores")
+    void chunkAndStoreAndSearch_shouldRecordSpans() throws Exception {
+        embeddingService.chunkAndStoreEmbeddings(new ExtractedDocument(String.join(" ", INTRO, DENTAL), null), "plan.pdf", "pdf");
+        List<SearchResult> results = embeddingService.searchSimilarText(DENTAL, 2, SearchFilter.all(), false, SearchProfile.exactSearch());
+
+        assertThat(observationRegistry)
+                .hasObservationWithNameEqualTo("rag.ingest").that()
+                .hasLowCardinalityKeyValue("document.type", "pdf")
+                .hasHighCardinalityKeyValue("chunks", "2")
+                .hasHighCardinalityKeyValue("chunks.embedded", "2")
+                .hasBeenStopped();
+        assertThat(observationRegistry)
+                .hasObservationWithNameEqualTo("rag.search").that()
+                .hasHighCardinalityKeyValue("results", String.valueOf(results.size()))
+                .hasHighCardinalityKeyValue("score.top", String.valueOf(results.get(0).getScore()));
+        assertThat(observationRegistry)
+                .hasNumberOfObservationsWithNameEqualTo("rag.vectorstore", 3)
+                .hasObservationWithNameEqualTo("rag.vectorstore").that()
+                .hasLowCardinalityKeyValue("operation", "upsert")
+                .hasParentObservationContextMatching(parent -> parent.getName().equals("rag.ingest"));
+    }
+
+    private float[] randomVector() {
+        float[] vector = new float[ADA_002_MODEL_DIMENSION_SIZE];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,108 @@
+package com.epam.training.gen.ai.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromptCacheTest {
+
+    @Test
+    @DisplayName("Should produce the same key for the same deployment, template and inputs")
+    void key_shouldBeStableForSameInputs() {
+        PromptCache cache = new PromptCache(true, 10, "");
+        assertThat(cache.key("openAI", "Rewrite: {%s}", "question"))
+                .isEqualTo(cache.key("openAI", "Rewrite: {%s}", "question"));
+    }
+
+    @Test
+    @DisplayName("Should produce different keys when any key part differs")
+    void key_shouldDifferWhenAnyPartDiffers() {
+        PromptCache cache = new PromptCache(true, 10, "");
+        String base = cache.key("openAI", "Rewrite: {%s}", "question");
+        assertThat(cache.key("mistral", "Rewrite: {%s}", "question")).isNotEqualTo(base);
+        assertThat(cache.key("openAI", "HyDE: {%s}", "question")).isNotEqualTo(base);
+        assertThat(cache.key("openAI", "Rewrite: {%s}", "other question")).isNotEqualTo(base);
+        assertThat(cache.key("openAI", "Rewrite: {%s}", "question", 1250)).isNotEqualTo(base);
+    }
+
+    @Test
+    @DisplayName("Should not collide when the same characters are split differently")
+    void key_shouldNotCollideOnDifferentSplits() {
+        PromptCache cache = new PromptCache(true, 10, "");
+        assertThat(cache.key("ab", "c", "d")).isNotEqualTo(cache.key("a", "bc", "d"));
+    }
+
+    @Test
+    @DisplayName("Should count hits and misses")
+    void get_shouldCountHitsAndMisses() {
+        PromptCache cache = new PromptCache(true, 10, "");
+        String key = cache.key("openAI", "t", "q");
+        assertThat(cache.get(key)).isEmpty();
+        cache.put(key, "answer");
+        assertThat(cache.get(key)).contains("answer");
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should export hits, misses and size as meters")
+    void bindTo_shouldExportCacheMeters() {
+        PromptCache cache = new PromptCache(true, 10, "");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        cache.get("a");
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("a");
+
+        assertThat(registry.get("rag.prompt.cache.requests").tag("result", "hit").functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("rag.prompt.cache.requests").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("rag.prompt.cache.size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when full")
+    void put_shouldEvictLeastRecentlyUsed() {
+        PromptCache cache = new PromptCache(true, 2, "");
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).contains("1");
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.get("c")).contains("3");
+    }
+
+    @Test
+    @DisplayName("Should neither store nor return entries when disabled")
+    void disabledCache_shouldBeNoOp() {
+        PromptCache cache = new PromptCache(false, 10, "");
+        cache.put("a", "1");
+        assertThat(cache.get("a")).isEmpty();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should restore persisted entries on load")
+    void saveAndLoad_shouldRoundTripEntries(@TempDir Path tempDir) {
+        String file = tempDir.resolve("prompt-cache.json").toString();
+        PromptCache cache = new PromptCache(true, 10, file);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.save();
+
+        PromptCache restored = new PromptCache(true, 10, file);
+        restored.load();
+
+        assertThat(restored.size()).isEqualTo(2);
+        assertThat(restored.get("a")).contains("1");
+        assertThat(restored.get("b")).contains("2");
+    }
+}
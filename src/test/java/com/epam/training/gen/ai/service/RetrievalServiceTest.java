@@ -0,0 +1,96 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
+import com.epam.training.gen.ai.model.SearchResult;
+import com.epam.training.gen.ai.store.Bm25Index;
+import com.epam.training.gen.ai.store.VectorStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RetrievalServiceTest {
+
+    private EmbeddingService embeddingService;
+    private VectorStore vectorStore;
+    private Bm25Index bm25Index;
+    private final ContextSelector noMmr = new ContextSelector(false, 0.7, 0);
+    private final SearchProfile profile = new SearchProfile("interactive", 64, false, null, null);
+
+    @BeforeEach
+    void setUp() {
+        embeddingService = mock(EmbeddingService.class);
+        vectorStore = mock(VectorStore.class);
+        bm25Index = new Bm25Index(1.2f, 0.75f, "");
+    }
+
+    @Test
+    @DisplayName("Should fuse vector and BM25 rankings and fetch texts of lexical-only hits")
+    void retrieve_shouldFuseRankingsWithRrf() throws Exception {
+        when(embeddingService.searchSimilarText(eq("hypothetical answer"), anyInt(), eq(SearchFilter.forFile("plan.pdf")), eq(false), eq(profile)))
+                .thenReturn(List.of(result("dense-only"), result("both")));
+        bm25Index.add("both", "Northwind Health Plus deductible", "plan.pdf");
+        bm25Index.add("lexical-only", "Northwind Health Plus vision coverage", "plan.pdf");
+        when(vectorStore.retrieve(List.of("lexical-only"), false)).thenReturn(List.of(result("lexical-only")));
+        RetrievalService service = new RetrievalService(embeddingService, vectorStore, bm25Index, noMmr, true, 20, 60, 10);
+
+        List<SearchResult> results = service.retrieve("hypothetical answer", "Northwind Health Plus", 3, SearchFilter.forFile("plan.pdf"), profile);
+
+        assertThat(results).extracting(SearchResult::getUuid).containsExactly("both", "dense-only", "lexical-only");
+        assertThat(results.get(0).getScore()).isEqualTo((float) (1.0 / 62 + 1.0 / 61));
+    }
+
+    @Test
+    @DisplayName("Should only fetch lexical hits that make it into the top results")
+    void retrieve_shouldNotFetchHitsBelowLimit() throws Exception {
+        when(embeddingService.searchSimilarText(eq("q"), anyInt(), eq(SearchFilter.all()), eq(false), eq(profile)))
+                .thenReturn(List.of(result("a"), result("b")));
+        bm25Index.add("c", "copay", null);
+        RetrievalService service = new RetrievalService(embeddingService, vectorStore, bm25Index, noMmr, true, 20, 60, 10);
+
+        List<SearchResult> results = service.retrieve("q", "copay", 1, SearchFilter.all(), profile);
+
+        assertThat(results).extracting(SearchResult::getUuid).containsExactly("a");
+        verify(vectorStore, never()).retrieve(List.of("c"), false);
+    }
+
+    @Test
+    @DisplayName("Should use plain vector search when hybrid retrieval is disabled")
+    void retrieve_withHybridDisabled_shouldUseVectorSearchOnly() throws Exception {
+        when(embeddingService.searchSimilarText("q", 2, SearchFilter.all(), false, profile)).thenReturn(List.of(result("a")));
+        bm25Index.add("b", "copay", null);
+        RetrievalService service = new RetrievalService(embeddingService, vectorStore, bm25Index, noMmr, false, 20, 60, 10);
+
+        assertThat(service.retrieve("q", "copay", 2, SearchFilter.all(), profile)).extracting(SearchResult::getUuid).containsExactly("a");
+    }
+
+    @Test
+    @DisplayName("Should over-fetch candidates with vectors and drop near-duplicates when MMR is enabled")
+    void retrieve_withMmr_shouldDiversifyCandidates() throws Exception {
+        SearchResult first = result("page-1");
+        first.setVector(new float[]{1f, 0f});
+        SearchResult duplicate = result("page-1-copy");
+        duplicate.setVector(new float[]{1f, 0f});
+        SearchResult other = result("page-7");
+        other.setVector(new float[]{0f, 1f});
+        when(embeddingService.searchSimilarText("q", 10, SearchFilter.all(), true, profile)).thenReturn(List.of(first, duplicate, other));
+        ContextSelector mmr = new ContextSelector(true, 0.5, 0);
+        RetrievalService service = new RetrievalService(embeddingService, vectorStore, bm25Index, mmr, false, 20, 60, 10);
+
+        assertThat(service.retrieve("q", "q", 2, SearchFilter.all(), profile)).extracting(SearchResult::getUuid).containsExactly("page-1", "page-7");
+    }
+
+    private static SearchResult result(String id) {
+        return new SearchResult(0.9f, id, "text of " + id, null, "plan.pdf");
+    }
+}
@@ -0,0 +1,73 @@
+package com.epam.training.gen.ai.service;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.epam.training.gen.ai.model.SearchBenchmarkRequest;
+import com.epam.training.gen.ai.model.SearchBenchmarkResult;
+import com.epam.training.gen.ai.store.HnswVectorStore;
+import com.epam.training.gen.ai.store.SearchProfiles;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static com.epam.training.gen.ai.service.EmbeddingService.ADA_002_MODEL_DIMENSION_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchBenchmarkServiceTest {
+
+    private final Random random = new Random(11);
+    private final EmbeddingService embeddingService = mock(EmbeddingService.class);
+
+    @Test
+    @DisplayName("Should report a measurement per hnsw ef with full recall once ef covers the store")
+    void run_shouldMeasureEveryEf() throws Exception {
+        HnswVectorStore store = new HnswVectorStore(4, 16, 8, 0, "");
+        for (int i = 0; i < 300; i++) {
+            store.upsert("id-" + i, vector(), new ChunkPayload("chunk " + i, "a.pdf"));
+        }
+        when(embeddingService.buildEmbeddings(anyList())).thenReturn(List.of(new EmbeddingVector(0, vector()), new EmbeddingVector(1, vector())));
+        SearchBenchmarkService service = new SearchBenchmarkService(embeddingService, store, new SearchProfiles());
+
+        SearchBenchmarkResult result = service.run(new SearchBenchmarkRequest(List.of("first", "second"), 5, List.of(5, 300), 2, null));
+
+        assertThat(result.getQueries()).isEqualTo(2);
+        assertThat(result.getMeasurements()).extracting(SearchBenchmarkResult.EfMeasurement::getHnswEf).containsExactly(5, 300);
+        assertThat(result.getMeasurements()).allMatch(measurement -> measurement.getRecall() >= 0 && measurement.getRecall() <= 1
+                && measurement.getP95LatencyMs() >= 0);
+        assertThat(result.getMeasurements().get(1).getRecall()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should reject a benchmark without queries")
+    void run_withoutQueries_shouldFail() {
+        SearchBenchmarkService service = new SearchBenchmarkService(embeddingService, new HnswVectorStore(4, 16, 8, 0, ""), new SearchProfiles());
+
+        assertThatThrownBy(() -> service.run(new SearchBenchmarkRequest())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Should compute recall and nearest-rank percentiles")
+    void statistics_shouldMatchDefinitions() {
+        assertThat(SearchBenchmarkService.recall(Set.of("a", "b", "c", "d"), Set.of("a", "c", "x"))).isEqualTo(0.5);
+        long[] nanos = {4_000_000, 1_000_000, 3_000_000, 2_000_000};
+        assertThat(SearchBenchmarkService.meanMillis(nanos)).isCloseTo(2.5, offset(1e-9));
+        assertThat(SearchBenchmarkService.percentileMillis(nanos, 0.95)).isEqualTo(4.0);
+        assertThat(SearchBenchmarkService.percentileMillis(nanos, 0.5)).isEqualTo(2.0);
+    }
+
+    private float[] vector() {
+        float[] vector = new float[ADA_002_MODEL_DIMENSION_SIZE];
+        for (int i = 0; i < ADA_002_MODEL_DIMENSION_SIZE; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
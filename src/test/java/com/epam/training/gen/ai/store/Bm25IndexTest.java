@@ -0,0 +1,132 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.SearchFilter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Bm25IndexTest {
+
+    @Test
+    @DisplayName("Should rank chunks containing the exact query terms first")
+    void search_shouldRankExactTermMatchesFirst() {
+        Bm25Index index = new Bm25Index(1.2f, 0.75f, "");
+        index.add("standard", "Northwind Standard covers preventive care and emergency services.", "standard.pdf");
+        index.add("plus", "Northwind Health Plus covers vision, dental and hearing in addition to the standard benefits.", "plus.pdf");
+        index.add("perks", "PerksPlus reimburses gym memberships and fitness classes.", "perks.pdf");
+
+        List<Bm25Index.Hit> hits = index.search("What does Northwind Health Plus cover for dental?", 10, SearchFilter.all());
+
+        assertThat(hits).extracting(Bm25Index.Hit::id).startsWith("plus").doesNotContain("perks");
+        assertThat(hits.get(0).score()).isGreaterThan(hits.get(1).score());
+    }
+
+    @Test
+    @DisplayName("Should restrict results to the requested source filename")
+    void search_withFilename_shouldOnlyReturnMatchingFile() {
+        Bm25Index index = new Bm25Index(1.2f, 0.75f, "");
+        index.add("a", "deductible for in-network care", "a.pdf");
+        index.add("b", "deductible for out-of-network care", "b.pdf");
+
+        assertThat(index.search("deductible", 10, "b.pdf")).extracting(Bm25Index.Hit::id).containsExactly("b");
+        assertThat(index.search("deductible", 10, "missing.pdf")).isEmpty();
+        assertThat(index.search("deductible", 10, SearchFilter.forFiles(List.of("a.pdf", "b.pdf", "missing.pdf"))))
+                .extracting(Bm25Index.Hit::id).containsExactlyInAnyOrder("a", "b");
+        assertThat(index.search("the and of", 10, SearchFilter.all())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should match a chunk shared by several files with a filter on any of them, also after a reload")
+    void setSourceFilenames_shouldMatchEveryFile(@TempDir Path tempDir) {
+        String file = tempDir.resolve("bm25.bin").toString();
+        Bm25Index index = new Bm25Index(1.2f, 0.75f, file);
+        index.add("shared", "all rights reserved", "standard.pdf");
+        index.add("other", "rights of members", "standard.pdf");
+
+        assertThat(index.setSourceFilenames("shared", List.of("standard.pdf", "plus.pdf"))).isTrue();
+        assertThat(index.setSourceFilenames("missing", List.of("plus.pdf"))).isFalse();
+        index.flush();
+        Bm25Index restored = new Bm25Index(1.2f, 0.75f, file);
+        restored.load();
+
+        for (Bm25Index target : List.of(index, restored)) {
+            assertThat(target.search("rights", 10, "plus.pdf")).extracting(Bm25Index.Hit::id).containsExactly("shared");
+            assertThat(target.search("rights", 10, "standard.pdf")).extracting(Bm25Index.Hit::id).containsExactlyInAnyOrder("shared", "other");
+        }
+        restored.add("shared", "all rights reserved", "plus.pdf");
+        assertThat(restored.search("rights", 10, "standard.pdf")).extracting(Bm25Index.Hit::id).containsExactly("other");
+    }
+
+    @Test
+    @DisplayName("Should only return chunks overlapping the page range, also after a reload")
+    void search_withPageRange_shouldReturnOverlappingChunks(@TempDir Path tempDir) {
+        String file = tempDir.resolve("bm25.bin").toString();
+        Bm25Index index = new Bm25Index(1.2f, 0.75f, file);
+        index.add("p1", "deductible on page one", "a.pdf", 1, 1);
+        index.add("p2-3", "deductible across pages two and three", "a.pdf", 2, 3);
+        index.add("p5", "deductible on page five", "a.pdf", 5, 5);
+        index.add("docx", "deductible without pages", "b.docx");
+        index.flush();
+
+        Bm25Index restored = new Bm25Index(1.2f, 0.75f, file);
+        restored.load();
+
+        for (Bm25Index candidate : List.of(index, restored)) {
+            assertThat(candidate.search("deductible", 10, SearchFilter.all().withPages(3, 4)))
+                    .extracting(Bm25Index.Hit::id).containsExactly("p2-3");
+            assertThat(candidate.search("deductible", 10, SearchFilter.forFile("a.pdf").withPages(null, 2)))
+                    .extracting(Bm25Index.Hit::id).containsExactlyInAnyOrder("p1", "p2-3");
+            assertThat(candidate.search("deductible", 10, SearchFilter.all())).hasSize(4);
+        }
+    }
+
+    @Test
+    @DisplayName("Should not return removed documents")
+    void remove_shouldDropDocuments() {
+        Bm25Index index = new Bm25Index(1.2f, 0.75f, "");
+        index.add("stale", "deductible before the edit", "a.pdf");
+        index.add("kept", "deductible after the edit", "a.pdf");
+
+        index.remove(List.of("stale", "missing"));
+
+        assertThat(index.contains("stale")).isFalse();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("deductible", 10, SearchFilter.all())).extracting(Bm25Index.Hit::id).containsExactly("kept");
+    }
+
+    @Test
+    @DisplayName("Should replace the document when the same ID is indexed again")
+    void add_withExistingId_shouldReplaceDocument() {
+        Bm25Index index = new Bm25Index(1.2f, 0.75f, "");
+        index.add("id-1", "copay for specialists", "a.pdf");
+        index.add("id-1", "coinsurance for hospital stays", "b.pdf");
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("copay", 10, SearchFilter.all())).isEmpty();
+        assertThat(index.search("coinsurance", 10, "b.pdf")).extracting(Bm25Index.Hit::id).containsExactly("id-1");
+    }
+
+    @Test
+    @DisplayName("Should restore the compacted index from disk with identical scores")
+    void flushAndLoad_shouldRestoreIndex(@TempDir Path tempDir) {
+        String file = tempDir.resolve("bm25.bin").toString();
+        Bm25Index index = new Bm25Index(1.2f, 0.75f, file);
+        for (int i = 0; i < 300; i++) {
+            index.add("id-" + i, "chunk number " + i + " about " + (i % 7 == 0 ? "orthodontics" : "pharmacy benefits"), i % 2 == 0 ? "even.pdf" : null);
+        }
+        index.add("id-3", "replaced chunk about orthodontics", null);
+        index.flush();
+
+        Bm25Index restored = new Bm25Index(1.2f, 0.75f, file);
+        restored.load();
+
+        assertThat(restored.size()).isEqualTo(300);
+        assertThat(restored.search("orthodontics", 5, SearchFilter.all())).isEqualTo(index.search("orthodontics", 5, SearchFilter.all()));
+        assertThat(restored.search("orthodontics", 100, "even.pdf")).extracting(Bm25Index.Hit::id).doesNotContain("id-3", "id-7");
+    }
+}
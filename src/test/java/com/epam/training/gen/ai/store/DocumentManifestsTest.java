@@ -0,0 +1,59 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.DocumentManifest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentManifestsTest {
+
+    @Test
+    @DisplayName("Should bump the version and drop duplicate chunk IDs on every put")
+    void put_shouldIncrementVersion() {
+        DocumentManifests manifests = new DocumentManifests("");
+
+        assertThat(manifests.put("a.pdf", List.of("1", "2", "1"), 100L).getVersion()).isEqualTo(1);
+        DocumentManifest second = manifests.put("a.pdf", List.of("2", "3"), 200L);
+
+        assertThat(second.getVersion()).isEqualTo(2);
+        assertThat(manifests.get("a.pdf").getChunkIds()).containsExactly("2", "3");
+        assertThat(manifests.get("missing.pdf")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should report removed chunks as orphans unless another document references them")
+    void orphans_shouldSkipChunksSharedWithOtherDocuments() {
+        DocumentManifests manifests = new DocumentManifests("");
+        manifests.put("a.pdf", List.of("shared", "only-a", "kept"), 100L);
+        manifests.put("b.pdf", List.of("shared"), 100L);
+
+        assertThat(manifests.orphans("a.pdf", List.of("kept", "new"))).containsExactly("only-a");
+        assertThat(manifests.orphans("new.pdf", List.of("x"))).isEmpty();
+
+        manifests.put("b.pdf", List.of("other"), 200L);
+        assertThat(manifests.orphans("a.pdf", List.of("kept"))).containsExactly("shared", "only-a");
+    }
+
+    @Test
+    @DisplayName("Should restore manifests and reference counts from disk")
+    void flushAndLoad_shouldRestoreManifests(@TempDir Path tempDir) {
+        String file = tempDir.resolve("manifests.bin").toString();
+        DocumentManifests manifests = new DocumentManifests(file);
+        manifests.put("a.pdf", List.of("shared", "only-a"), 100L);
+        manifests.put("a.pdf", List.of("shared", "only-a"), 150L);
+        manifests.put("b.pdf", List.of("shared"), 200L);
+        manifests.flush();
+
+        DocumentManifests restored = new DocumentManifests(file);
+        restored.load();
+
+        assertThat(restored.size()).isEqualTo(2);
+        assertThat(restored.get("a.pdf")).isEqualTo(new DocumentManifest("a.pdf", 2, 150L, List.of("shared", "only-a")));
+        assertThat(restored.orphans("a.pdf", List.of())).containsExactly("only-a");
+    }
+}
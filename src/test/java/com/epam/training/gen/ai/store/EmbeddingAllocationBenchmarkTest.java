@@ -0,0 +1,103 @@
+package com.epam.training.gen.ai.store;
+
+import com.azure.ai.openai.models.Embeddings;
+import com.azure.json.JsonProviders;
+import com.azure.json.JsonReader;
+import com.epam.training.gen.ai.util.EmbeddingsJson;
+import io.qdrant.client.QueryFactory;
+import io.qdrant.client.VectorsFactory;
+import io.qdrant.client.grpc.Points;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import static com.epam.training.gen.ai.service.EmbeddingService.ADA_002_MODEL_DIMENSION_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes allocated per embedding on the ingest path (response to Qdrant point) and the query path
+ * (response to Qdrant query). It compares the SDK's boxed {@code List<Float>} with the primitive
+ * {@link EmbeddingsJson} parser. Allocation is measured with the per-thread counter of
+ * {@code com.sun.management.ThreadMXBean}.
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.iterations} changes the number of iterations.
+ */
+@Tag("benchmark")
+class EmbeddingAllocationBenchmarkTest {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sink;
+
+    @Test
+    void allocationPerEmbedding() throws IOException {
+        int iterations = Integer.getInteger("benchmark.iterations", 2_000);
+        byte[] response = embeddingsResponse(new Random(42));
+
+        IoTask boxedIngest = () -> {
+            List<Float> embedding = boxedEmbedding(response);
+            sink += Points.PointStruct.newBuilder().setVectors(VectorsFactory.vectors(embedding)).build().getSerializedSize();
+        };
+        IoTask primitiveIngest = () -> {
+            float[] embedding = EmbeddingsJson.readResponse(response).get(0).getEmbedding();
+            sink += Points.PointStruct.newBuilder().setVectors(Points.Vectors.newBuilder().setVector(QdrantVectorStore.denseVector(embedding))).build().getSerializedSize();
+        };
+        IoTask boxedQuery = () -> sink += QueryFactory.nearest(boxedEmbedding(response)).getSerializedSize();
+        IoTask primitiveQuery = () -> sink += QdrantVectorStore.nearest(EmbeddingsJson.readResponse(response).get(0).getEmbedding()).getSerializedSize();
+
+        System.out.printf("Allocation per %d-dim embedding, %d iterations%n", ADA_002_MODEL_DIMENSION_SIZE, iterations);
+        System.out.printf("%-18s %14s %12s%n", "path", "bytes/op", "latency(us)");
+        long boxedIngestBytes = measure("ingest boxed", boxedIngest, iterations);
+        long primitiveIngestBytes = measure("ingest primitive", primitiveIngest, iterations);
+        measure("query boxed", boxedQuery, iterations);
+        measure("query primitive", primitiveQuery, iterations);
+
+        assertThat(primitiveIngestBytes).isLessThan(boxedIngestBytes);
+    }
+
+    private static List<Float> boxedEmbedding(byte[] response) throws IOException {
+        try (JsonReader reader = JsonProviders.createReader(response)) {
+            return Embeddings.fromJson(reader).getData().get(0).getEmbedding();
+        }
+    }
+
+    private static long measure(String name, IoTask task, int iterations) throws IOException {
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            task.run();
+        }
+        double micros = (System.nanoTime() - start) / 1e3 / iterations;
+        long bytesPerOp = (THREADS.getThreadAllocatedBytes(threadId) - bytesBefore) / iterations;
+        System.out.printf("%-18s %14d %12.1f%n", name, bytesPerOp, micros);
+        return bytesPerOp;
+    }
+
+    private static byte[] embeddingsResponse(Random random) {
+        ByteBuffer buffer = ByteBuffer.allocate(ADA_002_MODEL_DIMENSION_SIZE * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < ADA_002_MODEL_DIMENSION_SIZE; i++) {
+            buffer.putFloat((float) random.nextGaussian() * 0.03f);
+        }
+        String json = "{\"object\":\"list\",\"data\":[{\"object\":\"embedding\",\"index\":0,\"embedding\":\""
+                + Base64.getEncoder().encodeToString(buffer.array())
+                + "\"}],\"model\":\"text-embedding-ada-002\",\"usage\":{\"prompt_tokens\":8,\"total_tokens\":8}}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface IoTask {
+        void run() throws IOException;
+    }
+}
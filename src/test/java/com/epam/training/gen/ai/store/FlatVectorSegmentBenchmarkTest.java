@@ -0,0 +1,74 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.epam.training.gen.ai.service.EmbeddingService.ADA_002_MODEL_DIMENSION_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exact search latency of a memory-mapped {@link FlatVectorSegment}, on one thread and on all cores,
+ * compared with the in-heap brute-force scan of {@link HnswIndex}.
+ * Run with {@code mvn test -Pbenchmark}; sizes can be changed with {@code -Dbenchmark.vectors}
+ * and {@code -Dbenchmark.queries}.
+ */
+@Tag("benchmark")
+class FlatVectorSegmentBenchmarkTest {
+
+    private static final int K = 10;
+
+    @Test
+    void exactSearchLatency(@TempDir Path directory) throws IOException {
+        int vectorCount = Integer.getInteger("benchmark.vectors", 100_000);
+        int queryCount = Integer.getInteger("benchmark.queries", 50);
+        Random random = new Random(42);
+        float[][] basis = HnswIndexTest.randomVectors(random, 48, ADA_002_MODEL_DIMENSION_SIZE);
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        try (FlatVectorSegment segment = FlatVectorSegment.open(directory, ADA_002_MODEL_DIMENSION_SIZE, 16_384)) {
+            long buildStart = System.nanoTime();
+            for (int i = 0; i < vectorCount; i++) {
+                segment.append("id-" + i, HnswIndexBenchmarkTest.embeddingLike(random, basis), new ChunkPayload("chunk " + i, null));
+            }
+            segment.flush();
+            double buildSeconds = (System.nanoTime() - buildStart) / 1e9;
+
+            float[][] queries = new float[queryCount][];
+            for (int q = 0; q < queryCount; q++) {
+                queries[q] = HnswIndexBenchmarkTest.embeddingLike(random, basis);
+            }
+            for (int q = 0; q < Math.min(queryCount, 10); q++) {
+                segment.search(queries[q], K, null, null);
+                segment.search(queries[q], K, null, pool);
+            }
+
+            long start = System.nanoTime();
+            for (float[] query : queries) {
+                segment.search(query, K, null, null);
+            }
+            double sequentialMillis = (System.nanoTime() - start) / 1e6 / queryCount;
+
+            start = System.nanoTime();
+            for (float[] query : queries) {
+                segment.search(query, K, null, pool);
+            }
+            double parallelMillis = (System.nanoTime() - start) / 1e6 / queryCount;
+
+            System.out.printf("Flat segment benchmark: %d vectors x %d dims, written in %.1f s%n", vectorCount, ADA_002_MODEL_DIMENSION_SIZE, buildSeconds);
+            System.out.printf("%-12s %12s%n", "mode", "latency(ms)");
+            System.out.printf("%-12s %12.2f%n", "1 thread", sequentialMillis);
+            System.out.printf("%-12s %12.2f%n", "fork-join(" + pool.getParallelism() + ")", parallelMillis);
+
+            assertThat(segment.search(queries[0], K, null, pool)).isEqualTo(segment.search(queries[0], K, null, null));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.SearchFilter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class FlatVectorSegmentTest {
+
+    private static final int DIMENSION = 32;
+
+    private static ForkJoinPool pool;
+
+    private final Random random = new Random(11);
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should return the same top-k as an exhaustive scan, in parallel and sequentially")
+    void search_shouldMatchExhaustiveScan() throws IOException {
+        float[][] vectors = HnswIndexTest.randomVectors(random, 10_000, DIMENSION);
+        try (FlatVectorSegment segment = FlatVectorSegment.open(directory, DIMENSION, 777)) {
+            for (int i = 0; i < vectors.length; i++) {
+                segment.append("id-" + i, vectors[i], new ChunkPayload("text " + i, null));
+            }
+            float[] query = HnswIndexTest.randomVector(random, DIMENSION);
+
+            List<ScoredNode> parallel = segment.search(query, 10, null, pool);
+            List<ScoredNode> sequential = segment.search(query, 10, null, null);
+
+            assertThat(parallel).extracting(ScoredNode::node).containsExactlyElementsOf(exhaustiveTop(vectors, query, 10));
+            assertThat(sequential).isEqualTo(parallel);
+            assertThat(parallel.get(0).score()).isGreaterThanOrEqualTo(parallel.get(9).score());
+        }
+    }
+
+    @Test
+    @DisplayName("Should only consider ordinals of the filtered source filename")
+    void search_withFileFilter_shouldOnlyReturnMatchingFile() throws IOException {
+        try (FlatVectorSegment segment = FlatVectorSegment.open(directory, DIMENSION, 64)) {
+            for (int i = 0; i < 100; i++) {
+                segment.append("id-" + i, HnswIndexTest.randomVector(random, DIMENSION), new ChunkPayload("text", i % 3 == 0 ? "a.pdf" : "b.pdf"));
+            }
+
+            List<ScoredNode> hits = segment.search(HnswIndexTest.randomVector(random, DIMENSION), 50, segment.fileFilter("a.pdf"), pool);
+
+            assertThat(segment.countForFile("a.pdf")).isEqualTo(34);
+            assertThat(hits).hasSize(34).allMatch(hit -> hit.node() % 3 == 0);
+            assertThat(segment.search(HnswIndexTest.randomVector(random, DIMENSION), 5, segment.fileFilter("missing.pdf"), pool)).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Should persist chunk positions and filter ordinals by page range")
+    void reopen_shouldRestorePositionsAndPageFilter() throws IOException {
+        try (FlatVectorSegment segment = FlatVectorSegment.open(directory, DIMENSION, 16)) {
+            for (int i = 0; i < 30; i++) {
+                segment.append("id-" + i, HnswIndexTest.randomVector(random, DIMENSION), new ChunkPayload("text " + i, "a.pdf")
+                        .withPosition(i + 1, i + 2, i * 10, i * 10 + 15));
+            }
+            segment.append("docx", HnswIndexTest.randomVector(random, DIMENSION), new ChunkPayload("no pages", "b.docx"));
+        }
+
+        try (FlatVectorSegment reopened = FlatVectorSegment.open(directory, DIMENSION, 16)) {
+            List<ScoredNode> hits = reopened.search(HnswIndexTest.randomVector(random, DIMENSION), 10,
+                    reopened.pageFilter(SearchFilter.all().withPages(10, 12)), pool);
+
+            assertThat(hits).extracting(ScoredNode::node).containsExactlyInAnyOrder(8, 9, 10, 11);
+            assertThat(reopened.payload(8)).isEqualTo(new ChunkPayload("text 8", "a.pdf").withPosition(9, 10, 80, 95));
+            assertThat(reopened.payload(30).getPageStart()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("Should persist the other files of a shared chunk and match them in file filters")
+    void reopen_shouldRestoreOtherSourceFilenames() throws IOException {
+        ChunkPayload shared = new ChunkPayload("boilerplate", "standard.pdf").withPosition(2, 2, 0, 50);
+        shared.setOtherSourceFilenames(List.of("plus.pdf", "perks.pdf"));
+        try (FlatVectorSegment segment = FlatVectorSegment.open(directory, DIMENSION, 16)) {
+            segment.append("shared", HnswIndexTest.randomVector(random, DIMENSION), shared);
+            segment.append("own", HnswIndexTest.randomVector(random, DIMENSION), new ChunkPayload("copay", "plus.pdf"));
+        }
+
+        try (FlatVectorSegment reopened = FlatVectorSegment.open(directory, DIMENSION, 16)) {
+            assertThat(reopened.payload(0)).isEqualTo(shared);
+            assertThat(reopened.countForFile("plus.pdf")).isEqualTo(2);
+            assertThat(reopened.search(HnswIndexTest.randomVector(random, DIMENSION), 5, reopened.fileFilter("perks.pdf"), pool))
+                    .extracting(ScoredNode::node).containsExactly(0);
+
+            reopened.overwrite(0, reopened.vector(0), new ChunkPayload("boilerplate", "standard.pdf"));
+            assertThat(reopened.countForFile("perks.pdf")).isZero();
+            assertThat(reopened.payload(0).getOtherSourceFilenames()).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("Should skip deleted vectors in searches and after reopening")
+    void delete_shouldHideVectorAcrossReopen() throws IOException {
+        float[] deletedVector = HnswIndexTest.randomVector(random, DIMENSION);
+        try (FlatVectorSegment segment = FlatVectorSegment.open(directory, DIMENSION, 16)) {
+            segment.append("deleted", deletedVector, new ChunkPayload("old", "a.pdf"));
+            for (int i = 1; i < 10; i++) {
+                segment.append("id-" + i, HnswIndexTest.randomVector(random, DIMENSION), new ChunkPayload("text " + i, "a.pdf"));
+            }
+            assertThat(segment.delete("deleted")).isTrue();
+            assertThat(segment.delete("missing")).isFalse();
+            assertThat(segment.search(deletedVector, 10, null, pool)).hasSize(9).noneMatch(hit -> hit.node() == 0);
+        }
+
+        try (FlatVectorSegment reopened = FlatVectorSegment.open(directory, DIMENSION, 16)) {
+            assertThat(reopened.size()).isEqualTo(10);
+            assertThat(reopened.liveCount()).isEqualTo(9);
+            assertThat(reopened.ordinalOf("deleted")).isNull();
+            assertThat(reopened.countForFile("a.pdf")).isEqualTo(9);
+            assertThat(reopened.search(deletedVector, 10, reopened.fileFilter("a.pdf"), pool)).noneMatch(hit -> hit.node() == 0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep reading and writing version 1 segments without positions")
+    void open_withVersionOneSegment_shouldStayCompatible() throws IOException {
+        FlatVectorSegment.open(directory, DIMENSION, 16).close();
+        try (FileChannel channel = FileChannel.open(directory.resolve(FlatVectorSegment.VECTORS_FILE), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 1), 4);
+        }
+        try (FlatVectorSegment segment = FlatVectorSegment.open(directory, DIMENSION, 16)) {
+            segment.append("id-1", HnswIndexTest.randomVector(random, DIMENSION), new ChunkPayload("first", "a.pdf").withPosition(1, 1, 0, 5));
+            segment.append("id-2", HnswIndexTest.randomVector(random, DIMENSION), new ChunkPayload("second", "a.pdf"));
+        }
+
+        try (FlatVectorSegment reopened = FlatVectorSegment.open(directory, DIMENSION, 16)) {
+            assertThat(reopened.payload(0)).isEqualTo(new ChunkPayload("first", "a.pdf"));
+            assertThat(reopened.payload(1).getText()).isEqualTo("second");
+        }
+    }
+
+    @Test
+    @DisplayName("Should reopen with the flushed vectors and payloads")
+    void reopen_shouldRestoreFlushedState() throws IOException {
+        float[] first = HnswIndexTest.randomVector(random, DIMENSION);
+        try (FlatVectorSegment segment = FlatVectorSegment.open(directory, DIMENSION, 4)) {
+            segment.append("id-1", first, new ChunkPayload("first text", "a.pdf"));
+            for (int i = 2; i <= 10; i++) {
+                segment.append("id-" + i, HnswIndexTest.randomVector(random, DIMENSION), new ChunkPayload("text " + i, null));
+            }
+            segment.overwrite(0, first, new ChunkPayload("replaced text", "b.pdf"));
+        }
+
+        try (FlatVectorSegment reopened = FlatVectorSegment.open(directory, DIMENSION, 4)) {
+            assertThat(reopened.size()).isEqualTo(10);
+            assertThat(reopened.ordinalOf("id-7")).isEqualTo(6);
+            ScoredNode top = reopened.search(first, 1, null, pool).get(0);
+            assertThat(reopened.idOf(top.node())).isEqualTo("id-1");
+            assertThat(top.score()).isCloseTo(1f, offset(1e-5f));
+            assertThat(reopened.payload(top.node())).isEqualTo(new ChunkPayload("replaced text", "b.pdf"));
+            assertThat(reopened.payload(9).getSourceFilename()).isNull();
+            assertThat(reopened.countForFile("a.pdf")).isZero();
+            assertThat(reopened.vector(0)).containsExactly(VectorMath.normalize(first), offset(1e-6f));
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore vectors appended after the last flush when reopened")
+    void reopen_shouldDropUnflushedAppends() throws IOException {
+        FlatVectorSegment segment = FlatVectorSegment.open(directory, DIMENSION, 8);
+        segment.append("id-1", HnswIndexTest.randomVector(random, DIMENSION), new ChunkPayload("kept", null));
+        segment.flush();
+        segment.append("id-2", HnswIndexTest.randomVector(random, DIMENSION), new ChunkPayload("lost", null));
+        // simulate a crash by reopening without closing: the header count is only published by flush
+        FlatVectorSegment reopened = FlatVectorSegment.open(directory, DIMENSION, 8);
+
+        assertThat(reopened.size()).isEqualTo(1);
+        assertThat(reopened.ordinalOf("id-2")).isNull();
+        reopened.append("id-3", HnswIndexTest.randomVector(random, DIMENSION), new ChunkPayload("new", null));
+        assertThat(reopened.payload(1).getText()).isEqualTo("new");
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should return exact scores for quantized candidates when rescoring")
+    void search_withQuantizationAndRescore_shouldRescoreCandidates() throws IOException {
+        float[][] vectors = HnswIndexTest.randomVectors(random, 2_000, DIMENSION);
+        QuantizationSettings settings = new QuantizationSettings(VectorQuantization.SCALAR, true, 3.0);
+        try (FlatVectorSegment segment = FlatVectorSegment.open(directory, DIMENSION, 256, settings)) {
+            for (int i = 0; i < vectors.length; i++) {
+                segment.append("id-" + i, vectors[i], new ChunkPayload("text " + i, null));
+            }
+            segment.flush();
+        }
+
+        // reopening rebuilds the quantized copy from the float vectors
+        try (FlatVectorSegment segment = FlatVectorSegment.open(directory, DIMENSION, 256, settings)) {
+            float[] query = HnswIndexTest.randomVector(random, DIMENSION);
+            float[] normalisedQuery = VectorMath.normalize(query);
+            List<ScoredNode> hits = segment.search(query, 10, null, pool);
+
+            assertThat(segment.heapBytesPerVector()).isEqualTo(DIMENSION + 4);
+            assertThat(hits).hasSize(10);
+            assertThat(hits.get(0).node()).isEqualTo(exhaustiveTop(vectors, query, 1).get(0));
+            for (ScoredNode hit : hits) {
+                float exact = VectorMath.dot(normalisedQuery, VectorMath.normalize(vectors[hit.node()]));
+                assertThat(hit.score()).isCloseTo(exact, offset(1e-5f));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should scan the float vectors of a quantized segment for exact searches")
+    void search_withExactSettings_shouldSkipQuantizedVectors() throws IOException {
+        float[][] vectors = HnswIndexTest.randomVectors(random, 2_000, DIMENSION);
+        QuantizationSettings binaryWithoutRescore = new QuantizationSettings(VectorQuantization.BINARY, false, 1.0);
+        try (FlatVectorSegment segment = FlatVectorSegment.open(directory, DIMENSION, 256, binaryWithoutRescore)) {
+            for (int i = 0; i < vectors.length; i++) {
+                segment.append("id-" + i, vectors[i], new ChunkPayload("text " + i, null));
+            }
+            float[] query = HnswIndexTest.randomVector(random, DIMENSION);
+
+            List<ScoredNode> exact = segment.search(query, 10, null, pool, QuantizationSettings.NONE);
+
+            assertThat(exact).extracting(ScoredNode::node).containsExactlyElementsOf(exhaustiveTop(vectors, query, 10));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject a segment opened with a different dimension")
+    void open_withOtherDimension_shouldFail() throws IOException {
+        FlatVectorSegment.open(directory, DIMENSION, 8).close();
+
+        assertThatThrownBy(() -> FlatVectorSegment.open(directory, DIMENSION * 2, 8))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("dimension");
+    }
+
+    private static List<Integer> exhaustiveTop(float[][] vectors, float[] query, int k) {
+        float[] normalisedQuery = VectorMath.normalize(query);
+        Integer[] order = new Integer[vectors.length];
+        float[] scores = new float[vectors.length];
+        for (int i = 0; i < vectors.length; i++) {
+            order[i] = i;
+            scores[i] = VectorMath.dot(normalisedQuery, VectorMath.normalize(vectors[i]));
+        }
+        Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        return List.of(order).subList(0, k);
+    }
+}
@@ -0,0 +1,34 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.EmbeddingModel;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FlatVectorStoreTest {
+
+    @Test
+    @DisplayName("Should record the embedding model and refuse to open the directory with another model")
+    void open_withOtherEmbeddingModel_shouldFail(@TempDir Path tempDir) throws Exception {
+        EmbeddingModel model = new EmbeddingModel("onnx:minilm/model.onnx", 4);
+        FlatVectorStore store = new FlatVectorStore(tempDir.toString(), 16, 1, "none", true, 2.0, model);
+        store.upsert("id-1", new float[]{1f, 0f, 0f, 0f}, new ChunkPayload("text", "a.pdf"));
+        store.close();
+
+        assertThat(Files.readString(tempDir.resolve(FlatVectorStore.MODEL_FILE)).trim()).isEqualTo("onnx:minilm/model.onnx");
+        assertThatThrownBy(() -> new FlatVectorStore(tempDir.toString(), 16, 1, "none", true, 2.0,
+                new EmbeddingModel("onnx:other/model.onnx", 4)))
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("onnx:minilm/model.onnx");
+
+        FlatVectorStore reopened = new FlatVectorStore(tempDir.toString(), 16, 1, "none", true, 2.0, model);
+        assertThat(reopened.contains("id-1")).isTrue();
+        reopened.close();
+    }
+}
@@ -0,0 +1,103 @@
+package com.epam.training.gen.ai.store;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.epam.training.gen.ai.service.EmbeddingService.ADA_002_MODEL_DIMENSION_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recall and latency of {@link HnswIndex} against brute-force search on ada-002 sized vectors.
+ * <p>
+ * Real embeddings occupy a low-dimensional manifold of the 1536-dimensional space, so the vectors are
+ * drawn from a random 48-dimensional subspace plus a little isotropic noise. Pure Gaussian vectors
+ * would be nearly orthogonal to each other, which is the worst case for any graph index and not
+ * representative of text embeddings.
+ * Run with {@code mvn test -Pbenchmark}; sizes can be changed with {@code -Dbenchmark.vectors}
+ * and {@code -Dbenchmark.queries}.
+ */
+@Tag("benchmark")
+class HnswIndexBenchmarkTest {
+
+    private static final int K = 10;
+    private static final int INTRINSIC_DIMENSION = 48;
+    private static final float NOISE = 0.05f;
+
+    @Test
+    void recallAndLatencyAgainstBruteForce() {
+        int vectorCount = Integer.getInteger("benchmark.vectors", 10_000);
+        int queryCount = Integer.getInteger("benchmark.queries", 200);
+        Random random = new Random(42);
+
+        HnswIndex index = new HnswIndex(ADA_002_MODEL_DIMENSION_SIZE, 16, 200, 1L);
+        long buildStart = System.nanoTime();
+        float[][] basis = HnswIndexTest.randomVectors(random, INTRINSIC_DIMENSION, ADA_002_MODEL_DIMENSION_SIZE);
+        for (int i = 0; i < vectorCount; i++) {
+            index.add(embeddingLike(random, basis));
+        }
+        double buildSeconds = (System.nanoTime() - buildStart) / 1e9;
+
+        float[][] queries = new float[queryCount][];
+        for (int q = 0; q < queryCount; q++) {
+            queries[q] = embeddingLike(random, basis);
+        }
+
+        // warm up both paths before measuring
+        for (int q = 0; q < Math.min(queryCount, 50); q++) {
+            index.bruteForce(queries[q], K, null);
+            index.search(queries[q], K, 64, null);
+        }
+
+        List<Set<Integer>> exact = new java.util.ArrayList<>(queryCount);
+        long bruteStart = System.nanoTime();
+        for (float[] query : queries) {
+            exact.add(index.bruteForce(query, K, null).stream().map(ScoredNode::node).collect(Collectors.toSet()));
+        }
+        double bruteMicros = (System.nanoTime() - bruteStart) / 1e3 / queryCount;
+
+        System.out.printf("HNSW benchmark: %d vectors x %d dims, built in %.1f s%n", vectorCount, ADA_002_MODEL_DIMENSION_SIZE, buildSeconds);
+        System.out.printf("%-12s %12s %10s%n", "mode", "latency(us)", "recall@" + K);
+        System.out.printf("%-12s %12.1f %10.3f%n", "brute-force", bruteMicros, 1.0);
+
+        double bestRecall = 0;
+        for (int ef : new int[]{16, 32, 64, 128, 256}) {
+            int found = 0;
+            long start = System.nanoTime();
+            for (int q = 0; q < queryCount; q++) {
+                Set<Integer> expected = exact.get(q);
+                for (ScoredNode hit : index.search(queries[q], K, ef, null)) {
+                    if (expected.contains(hit.node())) {
+                        found++;
+                    }
+                }
+            }
+            double micros = (System.nanoTime() - start) / 1e3 / queryCount;
+            double recall = found / (double) (queryCount * K);
+            bestRecall = Math.max(bestRecall, recall);
+            System.out.printf("%-12s %12.1f %10.3f%n", "hnsw ef=" + ef, micros, recall);
+        }
+
+        assertThat(bestRecall).isGreaterThan(0.9);
+    }
+
+    static float[] embeddingLike(Random random, float[][] basis) {
+        int dimension = basis[0].length;
+        float[] vector = new float[dimension];
+        for (float[] direction : basis) {
+            float weight = (float) random.nextGaussian();
+            for (int i = 0; i < dimension; i++) {
+                vector[i] += weight * direction[i];
+            }
+        }
+        VectorMath.normalizeInPlace(vector);
+        for (int i = 0; i < dimension; i++) {
+            vector[i] += NOISE * (float) random.nextGaussian() / (float) Math.sqrt(dimension);
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,130 @@
+package com.epam.training.gen.ai.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HnswIndexTest {
+
+    private static final int DIMENSION = 64;
+
+    @Test
+    @DisplayName("Should return empty result for an empty index")
+    void search_whenEmpty_shouldReturnEmptyList() {
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50, 1L);
+        assertThat(index.search(randomVector(new Random(1)), 5, 20, null)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should find an indexed vector as its own nearest neighbour")
+    void search_shouldFindExactVector() {
+        Random random = new Random(7);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50, 1L);
+        float[][] vectors = randomVectors(random, 500);
+        for (float[] vector : vectors) {
+            index.add(vector);
+        }
+
+        List<ScoredNode> hits = index.search(vectors[123], 1, 50, null);
+
+        assertThat(hits).hasSize(1);
+        assertThat(hits.get(0).node()).isEqualTo(123);
+        assertThat(hits.get(0).score()).isCloseTo(1f, org.assertj.core.data.Offset.offset(1e-4f));
+    }
+
+    @Test
+    @DisplayName("Should only return nodes accepted by the filter")
+    void search_withFilter_shouldOnlyReturnAcceptedNodes() {
+        Random random = new Random(11);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50, 1L);
+        for (float[] vector : randomVectors(random, 400)) {
+            index.add(vector);
+        }
+
+        List<ScoredNode> hits = index.search(randomVector(random), 10, 50, node -> node % 3 == 0);
+
+        assertThat(hits).hasSize(10).allMatch(hit -> hit.node() % 3 == 0);
+        assertThat(hits).isSortedAccordingTo((a, b) -> Float.compare(b.score(), a.score()));
+    }
+
+    @Test
+    @DisplayName("Should reach high recall@10 compared with brute force")
+    void search_shouldHaveHighRecallAgainstBruteForce() {
+        Random random = new Random(42);
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 100, 1L);
+        for (float[] vector : randomVectors(random, 3000)) {
+            index.add(vector);
+        }
+
+        int queries = 100;
+        int found = 0;
+        for (int q = 0; q < queries; q++) {
+            float[] query = randomVector(random);
+            Set<Integer> exact = index.bruteForce(query, 10, null).stream().map(ScoredNode::node).collect(Collectors.toSet());
+            found += (int) index.search(query, 10, 100, null).stream().filter(hit -> exact.contains(hit.node())).count();
+        }
+
+        assertThat(found / (double) (queries * 10)).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    @DisplayName("Should return identical results after a snapshot round trip")
+    void writeAndRead_shouldRoundTrip() throws IOException {
+        Random random = new Random(3);
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50, 1L);
+        for (float[] vector : randomVectors(random, 300)) {
+            index.add(vector);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        HnswIndex restored = HnswIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), 1L);
+
+        float[] query = randomVector(random);
+        assertThat(restored.size()).isEqualTo(300);
+        assertThat(restored.search(query, 5, 50, null)).isEqualTo(index.search(query, 5, 50, null));
+    }
+
+    @Test
+    @DisplayName("Should reject vectors of the wrong dimension")
+    void add_withWrongDimension_shouldThrow() {
+        HnswIndex index = new HnswIndex(DIMENSION, 8, 50, 1L);
+        assertThatThrownBy(() -> index.add(new float[DIMENSION + 1])).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static float[][] randomVectors(Random random, int count) {
+        return randomVectors(random, count, DIMENSION);
+    }
+
+    static float[][] randomVectors(Random random, int count, int dimension) {
+        float[][] vectors = new float[count][];
+        for (int i = 0; i < count; i++) {
+            vectors[i] = randomVector(random, dimension);
+        }
+        return vectors;
+    }
+
+    static float[] randomVector(Random random) {
+        return randomVector(random, DIMENSION);
+    }
+
+    static float[] randomVector(Random random, int dimension) {
+        float[] vector = new float[dimension];
+        for (int i = 0; i < dimension; i++) {
+            vector[i] = (float) random.nextGaussian();
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,237 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.EmbeddingModel;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
+import com.epam.training.gen.ai.model.SearchResult;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.epam.training.gen.ai.service.EmbeddingService.ADA_002_MODEL_DIMENSION_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Assertions.tuple;
+
+class HnswVectorStoreTest {
+
+    private final Random random = new Random(5);
+
+    @Test
+    @DisplayName("Should report stored IDs as contained")
+    void upsert_shouldMakeIdContained() {
+        HnswVectorStore store = new HnswVectorStore(8, 50, 32, 2000, "");
+        store.upsert("id-1", vector(), new ChunkPayload("text", "a.pdf"));
+
+        assertThat(store.contains("id-1")).isTrue();
+        assertThat(store.contains("id-2")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should replace the payload when the same ID is stored again")
+    void upsert_withExistingId_shouldReplacePayload() {
+        HnswVectorStore store = new HnswVectorStore(8, 50, 32, 2000, "");
+        float[] vector = vector();
+        store.upsert("id-1", vector, new ChunkPayload("old", "a.pdf"));
+        store.upsert("id-1", vector, new ChunkPayload("new", "b.pdf"));
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.search(vector, 1, "a.pdf")).isEmpty();
+        assertThat(store.search(vector, 1, "b.pdf")).extracting(SearchResult::getText).containsExactly("new");
+    }
+
+    @Test
+    @DisplayName("Should restrict results to the requested source filename")
+    void search_withFilename_shouldOnlyReturnMatchingFile() {
+        HnswVectorStore store = new HnswVectorStore(8, 50, 32, 2000, "");
+        for (int i = 0; i < 50; i++) {
+            store.upsert("id-" + i, vector(), new ChunkPayload("chunk " + i, i % 2 == 0 ? "even.pdf" : "odd.pdf"));
+        }
+
+        List<SearchResult> results = store.search(vector(), 5, "odd.pdf");
+
+        assertThat(results).hasSize(5).allMatch(result -> "odd.pdf".equals(result.getSourceFilename()));
+        assertThat(store.search(vector(), 5, "missing.pdf")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should search a set of files or all documents")
+    void search_withFileSet_shouldReturnAnyMatchingFile() {
+        HnswVectorStore store = new HnswVectorStore(8, 50, 32, 2000, "");
+        for (int i = 0; i < 60; i++) {
+            store.upsert("id-" + i, vector(), new ChunkPayload("chunk " + i, "file-" + (i % 3) + ".pdf"));
+        }
+        store.upsert("no-file", vector(), new ChunkPayload("no file", null));
+
+        List<SearchResult> results = store.search(vector(), 30, SearchFilter.forFiles(List.of("file-0.pdf", "file-2.pdf")), false);
+
+        assertThat(results).hasSize(30).extracting(SearchResult::getSourceFilename).containsOnly("file-0.pdf", "file-2.pdf");
+        assertThat(store.search(vector(), 61, SearchFilter.all(), false)).hasSize(61);
+    }
+
+    @Test
+    @DisplayName("Should retrieve stored points by ID and skip unknown IDs")
+    void retrieve_shouldReturnKnownPoints() {
+        HnswVectorStore store = new HnswVectorStore(8, 50, 32, 2000, "");
+        store.upsert("id-1", vector(), new ChunkPayload("first", "a.pdf"));
+        store.upsert("id-2", vector(), new ChunkPayload("second", null));
+
+        List<SearchResult> results = store.retrieve(List.of("id-2", "missing"), true);
+
+        assertThat(results).extracting(SearchResult::getUuid, SearchResult::getText).containsExactly(tuple("id-2", "second"));
+        assertThat(VectorMath.dot(results.get(0).getVector(), results.get(0).getVector())).isCloseTo(1f, offset(1e-5f));
+    }
+
+    @Test
+    @DisplayName("Should restore points and payloads from the snapshot file")
+    void flushAndLoad_shouldRestoreStore(@TempDir Path tempDir) {
+        String snapshot = tempDir.resolve("hnsw.bin").toString();
+        HnswVectorStore store = new HnswVectorStore(8, 50, 32, 2000, snapshot);
+        float[] vector = vector();
+        store.upsert("id-1", vector, new ChunkPayload("persisted text", "a.pdf"));
+        store.upsert("id-2", vector(), new ChunkPayload("other text", null));
+        store.flush();
+
+        HnswVectorStore restored = new HnswVectorStore(8, 50, 32, 2000, snapshot);
+        restored.load();
+
+        assertThat(restored.size()).isEqualTo(2);
+        assertThat(restored.contains("id-2")).isTrue();
+        SearchResult top = restored.search(vector, 1, "a.pdf").get(0);
+        assertThat(top.getUuid()).isEqualTo("id-1");
+        assertThat(top.getText()).isEqualTo("persisted text");
+    }
+
+    @Test
+    @DisplayName("Should find a point shared by several files with a filter on any of them, also after a reload")
+    void setSourceFilenames_shouldMatchEveryFile(@TempDir Path tempDir) throws Exception {
+        String snapshot = tempDir.resolve("hnsw.bin").toString();
+        HnswVectorStore store = new HnswVectorStore(8, 50, 32, 2000, snapshot);
+        float[] vector = vector();
+        store.upsert("shared", vector, new ChunkPayload("boilerplate", "standard.pdf").withPosition(3, 3, 100, 200));
+        store.upsert("other", vector(), new ChunkPayload("copay", "standard.pdf"));
+
+        assertThat(store.setSourceFilenames("shared", List.of("standard.pdf", "plus.pdf"))).isTrue();
+        assertThat(store.setSourceFilenames("missing", List.of("plus.pdf"))).isFalse();
+        store.flush();
+        HnswVectorStore restored = new HnswVectorStore(8, 50, 32, 2000, snapshot);
+        restored.load();
+
+        for (HnswVectorStore target : List.of(store, restored)) {
+            List<SearchResult> results = target.search(vector, 5, "plus.pdf");
+            assertThat(results).extracting(SearchResult::getUuid).containsExactly("shared");
+            assertThat(results.get(0).getSourceFilename()).isEqualTo("standard.pdf");
+            assertThat(results.get(0).getOtherSourceFilenames()).containsExactly("plus.pdf");
+            assertThat(results.get(0).getPageStart()).isEqualTo(3);
+            assertThat(target.search(vector, 5, "standard.pdf")).hasSize(2);
+        }
+        restored.setSourceFilenames("shared", List.of("plus.pdf"));
+        assertThat(restored.search(vector, 5, "standard.pdf")).extracting(SearchResult::getUuid).containsExactly("other");
+    }
+
+    @Test
+    @DisplayName("Should keep chunk positions in results and snapshots and filter by page range")
+    void search_withPageRange_shouldUseStoredPositions(@TempDir Path tempDir) {
+        String snapshot = tempDir.resolve("hnsw.bin").toString();
+        HnswVectorStore store = new HnswVectorStore(8, 50, 32, 2000, snapshot);
+        for (int i = 0; i < 40; i++) {
+            int page = i / 4 + 1;
+            store.upsert("id-" + i, vector(), new ChunkPayload("chunk " + i, "manual.pdf")
+                    .withPosition(page, page, i * 100, i * 100 + 90));
+        }
+        store.upsert("docx", vector(), new ChunkPayload("no pages", "notes.docx").withPosition(null, null, 0, 8));
+        store.flush();
+
+        HnswVectorStore restored = new HnswVectorStore(8, 50, 32, 2000, snapshot);
+        restored.load();
+
+        for (HnswVectorStore candidate : List.of(store, restored)) {
+            List<SearchResult> results = candidate.search(vector(), 20, SearchFilter.all().withPages(3, 4), false);
+            assertThat(results).hasSize(8).allMatch(result -> result.getPageStart() >= 3 && result.getPageEnd() <= 4);
+            SearchResult docx = candidate.retrieve(List.of("docx"), false).get(0);
+            assertThat(docx.getPageStart()).isNull();
+            assertThat(docx.getCharEnd()).isEqualTo(8);
+        }
+        SearchResult first = restored.retrieve(List.of("id-5"), false).get(0);
+        assertThat(List.of(first.getPageStart(), first.getPageEnd(), first.getCharStart(), first.getCharEnd()))
+                .containsExactly(2, 2, 500, 590);
+    }
+
+    @Test
+    @DisplayName("Should never return deleted points, also after a snapshot reload")
+    void delete_shouldTombstonePoints(@TempDir Path tempDir) {
+        String snapshot = tempDir.resolve("hnsw.bin").toString();
+        HnswVectorStore store = new HnswVectorStore(8, 50, 32, 2000, snapshot);
+        float[] deletedVector = vector();
+        store.upsert("deleted", deletedVector, new ChunkPayload("old text", "a.pdf"));
+        for (int i = 0; i < 20; i++) {
+            store.upsert("id-" + i, vector(), new ChunkPayload("chunk " + i, "a.pdf"));
+        }
+        store.delete(List.of("deleted", "missing"));
+        store.flush();
+
+        HnswVectorStore restored = new HnswVectorStore(8, 50, 32, 2000, snapshot);
+        restored.load();
+
+        for (HnswVectorStore candidate : List.of(store, restored)) {
+            assertThat(candidate.size()).isEqualTo(20);
+            assertThat(candidate.contains("deleted")).isFalse();
+            assertThat(candidate.search(deletedVector, 25, "a.pdf")).hasSize(20).noneMatch(result -> "deleted".equals(result.getUuid()));
+        }
+        restored.upsert("deleted", deletedVector, new ChunkPayload("re-added", "a.pdf"));
+        assertThat(restored.search(deletedVector, 1, "a.pdf").get(0).getText()).isEqualTo("re-added");
+    }
+
+    @Test
+    @DisplayName("Should refuse to load a snapshot of another embedding model")
+    void load_withOtherEmbeddingModel_shouldFail(@TempDir Path tempDir) {
+        String snapshot = tempDir.resolve("hnsw.bin").toString();
+        HnswVectorStore store = new HnswVectorStore(8, 50, 32, 2000, snapshot);
+        store.upsert("id-1", vector(), new ChunkPayload("text", "a.pdf"));
+        store.flush();
+
+        HnswVectorStore otherModel = new HnswVectorStore(8, 50, 32, 2000, snapshot,
+                new EmbeddingModel("onnx:other/model.onnx", ADA_002_MODEL_DIMENSION_SIZE));
+
+        assertThatThrownBy(otherModel::load).isInstanceOf(IllegalStateException.class).hasMessageContaining("azure:text-embedding-ada-002");
+        HnswVectorStore sameModel = new HnswVectorStore(8, 50, 32, 2000, snapshot, EmbeddingModel.ADA_002);
+        sameModel.load();
+        assertThat(sameModel.contains("id-1")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should search exactly with an exact profile and honour the profile's hnsw ef")
+    void search_withProfile_shouldUseProfileSettings() {
+        HnswVectorStore store = new HnswVectorStore(4, 16, 8, 0, "");
+        float[][] vectors = new float[500][];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = vector();
+            store.upsert("id-" + i, vectors[i], new ChunkPayload("chunk " + i, "a.pdf"));
+        }
+        float[] query = vector();
+        float[] normalisedQuery = VectorMath.normalize(query);
+        List<String> expected = IntStream.range(0, vectors.length).boxed()
+                .sorted((a, b) -> Float.compare(VectorMath.dot(normalisedQuery, VectorMath.normalize(vectors[b])),
+                        VectorMath.dot(normalisedQuery, VectorMath.normalize(vectors[a]))))
+                .limit(10)
+                .map(i -> "id-" + i)
+                .collect(Collectors.toList());
+
+        assertThat(store.search(query, 10, SearchFilter.all(), false, SearchProfile.exactSearch()))
+                .extracting(SearchResult::getUuid).containsExactlyElementsOf(expected);
+        assertThat(store.search(query, 10, SearchFilter.all(), false, SearchProfile.storeDefaults().withHnswEf(500)))
+                .extracting(SearchResult::getUuid).containsExactlyElementsOf(expected);
+    }
+
+    private float[] vector() {
+        return HnswIndexTest.randomVector(random, ADA_002_MODEL_DIMENSION_SIZE);
+    }
+}
@@ -0,0 +1,73 @@
+package com.epam.training.gen.ai.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NearDuplicateIndexTest {
+
+    private static final String COPAY = "Members pay a copay of twenty dollars for each visit to an in-network "
+            + "primary care physician, and forty dollars for each visit to a specialist. Preventive care visits "
+            + "such as annual checkups, immunizations and screenings are covered in full without a copay.";
+    private static final String COPAY_WITH_HEADER = "Northwind Standard plan overview\n" + COPAY;
+    private static final String VISION = "Vision care covers one eye exam every twelve months and an allowance "
+            + "towards frames or contact lenses, with discounts on laser vision correction at partner clinics.";
+
+    @Test
+    @DisplayName("Should find a stored chunk that differs only by a header line or a page reference")
+    void findDuplicate_shouldMatchNearlyEqualChunk() {
+        NearDuplicateIndex index = new NearDuplicateIndex(true, 0.8, 128, 16, 3, "");
+        index.add("copay", index.signature(COPAY));
+        index.add("vision", index.signature(VISION));
+
+        NearDuplicateIndex.Match match = index.findDuplicate(index.signature(COPAY_WITH_HEADER), Set.of());
+
+        assertThat(match.id()).isEqualTo("copay");
+        assertThat(match.similarity()).isGreaterThanOrEqualTo(0.8);
+        assertThat(index.findDuplicate(index.signature(COPAY_WITH_HEADER), Set.of("copay"))).isNull();
+        assertThat(index.findDuplicate(index.signature("Dental care is covered twice a year."), Set.of())).isNull();
+        assertThat(index.findDuplicate(index.signature(COPAY + " See page 14."), Set.of()).id()).isEqualTo("copay");
+        assertThat(index.findDuplicate(index.signature(COPAY.replace("twenty dollars", "$20")), Set.of())).isNull();
+    }
+
+    @Test
+    @DisplayName("Should forget removed chunks and do nothing when disabled")
+    void remove_shouldDropSignatures() {
+        NearDuplicateIndex index = new NearDuplicateIndex(true, 0.9, 128, 16, 3, "");
+        index.add("copay", index.signature(COPAY));
+        index.remove(List.of("copay", "unknown"));
+
+        assertThat(index.size()).isZero();
+        assertThat(index.findDuplicate(index.signature(COPAY), Set.of())).isNull();
+
+        NearDuplicateIndex disabled = new NearDuplicateIndex(false, 0.9, 128, 16, 3, "");
+        disabled.add("copay", disabled.signature(COPAY));
+        assertThat(disabled.contains("copay")).isFalse();
+        assertThat(disabled.findDuplicate(disabled.signature(COPAY), Set.of())).isNull();
+    }
+
+    @Test
+    @DisplayName("Should restore signatures from disk and ignore a file written with other settings")
+    void flushAndLoad_shouldRestoreSignatures(@TempDir Path tempDir) {
+        String file = tempDir.resolve("near-duplicates.bin").toString();
+        NearDuplicateIndex index = new NearDuplicateIndex(true, 0.9, 128, 16, 3, file);
+        index.add("copay", index.signature(COPAY));
+        index.add("vision", index.signature(VISION));
+        index.flush();
+
+        NearDuplicateIndex restored = new NearDuplicateIndex(true, 0.9, 128, 16, 3, file);
+        restored.load();
+        NearDuplicateIndex otherShingles = new NearDuplicateIndex(true, 0.9, 128, 16, 4, file);
+        otherShingles.load();
+
+        assertThat(restored.size()).isEqualTo(2);
+        assertThat(restored.findDuplicate(restored.signature(VISION), Set.of()).id()).isEqualTo("vision");
+        assertThat(otherShingles.size()).isZero();
+    }
+}
@@ -0,0 +1,414 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.model.CollectionSpec;
+import com.epam.training.gen.ai.model.EmbeddingModel;
+import com.epam.training.gen.ai.model.SearchFilter;
+import com.epam.training.gen.ai.model.SearchProfile;
+import com.epam.training.gen.ai.model.SearchResult;
+import com.google.common.util.concurrent.Futures;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.qdrant.client.ConditionFactory;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.QueryFactory;
+import io.qdrant.client.VectorFactory;
+import io.qdrant.client.VectorsFactory;
+import io.qdrant.client.grpc.Collections.AliasDescription;
+import io.qdrant.client.grpc.Collections.AliasOperations;
+import io.qdrant.client.grpc.Collections.CollectionConfig;
+import io.qdrant.client.grpc.Collections.CollectionInfo;
+import io.qdrant.client.grpc.Collections.CollectionOperationResponse;
+import io.qdrant.client.grpc.Collections.CollectionParams;
+import io.qdrant.client.grpc.Collections.CreateCollection;
+import io.qdrant.client.grpc.Collections.QuantizationConfig;
+import io.qdrant.client.grpc.Collections.QuantizationType;
+import io.qdrant.client.grpc.Collections.VectorParams;
+import io.qdrant.client.grpc.Collections.VectorsConfig;
+import io.qdrant.client.grpc.Points;
+import io.qdrant.client.grpc.Points.PointStruct;
+import io.qdrant.client.grpc.Points.QueryPoints;
+import io.qdrant.client.grpc.Points.RetrievedPoint;
+import io.qdrant.client.grpc.Points.ScrollResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.qdrant.client.ValueFactory.list;
+import static io.qdrant.client.ValueFactory.value;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QdrantVectorStoreTest {
+
+    private final QdrantClient qdrantClient = mock(QdrantClient.class);
+
+    @Test
+    @DisplayName("Should map scalar quantization to an int8 Qdrant config")
+    void quantizationConfig_withScalar_shouldUseInt8() {
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "int8", true, 2.0, false);
+
+        QuantizationConfig config = store.quantizationConfig();
+
+        assertThat(config.hasScalar()).isTrue();
+        assertThat(config.getScalar().getType()).isEqualTo(QuantizationType.Int8);
+        assertThat(config.getScalar().getAlwaysRam()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should map binary quantization to a binary Qdrant config")
+    void quantizationConfig_withBinary_shouldUseBinary() {
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "binary", true, 3.0, true);
+
+        QuantizationConfig config = store.quantizationConfig();
+
+        assertThat(config.hasBinary()).isTrue();
+        assertThat(config.getBinary().getAlwaysRam()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should not configure quantization when disabled")
+    void quantizationConfig_withNone_shouldBeNull() {
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true);
+
+        assertThat(store.quantizationConfig()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should map file filters to keyword conditions and all documents to no filter")
+    void payloadFilter_shouldMatchSourceFilenames() {
+        assertThat(QdrantVectorStore.payloadFilter(SearchFilter.all())).isNull();
+        assertThat(QdrantVectorStore.payloadFilter(SearchFilter.forFile("a.pdf")).getMust(0))
+                .isEqualTo(ConditionFactory.matchKeyword("source_filename", "a.pdf"));
+        assertThat(QdrantVectorStore.payloadFilter(SearchFilter.forFiles(List.of("a.pdf", "b.pdf"))).getMust(0))
+                .isEqualTo(ConditionFactory.matchKeywords("source_filename", List.of("a.pdf", "b.pdf")));
+    }
+
+    @Test
+    @DisplayName("Should write the files of a shared chunk as a list that keyword conditions match")
+    void payloadMap_withOtherSourceFilenames_shouldWriteList() {
+        ChunkPayload shared = new ChunkPayload("boilerplate", "standard.pdf");
+        shared.setOtherSourceFilenames(List.of("plus.pdf"));
+
+        assertThat(QdrantVectorStore.payloadMap(shared).get("source_filename"))
+                .isEqualTo(list(List.of(value("standard.pdf"), value("plus.pdf"))));
+        assertThat(QdrantVectorStore.payloadMap(new ChunkPayload("copay", "plus.pdf")).get("source_filename"))
+                .isEqualTo(value("plus.pdf"));
+    }
+
+    @Test
+    @DisplayName("Should map a page range to overlap conditions on the page indexes")
+    void payloadFilter_withPageRange_shouldAddRangeConditions() {
+        Points.Filter filter = QdrantVectorStore.payloadFilter(SearchFilter.forFile("a.pdf").withPages(3, 5));
+
+        assertThat(filter.getMustList()).containsExactly(
+                ConditionFactory.matchKeyword("source_filename", "a.pdf"),
+                ConditionFactory.range("page_start", Points.Range.newBuilder().setGte(1).setLte(5).build()),
+                ConditionFactory.range("page_end", Points.Range.newBuilder().setGte(3).build()));
+        assertThat(QdrantVectorStore.payloadFilter(SearchFilter.all().withPages(null, 2)).getMustList())
+                .containsExactly(ConditionFactory.range("page_start", Points.Range.newBuilder().setGte(1).setLte(2).build()));
+    }
+
+    @Test
+    @DisplayName("Should build the same protobuf messages as the client factories")
+    void primitiveBuilders_shouldMatchClientFactories() {
+        float[] vector = {0.25f, -1f, 3.5f};
+
+        assertThat(QdrantVectorStore.denseVector(vector)).isEqualTo(VectorFactory.vector(vector));
+        assertThat(QdrantVectorStore.nearest(vector)).isEqualTo(QueryFactory.nearest(vector));
+        assertThat(QdrantVectorStore.toFloatArray(VectorsFactory.vectors(vector))).containsExactly(vector);
+    }
+
+    @Test
+    @DisplayName("Should apply the HNSW and quantization parameters of a collection spec")
+    void collectionRequest_shouldUseSpecParameters() {
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "int8", true, 2.0, false);
+
+        CreateCollection tuned = store.collectionRequest("embedding_collection_v2", new CollectionSpec(32, 256, 5000, true, true, false, "binary", false, false, false));
+        CreateCollection defaults = store.collectionRequest("embedding_collection_v1", new CollectionSpec());
+
+        assertThat(tuned.getHnswConfig().getM()).isEqualTo(32);
+        assertThat(tuned.getHnswConfig().getEfConstruct()).isEqualTo(256);
+        assertThat(tuned.getHnswConfig().getFullScanThreshold()).isEqualTo(5000);
+        assertThat(tuned.getHnswConfig().getOnDisk()).isTrue();
+        assertThat(tuned.getVectorsConfig().getParams().getOnDisk()).isTrue();
+        assertThat(tuned.getOnDiskPayload()).isFalse();
+        assertThat(tuned.getQuantizationConfig().hasBinary()).isTrue();
+        assertThat(defaults.hasHnswConfig()).isFalse();
+        assertThat(defaults.getQuantizationConfig().hasScalar()).isTrue();
+        assertThat(defaults.getVectorsConfig().getParams().getSize()).isEqualTo(1536);
+        assertThat(defaults.hasOnDiskPayload()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should map search profiles to Qdrant search params")
+    void searchParams_shouldFollowProfile() {
+        QdrantVectorStore quantized = new QdrantVectorStore(qdrantClient, "int8", true, 2.0, true);
+        QdrantVectorStore plain = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true);
+
+        Points.SearchParams interactive = quantized.searchParams(new SearchProfile("interactive", 128, false, null, 3.0));
+
+        assertThat(interactive.getHnswEf()).isEqualTo(128);
+        assertThat(interactive.getQuantization().getRescore()).isTrue();
+        assertThat(interactive.getQuantization().getOversampling()).isEqualTo(3.0);
+        assertThat(quantized.searchParams(SearchProfile.exactSearch()).getExact()).isTrue();
+        assertThat(quantized.searchParams(SearchProfile.exactSearch()).hasQuantization()).isFalse();
+        assertThat(plain.searchParams(SearchProfile.storeDefaults())).isEqualTo(Points.SearchParams.getDefaultInstance());
+    }
+
+    @Test
+    @DisplayName("Should parse collection versions and ignore other collections")
+    void collectionVersions_shouldSortByVersion() throws Exception {
+        when(qdrantClient.listCollectionsAsync()).thenReturn(Futures.immediateFuture(List.of(
+                "embedding_collection_v10", "embedding_collection", "other", "embedding_collection_v2", "embedding_collection_vx")));
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true);
+
+        assertThat(store.collectionVersions()).containsExactly("embedding_collection_v2", "embedding_collection_v10");
+        assertThat(store.nextCollectionVersion()).isEqualTo("embedding_collection_v11");
+    }
+
+    @Test
+    @DisplayName("Should move the alias with one delete-and-create request")
+    void activate_shouldSwapAliasAtomically() throws Exception {
+        when(qdrantClient.collectionExistsAsync("embedding_collection_v2")).thenReturn(Futures.immediateFuture(true));
+        when(qdrantClient.listAliasesAsync()).thenReturn(Futures.immediateFuture(List.of(AliasDescription.newBuilder()
+                .setAliasName("embedding_collection").setCollectionName("embedding_collection_v1").build())));
+        when(qdrantClient.updateAliasesAsync(anyList())).thenReturn(Futures.immediateFuture(
+                CollectionOperationResponse.newBuilder().setResult(true).build()));
+        stubCollectionModel(1536, 0);
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true);
+
+        store.activate("embedding_collection_v2", false);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AliasOperations>> operations = ArgumentCaptor.forClass(List.class);
+        verify(qdrantClient).updateAliasesAsync(operations.capture());
+        assertThat(operations.getValue()).hasSize(2);
+        assertThat(operations.getValue().get(0).getDeleteAlias().getAliasName()).isEqualTo("embedding_collection");
+        assertThat(operations.getValue().get(1).getCreateAlias().getCollectionName()).isEqualTo("embedding_collection_v2");
+    }
+
+    @Test
+    @DisplayName("Should only replace a collection that predates aliases when allowed to drop it")
+    void activate_withLegacyCollection_shouldRequireDropLegacy() throws Exception {
+        when(qdrantClient.collectionExistsAsync(any(String.class))).thenReturn(Futures.immediateFuture(true));
+        when(qdrantClient.listAliasesAsync()).thenReturn(Futures.immediateFuture(List.of()));
+        stubCollectionModel(1536, 0);
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true);
+
+        assertThatThrownBy(() -> store.activate("embedding_collection_v1", false))
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("dropLegacy");
+        verify(qdrantClient, never()).deleteCollectionAsync(any(String.class));
+    }
+
+    @Test
+    @DisplayName("Should copy vectors and payloads page by page and skip points already in the target")
+    void copyPoints_shouldSkipExistingPoints() throws Exception {
+        RetrievedPoint first = point("11111111-1111-1111-1111-111111111111", "first");
+        RetrievedPoint second = point("22222222-2222-2222-2222-222222222222", "second");
+        RetrievedPoint third = point("33333333-3333-3333-3333-333333333333", "third");
+        when(qdrantClient.scrollAsync(any(Points.ScrollPoints.class))).thenReturn(
+                Futures.immediateFuture(ScrollResponse.newBuilder().addResult(first).addResult(second).setNextPageOffset(third.getId()).build()),
+                Futures.immediateFuture(ScrollResponse.newBuilder().addResult(third).build()));
+        when(qdrantClient.retrieveAsync(eq("target"), anyList(), eq(false), eq(false), any())).thenReturn(
+                Futures.immediateFuture(List.of(RetrievedPoint.newBuilder().setId(second.getId()).build())),
+                Futures.immediateFuture(List.of()));
+        stubSourcePoints(first, second, third);
+        when(qdrantClient.upsertAsync(eq("target"), anyList())).thenReturn(Futures.immediateFuture(Points.UpdateResult.getDefaultInstance()));
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true);
+        List<Long> progress = new ArrayList<>();
+
+        long written = store.copyPoints("source", "target", 2, null, progress::add);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PointStruct>> upserts = ArgumentCaptor.forClass(List.class);
+        verify(qdrantClient, times(2)).upsertAsync(eq("target"), upserts.capture());
+        assertThat(written).isEqualTo(2);
+        assertThat(progress).containsExactly(2L, 3L);
+        assertThat(upserts.getAllValues()).flatExtracting(points -> points).extracting(PointStruct::getId)
+                .containsExactly(first.getId(), third.getId());
+        assertThat(upserts.getAllValues().get(0).get(0).getVectors()).isEqualTo(first.getVectors());
+        assertThat(upserts.getAllValues().get(0).get(0).getPayloadMap()).isEqualTo(first.getPayloadMap());
+    }
+
+    @Test
+    @DisplayName("Should not copy a point deleted after its page was read, and copy the current payload of the others")
+    void copyPoints_withChangesDuringCopy_shouldWriteCurrentSourceState() throws Exception {
+        RetrievedPoint first = point("11111111-1111-1111-1111-111111111111", "first");
+        RetrievedPoint second = point("22222222-2222-2222-2222-222222222222", "second");
+        RetrievedPoint moved = first.toBuilder().putPayload("page_start", value(4)).build();
+        when(qdrantClient.scrollAsync(any(Points.ScrollPoints.class))).thenReturn(
+                Futures.immediateFuture(ScrollResponse.newBuilder().addResult(first).addResult(second).build()));
+        when(qdrantClient.retrieveAsync(eq("target"), anyList(), eq(false), eq(false), any())).thenReturn(Futures.immediateFuture(List.of()));
+        // by the time the page is written, the second point was deleted and the first one moved
+        stubSourcePoints(moved);
+        when(qdrantClient.upsertAsync(eq("target"), anyList())).thenReturn(Futures.immediateFuture(Points.UpdateResult.getDefaultInstance()));
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true);
+
+        long written = store.copyPoints("source", "target", 2, null, read -> { });
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PointStruct>> upserts = ArgumentCaptor.forClass(List.class);
+        verify(qdrantClient).upsertAsync(eq("target"), upserts.capture());
+        assertThat(written).isEqualTo(1);
+        assertThat(upserts.getValue()).extracting(PointStruct::getId).containsExactly(first.getId());
+        assertThat(upserts.getValue().get(0).getPayloadMap()).isEqualTo(moved.getPayloadMap());
+        assertThat(upserts.getValue().get(0).getVectors()).isEqualTo(first.getVectors());
+    }
+
+    @Test
+    @DisplayName("Should not count a mirrored payload update of a point the copy has not reached yet as a failure")
+    void updatePayload_whileMirroringUncopiedPoint_shouldNotFail() throws Exception {
+        when(qdrantClient.listAliasesAsync()).thenReturn(Futures.immediateFuture(List.of(AliasDescription.newBuilder()
+                .setAliasName("embedding_collection").setCollectionName("embedding_collection_v1").build())));
+        stubCollectionModel(1536, 0);
+        when(qdrantClient.overwritePayloadAsync(eq("embedding_collection"), anyMap(), any(Points.PointId.class), any(), any(), any()))
+                .thenReturn(Futures.immediateFuture(Points.UpdateResult.newBuilder().setStatus(Points.UpdateStatus.Completed).build()));
+        when(qdrantClient.overwritePayloadAsync(eq("embedding_collection_v2"), anyMap(), any(Points.PointId.class), any(), any(), any()))
+                .thenReturn(Futures.immediateFailedFuture(new StatusRuntimeException(Status.NOT_FOUND.withDescription("No point with id found"))),
+                        Futures.immediateFailedFuture(new StatusRuntimeException(Status.UNAVAILABLE)));
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true);
+        store.mirrorWritesTo("embedding_collection_v2");
+        ChunkPayload payload = new ChunkPayload("text", "a.pdf").withPosition(2, 2, 0, 4);
+
+        assertThat(store.updatePayload("11111111-1111-1111-1111-111111111111", payload)).isTrue();
+        assertThat(store.mirrorFailures()).isZero();
+
+        store.updatePayload("11111111-1111-1111-1111-111111111111", payload);
+        assertThat(store.mirrorFailures()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should mirror upserts to the collection being reindexed")
+    void upsert_whileMirroring_shouldWriteBothCollections() throws Exception {
+        when(qdrantClient.listAliasesAsync()).thenReturn(Futures.immediateFuture(List.of(AliasDescription.newBuilder()
+                .setAliasName("embedding_collection").setCollectionName("embedding_collection_v1").build())));
+        when(qdrantClient.upsertAsync(any(String.class), anyList())).thenReturn(Futures.immediateFuture(
+                Points.UpdateResult.newBuilder().setStatus(Points.UpdateStatus.Completed).build()));
+        stubCollectionModel(1536, 0);
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true);
+        store.mirrorWritesTo("embedding_collection_v2");
+
+        assertThat(store.upsert("11111111-1111-1111-1111-111111111111", new float[]{1f, 0f}, new ChunkPayload("text", "a.pdf"))).isTrue();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PointStruct>> upserted = ArgumentCaptor.forClass(List.class);
+        verify(qdrantClient).upsertAsync(eq("embedding_collection"), upserted.capture());
+        assertThat(upserted.getValue().get(0).getPayloadMap().get("embedding_model").getStringValue())
+                .isEqualTo("azure:text-embedding-ada-002");
+        verify(qdrantClient).upsertAsync(eq("embedding_collection_v2"), anyList());
+        assertThat(store.mirrorFailures()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should send batch searches in queryBatch requests of the configured size, keeping query order")
+    @SuppressWarnings("unchecked")
+    void searchBatch_shouldUseQueryBatchRequests() throws Exception {
+        when(qdrantClient.listAliasesAsync()).thenReturn(Futures.immediateFuture(List.of(AliasDescription.newBuilder()
+                .setAliasName("embedding_collection").setCollectionName("embedding_collection_v1").build())));
+        when(qdrantClient.queryBatchAsync(eq("embedding_collection"), anyList())).thenAnswer(invocation -> {
+            List<QueryPoints> queries = invocation.getArgument(1);
+            List<Points.BatchResult> results = new ArrayList<>();
+            for (QueryPoints query : queries) {
+                float first = query.getQuery().getNearest().getDense().getData(0);
+                results.add(Points.BatchResult.newBuilder().addResult(Points.ScoredPoint.newBuilder()
+                        .setId(Points.PointId.newBuilder().setUuid("11111111-1111-1111-1111-11111111111" + (int) first))
+                        .setScore(0.5f)
+                        .putPayload("text", value("query " + (int) first))
+                        .build()).build());
+            }
+            return Futures.immediateFuture(results);
+        });
+        stubCollectionModel(1536, 0);
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true);
+        ReflectionTestUtils.setField(store, "queryBatchSize", 2);
+
+        List<List<SearchResult>> results = store.searchBatch(List.of(new float[]{1f, 0f}, new float[]{2f, 0f}, new float[]{3f, 0f}),
+                5, SearchFilter.forFile("a.pdf"), false, SearchProfile.storeDefaults().withHnswEf(32));
+
+        assertThat(results).hasSize(3);
+        assertThat(results).extracting(result -> result.get(0).getText()).containsExactly("query 1", "query 2", "query 3");
+        ArgumentCaptor<List<QueryPoints>> requests = ArgumentCaptor.forClass(List.class);
+        verify(qdrantClient, times(2)).queryBatchAsync(eq("embedding_collection"), requests.capture());
+        assertThat(requests.getAllValues()).extracting(List::size).containsExactly(2, 1);
+        QueryPoints query = requests.getAllValues().get(0).get(0);
+        assertThat(query.getLimit()).isEqualTo(5);
+        assertThat(query.getParams().getHnswEf()).isEqualTo(32);
+        assertThat(query.hasFilter()).isTrue();
+        verify(qdrantClient, never()).queryAsync(any(QueryPoints.class));
+    }
+
+    @Test
+    @DisplayName("Should refuse a collection with another vector size or points of another embedding model")
+    void embeddingModelMismatch_shouldCheckSizeAndRecordedModel() throws Exception {
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true, new EmbeddingModel("onnx:minilm/model.onnx", 384));
+
+        stubCollectionModel(1536, 0);
+        assertThat(store.embeddingModelMismatch("embedding_collection_v1")).contains("384-dimensional");
+
+        stubCollectionModel(384, 3);
+        assertThat(store.embeddingModelMismatch("embedding_collection_v1")).contains("3 points");
+        ArgumentCaptor<Points.Filter> filter = ArgumentCaptor.forClass(Points.Filter.class);
+        verify(qdrantClient).countAsync(eq("embedding_collection_v1"), filter.capture(), eq(true));
+        // points without a recorded model are ada-002 points, so they count as another model here
+        assertThat(filter.getValue().getMustNotList()).hasSize(1);
+
+        stubCollectionModel(384, 0);
+        assertThat(store.embeddingModelMismatch("embedding_collection_v1")).isNull();
+    }
+
+    @Test
+    @DisplayName("Should fail searches and not activate collections of another embedding model")
+    void search_withOtherEmbeddingModel_shouldFail() throws Exception {
+        when(qdrantClient.listAliasesAsync()).thenReturn(Futures.immediateFuture(List.of(AliasDescription.newBuilder()
+                .setAliasName("embedding_collection").setCollectionName("embedding_collection_v1").build())));
+        when(qdrantClient.collectionExistsAsync(any(String.class))).thenReturn(Futures.immediateFuture(true));
+        stubCollectionModel(1536, 0);
+        QdrantVectorStore store = new QdrantVectorStore(qdrantClient, "none", true, 2.0, true, new EmbeddingModel("onnx:minilm/model.onnx", 384));
+
+        assertThatThrownBy(() -> store.search(new float[384], 3, SearchFilter.all(), false))
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("reembed");
+        assertThatThrownBy(() -> store.activate("embedding_collection_v2", false)).isInstanceOf(IllegalStateException.class);
+        verify(qdrantClient, never()).queryAsync(any(QueryPoints.class));
+        verify(qdrantClient, never()).updateAliasesAsync(anyList());
+    }
+
+    private void stubCollectionModel(int vectorSize, long pointsOfOtherModels) {
+        when(qdrantClient.getCollectionInfoAsync(any(String.class))).thenReturn(Futures.immediateFuture(CollectionInfo.newBuilder()
+                .setConfig(CollectionConfig.newBuilder().setParams(CollectionParams.newBuilder()
+                        .setVectorsConfig(VectorsConfig.newBuilder().setParams(VectorParams.newBuilder().setSize(vectorSize)))))
+                .build()));
+        when(qdrantClient.countAsync(any(String.class), any(Points.Filter.class), any())).thenReturn(Futures.immediateFuture(pointsOfOtherModels));
+    }
+
+    /**
+     * Answers retrieves from the source collection with those of the given points that were asked for.
+     */
+    private void stubSourcePoints(RetrievedPoint... points) {
+        when(qdrantClient.retrieveAsync(eq("source"), anyList(), eq(true), eq(false), any())).thenAnswer(invocation -> {
+            List<Points.PointId> ids = invocation.getArgument(1);
+            return Futures.immediateFuture(List.of(points).stream().filter(point -> ids.contains(point.getId())).toList());
+        });
+    }
+
+    private static RetrievedPoint point(String uuid, String text) {
+        return RetrievedPoint.newBuilder()
+                .setId(Points.PointId.newBuilder().setUuid(uuid))
+                .setVectors(VectorsFactory.vectors(1f, 0f))
+                .putPayload("text", value(text))
+                .build();
+    }
+}
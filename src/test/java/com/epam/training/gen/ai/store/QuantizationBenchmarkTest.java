@@ -0,0 +1,147 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.ChunkPayload;
+import com.epam.training.gen.ai.util.DataExtraction;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import static com.epam.training.gen.ai.service.EmbeddingService.ADA_002_MODEL_DIMENSION_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Memory per vector, search latency and recall@k of the quantization modes on chunks of the test PDFs.
+ * <p>
+ * The tests cannot call the embeddings API, so chunks are embedded with signed feature hashing of word
+ * unigrams and bigrams into 1536 dimensions. Such vectors are sparser than ada-002 embeddings, which makes
+ * the numbers a pessimistic estimate for binary quantization. Queries are word windows cut from random chunks.
+ * Run with {@code mvn test -Pbenchmark}; {@code -Dbenchmark.queries} changes the number of queries.
+ */
+@Tag("benchmark")
+class QuantizationBenchmarkTest {
+
+    private static final int K = 10;
+    private static final int CHUNK_SIZE = 500;
+    private static final int SENTENCE_TOLERANCE = 100;
+    private static final int QUERY_WORDS = 12;
+
+    @Test
+    void memoryLatencyAndRecallPerQuantization(@TempDir Path directory) throws IOException {
+        List<String> chunks = pdfChunks();
+        int queryCount = Integer.getInteger("benchmark.queries", 200);
+        Random random = new Random(42);
+        List<float[]> queries = new ArrayList<>(queryCount);
+        for (int q = 0; q < queryCount; q++) {
+            String[] words = chunks.get(random.nextInt(chunks.size())).split("\\s+");
+            int start = random.nextInt(Math.max(1, words.length - QUERY_WORDS));
+            queries.add(hashEmbedding(String.join(" ", List.of(words).subList(start, Math.min(words.length, start + QUERY_WORDS)))));
+        }
+
+        List<Set<Integer>> exact = new ArrayList<>(queryCount);
+        try (FlatVectorSegment segment = open(directory.resolve("none"), QuantizationSettings.NONE, chunks)) {
+            for (float[] query : queries) {
+                Set<Integer> nodes = new HashSet<>();
+                segment.search(query, K, null, null).forEach(hit -> nodes.add(hit.node()));
+                exact.add(nodes);
+            }
+        }
+
+        System.out.printf("Quantization benchmark: %d PDF chunks x %d dims, %d queries%n", chunks.size(), ADA_002_MODEL_DIMENSION_SIZE, queryCount);
+        System.out.printf("%-22s %14s %12s %10s%n", "mode", "bytes/vector", "latency(us)", "recall@" + K);
+        QuantizationSettings[] modes = {
+                QuantizationSettings.NONE,
+                new QuantizationSettings(VectorQuantization.SCALAR, false, 1.0),
+                new QuantizationSettings(VectorQuantization.SCALAR, true, 2.0),
+                new QuantizationSettings(VectorQuantization.BINARY, false, 1.0),
+                new QuantizationSettings(VectorQuantization.BINARY, true, 10.0),
+        };
+        double scalarRescoredRecall = 0;
+        for (QuantizationSettings mode : modes) {
+            try (FlatVectorSegment segment = open(directory.resolve(mode.type() + "-" + mode.oversampling()), mode, chunks)) {
+                for (int q = 0; q < Math.min(queryCount, 20); q++) {
+                    segment.search(queries.get(q), K, null, null);
+                }
+                int found = 0;
+                long start = System.nanoTime();
+                for (int q = 0; q < queryCount; q++) {
+                    for (ScoredNode hit : segment.search(queries.get(q), K, null, null)) {
+                        if (exact.get(q).contains(hit.node())) {
+                            found++;
+                        }
+                    }
+                }
+                double micros = (System.nanoTime() - start) / 1e3 / queryCount;
+                double recall = found / (double) (queryCount * K);
+                int bytes = mode.enabled() ? segment.heapBytesPerVector() : ADA_002_MODEL_DIMENSION_SIZE * Float.BYTES;
+                String name = mode.type().name().toLowerCase(Locale.ROOT) + (mode.rescore() ? " rescore x" + mode.oversampling() : "");
+                System.out.printf("%-22s %14d %12.1f %10.3f%n", name, bytes, micros, recall);
+                if (mode.type() == VectorQuantization.SCALAR && mode.rescore()) {
+                    scalarRescoredRecall = recall;
+                }
+            }
+        }
+
+        assertThat(scalarRescoredRecall).isGreaterThan(0.95);
+    }
+
+    private static FlatVectorSegment open(Path directory, QuantizationSettings settings, List<String> chunks) throws IOException {
+        FlatVectorSegment segment = FlatVectorSegment.open(directory, ADA_002_MODEL_DIMENSION_SIZE, 4096, settings);
+        for (int i = 0; i < chunks.size(); i++) {
+            segment.append("chunk-" + i, hashEmbedding(chunks.get(i)), new ChunkPayload(chunks.get(i), null));
+        }
+        return segment;
+    }
+
+    private static List<String> pdfChunks() throws IOException {
+        DataExtraction dataExtraction = new DataExtraction();
+        List<String> chunks = new ArrayList<>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath:data/*.pdf")) {
+            try (InputStream in = resource.getInputStream()) {
+                String text = dataExtraction.extractTextFromPdf(in, resource.getFilename());
+                if (text != null) {
+                    chunks.addAll(dataExtraction.chunkTextSimple(text, CHUNK_SIZE, SENTENCE_TOLERANCE));
+                }
+            }
+        }
+        assertThat(chunks).isNotEmpty();
+        return chunks;
+    }
+
+    /**
+     * Signed feature hashing of lower-cased word unigrams and bigrams, L2-normalised.
+     */
+    static float[] hashEmbedding(String text) {
+        float[] vector = new float[ADA_002_MODEL_DIMENSION_SIZE];
+        String previous = null;
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            addFeature(vector, word, 1f);
+            if (previous != null) {
+                addFeature(vector, previous + ' ' + word, 0.5f);
+            }
+            previous = word;
+        }
+        VectorMath.normalizeInPlace(vector);
+        return vector;
+    }
+
+    private static void addFeature(float[] vector, String feature, float weight) {
+        int hash = feature.hashCode() * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        vector[Math.floorMod(hash, vector.length)] += (hash & 0x40000000) == 0 ? weight : -weight;
+    }
+}
@@ -0,0 +1,75 @@
+package com.epam.training.gen.ai.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class QuantizedVectorsTest {
+
+    private static final int DIMENSION = 1536;
+
+    private final Random random = new Random(3);
+
+    @Test
+    @DisplayName("Should approximate cosine similarity closely with int8 scalar quantization")
+    void scalar_shouldApproximateDotProduct() {
+        QuantizedVectors vectors = new QuantizedVectors(VectorQuantization.SCALAR, DIMENSION, 4);
+        float[][] stored = new float[50][];
+        for (int i = 0; i < stored.length; i++) {
+            stored[i] = VectorMath.normalize(HnswIndexTest.randomVector(random, DIMENSION));
+            vectors.set(i, stored[i]);
+        }
+        float[] query = VectorMath.normalize(HnswIndexTest.randomVector(random, DIMENSION));
+        QuantizedVectors.Query prepared = vectors.prepare(query);
+
+        assertThat(vectors.size()).isEqualTo(50);
+        assertThat(vectors.bytesPerVector()).isEqualTo(DIMENSION + 4);
+        for (int i = 0; i < stored.length; i++) {
+            assertThat(vectors.score(prepared, i)).isCloseTo(VectorMath.dot(query, stored[i]), offset(0.01f));
+        }
+        assertThat(vectors.score(vectors.prepare(stored[7]), 7)).isCloseTo(1f, offset(0.01f));
+    }
+
+    @Test
+    @DisplayName("Should score by the fraction of matching signs with binary quantization")
+    void binary_shouldScoreBySignAgreement() {
+        QuantizedVectors vectors = new QuantizedVectors(VectorQuantization.BINARY, 100, 1);
+        float[] vector = HnswIndexTest.randomVector(random, 100);
+        float[] opposite = new float[100];
+        float[] halfFlipped = vector.clone();
+        for (int i = 0; i < 100; i++) {
+            opposite[i] = -vector[i];
+            if (i < 50) {
+                halfFlipped[i] = -vector[i];
+            }
+        }
+        vectors.set(0, vector);
+        vectors.set(1, opposite);
+        vectors.set(2, halfFlipped);
+        QuantizedVectors.Query prepared = vectors.prepare(vector);
+
+        assertThat(vectors.bytesPerVector()).isEqualTo(16);
+        assertThat(vectors.score(prepared, 0)).isEqualTo(1f);
+        assertThat(vectors.score(prepared, 1)).isEqualTo(-1f);
+        assertThat(vectors.score(prepared, 2)).isEqualTo(0f);
+    }
+
+    @Test
+    @DisplayName("Should overwrite an existing ordinal and reject gaps")
+    void set_shouldOverwriteAndRejectGaps() {
+        QuantizedVectors vectors = new QuantizedVectors(VectorQuantization.SCALAR, 8, 1);
+        float[] first = VectorMath.normalize(HnswIndexTest.randomVector(random, 8));
+        float[] second = VectorMath.normalize(HnswIndexTest.randomVector(random, 8));
+        vectors.set(0, first);
+        vectors.set(0, second);
+
+        assertThat(vectors.size()).isEqualTo(1);
+        assertThat(vectors.score(vectors.prepare(second), 0)).isCloseTo(1f, offset(0.02f));
+        assertThatThrownBy(() -> vectors.set(2, first)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
@@ -0,0 +1,35 @@
+package com.epam.training.gen.ai.store;
+
+import com.epam.training.gen.ai.model.SearchProfile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchProfilesTest {
+
+    @Test
+    @DisplayName("Should resolve named profiles and fall back to the default profile")
+    void resolve_shouldFindProfilesByName() {
+        SearchProfiles profiles = new SearchProfiles();
+        profiles.getProfiles().put("interactive", new SearchProfile(null, 64, false, null, null));
+        profiles.getProfiles().put("evaluation", new SearchProfile(null, null, true, null, null));
+        profiles.init();
+
+        assertThat(profiles.resolve(null).getName()).isEqualTo("interactive");
+        assertThat(profiles.resolve("evaluation").isExact()).isTrue();
+        assertThatThrownBy(() -> profiles.resolve("fastest"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("interactive");
+    }
+
+    @Test
+    @DisplayName("Should use the vector store settings when the default profile is not configured")
+    void resolve_withoutDefaultProfile_shouldUseStoreDefaults() {
+        SearchProfiles profiles = new SearchProfiles();
+        profiles.init();
+
+        assertThat(profiles.resolve("")).isEqualTo(SearchProfile.storeDefaults());
+    }
+}
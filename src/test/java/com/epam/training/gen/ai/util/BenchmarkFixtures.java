@@ -0,0 +1,97 @@
+package com.epam.training.gen.ai.util;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inputs shared by the JMH benchmarks of this package.
+ */
+final class BenchmarkFixtures {
+
+    static final String LARGEST_PDF = "Northwind_Health_Plus_Benefits_Details.pdf";
+    static final List<String> PDFS = List.of("Benefit_Options.pdf", LARGEST_PDF, "Northwind_Standard_Benefits_Details.pdf",
+            "PerksPlus.pdf", "employee_handbook.pdf", "role_library.pdf");
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Outside Spring, Logback logs everything at DEBUG; the per-call logging, and PDFBox's font
+     * fallback warnings, would dominate the timings.
+     */
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.ERROR);
+    }
+
+    /**
+     * Reads one of the PDFs in {@code src/test/resources/data}.
+     */
+    static byte[] pdf(String name) {
+        try (InputStream stream = BenchmarkFixtures.class.getResourceAsStream("/data/" + name)) {
+            if (stream == null) {
+                throw new IllegalArgumentException("No test PDF " + name);
+            }
+            return stream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Joins all bundled PDFs, {@code copies} times over, into one PDF, since none of them has more
+     * than about a hundred pages.
+     */
+    static byte[] mergedPdf(int copies) {
+        List<PDDocument> sources = new ArrayList<>();
+        try (PDDocument merged = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            PDFMergerUtility merger = new PDFMergerUtility();
+            for (int copy = 0; copy < copies; copy++) {
+                for (String name : PDFS) {
+                    PDDocument source = Loader.loadPDF(pdf(name));
+                    sources.add(source);
+                    merger.appendDocument(merged, source);
+                }
+            }
+            merged.save(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            for (PDDocument source : sources) {
+                try {
+                    source.close();
+                } catch (IOException ignored) {
+                    // only read
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a DOCX with one paragraph per line of the text, since no DOCX files are bundled.
+     */
+    static byte[] docx(String text) {
+        try (XWPFDocument document = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (String line : text.split("\n")) {
+                // XML 1.0 does not allow most control characters, e.g. form feeds between PDF pages
+                document.createParagraph().createRun().setText(line.replaceAll("[\\x00-\\x08\\x0B\\x0C\\x0E-\\x1F]", ""));
+            }
+            document.write(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.epam.training.gen.ai.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkIdStrategyTest {
+
+    @Test
+    @DisplayName("Should match reference MurmurHash3 x64-128 of the UTF-16LE encoding")
+    void murmur3_shouldMatchReferenceHashes() {
+        // reference values: Guava's Hashing.murmur3_128().hashString(text, UTF_16LE)
+        assertHash("", 0x0000000000000000L, 0x0000000000000000L);
+        assertHash("a", 0x96a698500b4e98bdL, 0xb278c9bfc754677dL);
+        assertHash("abcd", 0x548cfc581a584f48L, 0x076f42dc4bbe30dfL);
+        assertHash("abcde", 0xef8464c206cb30ecL, 0xcc827c3e934dfa4bL);
+        assertHash("abcdefgh", 0x2803a5bc696daeb2L, 0xa2b1eb7540d6d1faL);
+        assertHash("The quick brown fox jumps over the lazy dog", 0xc0026631b551ae4cL, 0xe75f3e8442567c1cL);
+        assertHash("Zürich → 東京 😀", 0x33ef74ddef8b53e0L, 0x7048e41f27b68c6bL);
+    }
+
+    @Test
+    @DisplayName("Should keep the legacy MD5 IDs unchanged")
+    void md5_shouldEqualNameBasedUuid() {
+        String text = "Northwind Health Plus covers emergency care.";
+
+        assertThat(ChunkIdStrategy.MD5.id(text)).isEqualTo(UUID.nameUUIDFromBytes(text.getBytes(StandardCharsets.UTF_8)).toString());
+        assertThat(new IdGenerator().generateConsistentId(text)).isEqualTo(ChunkIdStrategy.MD5.id(text));
+    }
+
+    @Test
+    @DisplayName("Should tell the strategy from the UUID version of an ID")
+    void of_shouldDetectStrategyFromUuidVersion() {
+        String text = "PerksPlus reimburses gym memberships.";
+        UUID murmur3 = UUID.fromString(ChunkIdStrategy.MURMUR3.id(text));
+
+        assertThat(murmur3.version()).isEqualTo(8);
+        assertThat(murmur3.variant()).isEqualTo(2);
+        assertThat(ChunkIdStrategy.of(murmur3.toString())).isEqualTo(ChunkIdStrategy.MURMUR3);
+        assertThat(ChunkIdStrategy.of(ChunkIdStrategy.MD5.id(text))).isEqualTo(ChunkIdStrategy.MD5);
+        assertThat(ChunkIdStrategy.of(UUID.randomUUID().toString())).isNull();
+        assertThat(ChunkIdStrategy.parse("Murmur3")).isEqualTo(ChunkIdStrategy.MURMUR3);
+        assertThat(ChunkIdStrategy.parse("")).isEqualTo(ChunkIdStrategy.MD5);
+    }
+
+    @Test
+    @DisplayName("Should use the strategy of a document's previous IDs only when legacy IDs are kept")
+    void strategyFor_shouldFollowPreviousIds() {
+        List<String> legacyIds = List.of(ChunkIdStrategy.MD5.id("old chunk"));
+
+        assertThat(new IdGenerator(ChunkIdStrategy.MURMUR3, true).strategyFor(legacyIds)).isEqualTo(ChunkIdStrategy.MD5);
+        assertThat(new IdGenerator(ChunkIdStrategy.MURMUR3, true).strategyFor(null)).isEqualTo(ChunkIdStrategy.MURMUR3);
+        assertThat(new IdGenerator(ChunkIdStrategy.MURMUR3, false).strategyFor(legacyIds)).isEqualTo(ChunkIdStrategy.MURMUR3);
+    }
+
+    @Test
+    @DisplayName("Should produce no collisions for a million near-identical chunks")
+    void murmur3_shouldNotCollideAtScale() {
+        int count = 1_000_000;
+        Random random = new Random(11);
+        char[] base = new char[1000];
+        for (int i = 0; i < base.length; i++) {
+            base[i] = random.nextInt(6) == 0 ? ' ' : (char) ('a' + random.nextInt(26));
+        }
+
+        // every text differs from the base in one or two chars, the hardest case for a weak hash
+        Set<UUID> ids = new HashSet<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            char[] text = base.clone();
+            text[i % text.length] = (char) ('A' + (i / text.length) % 26);
+            text[(i / 26_000 + 1) % text.length] ^= 1;
+            ids.add(UUID.fromString(ChunkIdStrategy.MURMUR3.id(new String(text))));
+        }
+
+        assertThat(ids).hasSize(count);
+    }
+
+    @Test
+    @DisplayName("Should flip about half of the hash bits when one char changes")
+    void murmur3_shouldAvalanche() {
+        Random random = new Random(5);
+        long flippedBits = 0;
+        int samples = 2000;
+        for (int i = 0; i < samples; i++) {
+            char[] text = new char[5000];
+            for (int j = 0; j < text.length; j++) {
+                text[j] = (char) (' ' + random.nextInt(95));
+            }
+            long[] before = Murmur3.hash128(new String(text), 0);
+            text[random.nextInt(text.length)] ^= (char) (1 << random.nextInt(7));
+            long[] after = Murmur3.hash128(new String(text), 0);
+            flippedBits += Long.bitCount(before[0] ^ after[0]) + Long.bitCount(before[1] ^ after[1]);
+        }
+
+        assertThat(flippedBits / (double) samples).isBetween(62.0, 66.0);
+    }
+
+    private static void assertHash(String text, long h1, long h2) {
+        assertThat(Murmur3.hash128(text, 0)).as(text).containsExactly(h1, h2);
+    }
+}
@@ -0,0 +1,53 @@
+package com.epam.training.gen.ai.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to chunk the text of the largest bundled PDF with {@link DataExtraction#chunkTextSimple}.
+ * Run with {@code mvn test -Pjmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChunkingBenchmark {
+
+    @Param({"500", "1000", "2000"})
+    private int chunkSize;
+
+    @Param({"0", "100"})
+    private int sentenceEndTolerance;
+
+    private DataExtraction dataExtraction;
+    private String text;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkFixtures.quietLogging();
+        dataExtraction = new DataExtraction();
+        text = dataExtraction.extractTextFromPdf(new ByteArrayInputStream(BenchmarkFixtures.pdf(BenchmarkFixtures.LARGEST_PDF)),
+                BenchmarkFixtures.LARGEST_PDF);
+    }
+
+    @Benchmark
+    public List<String> chunkTextSimple() {
+        return dataExtraction.chunkTextSimple(text, chunkSize, sentenceEndTolerance);
+    }
+}
@@ -1,5 +1,7 @@
 package com.epam.training.gen.ai.util;
 
+import com.epam.training.gen.ai.model.ExtractedDocument;
+import com.epam.training.gen.ai.model.TextChunk;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -8,6 +10,8 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collections;
 import java.util.List;
 
@@ -274,4 +278,103 @@ class DataExtractionTest {
             );
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Sentence Splitting")
+    class SentenceSplitTests {
+
+        @Test
+        @DisplayName("Should split on sentence terminators like chunking does")
+        void splitSentences_shouldUseChunkingBoundaries() {
+            String text = "The plan covers all residents. Is dental included?! Yes, with a copay.\nNo terminator here";
+
+            assertThat(dataExtraction.splitSentences(text, 500)).containsExactly(
+                    "The plan covers all residents.",
+                    "Is dental included?!",
+                    "Yes, with a copay.",
+                    "No terminator here");
+        }
+
+        @Test
+        @DisplayName("Should split over-long sentences at whitespace")
+        void splitSentences_withLongSentence_shouldSplitAtWhitespace() {
+            List<String> sentences = dataExtraction.splitSentences("one two three four five six seven. End.", 20);
+
+            assertThat(sentences).containsExactly("one two three four", "five six seven.", "End.");
+            assertThat(dataExtraction.splitSentences("  ", 20)).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("Chunk and Page Positions")
+    class PositionTests {
+
+        @Test
+        @DisplayName("Should return the offsets of the trimmed chunk text")
+        void chunkText_shouldReturnOffsetsOfTrimmedChunks() {
+            String text = "  First sentence here.   Second one follows!\n\nThird.  ";
+
+            List<TextChunk> chunks = dataExtraction.chunkText(text, 25, 0);
+
+            assertThat(chunks).extracting(TextChunk::getText)
+                    .containsExactlyElementsOf(dataExtraction.chunkTextSimple(text, 25, 0));
+            assertThat(chunks).allSatisfy(chunk ->
+                    assertThat(text.substring(chunk.getCharStart(), chunk.getCharEnd())).isEqualTo(chunk.getText()));
+        }
+
+        @Test
+        @DisplayName("Should map offsets to 1-based pages, skipping empty pages")
+        void pageAt_shouldFindPageOfOffset() {
+            ExtractedDocument document = new ExtractedDocument("abcdefgh", new int[]{0, 3, 3, 6});
+
+            assertThat(document.pageAt(2)).isEqualTo(1);
+            assertThat(document.pageAt(3)).isEqualTo(3);
+            assertThat(document.pageAt(7)).isEqualTo(4);
+            assertThat(new ExtractedDocument("abc", null).pageAt(1)).isNull();
+        }
+
+        @Test
+        @DisplayName("Should record where every PDF page starts in the extracted text")
+        void extractPdf_shouldRecordPageOffsets() throws IOException {
+            ExtractedDocument document;
+            try (InputStream in = getClass().getResourceAsStream("/data/PerksPlus.pdf")) {
+                document = dataExtraction.extractPdf(in, "PerksPlus.pdf");
+            }
+
+            int[] offsets = document.getPageOffsets();
+            assertThat(offsets).isNotEmpty().startsWith(0).isSorted();
+            assertThat(offsets[offsets.length - 1]).isLessThan(document.getText().length());
+            assertThat(document.pageAt(0)).isEqualTo(1);
+            assertThat(document.pageAt(document.getText().length() - 1)).isEqualTo(offsets.length);
+        }
+    }
+
+    @Nested
+    @DisplayName("Parallel PDF Extraction")
+    class ParallelExtractionTests {
+
+        @ParameterizedTest
+        @CsvSource({"Northwind_Standard_Benefits_Details.pdf, 4", "role_library.pdf, 3", "PerksPlus.pdf, 4"})
+        @DisplayName("Should extract the same text and page offsets as a single stripper")
+        void extractPdf_inParallel_shouldMatchSequentialExtraction(String file, int threads) throws IOException {
+            // compare the raw text, normalization could hide differences at the segment boundaries
+            TextNormalizer unchanged = new TextNormalizer(false, 3, 3, 0.5);
+            DataExtraction sequential = new DataExtraction(unchanged, 1, 2);
+            DataExtraction parallel = new DataExtraction(unchanged, threads, 2);
+            try {
+                ExtractedDocument expected;
+                ExtractedDocument actual;
+                try (InputStream first = getClass().getResourceAsStream("/data/" + file);
+                     InputStream second = getClass().getResourceAsStream("/data/" + file)) {
+                    expected = sequential.extractPdf(first, file);
+                    actual = parallel.extractPdf(second, file);
+                }
+
+                assertThat(actual.getText()).isEqualTo(expected.getText());
+                assertThat(actual.getPageOffsets()).containsExactly(expected.getPageOffsets());
+            } finally {
+                parallel.shutdown();
+            }
+        }
+    }
+}
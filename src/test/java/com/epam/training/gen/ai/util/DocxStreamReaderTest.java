@@ -0,0 +1,117 @@
+package com.epam.training.gen.ai.util;
+
+import com.epam.training.gen.ai.model.ExtractedDocument;
+import org.apache.poi.wp.usermodel.HeaderFooterType;
+import org.apache.poi.xwpf.extractor.XWPFWordExtractor;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DocxStreamReaderTest {
+
+    @Test
+    @DisplayName("Should stream paragraphs with their heading levels, table rows and run text")
+    void read_shouldEmitParagraphsInOrder() throws IOException {
+        byte[] docx;
+        try (XWPFDocument document = new XWPFDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            document.createHeader(HeaderFooterType.DEFAULT).createParagraph().createRun().setText("Contoso confidential");
+            XWPFParagraph title = document.createParagraph();
+            title.setStyle("Heading1");
+            title.createRun().setText("Dental Coverage");
+            XWPFParagraph body = document.createParagraph();
+            // a tab stop in the paragraph properties is not text
+            body.getCTP().addNewPPr().addNewTabs().addNewTab();
+            XWPFRun run = body.createRun();
+            run.setText("Cleanings are covered");
+            run.addTab();
+            run.setText("twice a year.");
+            run.addBreak();
+            body.createRun().setText("No waiting period.");
+            XWPFParagraph subheading = document.createParagraph();
+            subheading.setStyle("Heading2");
+            subheading.createRun().setText("Costs");
+            XWPFTable table = document.createTable(2, 2);
+            table.getRow(0).getCell(0).setText("Service");
+            table.getRow(0).getCell(1).setText("Copay");
+            table.getRow(1).getCell(0).setText("Cleaning");
+            table.getRow(1).getCell(1).setText("$0");
+            document.createParagraph();
+            document.write(out);
+            docx = out.toByteArray();
+        }
+
+        List<String> paragraphs = new ArrayList<>();
+        DocxStreamReader.read(new ByteArrayInputStream(docx), (text, headingLevel) -> paragraphs.add(headingLevel + ":" + text));
+
+        assertThat(paragraphs).containsExactly("1:Dental Coverage", "0:Cleanings are covered\ttwice a year.\nNo waiting period.",
+                "2:Costs", "0:Service\tCopay", "0:Cleaning\t$0", "0:");
+    }
+
+    @Test
+    @DisplayName("Should extract the same text as the XWPF extractor from a document of plain paragraphs")
+    void extractDocx_shouldMatchXwpfExtractor() throws IOException {
+        String text = "Northwind Standard is a basic plan.\nIt covers medical, vision and dental services.\n\n"
+                + "Premiums are paid\tmonthly.\nThe deductible is $2,000 per person.";
+        byte[] docx = BenchmarkFixtures.docx(text);
+        String expected;
+        try (XWPFWordExtractor extractor = new XWPFWordExtractor(new XWPFDocument(new ByteArrayInputStream(docx)))) {
+            expected = new TextNormalizer().normalize(new ExtractedDocument(extractor.getText(), null)).getText();
+        }
+
+        ExtractedDocument document = new DataExtraction().extractDocx(new ByteArrayInputStream(docx), "plan.docx");
+
+        assertThat(document.getText()).isEqualTo(expected);
+        assertThat(document.hasPages()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should fail on files without a main document part")
+    void read_withoutDocumentPart_shouldFail() {
+        byte[] pdf = BenchmarkFixtures.pdf("PerksPlus.pdf");
+
+        assertThatThrownBy(() -> DocxStreamReader.read(new ByteArrayInputStream(pdf), (text, headingLevel) -> {
+        })).isInstanceOf(IOException.class).hasMessageContaining("word/document.xml");
+    }
+
+    @Test
+    @DisplayName("Should not resolve external entities")
+    void read_withExternalEntity_shouldNotReadFile(@TempDir Path tempDir) throws IOException {
+        Path secret = Files.writeString(tempDir.resolve("secret.txt"), "top secret");
+        String xml = "<?xml version=\"1.0\"?><!DOCTYPE d [<!ENTITY xxe SYSTEM \"" + secret.toUri() + "\">]>"
+                + "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\">"
+                + "<w:body><w:p><w:r><w:t>before &xxe; after</w:t></w:r></w:p></w:body></w:document>";
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(zip)) {
+            out.putNextEntry(new ZipEntry("word/document.xml"));
+            out.write(xml.getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        List<String> paragraphs = new ArrayList<>();
+        try {
+            DocxStreamReader.read(new ByteArrayInputStream(zip.toByteArray()), (text, headingLevel) -> paragraphs.add(text.toString()));
+        } catch (IOException e) {
+            // refusing the entity is fine as well
+        }
+
+        assertThat(paragraphs).noneMatch(paragraph -> paragraph.contains("top secret"));
+    }
+}
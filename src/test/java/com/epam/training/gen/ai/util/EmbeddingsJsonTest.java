@@ -0,0 +1,83 @@
+package com.epam.training.gen.ai.util;
+
+import com.epam.training.gen.ai.model.EmbeddingVector;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmbeddingsJsonTest {
+
+    @Test
+    @DisplayName("Should request base64 encoded embeddings for all inputs")
+    void writeRequest_shouldAskForBase64() throws IOException {
+        JsonNode body = new ObjectMapper().readTree(EmbeddingsJson.writeRequest(List.of("first", "second \"quoted\"")));
+
+        assertThat(body.get("input")).extracting(JsonNode::asText).containsExactly("first", "second \"quoted\"");
+        assertThat(body.get("encoding_format").asText()).isEqualTo("base64");
+    }
+
+    @Test
+    @DisplayName("Should decode base64 embeddings into float arrays ordered by index")
+    void readResponse_withBase64_shouldDecodeFloats() throws IOException {
+        String json = "{\"object\":\"list\",\"data\":["
+                + "{\"object\":\"embedding\",\"index\":1,\"embedding\":\"" + base64(0.5f, -1.25f) + "\"},"
+                + "{\"object\":\"embedding\",\"index\":0,\"embedding\":\"" + base64(1f, 2f, 3f) + "\"}],"
+                + "\"model\":\"ada\",\"usage\":{\"prompt_tokens\":3,\"total_tokens\":3}}";
+
+        List<EmbeddingVector> vectors = EmbeddingsJson.readResponse(json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(vectors).extracting(EmbeddingVector::getPromptIndex).containsExactly(0, 1);
+        assertThat(vectors.get(0).getEmbedding()).containsExactly(1f, 2f, 3f);
+        assertThat(vectors.get(1).getEmbedding()).containsExactly(0.5f, -1.25f);
+    }
+
+    @Test
+    @DisplayName("Should read plain number arrays when the service ignores the encoding format")
+    void readResponse_withNumberArray_shouldReadFloats() throws IOException {
+        StringBuilder json = new StringBuilder("{\"data\":[{\"index\":0,\"embedding\":[");
+        for (int i = 0; i < 2000; i++) {
+            json.append(i == 0 ? "" : ",").append(i / 1000.0);
+        }
+        json.append("]}]}");
+
+        List<EmbeddingVector> vectors = EmbeddingsJson.readResponse(new ByteArrayInputStream(json.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(vectors).hasSize(1);
+        assertThat(vectors.get(0).dimension()).isEqualTo(2000);
+        assertThat(vectors.get(0).getEmbedding()[1999]).isEqualTo(1.999f);
+    }
+
+    @Test
+    @DisplayName("Should reject items without an embedding")
+    void readResponse_withoutEmbedding_shouldFail() {
+        byte[] json = "{\"data\":[{\"index\":0}]}".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> EmbeddingsJson.readResponse(json)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    @DisplayName("Should return no embeddings for an empty data array")
+    void readResponse_withEmptyData_shouldBeEmpty() throws IOException {
+        assertThat(EmbeddingsJson.readResponse("{\"data\":[]}".getBytes(StandardCharsets.UTF_8))).isEmpty();
+    }
+
+    static String base64(float... values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (float value : values) {
+            buffer.putFloat(value);
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+}
@@ -0,0 +1,67 @@
+package com.epam.training.gen.ai.util;
+
+import com.epam.training.gen.ai.model.ExtractedDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text extraction time of the bundled PDFs, and of a DOCX generated from the same text. Both
+ * include text normalization, which {@link #normalize} measures on its own.
+ * Run with {@code mvn test -Pjmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractionBenchmark {
+
+    @Param({"Benefit_Options.pdf", "Northwind_Health_Plus_Benefits_Details.pdf", "Northwind_Standard_Benefits_Details.pdf",
+            "PerksPlus.pdf", "employee_handbook.pdf", "role_library.pdf"})
+    private String file;
+
+    private DataExtraction dataExtraction;
+    private TextNormalizer textNormalizer;
+    private ExtractedDocument rawPdf;
+    private byte[] pdf;
+    private byte[] docx;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkFixtures.quietLogging();
+        dataExtraction = new DataExtraction();
+        pdf = BenchmarkFixtures.pdf(file);
+        textNormalizer = new TextNormalizer();
+        rawPdf = new DataExtraction(new TextNormalizer(false, 3, 3, 0.5), 1, 16).extractPdf(new ByteArrayInputStream(pdf), file);
+        docx = BenchmarkFixtures.docx(dataExtraction.extractTextFromPdf(new ByteArrayInputStream(pdf), file));
+    }
+
+    @Benchmark
+    public String extractTextFromPdf() throws IOException {
+        return dataExtraction.extractTextFromPdf(new ByteArrayInputStream(pdf), file);
+    }
+
+    @Benchmark
+    public String extractTextFromDocx() throws IOException {
+        return dataExtraction.extractTextFromDocx(new ByteArrayInputStream(docx), file);
+    }
+
+    @Benchmark
+    public ExtractedDocument normalize() {
+        return textNormalizer.normalize(rawPdf);
+    }
+}
@@ -0,0 +1,91 @@
+package com.epam.training.gen.ai.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link IdGenerator#generateConsistentId} per {@link ChunkIdStrategy}, on random texts
+ * of a fixed length and on the chunks of the bundled PDFs ({@code text = pdf}, chunked with the
+ * configured size 5000 and sentence end tolerance 1000). The texts are cycled so that the JIT cannot
+ * fold the hash of a constant input.
+ * Run with {@code mvn test -Pjmh}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IdGeneratorBenchmark {
+
+    private static final int TEXTS = 1024;
+
+    @Param({"MD5", "MURMUR3"})
+    private ChunkIdStrategy strategy;
+
+    @Param({"100", "1000", "4000", "pdf"})
+    private String text;
+
+    private IdGenerator idGenerator;
+    private String[] texts;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkFixtures.quietLogging();
+        idGenerator = new IdGenerator(strategy, false);
+        texts = "pdf".equals(text) ? pdfChunks() : randomTexts(Integer.parseInt(text));
+    }
+
+    @Benchmark
+    public String generateConsistentId() {
+        next = (next + 1) & (TEXTS - 1);
+        return idGenerator.generateConsistentId(texts[next]);
+    }
+
+    private static String[] randomTexts(int length) {
+        Random random = new Random(7);
+        String[] texts = new String[TEXTS];
+        for (int i = 0; i < TEXTS; i++) {
+            StringBuilder text = new StringBuilder(length);
+            while (text.length() < length) {
+                text.append(random.nextInt(10) == 0 ? ' ' : (char) ('a' + random.nextInt(26)));
+            }
+            texts[i] = text.toString();
+        }
+        return texts;
+    }
+
+    /**
+     * The chunks of all bundled PDFs, repeated to fill the {@value #TEXTS} slots.
+     */
+    private static String[] pdfChunks() throws IOException {
+        DataExtraction dataExtraction = new DataExtraction();
+        List<String> chunks = new ArrayList<>();
+        for (String name : BenchmarkFixtures.PDFS) {
+            String text = dataExtraction.extractTextFromPdf(new ByteArrayInputStream(BenchmarkFixtures.pdf(name)), name);
+            chunks.addAll(dataExtraction.chunkTextSimple(text, 5000, 1000));
+        }
+        String[] texts = new String[TEXTS];
+        for (int i = 0; i < TEXTS; i++) {
+            texts[i] = chunks.get(i % chunks.size());
+        }
+        return texts;
+    }
+}
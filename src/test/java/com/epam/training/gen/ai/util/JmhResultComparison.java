@@ -0,0 +1,102 @@
+package com.epam.training.gen.ai.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Compares two JMH JSON result files, e.g. of two commits, and reports every benchmark whose score
+ * or normalised allocation ({@code gc.alloc.rate.norm}) got worse by more than the threshold.
+ * <p>
+ * Usage: {@code mvn test-compile -Pjmh-compare -Djmh.baseline=jmh/abc123.json}, which compares against
+ * the latest {@code target/jmh-result.json}. Exits with status 1 when there are regressions.
+ */
+public class JmhResultComparison {
+
+    static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhResultComparison <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        ObjectMapper mapper = new ObjectMapper();
+        List<String> regressions = compare(mapper.readTree(Path.of(args[0]).toFile()), mapper.readTree(Path.of(args[1]).toFile()),
+                threshold, System.out::println);
+        if (!regressions.isEmpty()) {
+            System.out.println();
+            System.out.println(regressions.size() + " regression(s) above " + threshold + "%:");
+            regressions.forEach(regression -> System.out.println("  " + regression));
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints one line per benchmark present in both files and returns the regressions.
+     *
+     * @param threshold The change in percent above which a worse result counts as a regression.
+     */
+    static List<String> compare(JsonNode baseline, JsonNode current, double threshold, Consumer<String> out) {
+        Map<String, JsonNode> baselineRuns = byKey(baseline);
+        List<String> regressions = new ArrayList<>();
+        out.accept(String.format("%-90s %14s %14s %9s %12s", "Benchmark", "Baseline", "Current", "Change", "Alloc change"));
+        for (Map.Entry<String, JsonNode> run : byKey(current).entrySet()) {
+            JsonNode before = baselineRuns.get(run.getKey());
+            if (before == null) {
+                continue;
+            }
+            JsonNode after = run.getValue();
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            double scoreChange = change(before.path("primaryMetric").path("score").asDouble(), after.path("primaryMetric").path("score").asDouble());
+            double allocationChange = change(before.path("secondaryMetrics").path(ALLOCATION).path("score").asDouble(Double.NaN),
+                    after.path("secondaryMetrics").path(ALLOCATION).path("score").asDouble(Double.NaN));
+            out.accept(String.format("%-90s %14.3f %14.3f %+8.1f%% %+11.1f%%", run.getKey(),
+                    before.path("primaryMetric").path("score").asDouble(), after.path("primaryMetric").path("score").asDouble(),
+                    scoreChange, allocationChange));
+
+            double worse = higherIsBetter ? -scoreChange : scoreChange;
+            if (worse > threshold) {
+                regressions.add(String.format("%s: score %+.1f%%", run.getKey(), scoreChange));
+            }
+            if (allocationChange > threshold) {
+                regressions.add(String.format("%s: allocation %+.1f%%", run.getKey(), allocationChange));
+            }
+        }
+        return regressions;
+    }
+
+    /**
+     * Keys every run by benchmark method and parameters, e.g. {@code ChunkingBenchmark.chunkTextSimple{chunkSize=500}}.
+     */
+    private static Map<String, JsonNode> byKey(JsonNode runs) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode run : runs) {
+            String benchmark = run.path("benchmark").asText();
+            Map<String, String> params = new TreeMap<>();
+            for (Iterator<Map.Entry<String, JsonNode>> it = run.path("params").fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> param = it.next();
+                params.put(param.getKey(), param.getValue().asText());
+            }
+            byKey.put(benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1)
+                    + (params.isEmpty() ? "" : params.toString()), run);
+        }
+        return byKey;
+    }
+
+    private static double change(double before, double after) {
+        if (Double.isNaN(before) || Double.isNaN(after) || before == 0) {
+            return 0;
+        }
+        return (after - before) / before * 100;
+    }
+}
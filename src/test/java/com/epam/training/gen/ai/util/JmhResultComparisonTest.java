@@ -0,0 +1,43 @@
+package com.epam.training.gen.ai.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JmhResultComparisonTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Should report slower average times, lower throughput and more allocation as regressions")
+    void compare_shouldFlagRegressionsByMode() throws Exception {
+        JsonNode baseline = mapper.readTree("["
+                + run("ChunkingBenchmark.chunkTextSimple", "avgt", "{\"chunkSize\":\"500\"}", 100, 2000) + ","
+                + run("ChunkingBenchmark.chunkTextSimple", "avgt", "{\"chunkSize\":\"1000\"}", 100, 2000) + ","
+                + run("IdGeneratorBenchmark.generateConsistentId", "thrpt", "{}", 500, 300) + "]");
+        JsonNode current = mapper.readTree("["
+                + run("ChunkingBenchmark.chunkTextSimple", "avgt", "{\"chunkSize\":\"500\"}", 130, 2000) + ","
+                + run("ChunkingBenchmark.chunkTextSimple", "avgt", "{\"chunkSize\":\"1000\"}", 80, 2600) + ","
+                + run("IdGeneratorBenchmark.generateConsistentId", "thrpt", "{}", 600, 300) + "]");
+        List<String> lines = new ArrayList<>();
+
+        List<String> regressions = JmhResultComparison.compare(baseline, current, 10, lines::add);
+
+        assertThat(regressions).containsExactly(
+                "ChunkingBenchmark.chunkTextSimple{chunkSize=500}: score +30.0%",
+                "ChunkingBenchmark.chunkTextSimple{chunkSize=1000}: allocation +30.0%");
+        assertThat(lines).hasSize(4);
+    }
+
+    private static String run(String benchmark, String mode, String params, double score, double allocation) {
+        return "{\"benchmark\":\"com.epam.training.gen.ai.util." + benchmark + "\",\"mode\":\"" + mode + "\",\"params\":" + params
+                + ",\"primaryMetric\":{\"score\":" + score + "},\"secondaryMetrics\":{\"" + JmhResultComparison.ALLOCATION
+                + "\":{\"score\":" + allocation + "}}}";
+    }
+}
@@ -0,0 +1,94 @@
+package com.epam.training.gen.ai.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MinHashTest {
+
+    @Test
+    @DisplayName("Should give the same signature regardless of case, whitespace and punctuation")
+    void signature_shouldIgnoreFormatting() {
+        String plain = "Section 4.2 Emergency care\nEmergency services are covered in and out of network. Page 3";
+        String formatted = "SECTION 4.2  emergency care -- emergency services are covered\tin and out of network; page 3";
+
+        assertThat(MinHash.signature(formatted, 128, 3)).containsExactly(MinHash.signature(plain, 128, 3));
+        assertThat(MinHash.amounts(formatted)).isEqualTo(MinHash.amounts(plain));
+    }
+
+    @Test
+    @DisplayName("Should count amounts and percentages as words and tell texts with other amounts apart")
+    void signature_withOtherAmounts_shouldDiffer() {
+        String standard = "The deductible is $1,500 per year and the copay is $20 per visit, then 80% is covered.";
+        String plus = "The deductible is $2,000 per year and the copay is $40 per visit, then 80% is covered.";
+
+        assertThat(MinHash.similarity(MinHash.signature(standard, 128, 3), MinHash.signature(plus, 128, 3))).isLessThan(0.5);
+        assertThat(MinHash.amounts(standard)).isNotEqualTo(MinHash.amounts(plus));
+        assertThat(MinHash.amounts("$1,500")).isNotEqualTo(MinHash.amounts("$1,600"));
+        assertThat(MinHash.amounts("80%")).isNotEqualTo(MinHash.amounts("80 %"));
+        assertThat(MinHash.amounts(standard + " See page 14, section 4.2.")).isEqualTo(MinHash.amounts(standard));
+        assertThat(MinHash.amounts("No amounts on page 3.")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should estimate the Jaccard similarity of the word shingles")
+    void similarity_shouldEstimateJaccard() {
+        Random random = new Random(3);
+        String[] words = new String[2000];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = randomWord(random);
+        }
+        StringBuilder a = new StringBuilder();
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            a.append(words[i]).append(' ');
+            b.append(words[i < 300 ? i : 1000 + i]).append(' ');
+        }
+
+        double exact = jaccard(shingles(a.toString()), shingles(b.toString()));
+        double estimate = MinHash.similarity(MinHash.signature(a, 1024, 3), MinHash.signature(b, 1024, 3));
+
+        assertThat(exact).isBetween(0.55, 0.65);
+        assertThat(estimate).isCloseTo(exact, within(0.05));
+    }
+
+    @Test
+    @DisplayName("Should treat a text shorter than one shingle as a single shingle")
+    void signature_withShortText_shouldUseAllWords() {
+        int[] empty = MinHash.signature(" -- ; . ", 16, 3);
+
+        assertThat(empty).containsOnly(Integer.MAX_VALUE);
+        assertThat(MinHash.signature("Dental care", 16, 3)).containsExactly(MinHash.signature("dental, CARE.", 16, 3));
+        assertThat(MinHash.similarity(MinHash.signature("Dental care", 16, 3), MinHash.signature("Vision care", 16, 3)))
+                .isLessThan(0.5);
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[3 + random.nextInt(6)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+
+    private static Set<String> shingles(String text) {
+        String[] words = text.trim().split(" ");
+        Set<String> shingles = new HashSet<>();
+        for (int i = 0; i + 3 <= words.length; i++) {
+            shingles.add(words[i] + ' ' + words[i + 1] + ' ' + words[i + 2]);
+        }
+        return shingles;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        Set<String> intersection = new HashSet<>(a);
+        intersection.retainAll(b);
+        return intersection.size() / (double) (a.size() + b.size() - intersection.size());
+    }
+}
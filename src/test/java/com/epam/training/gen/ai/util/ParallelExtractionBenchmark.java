@@ -0,0 +1,62 @@
+package com.epam.training.gen.ai.util;
+
+import com.epam.training.gen.ai.model.ExtractedDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF extraction time by the number of threads extracting page ranges in parallel; 1 is the
+ * single stripper over the whole document. {@code merged} is all bundled PDFs joined twice, about
+ * 530 pages. The speedup is bounded by the cores of the machine and by every extra thread loading
+ * its own copy of the document. Run with {@code mvn test -Pjmh -Djmh.include=ParallelExtractionBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelExtractionBenchmark {
+
+    private static final String MERGED = "merged";
+
+    @Param({BenchmarkFixtures.LARGEST_PDF, MERGED})
+    private String file;
+
+    @Param({"1", "2", "4", "8"})
+    private int threads;
+
+    private DataExtraction dataExtraction;
+    private byte[] pdf;
+
+    @Setup
+    public void setUp() {
+        BenchmarkFixtures.quietLogging();
+        dataExtraction = new DataExtraction(new TextNormalizer(), threads, 8);
+        pdf = MERGED.equals(file) ? BenchmarkFixtures.mergedPdf(2) : BenchmarkFixtures.pdf(file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataExtraction.shutdown();
+    }
+
+    @Benchmark
+    public ExtractedDocument extractPdf() throws IOException {
+        return dataExtraction.extractPdf(new ByteArrayInputStream(pdf), file);
+    }
+}
@@ -0,0 +1,98 @@
+package com.epam.training.gen.ai.util;
+
+import com.epam.training.gen.ai.model.ExtractedDocument;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextNormalizerTest {
+
+    private final TextNormalizer normalizer = new TextNormalizer();
+
+    @Test
+    @DisplayName("Should remove headers and footers repeating across pages and move the page offsets")
+    void normalize_shouldRemoveRepeatedHeadersAndFooters() {
+        String[] pages = {
+                "Northwind Health Plus\nDeductibles apply to all services.\nPage 1 of 4\n",
+                "Northwind Health Plus\nEmergency care is covered.\nPage 2 of 4\n",
+                "NORTHWIND  HEALTH PLUS \nVision care is covered.\n\nPage 3 of 4\n",
+                "Northwind Health Plus\nDental care is covered.\nPage 4 of 4\n"};
+        ExtractedDocument document = document(pages);
+
+        ExtractedDocument normalized = normalizer.normalize(document);
+
+        assertThat(normalized.getText()).isEqualTo("Deductibles apply to all services.\nEmergency care is covered.\n"
+                + "Vision care is covered.\nDental care is covered.");
+        assertThat(normalized.getPageOffsets()).containsExactly(0, 35, 62, 86);
+        assertThat(normalized.pageAt(normalized.getText().indexOf("Vision"))).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should keep lines that repeat on too few pages")
+    void normalize_shouldKeepLinesRepeatingOnFewPages() {
+        ExtractedDocument document = document(
+                "Summary of Benefits\nPremiums are paid monthly.\n",
+                "Summary of Benefits\nDeductibles apply.\n",
+                "Exclusions\nCosmetic surgery is not covered.\n",
+                "Glossary\nA copay is a fixed amount.\n",
+                "Contact\nCall the member line.\n");
+
+        ExtractedDocument normalized = normalizer.normalize(document);
+
+        assertThat(normalized.getText()).startsWith("Summary of Benefits\nPremiums are paid monthly.\nSummary of Benefits\n");
+    }
+
+    @Test
+    @DisplayName("Should join words hyphenated at a line break and collapse whitespace")
+    void normalize_shouldJoinHyphenatedWordsAndCollapseWhitespace() {
+        String text = "  You pay the out-of-  \r\npocket   maximum\tonce per year. \n\n\n\nIn-network pro\u00ADviders cost less.  \n"
+                + "Contact your pro\u00AD\nvider. Plan B-\nOptions differ.";
+
+        String normalized = normalizer.normalize(new ExtractedDocument(text, null)).getText();
+
+        assertThat(normalized).isEqualTo("You pay the out-of-pocket maximum once per year.\n\nIn-network providers cost less.\n"
+                + "Contact your provider. Plan B-\nOptions differ.");
+    }
+
+    @Test
+    @DisplayName("Should return the document unchanged when disabled")
+    void normalize_whenDisabled_shouldReturnSameDocument() {
+        ExtractedDocument document = new ExtractedDocument("a  b\n\n\nc", null);
+
+        assertThat(new TextNormalizer(false, 3, 3, 0.5).normalize(document)).isSameAs(document);
+        assertThat(normalizer.normalize(null)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should shrink the extracted PDF text and keep its pages")
+    void normalize_withPdf_shouldKeepPages() throws IOException {
+        DataExtraction raw = new DataExtraction(new TextNormalizer(false, 3, 3, 0.5), 1, 16);
+        ExtractedDocument original;
+        ExtractedDocument normalized;
+        try (InputStream first = getClass().getResourceAsStream("/data/Benefit_Options.pdf");
+             InputStream second = getClass().getResourceAsStream("/data/Benefit_Options.pdf")) {
+            original = raw.extractPdf(first, "Benefit_Options.pdf");
+            normalized = new DataExtraction().extractPdf(second, "Benefit_Options.pdf");
+        }
+
+        assertThat(normalized.getText().length()).isLessThan(original.getText().length());
+        assertThat(normalized.getText()).doesNotContain("  ", " \n", "\n\n\n");
+        assertThat(normalized.getPageOffsets()).hasSameSizeAs(original.getPageOffsets()).isSorted();
+        String lastPage = normalized.getText().substring(normalized.getPageOffsets()[normalized.getPageOffsets().length - 1]);
+        assertThat(original.getText()).contains(lastPage.substring(0, 20));
+    }
+
+    private static ExtractedDocument document(String... pages) {
+        StringBuilder text = new StringBuilder();
+        int[] offsets = new int[pages.length];
+        for (int i = 0; i < pages.length; i++) {
+            offsets[i] = text.length();
+            text.append(pages[i]);
+        }
+        return new ExtractedDocument(text.toString(), offsets);
+    }
+}